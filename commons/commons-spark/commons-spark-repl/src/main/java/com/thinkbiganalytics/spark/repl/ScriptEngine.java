@@ -22,19 +22,26 @@ package com.thinkbiganalytics.spark.repl;
 
 import com.google.common.base.Charsets;
 import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
 import com.thinkbiganalytics.spark.util.ArrayUtils;
 
 import org.apache.commons.io.output.ByteArrayOutputStream;
 import org.apache.spark.SparkContext;
 import org.apache.spark.sql.SQLContext;
 import org.apache.spark.sql.hive.HiveContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.Nonnull;
@@ -53,6 +60,13 @@ import scala.tools.nsc.interpreter.NamedParam;
  */
 public abstract class ScriptEngine {
 
+    private static final Logger log = LoggerFactory.getLogger(ScriptEngine.class);
+
+    /**
+     * Maximum number of compiled scripts to cache
+     */
+    private static final int MAX_COMPILED_SCRIPTS = 100;
+
     /**
      * End of line character
      */
@@ -74,6 +88,20 @@ public abstract class ScriptEngine {
     @Nonnull
     private final AtomicReference<Throwable> exception = new AtomicReference<>();
 
+    /**
+     * Compiled scripts by hash of the normalized script source
+     */
+    @Nonnull
+    private final Cache<String, Script> compiledScripts = CacheBuilder.newBuilder()
+        .maximumSize(MAX_COMPILED_SCRIPTS)
+        .recordStats()
+        .build();
+
+    /**
+     * Total time spent compiling scripts, in nanoseconds
+     */
+    private long compileTime;
+
     /**
      * Compiler output stream for capturing compile errors
      */
@@ -85,6 +113,13 @@ public abstract class ScriptEngine {
      */
     @Nonnull
     private final AtomicReference<Object> result = new AtomicReference<>();
+
+    /**
+     * The last script that was run
+     */
+    @Nonnull
+    private final AtomicReference<Script> script = new AtomicReference<>();
+
     /**
      * Map of variable names to values for bindings
      */
@@ -152,18 +187,59 @@ public abstract class ScriptEngine {
         // Instantiate class
         cls.append("new Script(engine).run()\n");
 
-        // Execute script
+        // Run the compiled script, or compile and run the script if it is not cached
+        this.exception.set(null);
         this.out.reset();
-
-        execute(cls.toString());
+        this.result.set(null);
+
+        final String source = cls.toString();
+        final String key = Hashing.sha256().hashString(normalize(source), Charsets.UTF_8).toString();
+        final Script compiledScript = compiledScripts.getIfPresent(key);
+
+        if (compiledScript != null) {
+            log.debug("Running compiled script {}", key);
+            execute(compiledScript);
+        } else {
+            this.script.set(null);
+            final long start = System.nanoTime();
+            execute(source);
+
+            final long elapsed = System.nanoTime() - start;
+            compileTime += elapsed;
+            log.debug("Compiled and ran script {} in {} ms", key, TimeUnit.NANOSECONDS.toMillis(elapsed));
+
+            checkCompileError();
+            if (this.script.get() != null) {
+                compiledScripts.put(key, this.script.get());
+            }
+        }
 
         // Check for exception and return result
-        checkCompileError();
         checkRuntimeError();
 
         return this.result.get();
     }
 
+    /**
+     * Gets the statistics for the cache of compiled scripts.
+     *
+     * @return the cache statistics
+     */
+    @Nonnull
+    public CacheStats getCompiledScriptStats() {
+        return compiledScripts.stats();
+    }
+
+    /**
+     * Gets the total time spent compiling and running scripts that were not cached.
+     *
+     * @param unit the time unit of the result
+     * @return the total compile time
+     */
+    public synchronized long getCompileTime(@Nonnull final TimeUnit unit) {
+        return unit.convert(compileTime, TimeUnit.NANOSECONDS);
+    }
+
     /**
      * Gets the class loader used by the interpreter.
      *
@@ -214,6 +290,15 @@ public abstract class ScriptEngine {
      */
     protected abstract void execute(@Nonnull final String script) throws ScriptException;
 
+    /**
+     * Runs the specified script that was previously compiled by {@link #execute(String)}.
+     *
+     * @param script the compiled script
+     */
+    protected void execute(@Nonnull final Script script) {
+        script.run();
+    }
+
     /**
      * Gets the writer for capturing compile errors.
      *
@@ -233,9 +318,11 @@ public abstract class ScriptEngine {
         }
 
         // Clear instance variables
+        compiledScripts.invalidateAll();
         exception.set(null);
         out.reset();
         result.set(null);
+        script.set(null);
         sparkContext = null;
         sqlContext = null;
     }
@@ -260,6 +347,15 @@ public abstract class ScriptEngine {
         this.exception.set(t);
     }
 
+    /**
+     * Sets the script that is running.
+     *
+     * @param script the script
+     */
+    void setScript(@Nonnull final Script script) {
+        this.script.set(script);
+    }
+
     /**
      * Sets the result of the current script.
      *
@@ -270,6 +366,17 @@ public abstract class ScriptEngine {
         this.result.set(result);
     }
 
+    /**
+     * Normalizes the line endings and surrounding whitespace of the specified script source.
+     *
+     * @param source the script source
+     * @return the normalized source
+     */
+    @Nonnull
+    private static String normalize(@Nonnull final String source) {
+        return source.replace("\r\n", "\n").trim();
+    }
+
     /**
      * Checks the output stream for a compile error.
      *
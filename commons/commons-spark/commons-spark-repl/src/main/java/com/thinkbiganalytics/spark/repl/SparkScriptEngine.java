@@ -157,6 +157,20 @@ public class SparkScriptEngine extends ScriptEngine {
         }
     }
 
+    @Override
+    protected void execute(@Nonnull final Script script) {
+        // Run with the interpreter class loader, as when the script was compiled
+        final Thread currentThread = Thread.currentThread();
+        final ClassLoader contextClassLoader = currentThread.getContextClassLoader();
+        currentThread.setContextClassLoader(getClassLoader());
+
+        try {
+            script.run();
+        } finally {
+            currentThread.setContextClassLoader(contextClassLoader);
+        }
+    }
+
     @Override
     protected void reset() {
         super.reset();
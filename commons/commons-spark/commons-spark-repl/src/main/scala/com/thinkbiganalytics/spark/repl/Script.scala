@@ -13,6 +13,7 @@ abstract class Script(engine: ScriptEngine) extends Runnable {
       * Evaluates this script and passes the result to the script engine.
       */
     override def run(): Unit = {
+        engine.setScript(this)
         try {
             val result: Any = eval()
             if (result == Unit) {
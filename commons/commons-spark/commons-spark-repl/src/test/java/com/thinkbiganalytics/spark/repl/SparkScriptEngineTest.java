@@ -35,11 +35,14 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import java.io.PrintWriter;
+import java.util.Collections;
 
 import javax.script.ScriptException;
 
 import scala.tools.nsc.Settings;
 import scala.tools.nsc.interpreter.IMain;
+import scala.tools.nsc.interpreter.NamedParam;
+import scala.tools.nsc.interpreter.NamedParamClass;
 
 @RunWith(SpringJUnit4ClassRunner.class)
 @ContextConfiguration(classes = {SparkScriptEngine.class, SparkScriptEngineTest.class})
@@ -110,6 +113,21 @@ public class SparkScriptEngineTest {
         Assert.assertEquals(3, engine.eval("new Integer(1 + 2)"));
     }
 
+    /**
+     * Verify running a compiled script again with different bindings.
+     */
+    @Test
+    public void testCompiledScript() throws Exception {
+        final String script = "new Integer(value() + 1)";
+        final long misses = engine.getCompiledScriptStats().missCount();
+        final long hits = engine.getCompiledScriptStats().hitCount();
+
+        Assert.assertEquals(2, engine.eval(script, Collections.<NamedParam>singletonList(new NamedParamClass("value", "Int", 1))));
+        Assert.assertEquals(3, engine.eval(script, Collections.<NamedParam>singletonList(new NamedParamClass("value", "Int", 2))));
+        Assert.assertEquals(misses + 1, engine.getCompiledScriptStats().missCount());
+        Assert.assertEquals(hits + 1, engine.getCompiledScriptStats().hitCount());
+    }
+
     /**
      * Verify security exception for rule violation.
      */
@@ -180,6 +180,14 @@ public interface OpsManagerFeedProvider {
 
     List<? extends FeedSummary> findFeedSummary();
 
+    /**
+     * Find the summary rows for a single feed.  This is not bound by entity access control.
+     *
+     * @param feedId the feed id
+     * @return the running jobs along with the latest finished job for the feed
+     */
+    List<? extends FeedSummary> findFeedSummary(OpsManagerFeed.ID feedId);
+
     DateTime getLastActiveTimeStamp(String feedName);
 
     /**
@@ -30,6 +30,7 @@ import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
 
 /**
  * Provider for accessing and creating {@link BatchJobExecution}
@@ -87,6 +88,16 @@ public interface BatchJobExecutionProvider extends BatchJobExecutionFilters {
      */
     BatchJobExecution save(BatchJobExecution jobExecution, ProvenanceEventRecordDTO event);
 
+    /**
+     * save a batch of Provenance events, creating the job executions and step executions for all of them within the current transaction.
+     * The events are applied in order, so events for the same job should be passed together in the order they occurred.
+     *
+     * @param events     the provenance events
+     * @param feedLookup returns the feed related to an event
+     * @return the job execution for each event, in the same order as the events.  The entry is null if the event is not related to a job execution
+     */
+    List<BatchJobExecution> save(List<ProvenanceEventRecordDTO> events, Function<ProvenanceEventRecordDTO, OpsManagerFeed> feedLookup);
+
     /**
      * find a job exeuction by its unique key
      *
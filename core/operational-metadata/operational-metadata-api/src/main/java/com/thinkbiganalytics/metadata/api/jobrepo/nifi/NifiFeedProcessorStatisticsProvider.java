@@ -38,6 +38,14 @@ public interface NifiFeedProcessorStatisticsProvider {
      */
     NifiFeedProcessorStats create(NifiFeedProcessorStats t);
 
+    /**
+     * Save new stats records and add them to the minute, hour and day rollups
+     *
+     * @param stats the new stats records
+     * @return the saved stats records
+     */
+    List<? extends NifiFeedProcessorStats> create(List<? extends NifiFeedProcessorStats> stats);
+
     /**
      * find statistics within a given start and end time
      *
@@ -90,6 +98,18 @@ public interface NifiFeedProcessorStatisticsProvider {
      */
     List<? extends NifiFeedProcessorStats> findForFeedStatisticsGroupedByTime(String feedName, DateTime start, DateTime end);
 
+    /**
+     * Find stats for a given feed and time frame grouped by time.
+     * Long time frames are grouped into the coarsest minute, hour or day buckets that still give at least the requested number of data points.
+     *
+     * @param feedName   the feed name
+     * @param start      a start date
+     * @param end        an end date
+     * @param dataPoints the minimum number of data points wanted over the time frame, or null for the default
+     * @return a list of feed processor statistics
+     */
+    List<? extends NifiFeedProcessorStats> findForFeedStatisticsGroupedByTime(String feedName, DateTime start, DateTime end, Integer dataPoints);
+
     /**
      * Find stats for a given feed and time frame grouped by the stats eventTime
      *
@@ -98,8 +118,22 @@ public interface NifiFeedProcessorStatisticsProvider {
     List<? extends NifiFeedProcessorStats> findForFeedStatisticsGroupedByTime(String feedName, TimeFrame timeFrame);
 
 
+    /**
+     * Update stats records that have already been created.  The rollups are not changed
+     *
+     * @param stats the stats records to update
+     * @return the saved stats records
+     */
     List<? extends NifiFeedProcessorStats> save(List<? extends NifiFeedProcessorStats> stats);
 
+    /**
+     * Check if a stats record has been saved
+     *
+     * @param id the id of the stats record
+     * @return true if the record exists, false if not
+     */
+    boolean exists(String id);
+
 
 
     List<? extends NifiFeedProcessorErrors> findFeedProcessorErrors(String feedName, DateTime start, DateTime end);
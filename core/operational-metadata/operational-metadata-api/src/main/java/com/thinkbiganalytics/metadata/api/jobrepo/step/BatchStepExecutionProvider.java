@@ -23,6 +23,8 @@ package com.thinkbiganalytics.metadata.api.jobrepo.step;
 import com.thinkbiganalytics.metadata.api.jobrepo.job.BatchJobExecution;
 import com.thinkbiganalytics.nifi.provenance.model.ProvenanceEventRecordDTO;
 
+import java.util.List;
+
 /**
  * Provider for accessing {@link BatchStepExecution} data
  */
@@ -43,6 +45,14 @@ public interface BatchStepExecutionProvider {
      */
     BatchStepExecution createStepExecution(BatchJobExecution jobExecution, ProvenanceEventRecordDTO event);
 
+    /**
+     * Create or update the StepExecution records for a list of Provenance Event Records belonging to the same job execution.
+     * The existing steps are looked up once and the steps are saved together.
+     *
+     * @return the steps created or updated, in the order they were first touched by the events
+     */
+    List<BatchStepExecution> createStepExecutions(BatchJobExecution jobExecution, List<ProvenanceEventRecordDTO> events);
+
     /**
      * When a step fails, get notified of the failure
      */
@@ -24,11 +24,16 @@ import com.thinkbiganalytics.metadata.api.feed.FeedSummary;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.UUID;
 
 public interface FeedSummaryRepository extends JpaRepository<JpaFeedSummary, FeedSummary.ID> {
 
     @Query("select summary from JpaFeedSummary as summary ")
     public List<? extends FeedSummary> findAllWithoutAcl();
+
+    @Query("select summary from JpaFeedSummary as summary where summary.feedId = :feedId")
+    public List<? extends FeedSummary> findByFeedIdWithoutAcl(@Param("feedId") UUID feedId);
 }
@@ -77,6 +77,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.UUID;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -509,6 +510,11 @@ public class OpsFeedManagerFeedProvider extends AbstractCacheBackedProvider<OpsM
         return feedSummaryRepository.findAllWithoutAcl();
     }
 
+    @Override
+    public List<? extends FeedSummary> findFeedSummary(OpsManagerFeed.ID feedId) {
+        return feedSummaryRepository.findByFeedIdWithoutAcl(UUID.fromString(feedId.toString()));
+    }
+
     @Override
     public DateTime getLastActiveTimeStamp(String feedName) {
         DateTime lastFeedTime = null;
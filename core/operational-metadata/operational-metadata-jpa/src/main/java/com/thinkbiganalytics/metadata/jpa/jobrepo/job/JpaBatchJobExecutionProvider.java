@@ -20,6 +20,7 @@ package com.thinkbiganalytics.metadata.jpa.jobrepo.job;
  * #L%
  */
 
+import com.google.common.util.concurrent.Striped;
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.ConstructorExpression;
 import com.querydsl.core.types.Expression;
@@ -87,6 +88,8 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
@@ -96,10 +99,13 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
@@ -118,6 +124,8 @@ public class JpaBatchJobExecutionProvider extends QueryDslPagingSupport<JpaBatch
 
     private static String PARAM_TB_JOB_TYPE = "tb.jobType";
 
+    private static final int JOB_EXECUTION_LOCK_STRIPES = 64;
+
     @Autowired
     private JPAQueryFactory factory;
 
@@ -174,6 +182,13 @@ public class JpaBatchJobExecutionProvider extends QueryDslPagingSupport<JpaBatch
      */
     private Map<String, Long> latestStartTimeByFeedName = new ConcurrentHashMap<>();
 
+    /**
+     * Locks used when getting or creating a job execution.
+     * Batch events lock on the job flow file and stream events lock on the feed, so events for unrelated jobs and feeds are processed in parallel.
+     * The locks are held until the transaction completes so another thread can't miss an uncommitted job and create it again.
+     */
+    private final Striped<Lock> jobExecutionLocks = Striped.lock(JOB_EXECUTION_LOCK_STRIPES);
+
 
     @Autowired
     public JpaBatchJobExecutionProvider(BatchJobExecutionRepository jobExecutionRepository, BatchJobInstanceRepository jobInstanceRepository,
@@ -409,26 +424,77 @@ public class JpaBatchJobExecutionProvider extends QueryDslPagingSupport<JpaBatch
      * Get or Create the JobExecution for a given ProvenanceEvent
      */
     @Override
-    public synchronized JpaBatchJobExecution getOrCreateJobExecution(ProvenanceEventRecordDTO event, OpsManagerFeed feed) {
+    public JpaBatchJobExecution getOrCreateJobExecution(ProvenanceEventRecordDTO event, OpsManagerFeed feed) {
         JpaBatchJobExecution jobExecution = null;
-        if (event.isStream()) {
-            //Streams only care about start/stop events to track.. otherwise we can disregard the events)
-            if (event.isStartOfJob() || event.isFinalJobEvent()) {
-                jobExecution = getOrCreateStreamJobExecution(event, feed);
-            }
-        } else {
-            if (feed == null) {
-                feed = opsManagerFeedRepository.findByName(event.getFeedName());
-            }
-            if (isProcessBatchEvent(event, feed)) {
-                jobExecution = getOrCreateBatchJobExecution(event, feed);
+        List<Lock> locks = lockJobExecutions(Collections.singletonList(event));
+        try {
+            if (event.isStream()) {
+                //Streams only care about start/stop events to track.. otherwise we can disregard the events)
+                if (event.isStartOfJob() || event.isFinalJobEvent()) {
+                    jobExecution = getOrCreateStreamJobExecution(event, feed);
+                }
+            } else {
+                if (feed == null) {
+                    feed = opsManagerFeedRepository.findByName(event.getFeedName());
+                }
+                if (isProcessBatchEvent(event, feed)) {
+                    jobExecution = getOrCreateBatchJobExecution(event, feed);
+                }
             }
+        } finally {
+            locks.forEach(Lock::unlock);
         }
 
         return jobExecution;
 
     }
 
+    /**
+     * Lock the job executions of the events until the current transaction completes.
+     * The stripes are locked in a consistent order so two transactions locking several jobs can't deadlock.
+     *
+     * @param events the events to lock the job executions of
+     * @return the locks the caller must release if there is no transaction to release them, otherwise an empty list
+     */
+    private List<Lock> lockJobExecutions(List<ProvenanceEventRecordDTO> events) {
+        List<String> lockKeys = events.stream()
+            .map(event -> event.isStream() ? event.getFeedName() : event.getJobFlowFileId())
+            .map(lockKey -> lockKey != null ? lockKey : "")
+            .collect(Collectors.toList());
+        Iterable<Lock> locks = jobExecutionLocks.bulkGet(lockKeys);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<Lock> acquired = new ArrayList<>();
+            for (Lock lock : locks) {
+                lock.lock();
+                acquired.add(lock);
+            }
+            return acquired;
+        }
+
+        @SuppressWarnings("unchecked")
+        Set<Lock> heldLocks = (Set<Lock>) TransactionSynchronizationManager.getResource(jobExecutionLocks);
+        if (heldLocks == null) {
+            Set<Lock> transactionLocks = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(jobExecutionLocks, transactionLocks);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(jobExecutionLocks);
+                    transactionLocks.forEach(Lock::unlock);
+                }
+            });
+            heldLocks = transactionLocks;
+        }
+        for (Lock lock : locks) {
+            if (!heldLocks.contains(lock)) {
+                lock.lock();
+                heldLocks.add(lock);
+            }
+        }
+        return Collections.emptyList();
+    }
+
     @Override
     public void updateFeedJobStartTime(BatchJobExecution jobExecution,OpsManagerFeed feed){
         if(jobExecution != null){
@@ -669,6 +735,52 @@ public class JpaBatchJobExecutionProvider extends QueryDslPagingSupport<JpaBatch
         return null;
     }
 
+    /**
+     * Save a batch of events in order.
+     * The step events for a job are collected and created together, and are flushed before the final event of the job so the job is finished with all of its steps
+     *
+     * @return the job execution for each event, or null if the event has no job
+     */
+    @Override
+    public List<BatchJobExecution> save(List<ProvenanceEventRecordDTO> events, Function<ProvenanceEventRecordDTO, OpsManagerFeed> feedLookup) {
+        //lock all the jobs up front so the stripes are taken in order
+        List<Lock> locks = lockJobExecutions(events);
+        try {
+            return saveEvents(events, feedLookup);
+        } finally {
+            locks.forEach(Lock::unlock);
+        }
+    }
+
+    private List<BatchJobExecution> saveEvents(List<ProvenanceEventRecordDTO> events, Function<ProvenanceEventRecordDTO, OpsManagerFeed> feedLookup) {
+        List<BatchJobExecution> jobExecutions = new ArrayList<>(events.size());
+        List<ProvenanceEventRecordDTO> pendingSteps = new ArrayList<>();
+        BatchJobExecution currentJob = null;
+        for (ProvenanceEventRecordDTO event : events) {
+            if (event.isFinalJobEvent() && !pendingSteps.isEmpty()) {
+                batchStepExecutionProvider.createStepExecutions(currentJob, pendingSteps);
+                pendingSteps.clear();
+            }
+            JpaBatchJobExecution jobExecution = getOrCreateJobExecution(event, feedLookup.apply(event));
+            if (jobExecution != currentJob && !pendingSteps.isEmpty()) {
+                batchStepExecutionProvider.createStepExecutions(currentJob, pendingSteps);
+                pendingSteps.clear();
+            }
+            if (jobExecution != null) {
+                currentJob = jobExecution;
+                //streaming jobs do not track steps
+                if (!jobExecution.isStream()) {
+                    pendingSteps.add(event);
+                }
+            }
+            jobExecutions.add(jobExecution);
+        }
+        if (!pendingSteps.isEmpty()) {
+            batchStepExecutionProvider.createStepExecutions(currentJob, pendingSteps);
+        }
+        return jobExecutions;
+    }
+
 
     public BatchJobExecution save(BatchJobExecution jobExecution) {
         return jobExecutionRepository.save((JpaBatchJobExecution) jobExecution);
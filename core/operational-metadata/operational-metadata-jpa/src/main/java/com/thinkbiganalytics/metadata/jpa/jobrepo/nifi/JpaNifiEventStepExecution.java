@@ -76,16 +76,23 @@ public class JpaNifiEventStepExecution implements Serializable, NifiEventStepExe
 
     public JpaNifiEventStepExecution(Long eventId, String flowFileId) {
         this.eventStepExecutionPK = new NifiEventStepExecutionPK(eventId, flowFileId);
+        //the read only columns are only populated on load, set them so new steps can be used before they are flushed
+        this.eventId = eventId;
+        this.flowFileId = flowFileId;
     }
 
     public JpaNifiEventStepExecution(BatchStepExecution stepExecution, Long eventId, String flowFileId) {
         this.eventStepExecutionPK = new NifiEventStepExecutionPK(eventId, flowFileId);
+        this.eventId = eventId;
+        this.flowFileId = flowFileId;
         this.stepExecution = stepExecution;
         this.jobExecution = stepExecution.getJobExecution();
     }
 
     public JpaNifiEventStepExecution(BatchJobExecution jobExecution, BatchStepExecution stepExecution, Long eventId, String flowFileId) {
         this.eventStepExecutionPK = new NifiEventStepExecutionPK(eventId, flowFileId);
+        this.eventId = eventId;
+        this.flowFileId = flowFileId;
         this.jobExecution = jobExecution;
         this.stepExecution = stepExecution;
     }
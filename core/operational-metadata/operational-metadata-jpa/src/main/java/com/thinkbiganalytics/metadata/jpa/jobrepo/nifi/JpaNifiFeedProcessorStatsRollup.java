@@ -0,0 +1,327 @@
+package com.thinkbiganalytics.metadata.jpa.jobrepo.nifi;
+
+/*-
+ * #%L
+ * thinkbig-operational-metadata-jpa
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.metadata.api.jobrepo.nifi.NifiFeedProcessorStats;
+
+import org.hibernate.annotations.Type;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.springframework.data.domain.Persistable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+/**
+ * The {@link JpaNifiFeedProcessorStats} for a feed and processor summed into a fixed size time bucket.
+ * Rollups are kept at each {@link Resolution} and are updated as new stats are saved so charts over long time ranges
+ * do not need to aggregate the raw stats rows.
+ */
+@Entity
+@Table(name = "NIFI_FEED_PROCESSOR_STATS_ROLLUP")
+public class JpaNifiFeedProcessorStatsRollup implements Persistable<String> {
+
+    @Id
+    @Column(name = "ID")
+    private String id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "RESOLUTION")
+    private Resolution resolution;
+
+    @Type(type = "org.jadira.usertype.dateandtime.joda.PersistentDateTime")
+    @Column(name = "BUCKET_TIME")
+    private DateTime bucketTime;
+
+    @Column(name = "FM_FEED_NAME")
+    private String feedName;
+    @Column(name = "NIFI_PROCESSOR_ID")
+    private String processorId;
+    @Column(name = "PROCESSOR_NAME")
+    private String processorName;
+
+    @Type(type = "org.jadira.usertype.dateandtime.joda.PersistentDateTime")
+    @Column(name = "MIN_EVENT_TIME")
+    private DateTime minEventTime;
+    @Type(type = "org.jadira.usertype.dateandtime.joda.PersistentDateTime")
+    @Column(name = "MAX_EVENT_TIME")
+    private DateTime maxEventTime;
+
+    @Column(name = "DURATION_MILLIS")
+    private Long duration = 0L;
+    @Column(name = "BYTES_IN")
+    private Long bytesIn = 0L;
+    @Column(name = "BYTES_OUT")
+    private Long bytesOut = 0L;
+    @Column(name = "TOTAL_EVENTS")
+    private Long totalCount = 0L;
+    @Column(name = "JOBS_STARTED")
+    private Long jobsStarted = 0L;
+    @Column(name = "JOBS_FINISHED")
+    private Long jobsFinished = 0L;
+    @Column(name = "JOBS_FAILED")
+    private Long jobsFailed = 0L;
+    @Column(name = "JOB_DURATION")
+    private Long jobDuration = 0L;
+    @Column(name = "SUCCESSFUL_JOB_DURATION")
+    private Long successfulJobDuration = 0L;
+    @Column(name = "PROCESSORS_FAILED")
+    private Long processorsFailed = 0L;
+    @Column(name = "FLOW_FILES_STARTED")
+    private Long flowFilesStarted = 0L;
+    @Column(name = "FLOW_FILES_FINISHED")
+    private Long flowFilesFinished = 0L;
+    @Column(name = "FAILED_EVENTS")
+    private Long failedCount = 0L;
+
+    /**
+     * The id is assigned rather than generated so this tells Spring Data to persist a new bucket rather than merge it
+     */
+    @Transient
+    private boolean isNew = true;
+
+    public JpaNifiFeedProcessorStatsRollup() {
+    }
+
+    public JpaNifiFeedProcessorStatsRollup(Resolution resolution, DateTime bucketTime, String feedName, String processorId) {
+        this.id = rollupId(resolution, bucketTime, feedName, processorId);
+        this.resolution = resolution;
+        this.bucketTime = bucketTime;
+        this.feedName = feedName;
+        this.processorId = processorId;
+    }
+
+    /**
+     * The id is derived from the bucket so the rollup for a stats row can be found without a query on the bucket columns
+     *
+     * @return the id of the rollup row for the resolution, bucket, feed and processor
+     */
+    public static String rollupId(Resolution resolution, DateTime bucketTime, String feedName, String processorId) {
+        String key = resolution.name() + "|" + bucketTime.getMillis() + "|" + feedName + "|" + processorId;
+        return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    /**
+     * Add the counts from the stats into this rollup
+     *
+     * @param stats the stats to add
+     */
+    public void add(NifiFeedProcessorStats stats) {
+        if (stats.getProcessorName() != null) {
+            processorName = stats.getProcessorName();
+        }
+        minEventTime = min(minEventTime, stats.getMinEventTime());
+        maxEventTime = max(maxEventTime, stats.getMaxEventTime());
+        duration += value(stats.getDuration());
+        bytesIn += value(stats.getBytesIn());
+        bytesOut += value(stats.getBytesOut());
+        totalCount += value(stats.getTotalCount());
+        jobsStarted += value(stats.getJobsStarted());
+        jobsFinished += value(stats.getJobsFinished());
+        jobsFailed += value(stats.getJobsFailed());
+        jobDuration += value(stats.getJobDuration());
+        successfulJobDuration += value(stats.getSuccessfulJobDuration());
+        processorsFailed += value(stats.getProcessorsFailed());
+        flowFilesStarted += value(stats.getFlowFilesStarted());
+        flowFilesFinished += value(stats.getFlowFilesFinished());
+        failedCount += value(stats.getFailedCount());
+    }
+
+    /**
+     * Add the counts from another rollup for the same bucket into this rollup
+     *
+     * @param rollup the rollup to add
+     */
+    public void add(JpaNifiFeedProcessorStatsRollup rollup) {
+        if (rollup.getProcessorName() != null) {
+            processorName = rollup.getProcessorName();
+        }
+        minEventTime = min(minEventTime, rollup.getMinEventTime());
+        maxEventTime = max(maxEventTime, rollup.getMaxEventTime());
+        duration += rollup.getDuration();
+        bytesIn += rollup.getBytesIn();
+        bytesOut += rollup.getBytesOut();
+        totalCount += rollup.getTotalCount();
+        jobsStarted += rollup.getJobsStarted();
+        jobsFinished += rollup.getJobsFinished();
+        jobsFailed += rollup.getJobsFailed();
+        jobDuration += rollup.getJobDuration();
+        successfulJobDuration += rollup.getSuccessfulJobDuration();
+        processorsFailed += rollup.getProcessorsFailed();
+        flowFilesStarted += rollup.getFlowFilesStarted();
+        flowFilesFinished += rollup.getFlowFilesFinished();
+        failedCount += rollup.getFailedCount();
+    }
+
+    private static long value(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    private static DateTime min(DateTime current, DateTime other) {
+        return current == null || (other != null && other.isBefore(current)) ? other : current;
+    }
+
+    private static DateTime max(DateTime current, DateTime other) {
+        return current == null || (other != null && other.isAfter(current)) ? other : current;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    public Resolution getResolution() {
+        return resolution;
+    }
+
+    public DateTime getBucketTime() {
+        return bucketTime;
+    }
+
+    public String getFeedName() {
+        return feedName;
+    }
+
+    public String getProcessorId() {
+        return processorId;
+    }
+
+    public String getProcessorName() {
+        return processorName;
+    }
+
+    public DateTime getMinEventTime() {
+        return minEventTime;
+    }
+
+    public DateTime getMaxEventTime() {
+        return maxEventTime;
+    }
+
+    public Long getDuration() {
+        return duration;
+    }
+
+    public Long getBytesIn() {
+        return bytesIn;
+    }
+
+    public Long getBytesOut() {
+        return bytesOut;
+    }
+
+    public Long getTotalCount() {
+        return totalCount;
+    }
+
+    public Long getJobsStarted() {
+        return jobsStarted;
+    }
+
+    public Long getJobsFinished() {
+        return jobsFinished;
+    }
+
+    public Long getJobsFailed() {
+        return jobsFailed;
+    }
+
+    public Long getJobDuration() {
+        return jobDuration;
+    }
+
+    public Long getSuccessfulJobDuration() {
+        return successfulJobDuration;
+    }
+
+    public Long getProcessorsFailed() {
+        return processorsFailed;
+    }
+
+    public Long getFlowFilesStarted() {
+        return flowFilesStarted;
+    }
+
+    public Long getFlowFilesFinished() {
+        return flowFilesFinished;
+    }
+
+    public Long getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * The size of the time buckets a rollup is kept at, finest first
+     */
+    public enum Resolution {
+        MINUTE(60L), HOUR(60L * 60), DAY(60L * 60 * 24);
+
+        private final long seconds;
+
+        Resolution(long seconds) {
+            this.seconds = seconds;
+        }
+
+        public long getSeconds() {
+            return seconds;
+        }
+
+        public long getMillis() {
+            return seconds * 1000L;
+        }
+
+        /**
+         * @return the start of the bucket, in UTC, that contains the time
+         */
+        public DateTime bucket(DateTime time) {
+            long millis = time.getMillis();
+            return new DateTime(millis - Math.floorMod(millis, getMillis()), DateTimeZone.UTC);
+        }
+
+        /**
+         * @return the number of buckets covering the time range
+         */
+        public long buckets(DateTime start, DateTime end) {
+            return (end.getMillis() - start.getMillis()) / getMillis();
+        }
+    }
+}
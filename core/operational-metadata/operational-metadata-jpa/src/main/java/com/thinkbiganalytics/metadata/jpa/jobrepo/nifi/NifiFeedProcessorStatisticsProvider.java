@@ -21,6 +21,7 @@ package com.thinkbiganalytics.metadata.jpa.jobrepo.nifi;
  */
 
 import com.google.common.collect.Lists;
+import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.Projections;
 import com.querydsl.jpa.impl.JPAQuery;
@@ -30,15 +31,24 @@ import com.thinkbiganalytics.metadata.api.jobrepo.nifi.NifiFeedProcessorErrors;
 import com.thinkbiganalytics.metadata.api.jobrepo.nifi.NifiFeedProcessorStats;
 import com.thinkbiganalytics.metadata.jpa.feed.FeedAclIndexQueryAugmentor;
 import com.thinkbiganalytics.metadata.jpa.feed.QJpaOpsManagerFeed;
+import com.thinkbiganalytics.metadata.jpa.jobrepo.nifi.JpaNifiFeedProcessorStatsRollup.Resolution;
 import com.thinkbiganalytics.security.AccessController;
 
 import org.apache.commons.lang3.StringUtils;
 import org.joda.time.DateTime;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.inject.Inject;
 
@@ -50,6 +60,11 @@ public class NifiFeedProcessorStatisticsProvider implements com.thinkbiganalytic
 
     public static final String ITEM_LAST_MODIFIED_KEY = "NIFI_FEED_PROCESSOR_STATS";
 
+    /**
+     * The number of rollup ids to look up in a single query when updating the rollups
+     */
+    private static final int ROLLUP_LOOKUP_BATCH_SIZE = 500;
+
     @Autowired
     private JPAQueryFactory factory;
 
@@ -66,6 +81,26 @@ public class NifiFeedProcessorStatisticsProvider implements com.thinkbiganalytic
     @Inject
     private AccessController accessController;
 
+    @Inject
+    private NifiFeedProcessorStatsRollupRepository rollupRepository;
+
+    /**
+     * When enabled the stats are also summed into the minute, hour and day rollups and queries over long time ranges are answered from them
+     */
+    @Value("${kylo.ops.mgr.stats.rollup.enabled:true}")
+    private boolean rollupEnabled = true;
+
+    /**
+     * The minimum number of buckets a rollup needs to have over the queried time range for it to be used in place of the raw stats
+     */
+    @Value("${kylo.ops.mgr.stats.rollup.data.points:60}")
+    private int rollupDataPoints = 60;
+
+    /**
+     * The start of the earliest minute rollup.  Stats before this time were saved before the rollups were maintained and are only in the raw stats
+     */
+    private final AtomicReference<DateTime> earliestRollupTime = new AtomicReference<>();
+
     @Autowired
     public NifiFeedProcessorStatisticsProvider(NifiFeedProcessorStatisticsRepository repository, NifiEventRepository nifiEventRepository) {
         this.statisticsRepository = repository;
@@ -83,6 +118,7 @@ public class NifiFeedProcessorStatisticsProvider implements com.thinkbiganalytic
     @Override
     public NifiFeedProcessorStats create(NifiFeedProcessorStats t) {
         NifiFeedProcessorStats stats = statisticsRepository.save((JpaNifiFeedProcessorStats) t);
+        updateRollups(Collections.singletonList(stats));
         return stats;
     }
 
@@ -141,6 +177,10 @@ public class NifiFeedProcessorStatisticsProvider implements com.thinkbiganalytic
 
     @Override
     public List<? extends JpaNifiFeedProcessorStats> findFeedProcessorStatisticsByProcessorId(String feedName, DateTime start, DateTime end) {
+        Resolution resolution = rollupResolution(start, end, rollupDataPoints);
+        if (resolution != null) {
+            return findRollupsGroupedByProcessor(feedName, start, end, resolution, true);
+        }
         QJpaNifiFeedProcessorStats stats = QJpaNifiFeedProcessorStats.jpaNifiFeedProcessorStats;
         QJpaOpsManagerFeed feed = QJpaOpsManagerFeed.jpaOpsManagerFeed;
         JPAQuery
@@ -169,6 +209,10 @@ public class NifiFeedProcessorStatisticsProvider implements com.thinkbiganalytic
 
     @Override
     public List<? extends JpaNifiFeedProcessorStats> findFeedProcessorStatisticsByProcessorName(String feedName, DateTime start, DateTime end) {
+        Resolution resolution = rollupResolution(start, end, rollupDataPoints);
+        if (resolution != null) {
+            return findRollupsGroupedByProcessor(feedName, start, end, resolution, false);
+        }
         QJpaNifiFeedProcessorStats stats = QJpaNifiFeedProcessorStats.jpaNifiFeedProcessorStats;
 
         QJpaOpsManagerFeed feed = QJpaOpsManagerFeed.jpaOpsManagerFeed;
@@ -197,6 +241,15 @@ public class NifiFeedProcessorStatisticsProvider implements com.thinkbiganalytic
     }
 
     public List<? extends JpaNifiFeedProcessorStats> findForFeedStatisticsGroupedByTime(String feedName, DateTime start, DateTime end) {
+        return findForFeedStatisticsGroupedByTime(feedName, start, end, null);
+    }
+
+    @Override
+    public List<? extends JpaNifiFeedProcessorStats> findForFeedStatisticsGroupedByTime(String feedName, DateTime start, DateTime end, Integer dataPoints) {
+        Resolution resolution = rollupResolution(start, end, dataPoints != null ? dataPoints : rollupDataPoints);
+        if (resolution != null) {
+            return findRollupsGroupedByTime(feedName, start, end, resolution);
+        }
         QJpaNifiFeedProcessorStats stats = QJpaNifiFeedProcessorStats.jpaNifiFeedProcessorStats;
 
         QJpaOpsManagerFeed feed = QJpaOpsManagerFeed.jpaOpsManagerFeed;
@@ -228,6 +281,157 @@ public class NifiFeedProcessorStatisticsProvider implements com.thinkbiganalytic
         return (List<JpaNifiFeedProcessorStats>) query.fetch();
     }
 
+    /**
+     * Find the coarsest rollup resolution that has at least the given number of buckets over the time range.
+     * The raw stats are used if no resolution has enough buckets or if the range starts before the rollups were maintained.
+     *
+     * @param start      the start of the range
+     * @param end        the end of the range
+     * @param dataPoints the minimum number of buckets needed over the range
+     * @return the resolution to query, or null to query the raw stats
+     */
+    protected Resolution rollupResolution(DateTime start, DateTime end, int dataPoints) {
+        if (!rollupEnabled || start == null || end == null || dataPoints <= 0) {
+            return null;
+        }
+        Resolution[] resolutions = Resolution.values();
+        for (int i = resolutions.length - 1; i >= 0; i--) {
+            if (resolutions[i].buckets(start, end) >= dataPoints) {
+                DateTime earliest = getEarliestRollupTime();
+                return earliest != null && !start.isBefore(earliest) ? resolutions[i] : null;
+            }
+        }
+        return null;
+    }
+
+    private DateTime getEarliestRollupTime() {
+        DateTime earliest = earliestRollupTime.get();
+        if (earliest == null) {
+            DateProjection projection = rollupRepository.findEarliestBucketTime(Resolution.MINUTE);
+            earliest = projection != null ? projection.getDateProjection() : null;
+            if (earliest != null) {
+                earliestRollupTime.compareAndSet(null, earliest);
+            }
+        }
+        return earliest;
+    }
+
+    /**
+     * Sum the rollup buckets starting within the time range for each processor of the feed
+     */
+    private List<? extends JpaNifiFeedProcessorStats> findRollupsGroupedByProcessor(String feedName, DateTime start, DateTime end, Resolution resolution, boolean byProcessorId) {
+        QJpaNifiFeedProcessorStatsRollup rollup = QJpaNifiFeedProcessorStatsRollup.jpaNifiFeedProcessorStatsRollup;
+        QJpaOpsManagerFeed feed = QJpaOpsManagerFeed.jpaOpsManagerFeed;
+
+        List<Expression<?>> columns = Lists.newArrayList(rollup.feedName, rollup.processorName,
+                                                         rollup.bytesIn.sum().as("bytesIn"), rollup.bytesOut.sum().as("bytesOut"), rollup.duration.sum().as("duration"),
+                                                         rollup.jobsStarted.sum().as("jobsStarted"), rollup.jobsFinished.sum().as("jobsFinished"),
+                                                         rollup.jobDuration.sum().as("jobDuration"), rollup.flowFilesStarted.sum().as("flowFilesStarted"),
+                                                         rollup.flowFilesFinished.sum().as("flowFilesFinished"), rollup.totalCount.sum().as("totalCount"),
+                                                         rollup.maxEventTime.max().as("maxEventTime"), rollup.minEventTime.min().as("minEventTime"),
+                                                         rollup.jobsFailed.sum().as("jobsFailed"), rollup.failedCount.sum().as("failedCount"));
+        if (byProcessorId) {
+            columns.add(rollup.processorId);
+        }
+        JPAQuery<JpaNifiFeedProcessorStats>
+            query = factory.select(Projections.bean(JpaNifiFeedProcessorStats.class, columns.toArray(new Expression<?>[columns.size()])))
+            .from(rollup)
+            .innerJoin(feed).on(feed.name.eq(rollup.feedName))
+            .where(rollup.feedName.eq(feedName)
+                       .and(FeedAclIndexQueryAugmentor.generateExistsExpression(feed.id, accessController.isEntityAccessControlled()))
+                       .and(rollup.resolution.eq(resolution))
+                       .and(rollup.bucketTime.goe(start))
+                       .and(rollup.bucketTime.lt(end)));
+        if (byProcessorId) {
+            query.groupBy(rollup.feedName, rollup.processorId, rollup.processorName);
+        } else {
+            query.groupBy(rollup.feedName, rollup.processorName);
+        }
+        return query.orderBy(rollup.processorName.asc()).fetch();
+    }
+
+    /**
+     * Sum the rollup buckets starting within the time range for the feed, one result per bucket
+     */
+    private List<? extends JpaNifiFeedProcessorStats> findRollupsGroupedByTime(String feedName, DateTime start, DateTime end, Resolution resolution) {
+        QJpaNifiFeedProcessorStatsRollup rollup = QJpaNifiFeedProcessorStatsRollup.jpaNifiFeedProcessorStatsRollup;
+        QJpaOpsManagerFeed feed = QJpaOpsManagerFeed.jpaOpsManagerFeed;
+
+        List<JpaNifiFeedProcessorStats> results = factory.select(
+            Projections.bean(JpaNifiFeedProcessorStats.class,
+                             rollup.feedName,
+                             rollup.bytesIn.sum().as("bytesIn"), rollup.bytesOut.sum().as("bytesOut"), rollup.duration.sum().as("duration"),
+                             rollup.jobsStarted.sum().as("jobsStarted"), rollup.jobsFinished.sum().as("jobsFinished"), rollup.jobDuration.sum().as("jobDuration"),
+                             rollup.flowFilesStarted.sum().as("flowFilesStarted"), rollup.flowFilesFinished.sum().as("flowFilesFinished"),
+                             rollup.failedCount.sum().as("failedCount"),
+                             rollup.bucketTime.as("minEventTime"),
+                             rollup.jobsFailed.sum().as("jobsFailed"), rollup.totalCount.sum().as("totalCount"))
+        )
+            .from(rollup)
+            .innerJoin(feed).on(feed.name.eq(rollup.feedName))
+            .where(rollup.feedName.eq(feedName)
+                       .and(FeedAclIndexQueryAugmentor.generateExistsExpression(feed.id, accessController.isEntityAccessControlled()))
+                       .and(rollup.resolution.eq(resolution))
+                       .and(rollup.bucketTime.goe(start))
+                       .and(rollup.bucketTime.lt(end)))
+            .groupBy(rollup.feedName, rollup.bucketTime)
+            .orderBy(rollup.bucketTime.asc())
+            .fetch();
+
+        BigDecimal seconds = BigDecimal.valueOf(resolution.getSeconds());
+        for (JpaNifiFeedProcessorStats stats : results) {
+            stats.setCollectionIntervalSeconds(resolution.getSeconds());
+            stats.setJobsStartedPerSecond(BigDecimal.valueOf(stats.getJobsStarted()).divide(seconds, 4, RoundingMode.HALF_UP));
+            stats.setJobsFinishedPerSecond(BigDecimal.valueOf(stats.getJobsFinished()).divide(seconds, 4, RoundingMode.HALF_UP));
+        }
+        return results;
+    }
+
+    /**
+     * Add the stats to the rollup bucket they fall in at each resolution.
+     * The changes are summed in memory first so each bucket is read and written once per batch.
+     *
+     * @param stats the newly saved stats
+     */
+    private void updateRollups(List<? extends NifiFeedProcessorStats> stats) {
+        if (!rollupEnabled || stats == null) {
+            return;
+        }
+        Map<String, JpaNifiFeedProcessorStatsRollup> rollups = new HashMap<>();
+        for (NifiFeedProcessorStats stat : stats) {
+            if (stat.getMinEventTime() == null || stat.getFeedName() == null) {
+                continue;
+            }
+            for (Resolution resolution : Resolution.values()) {
+                DateTime bucket = resolution.bucket(stat.getMinEventTime());
+                rollups.computeIfAbsent(JpaNifiFeedProcessorStatsRollup.rollupId(resolution, bucket, stat.getFeedName(), stat.getProcessorId()),
+                                        id -> new JpaNifiFeedProcessorStatsRollup(resolution, bucket, stat.getFeedName(), stat.getProcessorId()))
+                    .add(stat);
+            }
+        }
+        if (rollups.isEmpty()) {
+            return;
+        }
+
+        for (List<String> ids : Lists.partition(new ArrayList<>(rollups.keySet()), ROLLUP_LOOKUP_BATCH_SIZE)) {
+            for (JpaNifiFeedProcessorStatsRollup existing : rollupRepository.findAll(ids)) {
+                existing.add(rollups.get(existing.getId()));
+                rollups.put(existing.getId(), existing);
+            }
+        }
+        rollupRepository.save(rollups.values());
+
+        //late arriving stats can add a minute rollup before the cached earliest time
+        DateTime earliest = earliestRollupTime.get();
+        if (earliest != null) {
+            rollups.values().stream()
+                .filter(rollup -> rollup.getResolution() == Resolution.MINUTE && rollup.getBucketTime().isBefore(earliest))
+                .map(JpaNifiFeedProcessorStatsRollup::getBucketTime)
+                .min(Comparator.comparingLong(DateTime::getMillis))
+                .ifPresent(time -> earliestRollupTime.compareAndSet(earliest, time));
+        }
+    }
+
     public List<? extends NifiFeedProcessorErrors> findFeedProcessorErrors(String feedName, DateTime start, DateTime end) {
         return accessController.isEntityAccessControlled() ? statisticsRepository.findWithErrorsWithinTimeWithAcl(feedName, start, end)
                                                            : statisticsRepository.findWithErrorsWithinTimeWithoutAcl(feedName, start, end);
@@ -259,6 +463,16 @@ public class NifiFeedProcessorStatisticsProvider implements com.thinkbiganalytic
     }
 
 
+    @Override
+    public List<? extends NifiFeedProcessorStats> create(List<? extends NifiFeedProcessorStats> stats) {
+        if (stats != null && !stats.isEmpty()) {
+            List<JpaNifiFeedProcessorStats> saved = statisticsRepository.save((List<JpaNifiFeedProcessorStats>) stats);
+            updateRollups(saved);
+            return saved;
+        }
+        return stats;
+    }
+
     @Override
     public List<? extends NifiFeedProcessorStats> save(List<? extends NifiFeedProcessorStats> stats) {
         if (stats != null && !stats.isEmpty()) {
@@ -267,6 +481,11 @@ public class NifiFeedProcessorStatisticsProvider implements com.thinkbiganalytic
         return stats;
     }
 
+    @Override
+    public boolean exists(String id) {
+        return id != null && statisticsRepository.exists(id);
+    }
+
     /**
      * Call the procedure to compact the NIFI_FEED_PROCESSOR_STATS table
      * @return a summary of what was compacted
@@ -41,7 +41,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -127,6 +130,60 @@ public class JpaBatchStepExecutionProvider implements BatchStepExecutionProvider
 
         //only create the step if it doesnt exist yet for this event
         JpaBatchStepExecution stepExecution = batchStepExecutionRepository.findByProcessorAndJobFlowFile(event.getComponentId(), event.getJobFlowFileId());
+        stepExecution = applyEvent(jobExecution, stepExecution, event);
+        if (stepExecution != null) {
+            stepExecution = batchStepExecutionRepository.save(stepExecution);
+        }
+        return stepExecution;
+    }
+
+    @Override
+    public List<BatchStepExecution> createStepExecutions(BatchJobExecution jobExecution, List<ProvenanceEventRecordDTO> events) {
+        //look up the existing steps once per job flow file rather than once per event
+        Map<String, Map<String, JpaBatchStepExecution>> stepsByJobFlowFile = new HashMap<>();
+        Set<BatchStepExecution> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<BatchStepExecution> steps = new ArrayList<>();
+        for (ProvenanceEventRecordDTO event : events) {
+            Map<String, JpaBatchStepExecution> jobFlowFileSteps = stepsByJobFlowFile.computeIfAbsent(event.getJobFlowFileId(), this::findStepsByComponent);
+            JpaBatchStepExecution stepExecution = applyEvent(jobExecution, jobFlowFileSteps.get(event.getComponentId()), event);
+            if (stepExecution != null) {
+                if (stepExecution.getStepExecutionId() == null) {
+                    //persisting assigns the id.  The inserts are held until the transaction is flushed and then sent together as a JDBC batch
+                    stepExecution = batchStepExecutionRepository.save(stepExecution);
+                }
+                jobFlowFileSteps.put(event.getComponentId(), stepExecution);
+                if (touched.add(stepExecution)) {
+                    steps.add(stepExecution);
+                }
+            }
+        }
+        return steps;
+    }
+
+    /**
+     * @return the steps for the job flow file keyed by the processor id
+     */
+    private Map<String, JpaBatchStepExecution> findStepsByComponent(String jobFlowFileId) {
+        Map<String, JpaBatchStepExecution> steps = new HashMap<>();
+        List<JpaBatchStepExecution> existing = batchStepExecutionRepository.findByJobFlowFile(jobFlowFileId);
+        if (existing != null) {
+            for (JpaBatchStepExecution step : existing) {
+                if (step.getNifiEventStepExecution() != null) {
+                    steps.putIfAbsent(step.getNifiEventStepExecution().getComponentId(), step);
+                }
+            }
+        }
+        return steps;
+    }
+
+    /**
+     * Create the step for the event if it doesnt exist yet, otherwise update the existing step with the event
+     *
+     * @param jobExecution  the job execution
+     * @param stepExecution the existing step for the processor and job flow file, or null
+     * @return the new or updated step, or null if no step is needed for the event.  The step is not saved
+     */
+    private JpaBatchStepExecution applyEvent(BatchJobExecution jobExecution, JpaBatchStepExecution stepExecution, ProvenanceEventRecordDTO event) {
         if (stepExecution == null) {
             if(!"KYLO".equalsIgnoreCase(event.getEventType())) {
                 stepExecution = new JpaBatchStepExecution();
@@ -164,7 +221,6 @@ public class JpaBatchStepExecutionProvider implements BatchStepExecutionProvider
                 }
                 jobExecution.getStepExecutions().add(stepExecution);
                 //saving the StepExecution will cascade and save the nifiEventStep
-                stepExecution = batchStepExecutionRepository.save(stepExecution);
             }
 
         } else {
@@ -185,7 +241,6 @@ public class JpaBatchStepExecutionProvider implements BatchStepExecutionProvider
                     stepExecution.setStartTime(newStartTime);
                 }
             }
-            stepExecution = batchStepExecutionRepository.save(stepExecution);
         }
 
         return stepExecution;
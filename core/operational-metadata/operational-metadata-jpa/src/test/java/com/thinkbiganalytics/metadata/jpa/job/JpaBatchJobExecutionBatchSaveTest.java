@@ -0,0 +1,257 @@
+package com.thinkbiganalytics.metadata.jpa.job;
+
+/*-
+ * #%L
+ * thinkbig-operational-metadata-jpa
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.metadata.api.MetadataAccess;
+import com.thinkbiganalytics.metadata.api.jobrepo.job.BatchJobExecution;
+import com.thinkbiganalytics.metadata.api.jobrepo.job.BatchJobExecutionProvider;
+import com.thinkbiganalytics.metadata.api.jobrepo.step.BatchStepExecution;
+import com.thinkbiganalytics.metadata.config.OperationalMetadataConfig;
+import com.thinkbiganalytics.metadata.jpa.TestJpaConfiguration;
+import com.thinkbiganalytics.metadata.jpa.feed.OpsFeedManagerFeedProvider;
+import com.thinkbiganalytics.nifi.provenance.model.ProvenanceEventRecordDTO;
+import com.thinkbiganalytics.spring.CommonsSpringConfiguration;
+import com.thinkbiganalytics.test.security.WithMockJaasUser;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+
+/**
+ * Saves the events for a job as a single batch and checks the job and steps match saving each event in its own transaction
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@TestPropertySource(locations = "classpath:test-application.properties")
+@SpringApplicationConfiguration(classes = {CommonsSpringConfiguration.class, OperationalMetadataConfig.class, TestJpaConfiguration.class})
+public class JpaBatchJobExecutionBatchSaveTest {
+
+    private static final int STEPS_PER_JOB = 10;
+
+    @Inject
+    private BatchJobExecutionProvider jobExecutionProvider;
+
+    @Inject
+    private OpsFeedManagerFeedProvider feedProvider;
+
+    @Inject
+    private MetadataAccess operationalMetadataAccess;
+
+    @WithMockJaasUser(username = "dladmin",
+                      password = "secret",
+                      authorities = {"admin"})
+    @Test
+    public void testSaveBatch() {
+        String feedName = createFeed(false);
+        List<ProvenanceEventRecordDTO> events = jobEvents(feedName, System.currentTimeMillis(), false);
+        //the same processor is hit twice and should update the existing step
+        ProvenanceEventRecordDTO repeat = event(feedName, events.get(0).getJobFlowFileId(), 1000L, "processor-1", System.currentTimeMillis());
+        events.add(2, repeat);
+
+        List<BatchJobExecution> jobs = operationalMetadataAccess.commit(() -> jobExecutionProvider.save(events, event -> feedProvider.findByNameWithoutAcl(event.getFeedName())),
+                                                                        MetadataAccess.SERVICE);
+        Assert.assertEquals(events.size(), jobs.size());
+        Long jobExecutionId = jobs.get(0).getJobExecutionId();
+        Assert.assertNotNull(jobExecutionId);
+        jobs.forEach(job -> Assert.assertEquals(jobExecutionId, job.getJobExecutionId()));
+
+        operationalMetadataAccess.read(() -> {
+            BatchJobExecution job = jobExecutionProvider.findByJobExecutionId(jobExecutionId);
+            Assert.assertEquals(BatchJobExecution.JobStatus.COMPLETED, job.getStatus());
+            Assert.assertEquals(STEPS_PER_JOB, job.getStepExecutions().size());
+            for (BatchStepExecution step : job.getStepExecutions()) {
+                Assert.assertNotNull(step.getStepExecutionId());
+            }
+            return job;
+        }, MetadataAccess.SERVICE);
+    }
+
+    @WithMockJaasUser(username = "dladmin",
+                      password = "secret",
+                      authorities = {"admin"})
+    @Test
+    public void testBatchMatchesSingleSave() {
+        String feedName = createFeed(false);
+        long eventTime = System.currentTimeMillis();
+
+        List<ProvenanceEventRecordDTO> singleEvents = jobEvents(feedName, eventTime, false);
+        Long singleJobId = null;
+        for (ProvenanceEventRecordDTO event : singleEvents) {
+            BatchJobExecution job = operationalMetadataAccess.commit(() -> jobExecutionProvider.save(event, feedProvider.findByNameWithoutAcl(event.getFeedName())), MetadataAccess.SERVICE);
+            singleJobId = job.getJobExecutionId();
+        }
+
+        List<ProvenanceEventRecordDTO> batchEvents = jobEvents(feedName, eventTime, false);
+        List<BatchJobExecution> jobs = operationalMetadataAccess.commit(() -> jobExecutionProvider.save(batchEvents, event -> feedProvider.findByNameWithoutAcl(event.getFeedName())),
+                                                                        MetadataAccess.SERVICE);
+        Long batchJobId = jobs.get(jobs.size() - 1).getJobExecutionId();
+        Assert.assertNotEquals(singleJobId, batchJobId);
+
+        Long singleId = singleJobId;
+        operationalMetadataAccess.read(() -> {
+            BatchJobExecution single = jobExecutionProvider.findByJobExecutionId(singleId);
+            BatchJobExecution batch = jobExecutionProvider.findByJobExecutionId(batchJobId);
+            Assert.assertEquals(single.getStatus(), batch.getStatus());
+            Assert.assertEquals(single.getExitCode(), batch.getExitCode());
+
+            List<BatchStepExecution> singleSteps = orderedSteps(single);
+            List<BatchStepExecution> batchSteps = orderedSteps(batch);
+            Assert.assertEquals(STEPS_PER_JOB, batchSteps.size());
+            Assert.assertEquals(singleSteps.size(), batchSteps.size());
+            for (int i = 0; i < batchSteps.size(); i++) {
+                BatchStepExecution step = batchSteps.get(i);
+                Assert.assertEquals("processor-" + i, step.getStepName());
+                Assert.assertEquals(singleSteps.get(i).getStepName(), step.getStepName());
+                Assert.assertEquals(singleSteps.get(i).getStatus(), step.getStatus());
+                Assert.assertEquals(singleSteps.get(i).getStartTime(), step.getStartTime());
+                Assert.assertEquals(singleSteps.get(i).getEndTime(), step.getEndTime());
+                //the steps are flushed before the final event finishes the job
+                Assert.assertFalse(step.getEndTime().isAfter(batch.getEndTime()));
+            }
+            return batch;
+        }, MetadataAccess.SERVICE);
+    }
+
+    @WithMockJaasUser(username = "dladmin",
+                      password = "secret",
+                      authorities = {"admin"})
+    @Test
+    public void testSaveBatchWithStream() {
+        String streamFeedName = createFeed(true);
+        String batchFeedName = createFeed(false);
+        long eventTime = System.currentTimeMillis();
+
+        List<ProvenanceEventRecordDTO> events = new ArrayList<>();
+        events.addAll(jobEvents(streamFeedName, eventTime, true));
+        events.addAll(jobEvents(batchFeedName, eventTime, false));
+
+        List<BatchJobExecution> jobs = operationalMetadataAccess.commit(() -> jobExecutionProvider.save(events, event -> feedProvider.findByNameWithoutAcl(event.getFeedName())),
+                                                                        MetadataAccess.SERVICE);
+        Assert.assertEquals(events.size(), jobs.size());
+        Long streamJobId = jobs.get(0).getJobExecutionId();
+        Long batchJobId = jobs.get(jobs.size() - 1).getJobExecutionId();
+
+        operationalMetadataAccess.read(() -> {
+            BatchJobExecution streamJob = jobExecutionProvider.findByJobExecutionId(streamJobId);
+            Assert.assertTrue(streamJob.isStream());
+            Assert.assertTrue(streamJob.getStepExecutions() == null || streamJob.getStepExecutions().isEmpty());
+
+            BatchJobExecution batchJob = jobExecutionProvider.findByJobExecutionId(batchJobId);
+            Assert.assertFalse(batchJob.isStream());
+            Assert.assertEquals(STEPS_PER_JOB, batchJob.getStepExecutions().size());
+            return batchJob;
+        }, MetadataAccess.SERVICE);
+    }
+
+    @WithMockJaasUser(username = "dladmin",
+                      password = "secret",
+                      authorities = {"admin"})
+    @Test
+    public void testJobLockedUntilCommit() throws Exception {
+        String feedName = createFeed(false);
+        List<ProvenanceEventRecordDTO> events = jobEvents(feedName, System.currentTimeMillis(), false);
+        ProvenanceEventRecordDTO start = events.get(0);
+        ProvenanceEventRecordDTO next = events.get(1);
+
+        CountDownLatch saved = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Long> first = executor.submit(() -> operationalMetadataAccess.commit(() -> {
+                BatchJobExecution job = jobExecutionProvider.getOrCreateJobExecution(start, feedProvider.findByNameWithoutAcl(feedName));
+                saved.countDown();
+                commit.await();
+                return job.getJobExecutionId();
+            }, MetadataAccess.SERVICE));
+            Assert.assertTrue(saved.await(30, TimeUnit.SECONDS));
+
+            //the second event for the job waits for the first transaction to commit instead of creating the job again
+            Future<Long> second = executor.submit(() -> operationalMetadataAccess.commit(
+                () -> jobExecutionProvider.getOrCreateJobExecution(next, feedProvider.findByNameWithoutAcl(feedName)).getJobExecutionId(), MetadataAccess.SERVICE));
+            Thread.sleep(500L);
+            Assert.assertFalse(second.isDone());
+
+            commit.countDown();
+            Assert.assertEquals(first.get(30, TimeUnit.SECONDS), second.get(30, TimeUnit.SECONDS));
+        } finally {
+            commit.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private List<BatchStepExecution> orderedSteps(BatchJobExecution job) {
+        return job.getStepExecutions().stream()
+            .sorted(Comparator.comparing(BatchStepExecution::getStartTime).thenComparing(BatchStepExecution::getStepName))
+            .collect(Collectors.toList());
+    }
+
+    private String createFeed(boolean isStream) {
+        String feedName = "batchCategory.feed_" + UUID.randomUUID().toString().replace("-", "");
+        operationalMetadataAccess.commit(() -> feedProvider.save(feedProvider.resolveId(UUID.randomUUID().toString()), feedName, isStream, 0L), MetadataAccess.SERVICE);
+        return feedName;
+    }
+
+    /**
+     * @return the events for one job, starting with the start of the job and ending with the final job event
+     */
+    private List<ProvenanceEventRecordDTO> jobEvents(String feedName, long eventTime, boolean isStream) {
+        String jobFlowFileId = UUID.randomUUID().toString();
+        List<ProvenanceEventRecordDTO> events = new ArrayList<>();
+        for (int i = 0; i < STEPS_PER_JOB; i++) {
+            ProvenanceEventRecordDTO event = event(feedName, jobFlowFileId, (long) i, "processor-" + i, eventTime + i);
+            event.setIsStartOfJob(i == 0);
+            event.setIsFinalJobEvent(i == STEPS_PER_JOB - 1);
+            event.setStream(isStream);
+            events.add(event);
+        }
+        return events;
+    }
+
+    private ProvenanceEventRecordDTO event(String feedName, String jobFlowFileId, Long eventId, String componentId, long eventTime) {
+        ProvenanceEventRecordDTO event = new ProvenanceEventRecordDTO();
+        event.setEventId(eventId);
+        event.setFeedName(feedName);
+        event.setJobFlowFileId(jobFlowFileId);
+        event.setFlowFileUuid(jobFlowFileId);
+        event.setComponentId(componentId);
+        event.setComponentName(componentId);
+        event.setEventType("ATTRIBUTES_MODIFIED");
+        event.setEventTime(eventTime);
+        event.setStartTime(eventTime);
+        event.setEventDuration(1L);
+        return event;
+    }
+}
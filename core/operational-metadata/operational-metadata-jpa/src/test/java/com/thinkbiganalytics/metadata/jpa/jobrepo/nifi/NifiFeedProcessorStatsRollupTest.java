@@ -0,0 +1,198 @@
+package com.thinkbiganalytics.metadata.jpa.jobrepo.nifi;
+
+/*-
+ * #%L
+ * thinkbig-operational-metadata-jpa
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.metadata.api.MetadataAccess;
+import com.thinkbiganalytics.metadata.api.jobrepo.nifi.NifiFeedProcessorStats;
+import com.thinkbiganalytics.metadata.api.jobrepo.nifi.NifiFeedProcessorStatisticsProvider;
+import com.thinkbiganalytics.metadata.config.OperationalMetadataConfig;
+import com.thinkbiganalytics.metadata.jpa.TestJpaConfiguration;
+import com.thinkbiganalytics.metadata.jpa.feed.OpsFeedManagerFeedProvider;
+import com.thinkbiganalytics.spring.CommonsSpringConfiguration;
+import com.thinkbiganalytics.test.security.WithMockJaasUser;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import javax.inject.Inject;
+
+/**
+ * Saves two days of stats for a feed and compares the stats read from the rollups against the raw stats
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@TestPropertySource(locations = "classpath:test-application.properties")
+@SpringApplicationConfiguration(classes = {CommonsSpringConfiguration.class, OperationalMetadataConfig.class, TestJpaConfiguration.class})
+public class NifiFeedProcessorStatsRollupTest {
+
+    private static final int DAYS = 2;
+
+    private static final int STATS_INTERVAL_SECONDS = 20;
+
+    /**
+     * Asking for more data points than any rollup has buckets forces the raw stats to be queried
+     */
+    private static final int RAW = Integer.MAX_VALUE;
+
+    @Inject
+    private NifiFeedProcessorStatisticsProvider statisticsProvider;
+
+    @Inject
+    private OpsFeedManagerFeedProvider feedProvider;
+
+    @Inject
+    private MetadataAccess operationalMetadataAccess;
+
+    @WithMockJaasUser(username = "dladmin",
+                      password = "secret",
+                      authorities = {"admin"})
+    @Test
+    public void testRollups() {
+        DateTime start = new DateTime(DateTimeZone.UTC).withTimeAtStartOfDay().minusDays(DAYS);
+        String feedName = createFeed(start);
+        DateTime end = start.plusDays(DAYS);
+
+        operationalMetadataAccess.read(() -> {
+            List<? extends NifiFeedProcessorStats> raw = statisticsProvider.findForFeedStatisticsGroupedByTime(feedName, start, end, RAW);
+            Assert.assertEquals(DAYS * 24 * 60 * 60 / STATS_INTERVAL_SECONDS, raw.size());
+
+            List<? extends NifiFeedProcessorStats> hours = statisticsProvider.findForFeedStatisticsGroupedByTime(feedName, start, end, DAYS * 24);
+            Assert.assertEquals(DAYS * 24, hours.size());
+            Assert.assertEquals(Long.valueOf(3600L), hours.get(0).getCollectionIntervalSeconds());
+            Assert.assertEquals(sum(raw), sum(hours));
+
+            List<? extends NifiFeedProcessorStats> days = statisticsProvider.findForFeedStatisticsGroupedByTime(feedName, start, end, DAYS);
+            Assert.assertEquals(DAYS, days.size());
+            Assert.assertEquals(sum(raw), sum(days));
+
+            DateTime hourStart = start.plusHours(5);
+            List<? extends NifiFeedProcessorStats> minutes = statisticsProvider.findForFeedStatisticsGroupedByTime(feedName, hourStart, hourStart.plusHours(1), 60);
+            Assert.assertEquals(60, minutes.size());
+            Assert.assertEquals(Long.valueOf(60L), minutes.get(0).getCollectionIntervalSeconds());
+            Assert.assertEquals(sum(statisticsProvider.findForFeedStatisticsGroupedByTime(feedName, hourStart, hourStart.plusHours(1), RAW)), sum(minutes));
+
+            List<? extends NifiFeedProcessorStats> processors = statisticsProvider.findFeedProcessorStatisticsByProcessorId(feedName, start, end);
+            Assert.assertEquals(2, processors.size());
+            Assert.assertEquals(sum(raw), sum(processors));
+            return processors;
+        }, MetadataAccess.SERVICE);
+    }
+
+    @WithMockJaasUser(username = "dladmin",
+                      password = "secret",
+                      authorities = {"admin"})
+    @Test
+    public void testDefaultResolution() {
+        DateTime start = new DateTime(DateTimeZone.UTC).withTimeAtStartOfDay().minusDays(DAYS);
+        String feedName = createFeed(start);
+
+        operationalMetadataAccess.read(() -> {
+            for (int hours : new int[]{1, 6, 24, DAYS * 24}) {
+                DateTime end = start.plusHours(hours);
+                List<? extends NifiFeedProcessorStats> raw = statisticsProvider.findForFeedStatisticsGroupedByTime(feedName, start, end, RAW);
+                //without a number of data points the coarsest rollup that still gives the default number of points is used
+                List<? extends NifiFeedProcessorStats> rollup = statisticsProvider.findForFeedStatisticsGroupedByTime(feedName, start, end, null);
+
+                Assert.assertFalse("No stats for a range of " + hours + " hours", rollup.isEmpty());
+                Assert.assertTrue("Expected fewer rollup points than the " + raw.size() + " raw points for a range of " + hours + " hours, but got " + rollup.size(),
+                                  rollup.size() < raw.size());
+                Assert.assertEquals("Jobs started for a range of " + hours + " hours", sum(raw), sum(rollup));
+                Assert.assertEquals("Total events for a range of " + hours + " hours", sumTotalCount(raw), sumTotalCount(rollup));
+            }
+            return null;
+        }, MetadataAccess.SERVICE);
+    }
+
+    @WithMockJaasUser(username = "dladmin",
+                      password = "secret",
+                      authorities = {"admin"})
+    @Test
+    public void testUpdateKeepsRollups() {
+        DateTime start = new DateTime(DateTimeZone.UTC).withTimeAtStartOfDay().minusDays(1);
+        String feedName = "rollupCategory.feed_" + UUID.randomUUID().toString().replace("-", "");
+        operationalMetadataAccess.commit(() -> feedProvider.save(feedProvider.resolveId(UUID.randomUUID().toString()), feedName, false, 0L), MetadataAccess.SERVICE);
+
+        List<JpaNifiFeedProcessorStats> stats = new ArrayList<>();
+        for (int minute = 0; minute < 60; minute++) {
+            stats.add(stats(feedName, "processor-1", start.plusMinutes(minute), 2));
+        }
+        List<? extends NifiFeedProcessorStats> created = operationalMetadataAccess.commit(() -> statisticsProvider.create(stats), MetadataAccess.SERVICE);
+
+        //updating the rows, as when bulletin errors are attached, should not add them to the rollups again
+        created.forEach(stat -> ((JpaNifiFeedProcessorStats) stat).setErrorMessages("error"));
+        operationalMetadataAccess.commit(() -> statisticsProvider.save(created), MetadataAccess.SERVICE);
+
+        operationalMetadataAccess.read(() -> {
+            List<? extends NifiFeedProcessorStats> hours = statisticsProvider.findForFeedStatisticsGroupedByTime(feedName, start, start.plusHours(1), 1);
+            Assert.assertEquals(1, hours.size());
+            Assert.assertEquals(120L, sum(hours));
+            return hours;
+        }, MetadataAccess.SERVICE);
+    }
+
+    private long sum(List<? extends NifiFeedProcessorStats> stats) {
+        return stats.stream().mapToLong(NifiFeedProcessorStats::getJobsStarted).sum();
+    }
+
+    private long sumTotalCount(List<? extends NifiFeedProcessorStats> stats) {
+        return stats.stream().mapToLong(NifiFeedProcessorStats::getTotalCount).sum();
+    }
+
+    /**
+     * Create a feed with stats from two processors every few seconds over the days following the start time
+     */
+    private String createFeed(DateTime start) {
+        String feedName = "rollupCategory.feed_" + UUID.randomUUID().toString().replace("-", "");
+        operationalMetadataAccess.commit(() -> feedProvider.save(feedProvider.resolveId(UUID.randomUUID().toString()), feedName, false, 0L), MetadataAccess.SERVICE);
+
+        for (int hour = 0; hour < DAYS * 24; hour++) {
+            List<JpaNifiFeedProcessorStats> stats = new ArrayList<>();
+            for (int second = 0; second < 60 * 60; second += STATS_INTERVAL_SECONDS) {
+                DateTime time = start.plusHours(hour).plusSeconds(second);
+                stats.add(stats(feedName, "processor-1", time, second % 7));
+                stats.add(stats(feedName, "processor-2", time, 1));
+            }
+            operationalMetadataAccess.commit(() -> statisticsProvider.create(stats), MetadataAccess.SERVICE);
+        }
+        return feedName;
+    }
+
+    private JpaNifiFeedProcessorStats stats(String feedName, String processorId, DateTime time, long jobsStarted) {
+        JpaNifiFeedProcessorStats stats = new JpaNifiFeedProcessorStats(feedName, processorId);
+        stats.setProcessorName(processorId);
+        stats.setMinEventTime(time);
+        stats.setMaxEventTime(time.plusSeconds(1));
+        stats.setCollectionTime(time.plusSeconds(1));
+        stats.setCollectionIntervalSeconds((long) STATS_INTERVAL_SECONDS);
+        stats.setJobsStarted(jobsStarted);
+        stats.setTotalCount(jobsStarted);
+        return stats;
+    }
+}
@@ -29,6 +29,8 @@ import org.joda.time.DateTimeUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -116,10 +118,7 @@ public class GetTableDataSupport {
 
         logger.info("selectIncremental tableName {} dateField {} overlapTime {} lastLoadDate {} backoffTime {} unit {}", tableName, dateField, overlapTime, lastLoadDate, backoffTime, unit.toString());
 
-        final Date now = new Date(DateTimeUtils.currentTimeMillis());
-        DateRange range = new DateRange(lastLoadDate, now, overlapTime, backoffTime, unit);
-
-        logger.info("Load range with min {} max {}", range.getMinDate(), range.getMaxDate());
+        DateRange range = getIncrementalRange(overlapTime, lastLoadDate, backoffTime, unit);
 
         StringBuilder sb = new StringBuilder();
         String select = selectStatement(selectFields, "tbl");
@@ -137,6 +136,112 @@ public class GetTableDataSupport {
         return rs;
     }
 
+    /**
+     * Calculates the dates for an incremental load ending at the current time.
+     *
+     * @param overlapTime  the number of seconds to overlap with the last load status
+     * @param lastLoadDate the last batch load date
+     * @param backoffTime  the number of seconds before the current time to end the load
+     * @param unit         the minimum unit of data to load
+     */
+    public static DateRange getIncrementalRange(int overlapTime, Date lastLoadDate, int backoffTime, UnitSizes unit) {
+        final Date now = new Date(DateTimeUtils.currentTimeMillis());
+        DateRange range = new DateRange(lastLoadDate, now, overlapTime, backoffTime, unit);
+
+        logger.info("Load range with min {} max {}", range.getMinDate(), range.getMaxDate());
+        return range;
+    }
+
+    /**
+     * Selects the minimum and maximum values of the split field.
+     *
+     * @param tableName  the table
+     * @param splitField the numeric field used to split the table
+     * @param dateField  the name of the field containing last modified date, or {@code null} for a full load
+     * @param dateRange  the dates of an incremental load, or {@code null} for a full load
+     * @return the range of values, or {@code null} if no rows have a value for the split field
+     */
+    public KeyRange selectKeyRange(String tableName, String splitField, String dateField, DateRange dateRange) throws SQLException {
+        String quotedSplitField = quoteField(splitField);
+        StringBuilder sb = new StringBuilder();
+        sb.append("SELECT MIN(tbl.").append(quotedSplitField).append("), MAX(tbl.").append(quotedSplitField).append(") FROM ").append(tableName).append(" tbl");
+        if (dateRange != null) {
+            sb.append(" WHERE tbl.").append(dateField).append(" > ? and tbl.").append(dateField).append(" < ?");
+        }
+
+        try (PreparedStatement ps = conn.prepareStatement(sb.toString())) {
+            ps.setQueryTimeout(timeout);
+            if (dateRange != null) {
+                ps.setTimestamp(1, new java.sql.Timestamp(dateRange.getMinDate().getTime()));
+                ps.setTimestamp(2, new java.sql.Timestamp(dateRange.getMaxDate().getTime()));
+            }
+
+            logger.info("Executing GetTableData split range query {}", ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next() && rs.getBigDecimal(1) != null) {
+                    return new KeyRange(rs.getBigDecimal(1), rs.getBigDecimal(2));
+                } else {
+                    return null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Selects the rows with a split field value in the specified range.
+     *
+     * <p>Rows with a {@code null} split field value are included in the range without a lower bound.</p>
+     *
+     * @param tableName    the table
+     * @param selectFields the fields to select
+     * @param splitField   the numeric field used to split the table
+     * @param split        the range of split field values
+     * @param dateField    the name of the field containing last modified date, or {@code null} for a full load
+     * @param dateRange    the dates of an incremental load, or {@code null} for a full load
+     */
+    public ResultSet selectSplit(String tableName, String[] selectFields, String splitField, KeyRange split, String dateField, DateRange dateRange) throws SQLException {
+        String quotedSplitField = quoteField(splitField);
+        List<String> conditions = new ArrayList<>();
+        if (dateRange != null) {
+            conditions.add("tbl." + dateField + " > ?");
+            conditions.add("tbl." + dateField + " < ?");
+        }
+        if (split.getMinKey() != null) {
+            conditions.add("tbl." + quotedSplitField + " >= ?");
+        }
+        if (split.getMaxKey() != null) {
+            conditions.add((split.getMinKey() == null) ? "(tbl." + quotedSplitField + " < ? or tbl." + quotedSplitField + " IS NULL)" : "tbl." + quotedSplitField + " < ?");
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("SELECT ").append(selectStatement(selectFields, "tbl")).append(" FROM ").append(tableName).append(" tbl");
+        if (!conditions.isEmpty()) {
+            sb.append(" WHERE ").append(StringUtils.join(conditions, " and "));
+        }
+
+        PreparedStatement ps = conn.prepareStatement(sb.toString());
+        ps.setQueryTimeout(timeout);
+        int index = 1;
+        if (dateRange != null) {
+            ps.setTimestamp(index++, new java.sql.Timestamp(dateRange.getMinDate().getTime()));
+            ps.setTimestamp(index++, new java.sql.Timestamp(dateRange.getMaxDate().getTime()));
+        }
+        if (split.getMinKey() != null) {
+            ps.setBigDecimal(index++, split.getMinKey());
+        }
+        if (split.getMaxKey() != null) {
+            ps.setBigDecimal(index, split.getMaxKey());
+        }
+
+        logger.info("Executing split GetTableData query {}", ps);
+        return ps.executeQuery();
+    }
+
+    private String quoteField(String field) {
+        String dbIdentifierQuoteString = DatabaseUtils.getDatabaseIdentifierQuoteString(conn);
+        return dbIdentifierQuoteString + field + dbIdentifierQuoteString;
+    }
+
     /**
      * Output format for table rows.
      */
@@ -149,7 +254,12 @@ public class GetTableDataSupport {
         /**
          * Each row is written as an Avro record
          */
-        AVRO
+        AVRO,
+
+        /**
+         * Rows are written to a Parquet file using the Avro schema of the result set
+         */
+        PARQUET
     }
 
     public enum UnitSizes {
@@ -161,7 +271,7 @@ public class GetTableDataSupport {
         YEAR
     }
 
-    protected static class DateRange {
+    public static class DateRange {
 
         private Date minDate;
         private Date maxDate;
@@ -191,5 +301,58 @@ public class GetTableDataSupport {
 
     }
 
+    /**
+     * A range of numeric key values. A {@code null} minimum or maximum indicates that the range is unbounded.
+     */
+    public static class KeyRange {
+
+        private final BigDecimal minKey;
+        private final BigDecimal maxKey;
+
+        public KeyRange(BigDecimal minKey, BigDecimal maxKey) {
+            this.minKey = minKey;
+            this.maxKey = maxKey;
+        }
+
+        /**
+         * Divides the values between the minimum and maximum into ranges of equal width. The first range has no minimum and the last range has no maximum so that
+         * together the ranges cover all values.
+         *
+         * @param count the number of ranges
+         * @return the ranges, in order, which may be fewer than requested if there are not enough distinct values
+         */
+        public List<KeyRange> split(int count) {
+            Validate.isTrue(count > 0, "Split count must be positive");
+            Validate.notNull(minKey);
+            Validate.notNull(maxKey);
+
+            final int scale = Math.max(minKey.scale(), maxKey.scale());
+            final BigDecimal width = maxKey.subtract(minKey);
+            final List<KeyRange> ranges = new ArrayList<>(count);
+            BigDecimal lower = null;
+
+            for (int i = 1; i < count; i++) {
+                final BigDecimal upper = minKey.add(width.multiply(BigDecimal.valueOf(i)).divide(BigDecimal.valueOf(count), scale, RoundingMode.CEILING));
+                if (upper.compareTo(minKey) > 0 && (lower == null || upper.compareTo(lower) > 0)) {
+                    ranges.add(new KeyRange(lower, upper));
+                    lower = upper;
+                }
+            }
+
+            ranges.add(new KeyRange(lower, null));
+            return ranges;
+        }
+
+        public BigDecimal getMinKey() {
+            return minKey;
+        }
+
+        public BigDecimal getMaxKey() {
+            return maxKey;
+        }
 
+        public String toString() {
+            return "min (" + minKey + ") max(" + maxKey + ")";
+        }
+    }
 }
@@ -0,0 +1,214 @@
+package com.thinkbiganalytics.ingest;
+
+/*-
+ * #%L
+ * thinkbig-nifi-core-processors
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.util.PartitionBatch;
+
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Executes a merge in chunks of partitions. Chunks are executed concurrently with a bounded number of threads, and each chunk is retried independently of the others.
+ *
+ * <p>The partitions of each successful chunk are recorded so that a failed merge can be resumed by executing only the chunks that did not complete.</p>
+ */
+public class PartitionChunkExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionChunkExecutor.class);
+
+    /**
+     * Maximum number of partitions in each chunk
+     */
+    private final int chunkSize;
+
+    /**
+     * Descriptions of partitions that have been merged
+     */
+    private final Set<String> completedPartitions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Number of times to retry a failed chunk
+     */
+    private final int maxRetries;
+
+    /**
+     * Maximum number of chunks to execute concurrently
+     */
+    private final int threads;
+
+    /**
+     * Constructs a {@code PartitionChunkExecutor}.
+     *
+     * @param chunkSize           the maximum number of partitions in each chunk
+     * @param threads             the maximum number of chunks to execute concurrently
+     * @param maxRetries          the number of times to retry a failed chunk
+     * @param completedPartitions the descriptions of partitions that were merged by a previous attempt
+     */
+    public PartitionChunkExecutor(final int chunkSize, final int threads, final int maxRetries, @Nonnull final Collection<String> completedPartitions) {
+        Validate.isTrue(chunkSize > 0, "Chunk size must be positive");
+        Validate.isTrue(threads > 0, "Threads must be positive");
+        Validate.isTrue(maxRetries >= 0, "Max retries must not be negative");
+        this.chunkSize = chunkSize;
+        this.threads = threads;
+        this.maxRetries = maxRetries;
+        this.completedPartitions.addAll(completedPartitions);
+    }
+
+    /**
+     * Gets the descriptions of partitions that have been merged, including those from a previous attempt.
+     *
+     * @return the partition descriptions
+     */
+    @Nonnull
+    public Set<String> getCompletedPartitions() {
+        return Collections.unmodifiableSet(completedPartitions);
+    }
+
+    /**
+     * Divides the partitions that have not been merged into chunks.
+     *
+     * @param batches the partitions to merge
+     * @return the chunks of partitions
+     */
+    @Nonnull
+    public List<List<PartitionBatch>> chunk(@Nonnull final List<PartitionBatch> batches) {
+        final List<List<PartitionBatch>> chunks = new ArrayList<>();
+        List<PartitionBatch> chunk = null;
+
+        for (final PartitionBatch batch : batches) {
+            if (completedPartitions.contains(batch.getBatchDescription())) {
+                continue;
+            }
+            if (chunk == null || chunk.size() == chunkSize) {
+                chunk = new ArrayList<>(chunkSize);
+                chunks.add(chunk);
+            }
+            chunk.add(batch);
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Executes the specified task for each chunk of partitions that have not been merged.
+     *
+     * <p>Every chunk is attempted even if another chunk fails, so that as much progress as possible is recorded.</p>
+     *
+     * @param batches the partitions to merge
+     * @param task    the task that merges a chunk of partitions
+     * @throws RuntimeException if any chunk fails after all retries
+     */
+    public void execute(@Nonnull final List<PartitionBatch> batches, @Nonnull final ChunkTask task) {
+        final List<List<PartitionBatch>> chunks = chunk(batches);
+        if (chunks.isEmpty()) {
+            logger.info("All {} partitions have already been merged", batches.size());
+            return;
+        }
+        logger.info("Merging {} of {} partitions in {} chunks", chunks.stream().mapToInt(List::size).sum(), batches.size(), chunks.size());
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, chunks.size()));
+        try {
+            final List<Future<?>> futures = new ArrayList<>(chunks.size());
+            for (final List<PartitionBatch> chunk : chunks) {
+                futures.add(executor.submit(() -> {
+                    executeChunk(chunk, task);
+                    return null;
+                }));
+            }
+
+            int failures = 0;
+            Throwable failure = null;
+            for (final Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (final ExecutionException e) {
+                    ++failures;
+                    failure = (failure == null) ? e.getCause() : failure;
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while merging partitions", e);
+                }
+            }
+            if (failures > 0) {
+                throw new RuntimeException("Failed to merge " + failures + " of " + chunks.size() + " partition chunks", failure);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Executes the task for the specified chunk, retrying on failure, and records the partitions as merged.
+     */
+    private void executeChunk(@Nonnull final List<PartitionBatch> chunk, @Nonnull final ChunkTask task) throws Exception {
+        for (int attempt = 1; ; ++attempt) {
+            try {
+                task.execute(chunk);
+                break;
+            } catch (final Exception e) {
+                if (attempt > maxRetries) {
+                    logger.error("Failed to merge partitions {} after {} attempts", describe(chunk), attempt, e);
+                    throw e;
+                }
+                logger.warn("Failed to merge partitions {} on attempt {}; retrying", describe(chunk), attempt, e);
+            }
+        }
+        chunk.forEach(batch -> completedPartitions.add(batch.getBatchDescription()));
+    }
+
+    /**
+     * Describes the partitions in the specified chunk for logging.
+     */
+    @Nonnull
+    private String describe(@Nonnull final List<PartitionBatch> chunk) {
+        return chunk.stream().map(PartitionBatch::getBatchDescription).collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Merges a chunk of partitions.
+     */
+    @FunctionalInterface
+    public interface ChunkTask {
+
+        /**
+         * Merges the specified partitions.
+         *
+         * @param chunk the partitions to merge
+         * @throws Exception if the merge fails
+         */
+        void execute(@Nonnull List<PartitionBatch> chunk) throws Exception;
+    }
+}
@@ -35,9 +35,14 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Vector;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nonnull;
@@ -53,19 +58,48 @@ public class TableMergeSyncSupport implements Serializable {
 
     protected Connection conn;
 
+    /**
+     * Statements that configure the Hive session, replayed on each connection used for a chunk of partitions
+     */
+    private final List<String> sessionSQL = new ArrayList<>();
+
+    /**
+     * Executes merges in chunks of partitions, or {@code null} to merge all partitions in a single statement
+     */
+    private transient PartitionChunkExecutor chunkExecutor;
+
+    /**
+     * Provides a new connection for each chunk of partitions
+     */
+    private transient Supplier<Connection> chunkConnections;
+
     public TableMergeSyncSupport(Connection conn) {
         Validate.notNull(conn);
         this.conn = conn;
     }
 
+    /**
+     * Enables merging partitioned tables in chunks of partitions that are executed concurrently on separate connections.
+     *
+     * <p>Applies to merges that overwrite partitions: dedupe merge, primary key merge, and rolling sync.</p>
+     *
+     * @param executor    the executor for chunks of partitions, or {@code null} to merge all partitions in a single statement
+     * @param connections provides a new connection for each chunk
+     */
+    public void setChunkExecutor(@Nullable final PartitionChunkExecutor executor, @Nullable final Supplier<Connection> connections) {
+        Validate.isTrue(executor == null || connections != null, "Connections are required for chunked execution");
+        this.chunkExecutor = executor;
+        this.chunkConnections = connections;
+    }
+
     /**
      * Sets several hive parameters to enable dynamic partitions
      */
     public void enableDynamicPartitions() {
-        doExecuteSQL("set hive.exec.dynamic.partition=true");
-        doExecuteSQL("set hive.exec.dynamic.partition.mode=nonstrict");
+        doExecuteSessionSQL("set hive.exec.dynamic.partition=true");
+        doExecuteSessionSQL("set hive.exec.dynamic.partition.mode=nonstrict");
         // Required for ORC and Parquet
-        doExecuteSQL("set hive.optimize.index.filter=false");
+        doExecuteSessionSQL("set hive.optimize.index.filter=false");
     }
 
     /**
@@ -77,7 +111,7 @@ public class TableMergeSyncSupport implements Serializable {
                     resetHiveConf();
             }
             else {
-                doExecuteSQL("set " + conf);
+                doExecuteSessionSQL("set " + conf);
             }
         }
     }
@@ -86,7 +120,8 @@ public class TableMergeSyncSupport implements Serializable {
      * Sets the list of configurations given in name=value string pairs
      */
     public void resetHiveConf() {
-            doExecuteSQL("reset");
+            sessionSQL.clear();
+            doExecuteSessionSQL("reset");
     }
 
 
@@ -169,10 +204,9 @@ public class TableMergeSyncSupport implements Serializable {
 
         final String[] selectFields = getSelectFields(sourceSchema, sourceTable, targetSchema, targetTable, partitionSpec);
 
-        final String syncSQL = generateRollingSyncQuery(selectFields, partitionSpec, sourceSchema, sourceTable, targetSchema, targetTable, batches, feedPartitionValue);
-
-        doExecuteSQL(syncSQL);
-
+        doExecuteBatchSQL(() -> batches,
+                          chunk -> generateRollingSyncQuery(selectFields, partitionSpec, sourceSchema, sourceTable, targetSchema, targetTable, chunk, feedPartitionValue),
+                          () -> generateRollingSyncQuery(selectFields, partitionSpec, sourceSchema, sourceTable, targetSchema, targetTable, batches, feedPartitionValue));
     }
 
     private String generateRollingSyncQuery(String[] selectFields, PartitionSpec partitionSpec, String sourceSchema,
@@ -214,8 +248,6 @@ public class TableMergeSyncSupport implements Serializable {
         Validate.notNull(partitionSpec);
         Validate.notNull(feedPartitionValue);
 
-        List<PartitionBatch> batches = null;
-
         final String[] selectFields = getSelectFields(sourceSchema, sourceTable, targetSchema, targetTable, partitionSpec);
         final String sql;
         if (partitionSpec.isNonPartitioned()) {
@@ -230,20 +262,28 @@ public class TableMergeSyncSupport implements Serializable {
             }
         } else {
             if (shouldDedupe) {
-                batches = createPartitionBatches(partitionSpec, sourceSchema, sourceTable, feedPartitionValue);
+                final List<PartitionBatch> partitionBatches = createPartitionBatches(partitionSpec, sourceSchema, sourceTable, feedPartitionValue);
                 // Newer tables with processing_dttm in target will always be unique so requires additional handling
                 if (hasProcessingDttm(selectFields)) {
-                    sql = generateMergeWithDedupePartitionQuery(selectFields, partitionSpec, batches, sourceSchema, sourceTable, targetSchema, targetTable, feedPartitionValue);
+                    doExecuteBatchSQL(() -> partitionBatches,
+                                      chunk -> generateMergeWithDedupePartitionQuery(selectFields, partitionSpec, chunk, chunk, sourceSchema, sourceTable, targetSchema, targetTable,
+                                                                                     feedPartitionValue),
+                                      () -> generateMergeWithDedupePartitionQuery(selectFields, partitionSpec, partitionBatches, sourceSchema, sourceTable, targetSchema, targetTable,
+                                                                                  feedPartitionValue));
                 } else {
-                    sql = generateMergeWithDedupePartitionQueryNoProcessingDttm(selectFields, partitionSpec, batches, sourceSchema, sourceTable, targetSchema, targetTable, feedPartitionValue);
+                    doExecuteBatchSQL(() -> partitionBatches,
+                                      chunk -> generateMergeWithDedupePartitionQueryNoProcessingDttm(selectFields, partitionSpec, chunk, chunk, sourceSchema, sourceTable, targetSchema,
+                                                                                                     targetTable, feedPartitionValue),
+                                      () -> generateMergeWithDedupePartitionQueryNoProcessingDttm(selectFields, partitionSpec, partitionBatches, sourceSchema, sourceTable, targetSchema,
+                                                                                                  targetTable, feedPartitionValue));
                 }
-
+                return partitionBatches;
             } else {
                 sql = generateMergeWithPartitionQuery(selectFields, partitionSpec, sourceSchema, sourceTable, targetSchema, targetTable, feedPartitionValue);
             }
         }
         doExecuteSQL(sql);
-        return batches;
+        return null;
     }
 
     private boolean hasProcessingDttm(String[] selectFields) {
@@ -273,10 +313,14 @@ public class TableMergeSyncSupport implements Serializable {
         Validate.notEmpty(columnSpecs);
 
         final String[] selectFields = getSelectFields(sourceSchema, sourceTable, targetSchema, targetTable, partitionSpec);
-        final String sql = partitionSpec.isNonPartitioned()
-                           ? generatePKMergeNonPartitionQuery(selectFields, sourceSchema, sourceTable, targetSchema, targetTable, feedPartitionValue, columnSpecs)
-                           : generatePKMergePartitionQuery(selectFields, partitionSpec, sourceSchema, sourceTable, targetSchema, targetTable, feedPartitionValue, columnSpecs);
-        doExecuteSQL(sql);
+        if (partitionSpec.isNonPartitioned()) {
+            doExecuteSQL(generatePKMergeNonPartitionQuery(selectFields, sourceSchema, sourceTable, targetSchema, targetTable, feedPartitionValue, columnSpecs));
+        } else {
+            doExecuteBatchSQL(() -> createPartitionBatchesForPKMergeChunks(partitionSpec, sourceSchema, sourceTable, targetSchema, targetTable, feedPartitionValue, columnSpecs),
+                              chunk -> generatePKMergePartitionQuery(selectFields, partitionSpec, sourceSchema, sourceTable, targetSchema, targetTable, feedPartitionValue, columnSpecs, chunk,
+                                                                     chunk),
+                              () -> generatePKMergePartitionQuery(selectFields, partitionSpec, sourceSchema, sourceTable, targetSchema, targetTable, feedPartitionValue, columnSpecs));
+        }
     }
 
     /**
@@ -433,6 +477,28 @@ public class TableMergeSyncSupport implements Serializable {
     protected String generateMergeWithDedupePartitionQuery(@Nonnull final String[] selectFields, @Nonnull final PartitionSpec spec, @Nonnull final List<PartitionBatch> batches,
                                                            @Nonnull final String sourceSchema, @Nonnull final String sourceTable, @Nonnull final String targetSchema,
                                                            @Nonnull final String targetTable, @Nonnull final String feedPartitionValue) {
+        return generateMergeWithDedupePartitionQuery(selectFields, spec, batches, null, sourceSchema, sourceTable, targetSchema, targetTable, feedPartitionValue);
+    }
+
+    /**
+     * Generates a merge query for inserting overwriting from a source table into the target table appending to any partitions
+     * uses the batch identifier processing_dttm to determine whether a new record should be inserted so only new, distinct records will be
+     * inserted.
+     *
+     * @param selectFields       the list of fields in the select clause of the source table
+     * @param spec               the partition specification
+     * @param batches            the partitions of the target table to merge
+     * @param sourceBatches      the partitions of the source table to select, or {@code null} for all partitions
+     * @param sourceSchema       the schema or database name of the source table
+     * @param sourceTable        the source table name
+     * @param targetSchema       the schema or database name of the target table
+     * @param targetTable        the target table name
+     * @param feedPartitionValue the source processing partition value
+     * @return the sql string
+     */
+    protected String generateMergeWithDedupePartitionQuery(@Nonnull final String[] selectFields, @Nonnull final PartitionSpec spec, @Nonnull final List<PartitionBatch> batches,
+                                                           @Nullable final List<PartitionBatch> sourceBatches, @Nonnull final String sourceSchema, @Nonnull final String sourceTable,
+                                                           @Nonnull final String targetSchema, @Nonnull final String targetTable, @Nonnull final String feedPartitionValue) {
 
         // Strip processing_dttm for the distinct since it will always be different
         String[] distinctSelectFields = Arrays.asList(selectFields).stream().filter(v -> !("`processing_dttm`".equals(v))).collect(Collectors.toList()).toArray(new String[0]);
@@ -440,6 +506,7 @@ public class TableMergeSyncSupport implements Serializable {
         final String groupBySQL = StringUtils.join(distinctSelectFields, ",") + "," + spec.toPartitionSelectSQL();
         final String selectSQL = StringUtils.join(selectFields, ",");
         final String targetPartitionWhereClause = targetPartitionsWhereClause(batches, false);
+        final String sourcePartitionWhereClause = (sourceBatches != null) ? targetPartitionsWhereClause(sourceBatches, true) : null;
         final StringBuilder sb = new StringBuilder();
         sb.append("insert overwrite table ").append(HiveUtils.quoteIdentifier(targetSchema, targetTable)).append(" ")
             .append(spec.toDynamicPartitionSpec())
@@ -447,8 +514,11 @@ public class TableMergeSyncSupport implements Serializable {
             .append(" select ").append(selectSQL).append(",").append(spec.toDynamicSelectSQLSpec())
             .append(" from ").append(HiveUtils.quoteIdentifier(sourceSchema, sourceTable)).append(" ")
             .append(" where ")
-            .append(" processing_dttm = ").append(HiveUtils.quoteString(feedPartitionValue))
-            .append(" union all ")
+            .append(" processing_dttm = ").append(HiveUtils.quoteString(feedPartitionValue));
+        if (sourcePartitionWhereClause != null) {
+            sb.append(" and (").append(sourcePartitionWhereClause).append(")");
+        }
+        sb.append(" union all ")
             .append(" select ").append(selectSQL).append(",").append(spec.toPartitionSelectSQL())
             .append(" from ").append(HiveUtils.quoteIdentifier(targetSchema, targetTable)).append(" ");
         if (targetPartitionWhereClause != null) {
@@ -478,8 +548,30 @@ public class TableMergeSyncSupport implements Serializable {
     protected String generateMergeWithDedupePartitionQueryNoProcessingDttm(@Nonnull final String[] selectFields, @Nonnull final PartitionSpec spec, @Nonnull final List<PartitionBatch> batches,
                                                                            @Nonnull final String sourceSchema, @Nonnull final String sourceTable, @Nonnull final String targetSchema,
                                                                            @Nonnull final String targetTable, @Nonnull final String feedPartitionValue) {
+        return generateMergeWithDedupePartitionQueryNoProcessingDttm(selectFields, spec, batches, null, sourceSchema, sourceTable, targetSchema, targetTable, feedPartitionValue);
+    }
+
+    /**
+     * Generates a merge query for inserting overwriting from a source table into the target table appending to any partitions
+     *
+     * @param selectFields       the list of fields in the select clause of the source table
+     * @param spec               the partition specification
+     * @param batches            the partitions of the target table to merge
+     * @param sourceBatches      the partitions of the source table to select, or {@code null} for all partitions
+     * @param sourceSchema       the schema or database name of the source table
+     * @param sourceTable        the source table name
+     * @param targetSchema       the schema or database name of the target table
+     * @param targetTable        the target table name
+     * @param feedPartitionValue the source processing partition value
+     * @return the sql string
+     */
+    protected String generateMergeWithDedupePartitionQueryNoProcessingDttm(@Nonnull final String[] selectFields, @Nonnull final PartitionSpec spec, @Nonnull final List<PartitionBatch> batches,
+                                                                           @Nullable final List<PartitionBatch> sourceBatches, @Nonnull final String sourceSchema,
+                                                                           @Nonnull final String sourceTable, @Nonnull final String targetSchema, @Nonnull final String targetTable,
+                                                                           @Nonnull final String feedPartitionValue) {
         final String selectSQL = StringUtils.join(selectFields, ",");
         final String targetPartitionWhereClause = targetPartitionsWhereClause(batches, false);
+        final String sourcePartitionWhereClause = (sourceBatches != null) ? targetPartitionsWhereClause(sourceBatches, true) : null;
 
         final StringBuilder sb = new StringBuilder();
         sb.append("insert overwrite table ").append(HiveUtils.quoteIdentifier(targetSchema, targetTable)).append(" ")
@@ -488,8 +580,11 @@ public class TableMergeSyncSupport implements Serializable {
             .append(" select ").append(selectSQL).append(",").append(spec.toDynamicSelectSQLSpec())
             .append(" from ").append(HiveUtils.quoteIdentifier(sourceSchema, sourceTable)).append(" ")
             .append(" where ")
-            .append(" processing_dttm = ").append(HiveUtils.quoteString(feedPartitionValue))
-            .append(" union all ")
+            .append(" processing_dttm = ").append(HiveUtils.quoteString(feedPartitionValue));
+        if (sourcePartitionWhereClause != null) {
+            sb.append(" and (").append(sourcePartitionWhereClause).append(")");
+        }
+        sb.append(" union all ")
             .append(" select ").append(selectSQL).append(",").append(spec.toPartitionSelectSQL())
             .append(" from ").append(HiveUtils.quoteIdentifier(targetSchema, targetTable)).append(" ");
         if (targetPartitionWhereClause != null) {
@@ -651,6 +746,29 @@ public class TableMergeSyncSupport implements Serializable {
     protected String generatePKMergePartitionQuery(@Nonnull final String[] selectFields, @Nonnull final PartitionSpec partitionSpec, @Nonnull final String sourceSchema,
                                                    @Nonnull final String sourceTable, @Nonnull final String targetSchema, @Nonnull final String targetTable, @Nonnull final String feedPartitionValue,
                                                    @Nonnull final ColumnSpec[] columnSpecs) {
+        String joinOnClause = ColumnSpec.toPrimaryKeyJoinSQL(columnSpecs, "a", "b");
+        List<PartitionBatch> batches = createPartitionBatchesforPKMerge(partitionSpec, sourceSchema, sourceTable, targetSchema, targetTable, feedPartitionValue, joinOnClause);
+        return generatePKMergePartitionQuery(selectFields, partitionSpec, sourceSchema, sourceTable, targetSchema, targetTable, feedPartitionValue, columnSpecs, batches, null);
+    }
+
+    /**
+     * Generates a query two merge two tables containing partitions on a primary key.
+     *
+     * @param selectFields       the list of fields in the select clause of the source table
+     * @param partitionSpec      partition specification
+     * @param sourceSchema       the name of the source table schema or database
+     * @param sourceTable        the source table
+     * @param targetSchema       the name of the target table schema or database
+     * @param targetTable        the target table
+     * @param feedPartitionValue the partition of the source table to use
+     * @param columnSpecs        the column specifications
+     * @param batches            the partitions of the target table to preserve records from
+     * @param sourceBatches      the partitions of the source table to select, or {@code null} for all partitions
+     * @return the sql
+     */
+    protected String generatePKMergePartitionQuery(@Nonnull final String[] selectFields, @Nonnull final PartitionSpec partitionSpec, @Nonnull final String sourceSchema,
+                                                   @Nonnull final String sourceTable, @Nonnull final String targetSchema, @Nonnull final String targetTable, @Nonnull final String feedPartitionValue,
+                                                   @Nonnull final ColumnSpec[] columnSpecs, @Nonnull final List<PartitionBatch> batches, @Nullable final List<PartitionBatch> sourceBatches) {
         // Include alias
         String selectSQL = StringUtils.join(selectFields, ",");
         String[] selectFieldsWithAlias = selectFieldsForAlias(selectFields, "a");
@@ -661,8 +779,8 @@ public class TableMergeSyncSupport implements Serializable {
         PartitionSpec partitionSpecWithAlias = partitionSpec.newForAlias("a");
         String anyPK = primaryKeys[0];
 
-        List<PartitionBatch> batches = createPartitionBatchesforPKMerge(partitionSpec, sourceSchema, sourceTable, targetSchema, targetTable, feedPartitionValue, joinOnClause);
         String targetPartitionWhereClause = targetPartitionsWhereClause(PartitionBatch.toPartitionBatchesForAlias(batches, "a"), false);
+        String sourcePartitionWhereClause = (sourceBatches != null) ? targetPartitionsWhereClause(sourceBatches, true) : null;
 
         // TODO: If the records matching the primary key between the source and target are in a different partition
         // AND the matching records are the only remaining records of the partition, then the following sql will fail to overwrite the
@@ -680,8 +798,11 @@ public class TableMergeSyncSupport implements Serializable {
             .append("  select ").append(selectSQLWithAlias).append(",").append(partitionSpecWithAlias.toDynamicSelectSQLSpec())
             .append("  from ").append(HiveUtils.quoteIdentifier(sourceSchema, sourceTable)).append(" a")
             .append("  where ")
-            .append("  a.processing_dttm = ").append(HiveUtils.quoteString(feedPartitionValue))
-            .append(" union all ")
+            .append("  a.processing_dttm = ").append(HiveUtils.quoteString(feedPartitionValue));
+        if (sourcePartitionWhereClause != null) {
+            sb.append(" and (").append(sourcePartitionWhereClause).append(")");
+        }
+        sb.append(" union all ")
             .append("  select ").append(selectSQLWithAlias).append(",").append(partitionSpecWithAlias.toDynamicSelectSQLSpec())
             .append("  from ").append(HiveUtils.quoteIdentifier(targetSchema, targetTable)).append(" a left outer join (").append(sbSourceQuery).append(") b ")
             .append("  on (").append(joinOnClause).append(")")
@@ -695,6 +816,29 @@ public class TableMergeSyncSupport implements Serializable {
         return sb.toString();
     }
 
+    /**
+     * Finds all partitions affected by a primary key merge, which are the partitions receiving source records and the partitions containing matching keys.
+     *
+     * @param spec               the partition spec
+     * @param sourceSchema       the name of the source table schema or database
+     * @param sourceTable        the source table
+     * @param targetSchema       the name of the target table schema or database
+     * @param targetTable        the target table
+     * @param feedPartitionValue the partition of the source table to use
+     * @param columnSpecs        the column specifications
+     * @return the affected partitions
+     */
+    private List<PartitionBatch> createPartitionBatchesForPKMergeChunks(@Nonnull final PartitionSpec spec, @Nonnull final String sourceSchema, @Nonnull final String sourceTable,
+                                                                        @Nonnull final String targetSchema, @Nonnull final String targetTable, @Nonnull final String feedPartitionValue,
+                                                                        @Nonnull final ColumnSpec[] columnSpecs) {
+        final String joinOnClause = ColumnSpec.toPrimaryKeyJoinSQL(columnSpecs, "a", "b");
+        final Map<String, PartitionBatch> batches = new LinkedHashMap<>();
+        createPartitionBatches(spec, sourceSchema, sourceTable, feedPartitionValue).forEach(batch -> batches.put(batch.getBatchDescription(), batch));
+        createPartitionBatchesforPKMerge(spec, sourceSchema, sourceTable, targetSchema, targetTable, feedPartitionValue, joinOnClause)
+            .forEach(batch -> batches.putIfAbsent(batch.getBatchDescription(), batch));
+        return new ArrayList<>(batches.values());
+    }
+
     /**
      * Finds all partitions that contain matching keys.
      *
@@ -731,6 +875,56 @@ public class TableMergeSyncSupport implements Serializable {
     }
 
 
+    /**
+     * Merges the specified partitions using the chunk executor if set, otherwise executes a single statement.
+     *
+     * <p>Partitions with an empty value cannot be selected from the source table by value, so these merges always use a single statement.</p>
+     *
+     * @param batches    provides the partitions to merge, only called if the chunk executor is set
+     * @param chunkQuery generates the statement for a chunk of partitions
+     * @param query      generates the statement for merging all partitions
+     */
+    private void doExecuteBatchSQL(@Nonnull final Supplier<List<PartitionBatch>> batches, @Nonnull final Function<List<PartitionBatch>, String> chunkQuery,
+                                   @Nonnull final Supplier<String> query) {
+        if (chunkExecutor == null) {
+            doExecuteSQL(query.get());
+            return;
+        }
+
+        final List<PartitionBatch> partitionBatches = batches.get();
+        final boolean hasEmptyValue = partitionBatches.stream().anyMatch(batch -> Arrays.stream(batch.getPartitionValues()).anyMatch(StringUtils::isEmpty));
+        if (partitionBatches.isEmpty() || hasEmptyValue) {
+            logger.info("Merging all partitions in a single statement");
+            doExecuteSQL(query.get());
+        } else {
+            chunkExecutor.execute(partitionBatches, chunk -> doExecuteChunkSQL(chunkQuery.apply(chunk)));
+        }
+    }
+
+    /**
+     * Executes the statement for a chunk of partitions on a new connection configured with the same Hive session settings.
+     *
+     * @param sql the statement to execute
+     * @throws SQLException if the statement fails
+     */
+    protected void doExecuteChunkSQL(String sql) throws SQLException {
+        try (final Connection chunkConn = chunkConnections.get(); final Statement st = chunkConn.createStatement()) {
+            for (final String session : sessionSQL) {
+                st.execute(session);
+            }
+            logger.info("Executing doExecuteChunkSQL sql {}", sql);
+            st.execute(sql);
+        }
+    }
+
+    /**
+     * Executes a statement that configures the Hive session and records it for chunk connections.
+     */
+    private void doExecuteSessionSQL(String sql) {
+        doExecuteSQL(sql);
+        sessionSQL.add(sql);
+    }
+
     protected void doExecuteSQL(String sql) {
 
         try (final Statement st = conn.createStatement()) {
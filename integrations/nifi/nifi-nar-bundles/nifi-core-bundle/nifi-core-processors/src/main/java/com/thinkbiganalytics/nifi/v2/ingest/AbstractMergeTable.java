@@ -20,6 +20,7 @@ package com.thinkbiganalytics.nifi.v2.ingest;
  * #L%
  */
 
+import com.thinkbiganalytics.ingest.PartitionChunkExecutor;
 import com.thinkbiganalytics.ingest.TableMergeSyncSupport;
 import com.thinkbiganalytics.nifi.processor.AbstractNiFiProcessor;
 import com.thinkbiganalytics.nifi.v2.thrift.ThriftService;
@@ -45,6 +46,7 @@ import org.apache.nifi.util.StopWatch;
 
 import java.sql.Connection;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -89,6 +91,16 @@ public abstract class AbstractMergeTable extends AbstractNiFiProcessor {
      * Rolling SYNC same as SYNC but at a partition level overwriting only partitions present in source.
      **/
     public static final String STRATEGY_ROLLING_SYNC = "ROLLING_SYNC";
+    /**
+     * Attribute with the descriptions of partitions merged by a failed chunked merge
+     */
+    public static final String COMPLETED_PARTITIONS_ATTR = "merge.completed.partitions";
+
+    /**
+     * Attribute identifying the target table and feed partition of the completed partitions
+     */
+    public static final String COMPLETED_PARTITIONS_KEY_ATTR = "merge.completed.partitions.key";
+
     public static final PropertyDescriptor MERGE_STRATEGY = new PropertyDescriptor.Builder()
         .name("Merge Strategy")
         .description(
@@ -120,6 +132,32 @@ public abstract class AbstractMergeTable extends AbstractNiFiProcessor {
         .build();
 
 
+    public static final PropertyDescriptor PARTITION_CHUNK_SIZE = new PropertyDescriptor.Builder()
+        .name("Partition Chunk Size")
+        .description("Number of partitions to merge in each query for the DEDUPE_AND_MERGE, PK_MERGE, and ROLLING_SYNC strategies. Chunks are executed concurrently, each on its own "
+                     + "connection, and partitions of completed chunks are recorded in the '" + COMPLETED_PARTITIONS_ATTR + "' attribute so that a failed merge resumes with the remaining "
+                     + "chunks. A value of 0 merges all partitions in a single query.")
+        .required(true)
+        .defaultValue("0")
+        .addValidator(StandardValidators.NON_NEGATIVE_INTEGER_VALIDATOR)
+        .expressionLanguageSupported(true)
+        .build();
+
+    public static final PropertyDescriptor PARTITION_CHUNK_THREADS = new PropertyDescriptor.Builder()
+        .name("Partition Chunk Threads")
+        .description("Maximum number of partition chunks to merge concurrently.")
+        .required(true)
+        .defaultValue("4")
+        .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+        .build();
+
+    public static final PropertyDescriptor PARTITION_CHUNK_RETRIES = new PropertyDescriptor.Builder()
+        .name("Partition Chunk Retries")
+        .description("Number of times to retry a failed partition chunk before failing the merge.")
+        .required(true)
+        .defaultValue("2")
+        .addValidator(StandardValidators.NON_NEGATIVE_INTEGER_VALIDATOR)
+        .build();
 
     private final Set<Relationship> relationships;
     private final List<PropertyDescriptor> propDescriptors;
@@ -142,6 +180,9 @@ public abstract class AbstractMergeTable extends AbstractNiFiProcessor {
         pds.add(FIELD_SPECIFICATION);
         pds.add(HIVE_CONFIGURATIONS);
         pds.add(RESET_HIVE);
+        pds.add(PARTITION_CHUNK_SIZE);
+        pds.add(PARTITION_CHUNK_THREADS);
+        pds.add(PARTITION_CHUNK_RETRIES);
         addPropertyDescriptors(pds);
         propDescriptors = Collections.unmodifiableList(pds);
     }
@@ -184,6 +225,7 @@ public abstract class AbstractMergeTable extends AbstractNiFiProcessor {
         String mergeStrategyValue = context.getProperty(MERGE_STRATEGY).evaluateAttributeExpressions(flowFile).getValue();
         String hiveConfigurations = context.getProperty(HIVE_CONFIGURATIONS).evaluateAttributeExpressions(flowFile).getValue();
         boolean resetHive = context.getProperty(RESET_HIVE).asBoolean();
+        int partitionChunkSize = context.getProperty(PARTITION_CHUNK_SIZE).evaluateAttributeExpressions(flowFile).asInteger();
         final ColumnSpec[] columnSpecs = Optional.ofNullable(context.getProperty(FIELD_SPECIFICATION).evaluateAttributeExpressions(flowFile).getValue())
             .filter(StringUtils::isNotEmpty)
             .map(ColumnSpec::createFromString)
@@ -206,6 +248,15 @@ public abstract class AbstractMergeTable extends AbstractNiFiProcessor {
 
         final StopWatch stopWatch = new StopWatch(true);
 
+        // Resume a failed chunked merge of the same feed partition
+        final String completedPartitionsKey = targetSchema + "." + targetTable + "/" + feedPartitionValue;
+        PartitionChunkExecutor chunkExecutor = null;
+        if (partitionChunkSize > 0) {
+            final String completedPartitions = completedPartitionsKey.equals(flowFile.getAttribute(COMPLETED_PARTITIONS_KEY_ATTR)) ? flowFile.getAttribute(COMPLETED_PARTITIONS_ATTR) : null;
+            chunkExecutor = new PartitionChunkExecutor(partitionChunkSize, context.getProperty(PARTITION_CHUNK_THREADS).asInteger(), context.getProperty(PARTITION_CHUNK_RETRIES).asInteger(),
+                                                       StringUtils.isNotEmpty(completedPartitions) ? Arrays.asList(completedPartitions.split("\n")) : Collections.<String>emptyList());
+        }
+
         try (final Connection conn = getConnection(context)) {
 
             TableMergeSyncSupport mergeSupport = new TableMergeSyncSupport(conn);
@@ -218,6 +269,10 @@ public abstract class AbstractMergeTable extends AbstractNiFiProcessor {
                 mergeSupport.setHiveConf(hiveConfigurations.split("\\|"));
             }
 
+            if (chunkExecutor != null) {
+                mergeSupport.setChunkExecutor(chunkExecutor, () -> getConnection(context));
+            }
+
             PartitionSpec partitionSpec = new PartitionSpec(partitionSpecString);
 
             if (STRATEGY_DEDUPE_MERGE.equals(mergeStrategyValue)) {
@@ -237,11 +292,16 @@ public abstract class AbstractMergeTable extends AbstractNiFiProcessor {
             stopWatch.stop();
             session.getProvenanceReporter().modifyContent(flowFile, "Execution completed", stopWatch.getElapsed(TimeUnit.MILLISECONDS));
             flowFile = session.putAttribute(flowFile, PROVENANCE_EXECUTION_STATUS_KEY, "Successful");
+            flowFile = session.removeAllAttributes(flowFile, new HashSet<>(Arrays.asList(COMPLETED_PARTITIONS_ATTR, COMPLETED_PARTITIONS_KEY_ATTR)));
             session.transfer(flowFile, REL_SUCCESS);
 
         } catch (final Exception e) {
             logger.error("Unable to execute merge doMerge for {} due to {}; routing to failure", new Object[]{flowFile, e}, e);
             flowFile = session.putAttribute(flowFile, PROVENANCE_EXECUTION_STATUS_KEY, "Failed: " + e.getMessage());
+            if (chunkExecutor != null && !chunkExecutor.getCompletedPartitions().isEmpty()) {
+                flowFile = session.putAttribute(flowFile, COMPLETED_PARTITIONS_ATTR, StringUtils.join(chunkExecutor.getCompletedPartitions(), "\n"));
+                flowFile = session.putAttribute(flowFile, COMPLETED_PARTITIONS_KEY_ATTR, completedPartitionsKey);
+            }
             session.transfer(flowFile, REL_FAILURE);
         }
     }
@@ -38,12 +38,15 @@ import org.apache.nifi.annotation.behavior.WritesAttribute;
 import org.apache.nifi.annotation.behavior.WritesAttributes;
 import org.apache.nifi.annotation.documentation.CapabilityDescription;
 import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.annotation.lifecycle.OnScheduled;
+import org.apache.nifi.annotation.lifecycle.OnStopped;
 import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.components.PropertyValue;
 import org.apache.nifi.components.Validator;
 import org.apache.nifi.dbcp.DBCPService;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.processor.DataUnit;
 import org.apache.nifi.processor.ProcessContext;
 import org.apache.nifi.processor.ProcessSession;
 import org.apache.nifi.processor.Relationship;
@@ -51,12 +54,17 @@ import org.apache.nifi.processor.exception.ProcessException;
 import org.apache.nifi.processor.io.OutputStreamCallback;
 import org.apache.nifi.processor.util.StandardValidators;
 import org.apache.nifi.util.StopWatch;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
@@ -66,7 +74,12 @@ import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -84,7 +97,10 @@ import static com.thinkbiganalytics.nifi.v2.ingest.IngestProperties.REL_SUCCESS;
     "Extracts data from a JDBC source table and can optional extract incremental data if provided criteria. Query result will be converted to a delimited format, or to Avro if specified. Streaming is used so arbitrarily large result sets are supported. This processor can be scheduled to run on a timer, or cron expression, using the standard scheduling methods, or it can be triggered by an incoming FlowFile. If it is triggered by an incoming FlowFile, then attributes of that FlowFile will be available when evaluating the select query. FlowFile attribute \'source.row.count\' indicates how many rows were selected.")
 @WritesAttributes({
         @WritesAttribute(attribute = "db.table.output.format", description = "Output format for database table ingested"),
-        @WritesAttribute(attribute = "db.table.avro.schema", description = "Avro schema for the database table ingested")
+        @WritesAttribute(attribute = "db.table.avro.schema", description = "Avro schema for the database table ingested"),
+        @WritesAttribute(attribute = "fragment.identifier", description = "If the table is split, all FlowFiles from the same extract will have the same value for this attribute"),
+        @WritesAttribute(attribute = "fragment.index", description = "If the table is split, the position of this FlowFile in the list of FlowFiles for the extract"),
+        @WritesAttribute(attribute = "fragment.count", description = "If the table is split, the number of FlowFiles for the extract")
     })
 
 // Implements strategies outlined by https://thebibackend.wordpress.com/2011/05/18/incremental-load-part-i-overview/
@@ -94,6 +110,9 @@ public class GetTableData extends AbstractNiFiProcessor {
     public static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ISO_DATE_TIME;
     public static final String RESULT_ROW_COUNT = "source.row.count";
     public static final String EMPTY_STRING = "";
+    public static final String FRAGMENT_ID = "fragment.identifier";
+    public static final String FRAGMENT_INDEX = "fragment.index";
+    public static final String FRAGMENT_COUNT = "fragment.count";
 
     public static final Relationship REL_NO_DATA = new Relationship.Builder()
         .name("nodata")
@@ -182,7 +201,7 @@ public class GetTableData extends AbstractNiFiProcessor {
         .build();
     public static final PropertyDescriptor OUTPUT_TYPE = new PropertyDescriptor.Builder()
         .name("Output Type")
-        .description("How should the results be returned.  Either a Delimited output such as CSV, or AVRO.  If delimited you must specify the delimiter.")
+        .description("How should the results be returned.  Either a Delimited output such as CSV, AVRO, or PARQUET.  If delimited you must specify the delimiter.")
         .allowableValues(GetTableDataSupport.OutputType.values())
         .required(true)
         .defaultValue(GetTableDataSupport.OutputType.DELIMITED.toString())
@@ -190,15 +209,58 @@ public class GetTableData extends AbstractNiFiProcessor {
     public static final PropertyDescriptor OUTPUT_DELIMITER = new PropertyDescriptor.Builder()
         .name("Output Delimiter")
         .description(
-            "Used only if the Output Type is 'Delimited'.  If this is empty and the Output Type is delimited it will default to a ','.  This property is not used if the Output Type is AVRO.")
+            "Used only if the Output Type is 'Delimited'.  If this is empty and the Output Type is delimited it will default to a ','.  This property is not used if the Output Type is AVRO or PARQUET.")
         .required(false)
         .addValidator(Validator.VALID)
         .defaultValue(",")
         .expressionLanguageSupported(true)
         .build();
+    public static final PropertyDescriptor SPLIT_FIELD = new PropertyDescriptor.Builder()
+        .name("Split Field")
+        .description("Numeric source field, such as a primary key, used to divide the table into ranges of equal width between the minimum and maximum values of the field. "
+                     + "Required if the Split Count is greater than 1.")
+        .required(false)
+        .addValidator(StandardValidators.NON_EMPTY_VALIDATOR)
+        .expressionLanguageSupported(true)
+        .build();
+    public static final PropertyDescriptor SPLIT_COUNT = new PropertyDescriptor.Builder()
+        .name("Split Count")
+        .description("Number of ranges of the Split Field to extract in parallel. Each range is selected using its own connection from the Source Database Connection and is written to its own "
+                     + "FlowFile with fragment attributes. A value of 1 extracts the table with a single query.")
+        .required(true)
+        .defaultValue("1")
+        .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+        .expressionLanguageSupported(true)
+        .build();
+    public static final PropertyDescriptor SPLIT_THREADS = new PropertyDescriptor.Builder()
+        .name("Split Threads")
+        .description("Maximum number of ranges of the Split Field to select concurrently across all tasks of this processor. Ranges beyond this limit wait for a thread to be available.")
+        .required(true)
+        .defaultValue("4")
+        .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+        .build();
+    public static final PropertyDescriptor PARQUET_ROW_GROUP_SIZE = new PropertyDescriptor.Builder()
+        .name("Parquet Row Group Size")
+        .description("Used only if the Output Type is 'PARQUET'.  The size of each row group, which is buffered in memory while it is written. Must be less than 2 GB.")
+        .required(true)
+        .defaultValue("128 MB")
+        .addValidator(StandardValidators.createDataSizeBoundsValidator(1, Integer.MAX_VALUE))
+        .build();
+    public static final PropertyDescriptor PARQUET_COMPRESSION = new PropertyDescriptor.Builder()
+        .name("Parquet Compression")
+        .description("Used only if the Output Type is 'PARQUET'.  The compression codec for column data.")
+        .allowableValues(CompressionCodecName.UNCOMPRESSED.name(), CompressionCodecName.SNAPPY.name(), CompressionCodecName.GZIP.name())
+        .required(true)
+        .defaultValue(CompressionCodecName.SNAPPY.name())
+        .build();
     private final Set<Relationship> relationships;
     private final List<PropertyDescriptor> propDescriptors;
 
+    /**
+     * Selects the ranges of a split table, or {@code null} if the processor is not scheduled
+     */
+    private volatile ExecutorService splitExecutor;
+
     public GetTableData() {
         HashSet<Relationship> r = new HashSet<>();
         r.add(REL_SUCCESS);
@@ -222,6 +284,11 @@ public class GetTableData extends AbstractNiFiProcessor {
         pds.add(UNIT_SIZE);
         pds.add(OUTPUT_TYPE);
         pds.add(OUTPUT_DELIMITER);
+        pds.add(PARQUET_ROW_GROUP_SIZE);
+        pds.add(PARQUET_COMPRESSION);
+        pds.add(SPLIT_FIELD);
+        pds.add(SPLIT_COUNT);
+        pds.add(SPLIT_THREADS);
         this.propDescriptors = Collections.unmodifiableList(pds);
     }
 
@@ -248,6 +315,25 @@ public class GetTableData extends AbstractNiFiProcessor {
         return fields.toArray(new String[0]);
     }
 
+    /**
+     * Creates the threads for selecting the ranges of a split table.
+     */
+    @OnScheduled
+    public void onScheduled(final ProcessContext context) {
+        splitExecutor = Executors.newFixedThreadPool(context.getProperty(SPLIT_THREADS).asInteger());
+    }
+
+    /**
+     * Stops the threads for selecting the ranges of a split table.
+     */
+    @OnStopped
+    public void onStopped() {
+        if (splitExecutor != null) {
+            splitExecutor.shutdownNow();
+            splitExecutor = null;
+        }
+    }
+
     @Override
     public Set<Relationship> getRelationships() {
         return relationships;
@@ -290,6 +376,8 @@ public class GetTableData extends AbstractNiFiProcessor {
         final String outputType = context.getProperty(OUTPUT_TYPE).getValue();
         String outputDelimiter = context.getProperty(OUTPUT_DELIMITER).evaluateAttributeExpressions(incoming).getValue();
         final String delimiter = StringUtils.isBlank(outputDelimiter) ? "," : outputDelimiter;
+        final int parquetRowGroupSize = context.getProperty(PARQUET_ROW_GROUP_SIZE).asDataSize(DataUnit.B).intValue();
+        final CompressionCodecName parquetCompression = CompressionCodecName.valueOf(context.getProperty(PARQUET_COMPRESSION).getValue());
 
         final PropertyValue waterMarkPropName = context.getProperty(HIGH_WATER_MARK_PROP).evaluateAttributeExpressions(incoming);
 
@@ -298,6 +386,21 @@ public class GetTableData extends AbstractNiFiProcessor {
         final LoadStrategy strategy = LoadStrategy.valueOf(loadStrategy);
         final StopWatch stopWatch = new StopWatch(true);
 
+        final String splitField = context.getProperty(SPLIT_FIELD).evaluateAttributeExpressions(incoming).getValue();
+        final int splitCount = context.getProperty(SPLIT_COUNT).evaluateAttributeExpressions(incoming).asInteger();
+        if (splitCount > 1) {
+            if (StringUtils.isBlank(splitField)) {
+                logger.error("The property 'Split Field' is required when 'Split Count' is greater than 1");
+                if (incoming != null) {
+                    session.transfer(incoming, REL_FAILURE);
+                }
+                return;
+            }
+            onTriggerSplit(session, incoming, dbcpService, strategy, tableName, selectFields, dateField, queryTimeout, overlapTime, backoffTime, unitSize, outputType, delimiter, parquetRowGroupSize,
+                           parquetCompression, waterMarkPropName, feedName, splitField, splitCount, stopWatch);
+            return;
+        }
+
         try (final Connection conn = dbcpService.getConnection()) {
 
             FlowFile outgoing = (incoming == null ? session.create() : incoming);
@@ -328,6 +431,10 @@ public class GetTableData extends AbstractNiFiProcessor {
                         } else if (GetTableDataSupport.OutputType.AVRO.equals(GetTableDataSupport.OutputType.valueOf(outputType))){
                             avroSchema = JdbcCommon.createSchema(rs);
                             nrOfRows.set(JdbcCommon.convertToAvroStream(rs, out, (strategy == LoadStrategy.INCREMENTAL ? visitor : null), avroSchema));
+                        } else if (GetTableDataSupport.OutputType.PARQUET.equals(GetTableDataSupport.OutputType.valueOf(outputType))) {
+                            avroSchema = JdbcCommon.createSchema(rs);
+                            nrOfRows.set(JdbcCommon.convertToParquetStream(rs, out, (strategy == LoadStrategy.INCREMENTAL ? visitor : null), avroSchema, parquetRowGroupSize,
+                                                                           parquetCompression));
                         } else {
                             throw new RuntimeException("Unsupported output format type [" + outputType + "]");
                         }
@@ -387,6 +494,196 @@ public class GetTableData extends AbstractNiFiProcessor {
         }
     }
 
+    /**
+     * Extracts the table by splitting it into ranges of the split field that are selected in parallel, and writes each range to its own FlowFile.
+     *
+     * <p>Each range is written to a temporary file by a worker thread, as the session cannot be used concurrently, and then imported into a FlowFile. The FlowFiles are only transferred once
+     * every range has been imported, so a failure never releases part of the table. The new high-water mark is only set on the last FlowFile.</p>
+     */
+    private void onTriggerSplit(final ProcessSession session, final FlowFile incoming, final DBCPService dbcpService, final LoadStrategy strategy, final String tableName,
+                                final String[] selectFields, final String dateField, final int queryTimeout, final int overlapTime, final int backoffTime, final String unitSize,
+                                final String outputType, final String delimiter, final int parquetRowGroupSize, final CompressionCodecName parquetCompression,
+                                final PropertyValue waterMarkPropName, final String feedName, final String splitField, final int splitCount, final StopWatch stopWatch) {
+        final ComponentLog logger = getLog();
+        final FlowFile parent = (incoming == null ? session.create() : incoming);
+        final List<SplitResult> results = new ArrayList<>();
+        final List<Future<SplitResult>> futures = new ArrayList<>();
+
+        try {
+            // Determine the ranges to select
+            GetTableDataSupport.DateRange dateRange = null;
+            Date lastLoadDate = null;
+            if (strategy == LoadStrategy.INCREMENTAL) {
+                LocalDateTime waterMarkTime = LocalDateTime.parse(getIncrementalWaterMarkValue(parent, waterMarkPropName), DATE_TIME_FORMAT);
+                lastLoadDate = toDate(waterMarkTime);
+                dateRange = GetTableDataSupport.getIncrementalRange(overlapTime, lastLoadDate, backoffTime, GetTableDataSupport.UnitSizes.valueOf(unitSize));
+            }
+
+            List<GetTableDataSupport.KeyRange> ranges = Collections.emptyList();
+            if (dateRange == null || dateRange.getMinDate().before(dateRange.getMaxDate())) {
+                try (final Connection conn = dbcpService.getConnection()) {
+                    final GetTableDataSupport.KeyRange keyRange = new GetTableDataSupport(conn, queryTimeout).selectKeyRange(tableName, splitField, dateField, dateRange);
+                    ranges = (keyRange != null) ? keyRange.split(splitCount) : Collections.singletonList(new GetTableDataSupport.KeyRange(null, null));
+                }
+            }
+            logger.info("Extracting {} in {} ranges of {}", new Object[]{tableName, ranges.size(), splitField});
+
+            // Select each range in parallel
+            final ExecutorService executor = splitExecutor;
+            if (executor == null) {
+                throw new IllegalStateException("The processor has not been scheduled");
+            }
+            for (final GetTableDataSupport.KeyRange range : ranges) {
+                final GetTableDataSupport.DateRange splitDateRange = dateRange;
+                final Date splitLastLoadDate = lastLoadDate;
+                futures.add(executor.submit(() -> {
+                    final SplitResult result = new SplitResult(Files.createTempFile("kylo-get-table-data", ".tmp"));
+                    try (final Connection conn = dbcpService.getConnection();
+                         final OutputStream out = new BufferedOutputStream(Files.newOutputStream(result.path))) {
+                        final LastFieldVisitor visitor = (strategy == LoadStrategy.INCREMENTAL) ? new LastFieldVisitor(dateField, splitLastLoadDate) : null;
+                        try (final ResultSet rs = new GetTableDataSupport(conn, queryTimeout).selectSplit(tableName, selectFields, splitField, range, dateField, splitDateRange);
+                             final Statement st = rs.getStatement()) {
+                            if (GetTableDataSupport.OutputType.DELIMITED.equals(GetTableDataSupport.OutputType.valueOf(outputType))) {
+                                result.rowCount = JdbcCommon.convertToDelimitedStream(rs, out, visitor, delimiter);
+                            } else if (GetTableDataSupport.OutputType.AVRO.equals(GetTableDataSupport.OutputType.valueOf(outputType))) {
+                                result.avroSchema = JdbcCommon.createSchema(rs);
+                                result.rowCount = JdbcCommon.convertToAvroStream(rs, out, visitor, result.avroSchema);
+                            } else if (GetTableDataSupport.OutputType.PARQUET.equals(GetTableDataSupport.OutputType.valueOf(outputType))) {
+                                result.avroSchema = JdbcCommon.createSchema(rs);
+                                result.rowCount = JdbcCommon.convertToParquetStream(rs, out, visitor, result.avroSchema, parquetRowGroupSize, parquetCompression);
+                            } else {
+                                throw new RuntimeException("Unsupported output format type [" + outputType + "]");
+                            }
+                        }
+                        result.lastModifyDate = (visitor != null) ? visitor.getLastModifyDate() : null;
+                    } catch (final Exception e) {
+                        Files.deleteIfExists(result.path);
+                        throw e;
+                    }
+                    return result;
+                }));
+            }
+
+            ExecutionException failure = null;
+            for (final Future<SplitResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (final ExecutionException e) {
+                    failure = (failure == null) ? e : failure;
+                }
+            }
+            if (failure != null) {
+                throw new ProcessException("Unable to select a range of the table", failure.getCause());
+            }
+
+            // Create a FlowFile for each range with data
+            long rowCount = 0;
+            Date lastModifyDate = lastLoadDate;
+            final List<SplitResult> nonEmpty = new ArrayList<>();
+            for (final SplitResult result : results) {
+                rowCount += result.rowCount;
+                if (result.rowCount > 0) {
+                    nonEmpty.add(result);
+                }
+                if (result.lastModifyDate != null && (lastModifyDate == null || result.lastModifyDate.after(lastModifyDate))) {
+                    lastModifyDate = result.lastModifyDate;
+                }
+            }
+
+            if (rowCount == 0L) {
+                FlowFile outgoing = parent;
+                if (!results.isEmpty()) {
+                    outgoing = session.importFrom(results.get(0).path, false, outgoing);
+                }
+                outgoing = putSplitAttributes(session, outgoing, 0L, outputType, results.isEmpty() ? null : results.get(0).avroSchema);
+                logger.info("{} contains no data; transferring to 'nodata'", new Object[]{outgoing});
+                session.transfer(outgoing, REL_NO_DATA);
+                return;
+            }
+
+            // Create every FlowFile before transferring any of them, and advance the high-water mark only on the last one
+            final String newWaterMarkStr = (strategy == LoadStrategy.INCREMENTAL) ? format(lastModifyDate) : null;
+            final String fragmentId = UUID.randomUUID().toString();
+            final List<FlowFile> children = new ArrayList<>(nonEmpty.size());
+            try {
+                for (int index = 0; index < nonEmpty.size(); ++index) {
+                    final String waterMark = (index == nonEmpty.size() - 1) ? newWaterMarkStr : null;
+                    children.add(createSplitFlowFile(session, parent, nonEmpty.get(index), outputType, fragmentId, index, nonEmpty.size(), waterMarkPropName, waterMark));
+                }
+            } catch (final RuntimeException e) {
+                session.remove(children);
+                throw e;
+            }
+
+            for (int index = 0; index < children.size(); ++index) {
+                final FlowFile outgoing = children.get(index);
+                session.getProvenanceReporter().fork(parent, Collections.singletonList(outgoing), "Retrieved " + nonEmpty.get(index).rowCount + " rows",
+                                                     stopWatch.getElapsed(TimeUnit.MILLISECONDS));
+                session.transfer(outgoing, REL_SUCCESS);
+            }
+            session.remove(parent);
+
+            logger.info("{} contains {} records in {} FlowFiles; transferring to 'success'", new Object[]{tableName, rowCount, nonEmpty.size()});
+            if (newWaterMarkStr != null) {
+                logger.info("Recorded load status feed {} date {}", new Object[]{feedName, newWaterMarkStr});
+            }
+        } catch (final Exception e) {
+            if (incoming == null) {
+                logger.error("Unable to execute SQL select from table due to {}. No incoming flow file to route to failure", new Object[]{e});
+                session.remove(parent);
+            } else {
+                logger.error("Unable to execute SQL select from table due to {}; routing to failure", new Object[]{incoming, e});
+                session.transfer(incoming, REL_FAILURE);
+            }
+        } finally {
+            // Stop any ranges still being selected, such as after an interrupt
+            for (final Future<SplitResult> future : futures) {
+                future.cancel(true);
+            }
+            for (final SplitResult result : results) {
+                try {
+                    Files.deleteIfExists(result.path);
+                } catch (final IOException e) {
+                    logger.warn("Unable to delete temporary file {}", new Object[]{result.path, e});
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a FlowFile for a range of the table. The FlowFile is removed if it cannot be created.
+     *
+     * @param waterMark the new high-water mark, or {@code null} to keep the high-water mark of the parent
+     */
+    private FlowFile createSplitFlowFile(final ProcessSession session, final FlowFile parent, final SplitResult result, final String outputType, final String fragmentId, final int index,
+                                         final int count, final PropertyValue waterMarkPropName, final String waterMark) {
+        FlowFile outgoing = session.create(parent);
+        try {
+            outgoing = session.importFrom(result.path, false, outgoing);
+            outgoing = putSplitAttributes(session, outgoing, result.rowCount, outputType, result.avroSchema);
+            outgoing = session.putAttribute(outgoing, FRAGMENT_ID, fragmentId);
+            outgoing = session.putAttribute(outgoing, FRAGMENT_INDEX, Integer.toString(index));
+            outgoing = session.putAttribute(outgoing, FRAGMENT_COUNT, Integer.toString(count));
+            if (waterMark != null) {
+                outgoing = setIncrementalWaterMarkValue(session, outgoing, waterMarkPropName, waterMark);
+            }
+            return outgoing;
+        } catch (final RuntimeException e) {
+            session.remove(outgoing);
+            throw e;
+        }
+    }
+
+    /**
+     * Sets the row count and output format attributes of a FlowFile for a range of the table.
+     */
+    private FlowFile putSplitAttributes(final ProcessSession session, FlowFile flowFile, final long rowCount, final String outputType, final Schema schema) {
+        flowFile = session.putAttribute(flowFile, RESULT_ROW_COUNT, Long.toString(rowCount));
+        flowFile = session.putAttribute(flowFile, ComponentAttributes.NUM_SOURCE_RECORDS.key(), Long.toString(rowCount));
+        flowFile = session.putAttribute(flowFile, "db.table.output.format", outputType);
+        return session.putAttribute(flowFile, "db.table.avro.schema", (schema != null) ? JdbcCommon.getAvroSchemaForFeedSetup(schema) : EMPTY_STRING);
+    }
+
     private String getIncrementalWaterMarkValue(FlowFile ff, PropertyValue waterMarkPropName) {
         if (!waterMarkPropName.isSet()) {
             // TODO validate when scheduled?
@@ -439,6 +736,21 @@ public class GetTableData extends AbstractNiFiProcessor {
         }
     }
 
+    /**
+     * Output of selecting one range of a split table
+     */
+    private static class SplitResult {
+
+        final Path path;
+        Schema avroSchema;
+        Date lastModifyDate;
+        long rowCount;
+
+        SplitResult(Path path) {
+            this.path = path;
+        }
+    }
+
     /**
      * Track the max date we read
      */
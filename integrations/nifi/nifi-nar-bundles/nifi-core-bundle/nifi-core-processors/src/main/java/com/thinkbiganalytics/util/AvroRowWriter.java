@@ -0,0 +1,226 @@
+package com.thinkbiganalytics.util;
+
+/*-
+ * #%L
+ * thinkbig-nifi-core-processors
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.nifi.thrift.api.RowVisitor;
+
+import org.apache.avro.generic.GenericRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import static com.thinkbiganalytics.util.DelimitedRowWriter.DATE_TIME_FORMATTER;
+import static com.thinkbiganalytics.util.DelimitedRowWriter.TIME_FORMATTER;
+
+/**
+ * Writes the rows of a result set as Avro records.
+ *
+ * <p>The SQL type and name of each column are read once from the result set metadata, and a single record is reused for every row.</p>
+ */
+class AvroRowWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(AvroRowWriter.class);
+
+    /**
+     * Maximum number of conversion warnings to log
+     */
+    private static final int MAX_WARNINGS = 10;
+
+    /**
+     * Indicates which columns are read as bytes
+     */
+    private final boolean[] binary;
+
+    /**
+     * Column names
+     */
+    private final String[] names;
+
+    /**
+     * Record for the current row
+     */
+    private final GenericRecord rec;
+
+    /**
+     * SQL type of each column
+     */
+    private final int[] types;
+
+    /**
+     * Records position of the result set
+     */
+    @Nullable
+    private final RowVisitor visitor;
+
+    /**
+     * Number of date conversion warnings logged
+     */
+    private int dateConversionWarning = 0;
+
+    /**
+     * Constructs an {@code AvroRowWriter} for the specified result set metadata.
+     *
+     * @param meta    the result set metadata
+     * @param visitor records position of the result set
+     * @param rec     the record to reuse for each row
+     * @throws SQLException if the metadata cannot be read
+     */
+    AvroRowWriter(@Nonnull final ResultSetMetaData meta, @Nullable final RowVisitor visitor, @Nonnull final GenericRecord rec) throws SQLException {
+        this.rec = rec;
+        this.visitor = visitor;
+
+        final int nrOfColumns = meta.getColumnCount();
+        binary = new boolean[nrOfColumns];
+        names = new String[nrOfColumns];
+        types = new int[nrOfColumns];
+        for (int i = 0; i < nrOfColumns; i++) {
+            names[i] = meta.getColumnName(i + 1);
+            types[i] = meta.getColumnType(i + 1);
+            binary[i] = (types[i] == Types.BINARY || types[i] == Types.VARBINARY || types[i] == Types.LONGVARBINARY || types[i] == Types.ARRAY || types[i] == Types.BLOB
+                         || types[i] == Types.CLOB);
+        }
+    }
+
+    /**
+     * Writes all remaining rows of the specified result set.
+     *
+     * @param rs     the result set
+     * @param writer the output for the Avro records
+     * @return the number of rows written
+     * @throws SQLException if a SQL error occurs while reading the result set
+     * @throws IOException  if an I/O error occurs while writing
+     */
+    long write(@Nonnull final ResultSet rs, @Nonnull final RecordWriter writer) throws SQLException, IOException {
+        long nrOfRows = 0;
+        while (rs.next()) {
+            if (visitor != null) {
+                visitor.visitRow(rs);
+            }
+            for (int i = 0; i < types.length; i++) {
+                final Object value = rs.getObject(i + 1);
+                rec.put(i, toAvro(rs, i, value));
+                if (visitor != null) {
+                    visitColumn(rs, i, value);
+                }
+            }
+            writer.write(rec);
+            nrOfRows += 1;
+        }
+        return nrOfRows;
+    }
+
+    /**
+     * Converts the specified column value to an Avro value.
+     */
+    @Nullable
+    private Object toAvro(@Nonnull final ResultSet rs, final int i, @Nullable final Object value) throws SQLException {
+        if (value == null) {
+            return null;
+
+        } else if (binary[i]) {
+            // bytes requires little bit different handling
+            return ByteBuffer.wrap(rs.getBytes(i + 1));
+
+        } else if (value instanceof Byte) {
+            // tinyint(1) type is returned by JDBC driver as java.sql.Types.TINYINT
+            // But value is returned by JDBC as java.lang.Byte
+            // (at least H2 JDBC works this way)
+            // direct put to avro record results:
+            // org.apache.avro.AvroRuntimeException: Unknown datum type java.lang.Byte
+            return ((Byte) value).intValue();
+
+        } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+            // Avro can't handle BigDecimal and BigInteger as numbers - it will throw an AvroRuntimeException such as: "Unknown datum type: java.math.BigDecimal: 38"
+            return value.toString();
+
+        } else if (value instanceof Number || value instanceof Boolean) {
+            return value;
+
+        } else if (value instanceof Date || value instanceof Timestamp) {
+            return DATE_TIME_FORMATTER.print(((java.util.Date) value).getTime());
+
+        } else if (value instanceof Time) {
+            return TIME_FORMATTER.print(((Time) value).getTime());
+
+        } else {
+            // The different types that we support are numbers (int, long, double, float),
+            // as well as boolean values and Strings. Since Avro doesn't provide
+            // timestamp types, we want to convert those to Strings. So we will cast anything other
+            // than numbers or booleans to strings by using the toString() method.
+            return value.toString();
+        }
+    }
+
+    /**
+     * Notifies the visitor of the specified column value.
+     */
+    private void visitColumn(@Nonnull final ResultSet rs, final int i, @Nullable final Object value) throws SQLException {
+        final int javaSqlType = types[i];
+        if (javaSqlType == Types.DATE || javaSqlType == Types.TIMESTAMP) {
+            Timestamp sqlDate = null;
+            if (value == null || value instanceof Timestamp) {
+                sqlDate = (Timestamp) value;
+            } else {
+                try {
+                    // Extract timestamp
+                    sqlDate = JdbcCommon.extractSqlDate(rs, i + 1);
+                } catch (Exception e) {
+                    if (dateConversionWarning++ < MAX_WARNINGS) {
+                        log.warn("{} is not convertible to timestamp or date", names[i]);
+                    }
+                }
+            }
+            visitor.visitColumn(names[i], javaSqlType, sqlDate);
+        } else if (javaSqlType == Types.TIME) {
+            visitor.visitColumn(names[i], javaSqlType, (value instanceof Time) ? (Time) value : rs.getTime(i + 1));
+        } else {
+            visitor.visitColumn(names[i], javaSqlType, (value != null) ? value.toString() : null);
+        }
+    }
+
+    /**
+     * Output for Avro records, such as an Avro data file or a Parquet file.
+     */
+    interface RecordWriter {
+
+        /**
+         * Writes the specified record.
+         *
+         * @param record the record
+         * @throws IOException if an I/O error occurs
+         */
+        void write(@Nonnull GenericRecord record) throws IOException;
+    }
+}
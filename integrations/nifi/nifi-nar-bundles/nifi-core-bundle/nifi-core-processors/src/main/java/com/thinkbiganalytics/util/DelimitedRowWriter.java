@@ -0,0 +1,285 @@
+package com.thinkbiganalytics.util;
+
+/*-
+ * #%L
+ * thinkbig-nifi-core-processors
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.nifi.thrift.api.RowVisitor;
+
+import org.joda.time.format.DateTimeFormatter;
+import org.joda.time.format.ISODateTimeFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Writes the rows of a result set as delimited text.
+ *
+ * <p>The reader for each column is chosen once from the result set metadata, and a single row buffer is reused for every row.</p>
+ */
+class DelimitedRowWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(DelimitedRowWriter.class);
+
+    /**
+     * Formats date and timestamp values
+     */
+    static final DateTimeFormatter DATE_TIME_FORMATTER = ISODateTimeFormat.dateTime().withZoneUTC();
+
+    /**
+     * Formats time values
+     */
+    static final DateTimeFormatter TIME_FORMATTER = ISODateTimeFormat.time().withZoneUTC();
+
+    /**
+     * Maximum number of conversion warnings to log
+     */
+    private static final int MAX_WARNINGS = 10;
+
+    /**
+     * Readers for each column
+     */
+    private final ColumnReader[] columns;
+
+    /**
+     * Column delimiter
+     */
+    private final String delimiter;
+
+    /**
+     * Escapes column names and values
+     */
+    private final JdbcCommon.DelimiterEscaper escaper;
+
+    /**
+     * Buffer for the current row
+     */
+    private final StringBuilder row = new StringBuilder(256);
+
+    /**
+     * Records position of the result set
+     */
+    @Nullable
+    private final RowVisitor visitor;
+
+    /**
+     * Number of date conversion warnings logged
+     */
+    private int dateConversionWarning = 0;
+
+    /**
+     * Constructs a {@code DelimitedRowWriter} for the specified result set metadata.
+     *
+     * @param meta      the result set metadata
+     * @param visitor   records position of the result set
+     * @param delimiter the column delimiter
+     * @throws SQLException if the metadata cannot be read
+     */
+    DelimitedRowWriter(@Nonnull final ResultSetMetaData meta, @Nullable final RowVisitor visitor, @Nonnull final String delimiter) throws SQLException {
+        this.delimiter = delimiter;
+        this.escaper = new JdbcCommon.DelimiterEscaper(delimiter);
+        this.visitor = visitor;
+
+        columns = new ColumnReader[meta.getColumnCount()];
+        for (int i = 0; i < columns.length; i++) {
+            final int index = i + 1;
+            final String name = meta.getColumnName(index);
+            final int type = meta.getColumnType(index);
+            if (type == Types.DATE || type == Types.TIMESTAMP) {
+                columns[i] = new TimestampColumnReader(index, name, type);
+            } else if (type == Types.TIME) {
+                columns[i] = new TimeColumnReader(index, name, type);
+            } else if (type == Types.BLOB) {
+                columns[i] = new BlobColumnReader(index, name, type);
+            } else {
+                columns[i] = new StringColumnReader(index, name, type);
+            }
+        }
+    }
+
+    /**
+     * Writes the header and all remaining rows of the specified result set.
+     *
+     * @param rs     the result set
+     * @param writer the output for the delimited text
+     * @return the number of rows written
+     * @throws SQLException if a SQL error occurs while reading the result set
+     * @throws IOException  if an I/O error occurs while writing
+     */
+    long write(@Nonnull final ResultSet rs, @Nonnull final Writer writer) throws SQLException, IOException {
+        // Write header
+        row.setLength(0);
+        for (int i = 0; i < columns.length; i++) {
+            appendValue(columns[i].name, i);
+        }
+        writer.append(row);
+
+        // Write rows
+        long nrOfRows = 0;
+        while (rs.next()) {
+            if (visitor != null) {
+                visitor.visitRow(rs);
+            }
+            row.setLength(0);
+            for (int i = 0; i < columns.length; i++) {
+                appendValue(columns[i].read(rs), i);
+            }
+            writer.append(row);
+            nrOfRows++;
+        }
+        return nrOfRows;
+    }
+
+    /**
+     * Appends the escaped value followed by either a delimiter or a new line.
+     */
+    private void appendValue(@Nullable final String value, final int index) {
+        if (value != null) {
+            escaper.escape(value, row);
+        }
+        if (index != columns.length - 1) {
+            row.append(delimiter);
+        } else {
+            row.append('\n');
+        }
+    }
+
+    /**
+     * Reads the value of a column as a string, notifying the visitor.
+     */
+    private abstract class ColumnReader {
+
+        final int index;
+        final String name;
+        final int type;
+
+        ColumnReader(final int index, final String name, final int type) {
+            this.index = index;
+            this.name = name;
+            this.type = type;
+        }
+
+        /**
+         * Reads the value from the current row of the specified result set.
+         *
+         * @param rs the result set
+         * @return the string value, or {@code null} if the value is {@code null}
+         * @throws SQLException if the value cannot be read
+         */
+        @Nullable
+        abstract String read(@Nonnull ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Reads date and timestamp columns.
+     */
+    private class TimestampColumnReader extends ColumnReader {
+
+        TimestampColumnReader(final int index, final String name, final int type) {
+            super(index, name, type);
+        }
+
+        @Override
+        String read(@Nonnull final ResultSet rs) {
+            Timestamp sqlDate = null;
+            try {
+                sqlDate = JdbcCommon.extractSqlDate(rs, index);
+            } catch (Exception e) {
+                // Still failed, maybe exotic date type
+                if (dateConversionWarning++ < MAX_WARNINGS) {
+                    log.warn("{} is not convertible to timestamp or date", name);
+                }
+            }
+
+            if (visitor != null) {
+                visitor.visitColumn(name, type, sqlDate);
+            }
+            return (sqlDate != null) ? DATE_TIME_FORMATTER.print(sqlDate.getTime()) : null;
+        }
+    }
+
+    /**
+     * Reads time columns.
+     */
+    private class TimeColumnReader extends ColumnReader {
+
+        TimeColumnReader(final int index, final String name, final int type) {
+            super(index, name, type);
+        }
+
+        @Override
+        String read(@Nonnull final ResultSet rs) throws SQLException {
+            final Time time = rs.getTime(index);
+            if (visitor != null) {
+                visitor.visitColumn(name, type, time);
+            }
+            return (time != null) ? TIME_FORMATTER.print(time.getTime()) : null;
+        }
+    }
+
+    /**
+     * Reads BLOB columns.
+     */
+    private class BlobColumnReader extends ColumnReader {
+
+        BlobColumnReader(final int index, final String name, final int type) {
+            super(index, name, type);
+        }
+
+        @Override
+        String read(@Nonnull final ResultSet rs) throws SQLException {
+            final byte[] bytes = rs.getBytes(index);
+            final String value = (bytes != null) ? bytes.toString() : null;
+            if (visitor != null) {
+                visitor.visitColumn(name, type, value);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Reads all other columns as strings.
+     */
+    private class StringColumnReader extends ColumnReader {
+
+        StringColumnReader(final int index, final String name, final int type) {
+            super(index, name, type);
+        }
+
+        @Override
+        String read(@Nonnull final ResultSet rs) throws SQLException {
+            final String value = rs.getString(index);
+            if (visitor != null) {
+                visitor.visitColumn(name, type, value);
+            }
+            return value;
+        }
+    }
+}
@@ -29,30 +29,34 @@ import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.avro.io.DatumWriter;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.CharUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.text.translate.CharSequenceTranslator;
-import org.joda.time.DateTime;
-import org.joda.time.format.DateTimeFormatter;
-import org.joda.time.format.ISODateTimeFormat;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocalFileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.avro.AvroParquetWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.StringWriter;
 import java.io.Writer;
-import java.math.BigDecimal;
-import java.math.BigInteger;
-import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.sql.Date;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.sql.Time;
 import java.sql.Timestamp;
-import java.sql.Types;
 
 import javax.annotation.Nonnull;
 
@@ -91,6 +95,11 @@ public class JdbcCommon {
 
     private static final Logger log = LoggerFactory.getLogger(JdbcCommon.class);
 
+    /**
+     * Size of the buffer for writing delimited text
+     */
+    private static final int BUFFER_SIZE = 65536;
+
     /**
      * Converts the specified SQL result set to a delimited text file written to the specified output stream.
      *
@@ -103,91 +112,12 @@ public class JdbcCommon {
      * @throws IOException  if an I/O error occurs while writing to the output stream
      */
     public static long convertToDelimitedStream(final ResultSet rs, final OutputStream outStream, final RowVisitor visitor, String delimiter) throws SQLException, IOException {
-        // avoid overflowing log with redundant messages
-        int dateConversionWarning = 0;
-
         if (rs == null || rs.getMetaData() == null) {
             log.warn("Received empty resultset or no metadata.");
             return 0;
         }
-        OutputStreamWriter writer = new OutputStreamWriter(outStream);
-        final ResultSetMetaData meta = rs.getMetaData();
-        final DelimiterEscaper escaper = new DelimiterEscaper(delimiter);
-
-        // Write header
-        final int nrOfColumns = meta.getColumnCount();
-        StringBuffer sb = new StringBuffer();
-        for (int i = 1; i <= nrOfColumns; i++) {
-            String columnName = meta.getColumnName(i);
-            sb.append(escaper.translate(columnName));
-            if (i != nrOfColumns) {
-                sb.append(delimiter);
-            } else {
-                sb.append("\n");
-            }
-        }
-        writer.append(sb.toString());
-        long nrOfRows = 0;
-        while (rs.next()) {
-            if (visitor != null) {
-                visitor.visitRow(rs);
-            }
-            sb = new StringBuffer();
-            nrOfRows++;
-            for (int i = 1; i <= nrOfColumns; i++) {
-                String val = null;
-
-                int colType = meta.getColumnType(i);
-                if (colType == Types.DATE || colType == Types.TIMESTAMP) {
-                    Timestamp sqlDate = null;
-                    try {
-                        // Extract timestamp
-                        sqlDate = extractSqlDate(rs, i);
-                    } catch (Exception e) {
-                        // Still failed, maybe exotic date type
-                        if (dateConversionWarning++ < 10) {
-                            log.warn("{} is not convertible to timestamp or date", rs.getMetaData().getColumnName(i));
-                        }
-                    }
-
-                    if (visitor != null) {
-                        visitor.visitColumn(rs.getMetaData().getColumnName(i), colType, sqlDate);
-                    }
-                    if (sqlDate != null) {
-                        DateTimeFormatter formatter = ISODateTimeFormat.dateTime().withZoneUTC();
-                        val = formatter.print(new DateTime(sqlDate.getTime()));
-                    }
-                } else if (colType == Types.TIME) {
-                    Time time = rs.getTime(i);
-                    if (visitor != null) {
-                        visitor.visitColumn(rs.getMetaData().getColumnName(i), colType, time);
-                    }
-                    DateTimeFormatter formatter = ISODateTimeFormat.time().withZoneUTC();
-                    val = formatter.print(new DateTime(time.getTime()));
-                } else if (colType == Types.BLOB) {
-                    byte[] bytes = rs.getBytes(i);
-
-                    if (bytes != null)
-                        val = rs.getBytes(i).toString();
-
-                    if (visitor != null) {
-                        visitor.visitColumn(rs.getMetaData().getColumnName(i), colType, val);
-                    }
-                } else {
-                    val = rs.getString(i);
-                    if (visitor != null) {
-                        visitor.visitColumn(rs.getMetaData().getColumnName(i), colType, val);
-                    }
-                }
-                sb.append((val == null ? "" : escaper.translate(val)));
-                if (i != nrOfColumns) {
-                    sb.append(delimiter);
-                } else {
-                    sb.append("\n");
-                }
-            }
-            writer.append(sb.toString());
-        }
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(outStream), BUFFER_SIZE);
+        final long nrOfRows = new DelimitedRowWriter(rs.getMetaData(), visitor, delimiter).write(rs, writer);
         writer.flush();
         return nrOfRows;
     }
@@ -196,7 +126,7 @@ public class JdbcCommon {
     /**
      * Extracts a resultset col to a SQL timestamp
      */
-    private static Timestamp extractSqlDate(ResultSet rs, int col) throws SQLException {
+    static Timestamp extractSqlDate(ResultSet rs, int col) throws SQLException {
         Timestamp sqlDate = null;
         try {
             // Extract timestamp
@@ -214,100 +144,53 @@ public class JdbcCommon {
 
 
     public static long convertToAvroStream(final ResultSet rs, final OutputStream outStream, final RowVisitor visitor, final Schema schema) throws SQLException, IOException {
-        int dateConversionWarning = 0;
         final GenericRecord rec = new GenericData.Record(schema);
 
         final DatumWriter<GenericRecord> datumWriter = new GenericDatumWriter<>(schema);
         try (final DataFileWriter<GenericRecord> dataFileWriter = new DataFileWriter<>(datumWriter)) {
             dataFileWriter.create(schema, outStream);
+            return new AvroRowWriter(rs.getMetaData(), visitor, rec).write(rs, dataFileWriter::append);
+        }
+    }
 
-            final ResultSetMetaData meta = rs.getMetaData();
-            final int nrOfColumns = meta.getColumnCount();
-            long nrOfRows = 0;
-            while (rs.next()) {
-                if (visitor != null) {
-                    visitor.visitRow(rs);
-                }
-                for (int i = 1; i <= nrOfColumns; i++) {
-                    final int javaSqlType = meta.getColumnType(i);
-                    final Object value = rs.getObject(i);
-
-                    if (value == null) {
-                        rec.put(i - 1, null);
-
-                    } else if (javaSqlType == BINARY || javaSqlType == VARBINARY || javaSqlType == LONGVARBINARY || javaSqlType == ARRAY || javaSqlType == BLOB || javaSqlType == CLOB) {
-                        // bytes requires little bit different handling
-                        byte[] bytes = rs.getBytes(i);
-                        ByteBuffer bb = ByteBuffer.wrap(bytes);
-                        rec.put(i - 1, bb);
-
-                    } else if (value instanceof Byte) {
-                        // tinyint(1) type is returned by JDBC driver as java.sql.Types.TINYINT
-                        // But value is returned by JDBC as java.lang.Byte
-                        // (at least H2 JDBC works this way)
-                        // direct put to avro record results:
-                        // org.apache.avro.AvroRuntimeException: Unknown datum type java.lang.Byte
-                        rec.put(i - 1, ((Byte) value).intValue());
-
-                    } else if (value instanceof BigDecimal || value instanceof BigInteger) {
-                        // Avro can't handle BigDecimal and BigInteger as numbers - it will throw an AvroRuntimeException such as: "Unknown datum type: java.math.BigDecimal: 38"
-                        rec.put(i - 1, value.toString());
-
-                    } else if (value instanceof Number || value instanceof Boolean) {
-                        rec.put(i - 1, value);
-
-                    } else if (value instanceof Date) {
-                        final DateTimeFormatter formatter = ISODateTimeFormat.dateTime().withZoneUTC();
-                        rec.put(i - 1, formatter.print(new DateTime(((Date) value).getTime())));
-
-                    } else if (value instanceof Time) {
-                        final DateTimeFormatter formatter = ISODateTimeFormat.time().withZoneUTC();
-                        rec.put(i - 1, formatter.print(new DateTime(((Time) value).getTime())));
-
-                    } else if (value instanceof Timestamp) {
-                        final DateTimeFormatter formatter = ISODateTimeFormat.dateTime().withZoneUTC();
-                        rec.put(i - 1, formatter.print(new DateTime(((Timestamp) value).getTime())));
-
-                    } else {
-                        // The different types that we support are numbers (int, long, double, float),
-                        // as well as boolean values and Strings. Since Avro doesn't provide
-                        // timestamp types, we want to convert those to Strings. So we will cast anything other
-                        // than numbers or booleans to strings by using the toString() method.
-                        rec.put(i - 1, value.toString());
-                    }
-
-                    //notify the visitor
-                    if (javaSqlType == Types.DATE || javaSqlType == Types.TIMESTAMP) {
-                        Timestamp sqlDate = null;
-                        try {
-                            // Extract timestamp
-                            sqlDate = extractSqlDate(rs, i);
-
-                        } catch (Exception e) {
-                            if (dateConversionWarning++ < 10) {
-                                log.warn("{} is not convertible to timestamp or date", rs.getMetaData().getColumnName(i));
-                            }
-                        }
-
-                        if (visitor != null) {
-                            visitor.visitColumn(rs.getMetaData().getColumnName(i), javaSqlType, sqlDate);
-                        }
-                    } else if (javaSqlType == Types.TIME) {
-                        Time time = rs.getTime(i);
-                        if (visitor != null) {
-                            visitor.visitColumn(rs.getMetaData().getColumnName(i), javaSqlType, time);
-                        }
-                    } else {
-                        if (visitor != null) {
-                            visitor.visitColumn(rs.getMetaData().getColumnName(i), javaSqlType, (value != null) ? value.toString() : null);
-                        }
-                    }
-                }
-                dataFileWriter.append(rec);
-                nrOfRows += 1;
+    /**
+     * Converts the specified SQL result set to a Parquet file written to the specified output stream.
+     *
+     * <p>Parquet can only be written to a Hadoop file system, so the file is first written to a local temporary directory and then copied to the output stream. Only one row group is buffered in
+     * memory at a time.</p>
+     *
+     * @param rs           the SQL result set
+     * @param outStream    the output stream for the Parquet file
+     * @param visitor      records position of the result set
+     * @param schema       the Avro schema of the result set, from {@link #createSchema(ResultSet)}
+     * @param rowGroupSize the size of a row group in bytes
+     * @param compression  the compression codec for column chunks
+     * @return the number of rows written
+     * @throws SQLException if a SQL error occurs while reading the result set
+     * @throws IOException  if an I/O error occurs while writing to the output stream
+     */
+    public static long convertToParquetStream(final ResultSet rs, final OutputStream outStream, final RowVisitor visitor, final Schema schema, final int rowGroupSize,
+                                              final CompressionCodecName compression) throws SQLException, IOException {
+        final java.nio.file.Path tempDir = Files.createTempDirectory("kylo-parquet-");
+        try {
+            final Configuration conf = new Configuration();
+            final LocalFileSystem fs = FileSystem.getLocal(conf);
+            final Path tempFile = fs.makeQualified(new Path(tempDir.resolve("data.parquet").toUri()));
+            final long nrOfRows;
+            try (final ParquetWriter<GenericRecord> parquetWriter = AvroParquetWriter.<GenericRecord>builder(tempFile)
+                .withSchema(schema)
+                .withRowGroupSize(rowGroupSize)
+                .withCompressionCodec(compression)
+                .withConf(conf)
+                .build()) {
+                nrOfRows = new AvroRowWriter(rs.getMetaData(), visitor, new GenericData.Record(schema)).write(rs, parquetWriter::write);
+            }
+            try (final InputStream in = fs.open(tempFile)) {
+                IOUtils.copy(in, outStream);
             }
-
             return nrOfRows;
+        } finally {
+            FileUtils.deleteQuietly(tempDir.toFile());
         }
     }
 
@@ -439,6 +322,11 @@ public class JdbcCommon {
          */
         private final String[] replacementStrings;
 
+        /**
+         * Delimiter if it is a single character, or {@code 0} otherwise
+         */
+        private final char delimiterChar;
+
         /**
          * Constructs a {@code DelimiterEscaper} with the specified delimiter.
          *
@@ -447,6 +335,37 @@ public class JdbcCommon {
         DelimiterEscaper(@Nonnull final String delimiter) {
             searchStrings = new String[]{delimiter, QUOTE_STR, Character.toString('\n'), Character.toString('\r') };
             replacementStrings = new String[]{delimiter, BACKSLASH_STR+QUOTE_STR, "\\\\n", "\\\\r"};
+            delimiterChar = (delimiter.length() == 1) ? delimiter.charAt(0) : 0;
+        }
+
+        /**
+         * Appends the specified value to the buffer, escaping it if necessary.
+         *
+         * @param value the value to escape
+         * @param out   the buffer for the escaped value
+         */
+        void escape(@Nonnull final String value, @Nonnull final StringBuilder out) {
+            if (needsEscape(value)) {
+                out.append(QUOTE).append(StringUtils.replaceEach(value, searchStrings, replacementStrings)).append(QUOTE);
+            } else {
+                out.append(value);
+            }
+        }
+
+        /**
+         * Indicates if the specified value contains any of the search strings.
+         */
+        private boolean needsEscape(@Nonnull final String value) {
+            if (delimiterChar == 0) {
+                return StringUtils.containsAny(value, searchStrings);
+            }
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                if (c == delimiterChar || c == QUOTE || c == '\n' || c == '\r') {
+                    return true;
+                }
+            }
+            return false;
         }
 
         @Override
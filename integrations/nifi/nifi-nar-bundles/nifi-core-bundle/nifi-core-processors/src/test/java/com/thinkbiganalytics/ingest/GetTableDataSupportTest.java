@@ -25,6 +25,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
@@ -34,11 +35,13 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDateTime;
 import java.util.Date;
+import java.util.List;
 import java.util.TimeZone;
 
 import static com.thinkbiganalytics.nifi.v2.ingest.GetTableData.DATE_TIME_FORMAT;
 import static com.thinkbiganalytics.nifi.v2.ingest.GetTableData.toDate;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 /**
  */
@@ -190,4 +193,41 @@ public class GetTableDataSupportTest {
         tableDataSupport.selectIncremental("testTable", new String[]{"col1", "col2"}, "col2", overlapTime, lastLoadDate, backoffTime, GetTableDataSupport.UnitSizes.NONE);
     }
 
+    @Test
+    public void testKeyRangeSplit() throws Exception {
+        List<GetTableDataSupport.KeyRange> ranges = new GetTableDataSupport.KeyRange(BigDecimal.valueOf(1), BigDecimal.valueOf(100)).split(4);
+        assertEquals(4, ranges.size());
+        assertNull(ranges.get(0).getMinKey());
+        assertEquals(BigDecimal.valueOf(26), ranges.get(0).getMaxKey());
+        assertEquals(BigDecimal.valueOf(26), ranges.get(1).getMinKey());
+        assertEquals(BigDecimal.valueOf(51), ranges.get(1).getMaxKey());
+        assertEquals(BigDecimal.valueOf(51), ranges.get(2).getMinKey());
+        assertEquals(BigDecimal.valueOf(76), ranges.get(2).getMaxKey());
+        assertEquals(BigDecimal.valueOf(76), ranges.get(3).getMinKey());
+        assertNull(ranges.get(3).getMaxKey());
+
+        // Fewer distinct values than ranges
+        ranges = new GetTableDataSupport.KeyRange(BigDecimal.valueOf(1), BigDecimal.valueOf(3)).split(8);
+        assertEquals(3, ranges.size());
+        assertEquals(BigDecimal.valueOf(2), ranges.get(0).getMaxKey());
+        assertEquals(BigDecimal.valueOf(3), ranges.get(1).getMaxKey());
+        assertEquals(BigDecimal.valueOf(3), ranges.get(2).getMinKey());
+
+        ranges = new GetTableDataSupport.KeyRange(BigDecimal.TEN, BigDecimal.TEN).split(8);
+        assertEquals(1, ranges.size());
+        assertNull(ranges.get(0).getMinKey());
+        assertNull(ranges.get(0).getMaxKey());
+    }
+
+    @Test
+    public void testSelectSplit() throws Exception {
+        PreparedStatement ps = Mockito.mock(PreparedStatement.class);
+        DatabaseMetaData databaseMetaData = Mockito.mock(DatabaseMetaData.class);
+        Mockito.when(conn.prepareStatement("SELECT tbl.col1,tbl.col2 FROM testTable tbl WHERE (tbl.col1 < ? or tbl.col1 IS NULL)")).thenReturn(ps);
+        Mockito.when(conn.getMetaData()).thenReturn(databaseMetaData);
+        Mockito.when(databaseMetaData.getIdentifierQuoteString()).thenReturn("");
+        tableDataSupport.selectSplit("testTable", new String[]{"col1", "col2"}, "col1", new GetTableDataSupport.KeyRange(null, BigDecimal.TEN), null, null);
+        Mockito.verify(ps).setBigDecimal(1, BigDecimal.TEN);
+        Mockito.verify(ps).executeQuery();
+    }
 }
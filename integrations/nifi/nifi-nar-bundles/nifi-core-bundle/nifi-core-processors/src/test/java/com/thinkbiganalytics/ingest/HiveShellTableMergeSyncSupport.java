@@ -77,6 +77,12 @@ public class HiveShellTableMergeSyncSupport extends TableMergeSyncSupport {
         shell.execute(sql);
     }
 
+    @Override
+    protected synchronized void doExecuteChunkSQL(String sql) {
+        log.info("Executing chunk SQL for MergeTable [%]", sql);
+        shell.execute(sql);
+    }
+
     @Override
     protected java.sql.ResultSet doSelectSQL(Statement st, String sql) throws SQLException {
         List<String> results = shell.executeQuery(sql);
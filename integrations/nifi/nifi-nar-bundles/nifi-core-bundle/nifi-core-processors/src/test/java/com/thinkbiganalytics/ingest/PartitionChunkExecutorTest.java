@@ -0,0 +1,136 @@
+package com.thinkbiganalytics.ingest;
+
+/*-
+ * #%L
+ * thinkbig-nifi-core-processors
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.util.PartitionBatch;
+import com.thinkbiganalytics.util.PartitionSpec;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class PartitionChunkExecutorTest {
+
+    private final PartitionSpec spec = new PartitionSpec("country|string|country\nyear|int|year(hired)");
+
+    /**
+     * Verify dividing partitions into chunks.
+     */
+    @Test
+    public void testChunk() {
+        final List<PartitionBatch> batches = batches(5);
+
+        // Test chunks of equal size
+        PartitionChunkExecutor executor = new PartitionChunkExecutor(2, 1, 0, Collections.emptyList());
+        List<List<PartitionBatch>> chunks = executor.chunk(batches);
+        Assert.assertEquals(3, chunks.size());
+        Assert.assertEquals(batches.subList(0, 2), chunks.get(0));
+        Assert.assertEquals(batches.subList(2, 4), chunks.get(1));
+        Assert.assertEquals(batches.subList(4, 5), chunks.get(2));
+
+        // Test skipping completed partitions
+        executor = new PartitionChunkExecutor(2, 1, 0, Arrays.asList(batches.get(0).getBatchDescription(), batches.get(3).getBatchDescription()));
+        chunks = executor.chunk(batches);
+        Assert.assertEquals(2, chunks.size());
+        Assert.assertEquals(Arrays.asList(batches.get(1), batches.get(2)), chunks.get(0));
+        Assert.assertEquals(Collections.singletonList(batches.get(4)), chunks.get(1));
+    }
+
+    /**
+     * Verify executing each chunk with retries.
+     */
+    @Test
+    public void testExecute() {
+        final List<PartitionBatch> batches = batches(7);
+        final Map<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+
+        final PartitionChunkExecutor executor = new PartitionChunkExecutor(3, 2, 1, Collections.emptyList());
+        executor.execute(batches, chunk -> {
+            // Fail the first attempt of each chunk
+            if (attempts.computeIfAbsent(chunk.get(0).getBatchDescription(), key -> new AtomicInteger()).incrementAndGet() == 1) {
+                throw new IllegalStateException("first attempt");
+            }
+        });
+
+        Assert.assertEquals(3, attempts.size());
+        attempts.values().forEach(count -> Assert.assertEquals(2, count.get()));
+        Assert.assertEquals(descriptions(batches), executor.getCompletedPartitions());
+    }
+
+    /**
+     * Verify that a failed chunk records the partitions of the other chunks so the merge can be resumed.
+     */
+    @Test
+    public void testExecuteFailure() {
+        final List<PartitionBatch> batches = batches(4);
+        final PartitionBatch failed = batches.get(2);
+
+        final PartitionChunkExecutor executor = new PartitionChunkExecutor(1, 2, 2, Collections.emptyList());
+        final AtomicInteger failedAttempts = new AtomicInteger();
+        try {
+            executor.execute(batches, chunk -> {
+                if (chunk.contains(failed)) {
+                    failedAttempts.incrementAndGet();
+                    throw new IllegalStateException("always fails");
+                }
+            });
+            Assert.fail("Expected merge to fail");
+        } catch (final RuntimeException e) {
+            Assert.assertEquals("Failed to merge 1 of 4 partition chunks", e.getMessage());
+            Assert.assertEquals("always fails", e.getCause().getMessage());
+        }
+        Assert.assertEquals(3, failedAttempts.get());
+        Assert.assertEquals(descriptions(Arrays.asList(batches.get(0), batches.get(1), batches.get(3))), executor.getCompletedPartitions());
+
+        // Resume with only the failed partition
+        final PartitionChunkExecutor resumed = new PartitionChunkExecutor(1, 2, 0, executor.getCompletedPartitions());
+        final List<PartitionBatch> executed = new ArrayList<>();
+        resumed.execute(batches, executed::addAll);
+        Assert.assertEquals(Collections.singletonList(failed), executed);
+        Assert.assertEquals(descriptions(batches), resumed.getCompletedPartitions());
+    }
+
+    /**
+     * Creates the specified number of partitions.
+     */
+    private List<PartitionBatch> batches(final int count) {
+        return IntStream.range(0, count)
+            .mapToObj(i -> new PartitionBatch(10L, spec, new String[]{"USA", Integer.toString(2010 + i), "10"}))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets the descriptions of the specified partitions.
+     */
+    private Set<String> descriptions(final List<PartitionBatch> batches) {
+        return batches.stream().map(PartitionBatch::getBatchDescription).collect(Collectors.toSet());
+    }
+}
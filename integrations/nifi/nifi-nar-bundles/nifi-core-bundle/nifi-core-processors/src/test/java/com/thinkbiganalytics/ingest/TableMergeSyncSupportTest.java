@@ -35,9 +35,12 @@ import org.apache.commons.collections4.MapUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.Mockito;
 
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -273,6 +276,52 @@ public class TableMergeSyncSupportTest {
         verifyUnique(results);
     }
 
+    @Test
+    /**
+     * Tests the merge partition with dedupe executed in chunks of partitions
+     */
+    public void testMergePartitionChunked() throws Exception {
+        mergeSyncSupport.setChunkExecutor(new PartitionChunkExecutor(1, 1, 0, Collections.emptyList()), () -> Mockito.mock(Connection.class));
+
+        // Insert one record to start
+        hiveShell.execute(
+            "insert into emp_sr.employee partition(country='USA',year=2015) (`id`, `timestamp`, `name`,`company`,`zip`,`phone`,`email`,  `hired`, `processing_dttm`)  values (60,'1','Billy',"
+            + "'ABC','94550',"
+            + "'555-1212',"
+            + "'billy@acme.org','2015-01-01','20150119974340');");
+
+        // Call merge
+        List<PartitionBatch> batches = mergeSyncSupport.doMerge(sourceSchema, sourceTable, targetSchema, targetTable, spec, processingPartition, true);
+        assertEquals(4, batches.size());
+
+        // We should have 5 records 4 from the sourceTable and 1 existing
+        List<String> results = fetchEmployees(targetSchema, targetTable);
+        assertEquals(5, results.size());
+        verifyUnique(results);
+
+        // Merging the same feed partition again should not create duplicates
+        mergeSyncSupport.doMerge(sourceSchema, sourceTable, targetSchema, targetTable, spec, processingPartition, true);
+        results = fetchEmployees(targetSchema, targetTable);
+        assertEquals(5, results.size());
+        verifyUnique(results);
+    }
+
+    @Test
+    /**
+     * Tests the merge partition on a primary key executed in chunks of partitions
+     */
+    public void testMergePartitionPKChunked() throws Exception {
+        mergeSyncSupport.setChunkExecutor(new PartitionChunkExecutor(2, 2, 0, Collections.emptyList()), () -> Mockito.mock(Connection.class));
+
+        // Insert one record to start
+        hiveShell.execute(
+            "insert into emp_sr.employee partition(country='USA',year=2015) (  `id`,  `timestamp`,`name`,`company`,`zip`,`phone`,`email`,  `hired`)  values (1,'1','Sally','OLD VALUE','94550',"
+            + "'555-1212',"
+            + "'sally@acme.org','2015-01-01');");
+
+        doTestMergePK(targetSchema, targetTable, spec);
+    }
+
     @Test
     /**
      * Tests the merge partition without dedupe and the merge partition with dedupe
@@ -37,6 +37,7 @@ import org.apache.avro.generic.GenericDatumReader;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.avro.io.DatumReader;
 import org.apache.avro.util.Utf8;
+import org.apache.hadoop.fs.Path;
 import org.apache.nifi.components.ValidationResult;
 import org.apache.nifi.controller.AbstractControllerService;
 import org.apache.nifi.dbcp.DBCPService;
@@ -44,6 +45,8 @@ import org.apache.nifi.util.MockFlowFile;
 import org.apache.nifi.util.MockProcessContext;
 import org.apache.nifi.util.TestRunner;
 import org.apache.nifi.util.TestRunners;
+import org.apache.parquet.avro.AvroParquetReader;
+import org.apache.parquet.hadoop.ParquetReader;
 import org.joda.time.DateTimeUtils;
 import org.junit.After;
 import org.junit.Assert;
@@ -52,6 +55,8 @@ import org.junit.Test;
 import org.mockito.Mockito;
 
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.Date;
@@ -68,6 +73,7 @@ import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntPredicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -139,6 +145,12 @@ public class GetTableDataTest {
         runner.setProperty(CommonProperties.METADATA_SERVICE, METADATA_SERVICE_IDENTIFIER);
         results = (List<ValidationResult>) ((MockProcessContext) runner.getProcessContext()).validate();
         Assert.assertEquals(0, results.size());
+
+        // Test with a row group size that does not fit in an int
+        runner.setProperty(GetTableData.PARQUET_ROW_GROUP_SIZE, "2 GB");
+        runner.assertNotValid();
+        runner.setProperty(GetTableData.PARQUET_ROW_GROUP_SIZE, "1 GB");
+        runner.assertValid();
     }
 
     /**
@@ -189,6 +201,47 @@ public class GetTableDataTest {
         Assert.assertEquals(new Utf8("2006-02-15T03:57:16.000Z"), records.get(1).get(4));
     }
 
+    /**
+     * Verify Parquet output.
+     */
+    @Test
+    public void testParquet() throws IOException {
+        // Trigger processor
+        runner.setProperty(GetTableData.OUTPUT_TYPE, GetTableDataSupport.OutputType.PARQUET.toString());
+        runner.setProperty(GetTableData.PARQUET_COMPRESSION, "GZIP");
+        runner.enqueue(new byte[0]);
+        runner.run();
+
+        List<MockFlowFile> flowFiles = runner.getFlowFilesForRelationship(CommonProperties.REL_SUCCESS);
+        Assert.assertEquals(0, runner.getFlowFilesForRelationship(CommonProperties.REL_FAILURE).size());
+        Assert.assertEquals(1, flowFiles.size());
+        Assert.assertEquals("2", flowFiles.get(0).getAttribute(GetTableData.RESULT_ROW_COUNT));
+        Assert.assertEquals("PARQUET", flowFiles.get(0).getAttribute("db.table.output.format"));
+        Assert.assertNotEquals("", flowFiles.get(0).getAttribute("db.table.avro.schema"));
+
+        // Verify Parquet records
+        final java.nio.file.Path file = Files.createTempFile("get-table-data", ".parquet");
+        final List<GenericRecord> records = new LinkedList<>();
+        try {
+            Files.write(file, flowFiles.get(0).toByteArray());
+            try (ParquetReader<GenericRecord> reader = AvroParquetReader.<GenericRecord>builder(new Path(file.toUri())).build()) {
+                for (GenericRecord record = reader.read(); record != null; record = reader.read()) {
+                    records.add(record);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        Assert.assertEquals(2, records.size());
+
+        Assert.assertEquals(1, records.get(0).get("id"));
+        Assert.assertEquals("Mike", records.get(0).get("first_name").toString());
+        Assert.assertEquals("2006-02-15T03:57:16.000Z", records.get(0).get("last_updated").toString());
+
+        Assert.assertEquals(2, records.get(1).get("id"));
+        Assert.assertEquals("Jon.Stephens@sakilastaff.com", records.get(1).get("email").toString());
+    }
+
     /**
      * Verify an incremental load from the database.
      */
@@ -291,6 +344,34 @@ public class GetTableDataTest {
                                              + "2|Jon|Stephens|Jon.Stephens@sakilastaff.com|2006-02-15T03:57:16.000Z\n");
     }
 
+    /**
+     * Verify splitting a full load into ranges.
+     */
+    @Test
+    public void testSplitFullLoad() {
+        runner.setProperty(GetTableData.SPLIT_FIELD, "id");
+        runner.setProperty(GetTableData.SPLIT_COUNT, "2");
+        runner.enqueue(new byte[0]);
+        runner.run();
+
+        List<MockFlowFile> flowFiles = runner.getFlowFilesForRelationship(CommonProperties.REL_SUCCESS);
+        Assert.assertEquals(0, runner.getFlowFilesForRelationship(CommonProperties.REL_FAILURE).size());
+        Assert.assertEquals(0, runner.getFlowFilesForRelationship(GetTableData.REL_NO_DATA).size());
+        Assert.assertEquals(2, flowFiles.size());
+
+        for (int i = 0; i < flowFiles.size(); ++i) {
+            Assert.assertEquals("1", flowFiles.get(i).getAttribute(GetTableData.RESULT_ROW_COUNT));
+            Assert.assertEquals("1", flowFiles.get(i).getAttribute(ComponentAttributes.NUM_SOURCE_RECORDS.key()));
+            Assert.assertEquals(flowFiles.get(0).getAttribute(GetTableData.FRAGMENT_ID), flowFiles.get(i).getAttribute(GetTableData.FRAGMENT_ID));
+            Assert.assertEquals(Integer.toString(i), flowFiles.get(i).getAttribute(GetTableData.FRAGMENT_INDEX));
+            Assert.assertEquals("2", flowFiles.get(i).getAttribute(GetTableData.FRAGMENT_COUNT));
+        }
+        flowFiles.get(0).assertContentEquals("id,first_name,last_name,email,last_updated\n"
+                                             + "1,Mike,Hillyer,Mike.Hillyer@sakilastaff.com,2006-02-15T03:57:16.000Z\n");
+        flowFiles.get(1).assertContentEquals("id,first_name,last_name,email,last_updated\n"
+                                             + "2,Jon,Stephens,Jon.Stephens@sakilastaff.com,2006-02-15T03:57:16.000Z\n");
+    }
+
     /**
      * A mock implementation of {@link DBCPService} for unit testing.
      */
@@ -322,6 +403,12 @@ public class GetTableDataTest {
             Mockito.when(statement.executeQuery("SELECT tbl.id,tbl.email FROM empty tbl")).then(invocation -> getEmptyResults());
             Mockito.when(statement.executeQuery("SELECT tbl.id,tbl.first_name,tbl.last_name,tbl.email,tbl.last_updated FROM mytable tbl")).then(invocation -> getSimpleResults());
 
+            Mockito.when(connection.prepareStatement("SELECT MIN(tbl.id), MAX(tbl.id) FROM mytable tbl")).then(invocation -> getSplitRange());
+            Mockito.when(connection.prepareStatement("SELECT tbl.id,tbl.first_name,tbl.last_name,tbl.email,tbl.last_updated FROM mytable tbl WHERE (tbl.id < ? or tbl.id IS NULL)"))
+                .then(invocation -> getSplitResults(1));
+            Mockito.when(connection.prepareStatement("SELECT tbl.id,tbl.first_name,tbl.last_name,tbl.email,tbl.last_updated FROM mytable tbl WHERE tbl.id >= ?"))
+                .then(invocation -> getSplitResults(2));
+
             Mockito.when(connection.getMetaData()).thenReturn(databaseMetaData);
             Mockito.when(databaseMetaData.getIdentifierQuoteString()).thenReturn("");
         }
@@ -349,6 +436,11 @@ public class GetTableDataTest {
                 queue.poll();
                 return !queue.isEmpty();
             });
+            Mockito.when(results.getBigDecimal(Mockito.anyInt())).then(invocation -> {
+                final int index = invocation.getArgumentAt(0, Integer.class) - 1;
+                final Object object = queue.peek()[index];
+                return (object != null) ? new BigDecimal(object.toString()) : null;
+            });
             Mockito.when(results.getDate(Mockito.anyInt())).then(invocation -> {
                 final int index = invocation.getArgumentAt(0, Integer.class) - 1;
                 final Object object = queue.peek()[index];
@@ -459,6 +551,17 @@ public class GetTableDataTest {
          * @throws SQLException never
          */
         ResultSet getSimpleResults() throws SQLException {
+            return getSimpleResults(id -> true);
+        }
+
+        /**
+         * Creates a simple result set containing only the specified ids.
+         *
+         * @param ids the ids of the rows to include
+         * @return a new result set
+         * @throws SQLException never
+         */
+        ResultSet getSimpleResults(@Nonnull final IntPredicate ids) throws SQLException {
             final ResultSetMetaData metadata = Mockito.mock(ResultSetMetaData.class);
             Mockito.when(metadata.getColumnCount()).thenReturn(5);
             Mockito.when(metadata.getColumnName(1)).thenReturn("id");
@@ -478,7 +581,32 @@ public class GetTableDataTest {
                 new Object[]{2, "Jon", "Stephens", "Jon.Stephens@sakilastaff.com", new Timestamp(1139975836000L)}
             };
 
-            return getResultSet(metadata, rows);
+            return getResultSet(metadata, Stream.of(rows).filter(row -> ids.test((Integer) row[0])).toArray(Object[][]::new));
+        }
+
+        /**
+         * Creates a prepared statement for the range of ids in the simple results.
+         *
+         * @return a new prepared statement
+         * @throws SQLException never
+         */
+        PreparedStatement getSplitRange() throws SQLException {
+            final PreparedStatement preparedStatement = Mockito.mock(PreparedStatement.class);
+            Mockito.when(preparedStatement.executeQuery()).then(invocation -> getResultSet(Mockito.mock(ResultSetMetaData.class), new Object[][]{new Object[]{1, 2}}));
+            return preparedStatement;
+        }
+
+        /**
+         * Creates a prepared statement for one row of the simple results.
+         *
+         * @param id the id of the row
+         * @return a new prepared statement
+         * @throws SQLException never
+         */
+        PreparedStatement getSplitResults(final int id) throws SQLException {
+            final PreparedStatement preparedStatement = Mockito.mock(PreparedStatement.class);
+            Mockito.when(preparedStatement.executeQuery()).then(invocation -> getSimpleResults(value -> value == id));
+            return preparedStatement;
         }
     }
 
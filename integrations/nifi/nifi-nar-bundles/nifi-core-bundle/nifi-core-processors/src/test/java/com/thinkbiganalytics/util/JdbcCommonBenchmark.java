@@ -0,0 +1,136 @@
+package com.thinkbiganalytics.util;
+
+/*-
+ * #%L
+ * thinkbig-nifi-core-processors
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.avro.Schema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the rows per second converted by {@link JdbcCommon} to delimited text and to Avro from an in-memory H2 table of string, integer, decimal, boolean and timestamp
+ * columns.
+ *
+ * Run with: java -cp target/test-classes:<test classpath> com.thinkbiganalytics.util.JdbcCommonBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JdbcCommonBenchmark {
+
+    private static final int ROWS = 10000;
+
+    private static final String QUERY = "SELECT * FROM benchmark";
+
+    private Connection conn;
+
+    private Schema schema;
+
+    @Setup
+    public void setup() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:h2:mem:jdbc_common_benchmark;DB_CLOSE_DELAY=-1");
+        try (Statement st = conn.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS benchmark");
+            st.execute("CREATE TABLE benchmark (id INT, name VARCHAR(100), email VARCHAR(100), amount DECIMAL(10, 2), active BOOLEAN, last_updated TIMESTAMP)");
+        }
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO benchmark VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < ROWS; i++) {
+                ps.setInt(1, i);
+                ps.setString(2, "customer " + i);
+                ps.setString(3, "customer." + i + "@example.com");
+                ps.setBigDecimal(4, BigDecimal.valueOf(i * 7L % 100000, 2));
+                ps.setBoolean(5, i % 2 == 0);
+                ps.setTimestamp(6, new Timestamp(1483703400000L + i * 1000L));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(QUERY)) {
+            schema = JdbcCommon.createSchema(rs);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long delimited() throws Exception {
+        try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(QUERY)) {
+            return JdbcCommon.convertToDelimitedStream(rs, new NullOutputStream(), null, ",");
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long avro() throws Exception {
+        try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(QUERY)) {
+            return JdbcCommon.convertToAvroStream(rs, new NullOutputStream(), null, schema);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(JdbcCommonBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    /**
+     * Discards all bytes written.
+     */
+    private static class NullOutputStream extends OutputStream {
+
+        @Override
+        public void write(int b) {
+            // ignored
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            // ignored
+        }
+    }
+}
@@ -24,16 +24,20 @@ import com.thinkbiganalytics.jms.SendJmsMessage;
 import com.thinkbiganalytics.jms.Queues;
 import com.thinkbiganalytics.nifi.provenance.AggregationEventProcessingStats;
 import com.thinkbiganalytics.nifi.provenance.model.ProvenanceEventRecordDTOHolder;
+import com.thinkbiganalytics.nifi.provenance.model.codec.ProvenanceBinaryCodec;
 import com.thinkbiganalytics.nifi.provenance.model.stats.AggregatedFeedProcessorStatisticsHolder;
+import com.thinkbiganalytics.nifi.provenance.repo.ConfigurationProperties;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.io.Serializable;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 
 import javax.annotation.PostConstruct;
 
@@ -42,6 +46,9 @@ import javax.annotation.PostConstruct;
  * 2 Queues are used.  The Queue names are constants shared with Kylo Operations Manager found in the {@link Queues} class.
  * Queues.PROVENANCE_EVENT_STATS_QUEUE  is the Statistics Queue name for creating the Summary statistics
  * Queues.FEED_MANAGER_QUEUE is the Batch Provenance Events Queue for creating the Jobs/Steps in Kylo
+ *
+ * Messages are sent as serialized java objects unless the kylo.provenance.jms.codec property is set to binary,
+ * in which case they are encoded with the {@link ProvenanceBinaryCodec} and identified to the receiver by the codec JMS headers.
  */
 public class ProvenanceEventJmsWriter {
 
@@ -54,6 +61,10 @@ public class ProvenanceEventJmsWriter {
 
     private Map<String, Set<JmsSendListener>> listeners = new HashMap<>();
 
+    private final ProvenanceBinaryCodec binaryCodec = new ProvenanceBinaryCodec(false);
+
+    private final ProvenanceBinaryCodec compressedBinaryCodec = new ProvenanceBinaryCodec(true);
+
     public ProvenanceEventJmsWriter() {
 
     }
@@ -85,6 +96,28 @@ public class ProvenanceEventJmsWriter {
         }
     }
 
+    /**
+     * Send the payload using the configured codec.
+     * If the payload cannot be binary encoded it is sent as a serialized object, which the receiver always accepts
+     */
+    private void send(String queueName, Serializable payload, Function<ProvenanceBinaryCodec, byte[]> encoder) {
+        ConfigurationProperties properties = ConfigurationProperties.getInstance();
+        if (properties.isBinaryJmsCodec()) {
+            ProvenanceBinaryCodec codec = properties.isJmsCompressionEnabled() ? compressedBinaryCodec : binaryCodec;
+            byte[] bytes = null;
+            try {
+                bytes = encoder.apply(codec);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Unable to binary encode the message for {}. It will be sent as a serialized object. {} ", queueName, e.getMessage());
+            }
+            if (bytes != null) {
+                sendJmsMessage.sendBytesToQueue(queueName, bytes, codec.headers());
+                return;
+            }
+        }
+        sendJmsMessage.sendSerializedObjectToQueue(queueName, payload);
+    }
+
     /**
      * Send the Statistics to JMS using the JMS Queue {@link Queues#PROVENANCE_EVENT_STATS_QUEUE}
      *
@@ -92,7 +125,7 @@ public class ProvenanceEventJmsWriter {
      */
     public void writeStats(AggregatedFeedProcessorStatisticsHolder stats) {
         try {
-                sendJmsMessage.sendSerializedObjectToQueue(Queues.PROVENANCE_EVENT_STATS_QUEUE, stats);
+                send(Queues.PROVENANCE_EVENT_STATS_QUEUE, stats, codec -> codec.encodeStats(stats));
               //  AggregationEventProcessingStats.addStreamingEvents(stats.getEventCount().intValue());
                 notifySuccess(Queues.PROVENANCE_EVENT_STATS_QUEUE, stats);
         } catch (Exception e) {
@@ -109,7 +142,7 @@ public class ProvenanceEventJmsWriter {
     public void writeBatchEvents(ProvenanceEventRecordDTOHolder events) {
         try {
             logger.info("SENDING Batch Events to JMS {} ", events);
-            sendJmsMessage.sendSerializedObjectToQueue(Queues.FEED_MANAGER_QUEUE, events);
+            send(Queues.FEED_MANAGER_QUEUE, events, codec -> codec.encodeEvents(events));
             AggregationEventProcessingStats.addBatchEvents(events.getEvents().size());
             notifySuccess(Queues.FEED_MANAGER_QUEUE, events);
         } catch (Exception e) {
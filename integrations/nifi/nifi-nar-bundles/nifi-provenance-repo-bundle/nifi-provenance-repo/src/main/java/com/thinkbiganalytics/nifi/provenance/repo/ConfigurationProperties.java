@@ -20,6 +20,8 @@ package com.thinkbiganalytics.nifi.provenance.repo;
  * #L%
  */
 
+import com.thinkbiganalytics.nifi.provenance.model.codec.ProvenanceBinaryCodec;
+
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,6 +47,9 @@ public class ConfigurationProperties {
     public static final Integer DEFAULT_THROTTLE_STARTING_FEED_FLOWS_THRESHOLD = 15;
     public static final Integer DEFAULT_THROTTLE_STARTING_FEED_FLOWS_TIME_PERIOD_MILLIS = 1000;
 
+    public static final String JMS_CODEC_JAVA = "java";
+    public static final String JMS_CODEC_BINARY = "binary";
+
     public static final String DEFAULT_ORPHAN_CHILD_FLOW_FILE_PROCESSORS = "{\"CLONE\":[\"ConvertCSVToAvro\"]}";
 
     public static final String BACKUP_LOCATION_KEY = "backupLocation";
@@ -57,6 +62,12 @@ public class ConfigurationProperties {
     private Long runInterval = DEFAULT_RUN_INTERVAL_MILLIS;
     private Integer maxFeedEvents = DEFAULT_MAX_EVENTS;
     private String backupLocation = DEFAULT_BACKUP_LOCATION;
+    private String trackingStoreLocation;
+    private String journalLocation;
+    private Integer journalSegmentBytes;
+    private Long journalCheckpointBytes;
+    private String jmsCodec = JMS_CODEC_JAVA;
+    private String jmsCompression = ProvenanceBinaryCodec.COMPRESSION_NONE;
     private Integer throttleStartingFeedFlowsThreshold = DEFAULT_THROTTLE_STARTING_FEED_FLOWS_THRESHOLD;
     private Integer throttleStartingFeedFlowsTimePeriodMillis = DEFAULT_THROTTLE_STARTING_FEED_FLOWS_TIME_PERIOD_MILLIS;
 
@@ -107,6 +118,12 @@ public class ConfigurationProperties {
 
     private void setValues() {
         this.backupLocation = properties.getProperty("kylo.provenance.cache.location", DEFAULT_BACKUP_LOCATION);
+        this.trackingStoreLocation = properties.getProperty("kylo.provenance.tracking.store.location");
+        this.journalLocation = properties.getProperty("kylo.provenance.journal.location");
+        this.journalSegmentBytes = new Integer(properties.getProperty("kylo.provenance.journal.segment.size.bytes", FeedEventJournal.DEFAULT_SEGMENT_BYTES + ""));
+        this.journalCheckpointBytes = new Long(properties.getProperty("kylo.provenance.journal.checkpoint.bytes", FeedEventJournal.DEFAULT_CHECKPOINT_BYTES + ""));
+        this.jmsCodec = properties.getProperty("kylo.provenance.jms.codec", JMS_CODEC_JAVA);
+        this.jmsCompression = properties.getProperty("kylo.provenance.jms.compression", ProvenanceBinaryCodec.COMPRESSION_NONE);
         this.maxFeedEvents = new Integer(properties.getProperty("kylo.provenance.max.starting.events", DEFAULT_MAX_EVENTS + ""));
         this.runInterval = new Long(properties.getProperty("kylo.provenance.run.interval.millis", DEFAULT_RUN_INTERVAL_MILLIS + ""));
 
@@ -123,6 +140,44 @@ public class ConfigurationProperties {
         return StringUtils.isBlank(backupLocation) ? DEFAULT_BACKUP_LOCATION : backupLocation;
     }
 
+    /**
+     * Directory used to hold the flow file tracking data in memory mapped files.
+     * If blank the tracking data is held on the java heap
+     */
+    public String getTrackingStoreLocation() {
+        return StringUtils.isBlank(trackingStoreLocation) ? null : trackingStoreLocation;
+    }
+
+    /**
+     * Directory used to hold the write ahead journal and snapshots of the feed event statistics.
+     * If blank the full statistics are backed up to the {@link #getFeedEventStatisticsBackupLocation()} on shutdown
+     */
+    public String getJournalLocation() {
+        return StringUtils.isBlank(journalLocation) ? null : journalLocation;
+    }
+
+    public Integer getJournalSegmentBytes() {
+        return journalSegmentBytes;
+    }
+
+    public Long getJournalCheckpointBytes() {
+        return journalCheckpointBytes;
+    }
+
+    /**
+     * true if the events and statistics are sent to JMS with the compact {@link ProvenanceBinaryCodec}, false to send serialized java objects
+     */
+    public boolean isBinaryJmsCodec() {
+        return JMS_CODEC_BINARY.equalsIgnoreCase(StringUtils.trim(jmsCodec));
+    }
+
+    /**
+     * true if the binary JMS messages are compressed with LZ4
+     */
+    public boolean isJmsCompressionEnabled() {
+        return ProvenanceBinaryCodec.COMPRESSION_LZ4.equalsIgnoreCase(StringUtils.trim(jmsCompression));
+    }
+
     /**
      * The Max allowed feed flow files to send through to ops manager per the processing run interval
      */
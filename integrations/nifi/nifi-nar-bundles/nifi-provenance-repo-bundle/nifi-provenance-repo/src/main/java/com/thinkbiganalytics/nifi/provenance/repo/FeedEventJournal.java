@@ -0,0 +1,789 @@
+package com.thinkbiganalytics.nifi.provenance.repo;
+
+/*-
+ * #%L
+ * thinkbig-nifi-provenance-repo
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.thinkbiganalytics.nifi.provenance.repo.store.FlowFileIds;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * Append only, memory mapped write ahead log of the changes made to the {@link FeedEventStatistics}.
+ *
+ * Every change is appended as an idempotent record (ie. "flow file X belongs to feed flow file Y", "flow file X removed") to the current journal segment.
+ * The segments are memory mapped so appending does not make a system call, and the records survive a NiFi process crash.
+ *
+ * Once the journal grows past the checkpoint size the current segment is closed and a compacted snapshot of the full state is written
+ * in the background, after which the older segments are deleted.  The snapshot is taken while new records continue to be appended,
+ * which is safe because replaying the newer segment on top of the snapshot re-applies the latest value of anything that changed during the snapshot.
+ *
+ * Recovery loads the latest snapshot and replays only the segments written after it.
+ *
+ * Appending does not lock the journal.  Each record reserves its place in the current segment with a compare and set and is then copied in,
+ * so the callers are only serialized by the locks they hold for their own changes.  Rolling to a new segment is the only step that locks.
+ * As records are copied in concurrently, a crash can lose the records appended after one that was still being copied.
+ *
+ * Files in the journal directory:
+ * snapshot-{sequence}.bin  the compacted state as of the start of segment {sequence}
+ * journal-{sequence}.log   a journal segment
+ */
+public class FeedEventJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(FeedEventJournal.class);
+
+    public static final int DEFAULT_SEGMENT_BYTES = 32 * 1024 * 1024;
+
+    public static final long DEFAULT_CHECKPOINT_BYTES = 128L * 1024 * 1024;
+
+    private static final Pattern SEGMENT_FILE = Pattern.compile("journal-(\\d+)\\.log");
+
+    private static final Pattern SNAPSHOT_FILE = Pattern.compile("snapshot-(\\d+)\\.bin");
+
+    /**
+     * length and crc of each record
+     */
+    private static final int RECORD_HEADER_BYTES = 8;
+
+    /// Record types
+    static final byte FLOW_FILE_FEED_FLOW_FILE = 1;
+    static final byte FLOW_FILE_LAST_EVENT_TIME = 2;
+    static final byte FLOW_FILE_REMOVED = 3;
+    static final byte EVENT_TIMES = 4;
+    static final byte EVENT_TIMES_REMOVED = 5;
+    static final byte ENDING_EVENT = 6;
+    static final byte ENDING_EVENT_REMOVED = 7;
+    static final byte FEED_FLOW_PROCESSOR = 8;
+    static final byte FEED_FLOW_DETAILED_TRACKING = 9;
+    static final byte FEED_FLOW_START_TIME = 10;
+    static final byte FEED_FLOW_END_TIME = 11;
+    static final byte FEED_FLOW_PROCESSING = 12;
+    static final byte FEED_FLOW_FAILURES = 13;
+    static final byte FEED_FLOW_REMOVED = 14;
+    static final byte RUNNING_FEED_FLOWS = 15;
+    static final byte SKIPPED_EVENTS = 16;
+    static final byte CLEAR = 17;
+
+    /**
+     * id encodings
+     */
+    private static final byte COMPACT_ID = 1;
+    private static final byte STRING_ID = 2;
+
+    /**
+     * Journal that does not record anything. Used when journaling is not configured
+     */
+    public static final FeedEventJournal DISABLED = new FeedEventJournal();
+
+    private final File directory;
+
+    private final int segmentBytes;
+
+    private final long checkpointBytes;
+
+    private final Output journalOutput;
+
+    private Consumer<Output> snapshotWriter;
+
+    private long sequence;
+
+    /**
+     * The segment records are appended to, null when the journal is not open
+     */
+    private volatile Segment segment;
+
+    private final AtomicLong bytesSinceCheckpoint = new AtomicLong(0L);
+
+    private final AtomicBoolean checkpointRunning = new AtomicBoolean(false);
+
+    private ExecutorService checkpointService;
+
+    private FeedEventJournal() {
+        this.directory = null;
+        this.segmentBytes = 0;
+        this.checkpointBytes = 0;
+        this.journalOutput = Output.NONE;
+    }
+
+    /**
+     * @param directory       the directory holding the journal and snapshot files
+     * @param segmentBytes    the size of each memory mapped journal segment
+     * @param checkpointBytes the number of journal bytes written before a new snapshot is taken
+     */
+    public FeedEventJournal(File directory, int segmentBytes, long checkpointBytes) {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IllegalArgumentException("Unable to create the feed event journal directory " + directory);
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.checkpointBytes = checkpointBytes;
+        this.journalOutput = new Output() {
+            @Override
+            void write(ByteBuffer record) throws IOException {
+                append(record);
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return journalOutput.isEnabled();
+    }
+
+    /**
+     * @return the output used to record changes
+     */
+    Output output() {
+        return journalOutput;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Replay the latest snapshot and the journal segments written after it, then start a new segment for the changes that follow.
+     *
+     * @param handler        applies the records to the state
+     * @param snapshotWriter writes the full state when a checkpoint is taken
+     */
+    public synchronized void open(Handler handler, Consumer<Output> snapshotWriter) throws IOException {
+        this.snapshotWriter = snapshotWriter;
+        List<Long> snapshots = sequences(SNAPSHOT_FILE);
+        long snapshotSequence = snapshots.isEmpty() ? 0L : snapshots.get(snapshots.size() - 1);
+        long records = 0;
+        if (!snapshots.isEmpty()) {
+            records += replay(snapshotFile(snapshotSequence), handler);
+        }
+        long lastSequence = snapshotSequence;
+        for (Long segmentSequence : sequences(SEGMENT_FILE)) {
+            if (segmentSequence >= snapshotSequence) {
+                records += replay(segmentFile(segmentSequence), handler);
+                lastSequence = Math.max(lastSequence, segmentSequence);
+            }
+        }
+        log.info("Recovered {} feed event journal records from {} starting at snapshot {} ", records, directory, snapshotSequence);
+        checkpointService = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("FeedEventJournal-Checkpoint-%d").build());
+        this.sequence = lastSequence;
+        rollSegment();
+    }
+
+    /**
+     * Flush the mapped journal to disk
+     */
+    public synchronized void sync() {
+        Segment current = segment;
+        if (current != null) {
+            current.buffer.force();
+        }
+    }
+
+    /**
+     * Flush the journal and stop taking checkpoints
+     */
+    public synchronized void close() {
+        sync();
+        segment = null;
+        if (checkpointService != null) {
+            checkpointService.shutdown();
+        }
+    }
+
+    /**
+     * Take a snapshot of the full state now, on the calling thread
+     */
+    public void checkpoint() {
+        long snapshotSequence;
+        synchronized (this) {
+            if (segment == null) {
+                return;
+            }
+            try {
+                snapshotSequence = rollSegment();
+            } catch (IOException e) {
+                log.error("Unable to roll the feed event journal in {}. {} ", directory, e.getMessage(), e);
+                return;
+            }
+        }
+        writeSnapshot(snapshotSequence);
+    }
+
+    private void writeSnapshot(long snapshotSequence) {
+        File tmp = new File(directory, "snapshot-" + snapshotSequence + ".tmp");
+        long start = System.currentTimeMillis();
+        try (FileOutputStream fos = new FileOutputStream(tmp);
+             OutputStream out = new BufferedOutputStream(fos, 1024 * 1024)) {
+            snapshotWriter.accept(new Output() {
+                @Override
+                void write(ByteBuffer record) throws IOException {
+                    out.write(record.array(), 0, record.limit());
+                }
+            });
+            //end marker
+            out.write(new byte[RECORD_HEADER_BYTES]);
+            out.flush();
+            fos.getFD().sync();
+        } catch (Exception e) {
+            log.error("Unable to write the feed event snapshot {}. {} ", tmp, e.getMessage(), e);
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(snapshotFile(snapshotSequence))) {
+            log.error("Unable to rename the feed event snapshot {} ", tmp);
+            return;
+        }
+        sequences(SEGMENT_FILE).stream().filter(s -> s < snapshotSequence).forEach(s -> segmentFile(s).delete());
+        sequences(SNAPSHOT_FILE).stream().filter(s -> s < snapshotSequence).forEach(s -> snapshotFile(s).delete());
+        log.info("Wrote feed event snapshot {} in {} ms ", snapshotSequence, System.currentTimeMillis() - start);
+    }
+
+    private File segmentFile(long sequence) {
+        return new File(directory, "journal-" + sequence + ".log");
+    }
+
+    private File snapshotFile(long sequence) {
+        return new File(directory, "snapshot-" + sequence + ".bin");
+    }
+
+    private List<Long> sequences(Pattern pattern) {
+        String[] names = directory.list();
+        if (names == null) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(names).map(pattern::matcher).filter(Matcher::matches).map(m -> Long.parseLong(m.group(1))).sorted().collect(Collectors.toList());
+    }
+
+    /**
+     * Close the current segment and start the next one
+     *
+     * @return the sequence of the new segment
+     */
+    private long rollSegment() throws IOException {
+        Segment previous = segment;
+        if (previous != null) {
+            //the changes of every record reserved in the previous segment happen before the seal, so a snapshot taken after the roll includes them
+            previous.seal();
+            previous.buffer.force();
+        }
+        sequence++;
+        try (RandomAccessFile raf = new RandomAccessFile(segmentFile(sequence), "rw")) {
+            raf.setLength(segmentBytes);
+            //always leave room for the end marker
+            segment = new Segment(raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes), segmentBytes - RECORD_HEADER_BYTES);
+        }
+        bytesSinceCheckpoint.set(0L);
+        return sequence;
+    }
+
+    /**
+     * Roll to a new segment if the full segment is still the current one
+     *
+     * @param full the segment that had no room for a record
+     * @return the segment to append to, null if the journal is closed
+     */
+    private synchronized Segment rollFullSegment(Segment full) throws IOException {
+        if (segment == full) {
+            long bytes = bytesSinceCheckpoint.get();
+            rollSegment();
+            bytesSinceCheckpoint.set(bytes);
+        }
+        return segment;
+    }
+
+    /**
+     * Roll to a new segment and write the snapshot in the background
+     */
+    private synchronized void startCheckpoint() throws IOException {
+        if (segment == null) {
+            checkpointRunning.set(false);
+            return;
+        }
+        long snapshotSequence = rollSegment();
+        checkpointService.submit(() -> {
+            try {
+                writeSnapshot(snapshotSequence);
+            } finally {
+                checkpointRunning.set(false);
+            }
+        });
+    }
+
+    private void append(ByteBuffer record) throws IOException {
+        int length = record.limit();
+        if (length + RECORD_HEADER_BYTES > segmentBytes) {
+            throw new IOException("Journal record of " + length + " bytes is larger than the segment size");
+        }
+        Segment current = segment;
+        while (current != null) {
+            int offset = current.reserve(length);
+            if (offset >= 0) {
+                current.write(offset, record);
+                if (bytesSinceCheckpoint.addAndGet(length) > checkpointBytes && checkpointRunning.compareAndSet(false, true)) {
+                    startCheckpoint();
+                }
+                return;
+            }
+            current = rollFullSegment(current);
+        }
+    }
+
+    /**
+     * Replay the records in the file, stopping at the end marker or the first incomplete record
+     *
+     * @return the number of records applied
+     */
+    private long replay(File file, Handler handler) throws IOException {
+        long count = 0;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            ByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            CRC32 crc = new CRC32();
+            while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    break;
+                }
+                ByteBuffer payload = buffer.slice();
+                payload.limit(length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    log.warn("Stopping replay of {} at a corrupt record. The remaining records were not fully written", file);
+                    break;
+                }
+                apply(payload, handler);
+                buffer.position(buffer.position() + length);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void apply(ByteBuffer in, Handler handler) {
+        byte type = in.get();
+        switch (type) {
+            case FLOW_FILE_FEED_FLOW_FILE:
+                handler.flowFileFeedFlowFile(readId(in), readId(in));
+                break;
+            case FLOW_FILE_LAST_EVENT_TIME:
+                handler.flowFileLastEventTime(readId(in), in.getLong());
+                break;
+            case FLOW_FILE_REMOVED:
+                handler.flowFileRemoved(readId(in));
+                break;
+            case EVENT_TIMES:
+                handler.eventTimes(in.getLong(), in.getLong(), in.getLong());
+                break;
+            case EVENT_TIMES_REMOVED:
+                handler.eventTimesRemoved(in.getLong());
+                break;
+            case ENDING_EVENT:
+                handler.endingEvent(in.getLong());
+                break;
+            case ENDING_EVENT_REMOVED:
+                handler.endingEventRemoved(in.getLong());
+                break;
+            case FEED_FLOW_PROCESSOR:
+                handler.feedFlowProcessor(readId(in), readId(in));
+                break;
+            case FEED_FLOW_DETAILED_TRACKING:
+                handler.feedFlowDetailedTracking(readId(in));
+                break;
+            case FEED_FLOW_START_TIME:
+                handler.feedFlowStartTime(readId(in), in.getLong());
+                break;
+            case FEED_FLOW_END_TIME:
+                handler.feedFlowEndTime(readId(in), in.getLong());
+                break;
+            case FEED_FLOW_PROCESSING:
+                handler.feedFlowProcessing(readId(in), in.getInt());
+                break;
+            case FEED_FLOW_FAILURES:
+                handler.feedFlowFailures(readId(in), in.getInt());
+                break;
+            case FEED_FLOW_REMOVED:
+                handler.feedFlowRemoved(readId(in));
+                break;
+            case RUNNING_FEED_FLOWS:
+                handler.runningFeedFlows(readId(in), in.getLong());
+                break;
+            case SKIPPED_EVENTS:
+                handler.skippedEvents(in.getLong());
+                break;
+            case CLEAR:
+                handler.clear();
+                break;
+            default:
+                log.warn("Skipping unknown feed event journal record type {} ", type);
+        }
+    }
+
+    private static String readId(ByteBuffer in) {
+        byte encoding = in.get();
+        if (encoding == COMPACT_ID) {
+            return FlowFileIds.toString(in.getLong(), in.getLong());
+        }
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Encodes the journal records.  Used to append to the live journal and to write the snapshots.
+     * Records are encoded in a buffer of the calling thread, so an output can be used by many threads without locking.
+     */
+    abstract static class Output {
+
+        /**
+         * Output that does not record anything
+         */
+        static final Output NONE = new Output() {
+            @Override
+            boolean isEnabled() {
+                return false;
+            }
+
+            @Override
+            void write(ByteBuffer record) {
+
+            }
+        };
+
+        private static final ThreadLocal<Record> records = ThreadLocal.withInitial(Record::new);
+
+        boolean isEnabled() {
+            return true;
+        }
+
+        abstract void write(ByteBuffer record) throws IOException;
+
+        private Record begin(byte type) {
+            Record record = records.get();
+            record.begin(type);
+            return record;
+        }
+
+        private void end(Record record) {
+            try {
+                write(record.end());
+            } catch (IOException e) {
+                log.error("Unable to write feed event journal record. {} ", e.getMessage(), e);
+            }
+        }
+
+        void flowFileFeedFlowFile(String flowFileId, String feedFlowFileId) {
+            if (isEnabled()) {
+                Record record = begin(FLOW_FILE_FEED_FLOW_FILE);
+                record.putId(flowFileId);
+                record.putId(feedFlowFileId);
+                end(record);
+            }
+        }
+
+        void flowFileLastEventTime(String flowFileId, long eventTime) {
+            idLongRecord(FLOW_FILE_LAST_EVENT_TIME, flowFileId, eventTime);
+        }
+
+        void flowFileRemoved(String flowFileId) {
+            idRecord(FLOW_FILE_REMOVED, flowFileId);
+        }
+
+        void eventTimes(long eventId, long startTime, long duration) {
+            if (isEnabled()) {
+                Record record = begin(EVENT_TIMES);
+                record.putLong(eventId);
+                record.putLong(startTime);
+                record.putLong(duration);
+                end(record);
+            }
+        }
+
+        void eventTimesRemoved(long eventId) {
+            longRecord(EVENT_TIMES_REMOVED, eventId);
+        }
+
+        void endingEvent(long eventId) {
+            longRecord(ENDING_EVENT, eventId);
+        }
+
+        void endingEventRemoved(long eventId) {
+            longRecord(ENDING_EVENT_REMOVED, eventId);
+        }
+
+        void feedFlowProcessor(String feedFlowFileId, String feedProcessorId) {
+            if (isEnabled()) {
+                Record record = begin(FEED_FLOW_PROCESSOR);
+                record.putId(feedFlowFileId);
+                record.putId(feedProcessorId);
+                end(record);
+            }
+        }
+
+        void feedFlowDetailedTracking(String feedFlowFileId) {
+            idRecord(FEED_FLOW_DETAILED_TRACKING, feedFlowFileId);
+        }
+
+        void feedFlowStartTime(String feedFlowFileId, long time) {
+            idLongRecord(FEED_FLOW_START_TIME, feedFlowFileId, time);
+        }
+
+        void feedFlowEndTime(String feedFlowFileId, long time) {
+            idLongRecord(FEED_FLOW_END_TIME, feedFlowFileId, time);
+        }
+
+        void feedFlowProcessing(String feedFlowFileId, int count) {
+            idIntRecord(FEED_FLOW_PROCESSING, feedFlowFileId, count);
+        }
+
+        void feedFlowFailures(String feedFlowFileId, int count) {
+            idIntRecord(FEED_FLOW_FAILURES, feedFlowFileId, count);
+        }
+
+        void feedFlowRemoved(String feedFlowFileId) {
+            idRecord(FEED_FLOW_REMOVED, feedFlowFileId);
+        }
+
+        void runningFeedFlows(String feedProcessorId, long count) {
+            idLongRecord(RUNNING_FEED_FLOWS, feedProcessorId, count);
+        }
+
+        void skippedEvents(long count) {
+            longRecord(SKIPPED_EVENTS, count);
+        }
+
+        void clear() {
+            if (isEnabled()) {
+                end(begin(CLEAR));
+            }
+        }
+
+        private void longRecord(byte type, long value) {
+            if (isEnabled()) {
+                Record record = begin(type);
+                record.putLong(value);
+                end(record);
+            }
+        }
+
+        private void idRecord(byte type, String id) {
+            if (isEnabled()) {
+                Record record = begin(type);
+                record.putId(id);
+                end(record);
+            }
+        }
+
+        private void idLongRecord(byte type, String id, long value) {
+            if (isEnabled()) {
+                Record record = begin(type);
+                record.putId(id);
+                record.putLong(value);
+                end(record);
+            }
+        }
+
+        private void idIntRecord(byte type, String id, int value) {
+            if (isEnabled()) {
+                Record record = begin(type);
+                record.putId(id);
+                record.putInt(value);
+                end(record);
+            }
+        }
+    }
+
+    /**
+     * A record being encoded, reused by its thread
+     */
+    private static class Record {
+
+        private ByteBuffer buffer = ByteBuffer.allocate(256);
+
+        private final CRC32 crc = new CRC32();
+
+        private void begin(byte type) {
+            buffer.clear();
+            buffer.position(RECORD_HEADER_BYTES);
+            buffer.put(type);
+        }
+
+        /**
+         * @return the framed record, ready to be written
+         */
+        private ByteBuffer end() {
+            int length = buffer.position() - RECORD_HEADER_BYTES;
+            crc.reset();
+            crc.update(buffer.array(), RECORD_HEADER_BYTES, length);
+            buffer.putInt(0, length);
+            buffer.putInt(4, (int) crc.getValue());
+            buffer.flip();
+            return buffer;
+        }
+
+        private void putId(String id) {
+            if (FlowFileIds.isCompactable(id)) {
+                ensureCapacity(17);
+                buffer.put(COMPACT_ID);
+                buffer.putLong(FlowFileIds.mostSignificantBits(id));
+                buffer.putLong(FlowFileIds.leastSignificantBits(id));
+            } else {
+                byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+                ensureCapacity(5 + bytes.length);
+                buffer.put(STRING_ID);
+                buffer.putInt(bytes.length);
+                buffer.put(bytes);
+            }
+        }
+
+        private void putLong(long value) {
+            ensureCapacity(8);
+            buffer.putLong(value);
+        }
+
+        private void putInt(int value) {
+            ensureCapacity(4);
+            buffer.putInt(value);
+        }
+
+        private void ensureCapacity(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+    }
+
+    /**
+     * A memory mapped journal segment.  Appenders reserve the bytes of their record before copying it in, so they do not lock each other out
+     */
+    private static class Segment {
+
+        private final MappedByteBuffer buffer;
+
+        /**
+         * The number of bytes records can use
+         */
+        private final int capacity;
+
+        /**
+         * The offset of the next record.  Set past the capacity once the segment is sealed
+         */
+        private final AtomicInteger position = new AtomicInteger(0);
+
+        Segment(MappedByteBuffer buffer, int capacity) {
+            this.buffer = buffer;
+            this.capacity = capacity;
+        }
+
+        /**
+         * @return the offset reserved for the record, or -1 if the segment does not have room for it
+         */
+        private int reserve(int length) {
+            while (true) {
+                int offset = position.get();
+                if ((long) offset + length > capacity) {
+                    return -1;
+                }
+                if (position.compareAndSet(offset, offset + length)) {
+                    return offset;
+                }
+            }
+        }
+
+        private void write(int offset, ByteBuffer record) {
+            ByteBuffer target = buffer.duplicate();
+            target.position(offset);
+            target.put(record.array(), 0, record.limit());
+        }
+
+        /**
+         * Stop any more records from being reserved
+         */
+        private void seal() {
+            position.getAndSet(Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Applies the replayed records
+     */
+    interface Handler {
+
+        void flowFileFeedFlowFile(String flowFileId, String feedFlowFileId);
+
+        void flowFileLastEventTime(String flowFileId, long eventTime);
+
+        void flowFileRemoved(String flowFileId);
+
+        void eventTimes(long eventId, long startTime, long duration);
+
+        void eventTimesRemoved(long eventId);
+
+        void endingEvent(long eventId);
+
+        void endingEventRemoved(long eventId);
+
+        void feedFlowProcessor(String feedFlowFileId, String feedProcessorId);
+
+        void feedFlowDetailedTracking(String feedFlowFileId);
+
+        void feedFlowStartTime(String feedFlowFileId, long time);
+
+        void feedFlowEndTime(String feedFlowFileId, long time);
+
+        void feedFlowProcessing(String feedFlowFileId, int count);
+
+        void feedFlowFailures(String feedFlowFileId, int count);
+
+        void feedFlowRemoved(String feedFlowFileId);
+
+        void runningFeedFlows(String feedProcessorId, long count);
+
+        void skippedEvents(long count);
+
+        void clear();
+    }
+}
@@ -27,6 +27,7 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalNotification;
 import com.thinkbiganalytics.json.ObjectMapperSerializer;
+import com.thinkbiganalytics.nifi.provenance.repo.store.FlowFileTrackingStore;
 import com.thinkbiganalytics.nifi.provenance.util.ProvenanceEventUtil;
 
 import org.apache.commons.io.serialization.ValidatingObjectInputStream;
@@ -45,7 +46,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -54,6 +55,8 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
@@ -68,13 +71,14 @@ public class FeedEventStatistics implements Serializable {
     protected Map<String, String> feedFlowFileIdToFeedProcessorId = new ConcurrentHashMap<>();
 
     ////Track feedFlowFile relationships to parent/child flow files for lifetime feed job execution
-    protected Set<String> detailedTrackingFeedFlowFileId = new HashSet<>();
+    protected Set<String> detailedTrackingFeedFlowFileId = ConcurrentHashMap.newKeySet();
 
     /**
-     * Map of all the flow files as they pertain to the starting feed flow file
-     * Used to expire EventStatistics
+     * Primitive store holding the per flow file and per event tracking data:
+     * the flow files as they pertain to the starting feed flow file (used to expire EventStatistics),
+     * the last non drop event time per flow file, the event start times and durations and the events that complete the feed flow.
      */
-    protected Map<String, String> allFlowFileToFeedFlowFile = new ConcurrentHashMap<>();
+    protected FlowFileTrackingStore trackingStore = new FlowFileTrackingStore();
 
 
     /**
@@ -104,19 +108,6 @@ public class FeedEventStatistics implements Serializable {
 
     ///Track Timing Information for each event
 
-
-    /**
-     * Map of the FlowFile Id to Event Time that is not a drop event
-     */
-    protected Map<String, Long> flowFileLastNonDropEventTime = new ConcurrentHashMap<>();
-
-    /**
-     * Map of the EventId to the duration in millis
-     */
-    protected Map<Long, Long> eventDuration = new ConcurrentHashMap<>();
-
-    protected Map<Long, Long> eventStartTime = new ConcurrentHashMap<>();
-
     /**
      * feed flowFile Id to startTime
      */
@@ -131,11 +122,6 @@ public class FeedEventStatistics implements Serializable {
 
     private Map<String, long[]> flowRate = new HashMap<>();
 
-    /**
-     * Set of Event Ids that are events that finish the feed flow execution.  Last Job Event Ids
-     */
-    protected Set<Long> eventsThatCompleteFeedFlow = new HashSet<>();
-
     /**
      * Count of how many flow files are still processing for a given feedFlowFile execution
      */
@@ -163,7 +149,7 @@ public class FeedEventStatistics implements Serializable {
     /**
      * Count of the flows running by feed processor
      */
-    protected Set<String> changedFeedProcessorRunningFeedFlows = new HashSet<>();
+    protected Set<String> changedFeedProcessorRunningFeedFlows = ConcurrentHashMap.newKeySet();
 
     protected AtomicBoolean feedProcessorRunningFeedFlowsChanged = new AtomicBoolean(false);
 
@@ -175,6 +161,25 @@ public class FeedEventStatistics implements Serializable {
 
     private boolean deleteBackupAfterLoad = true;
 
+    /**
+     * Write ahead journal of the changes made to the tracking data.
+     * When enabled it replaces the full backup written on shutdown
+     */
+    private FeedEventJournal journal = FeedEventJournal.DISABLED;
+
+    private FeedEventJournal.Output journalOutput = journal.output();
+
+    /**
+     * Number of locks the journaled keys are striped across
+     */
+    private static final int JOURNAL_LOCK_STRIPES = 256;
+
+    /**
+     * Locks held while a key is changed and its journal record is written, so the records of a key are journaled in the order of its changes.
+     * Only used when the journal is enabled
+     */
+    private final transient Lock[] journalLocks = new Lock[JOURNAL_LOCK_STRIPES];
+
     /**
      * Map of the NiFi Event to Nifi Class that should be skipped
      */
@@ -196,7 +201,9 @@ public class FeedEventStatistics implements Serializable {
     private static final FeedEventStatistics instance = new FeedEventStatistics();
 
     private FeedEventStatistics() {
-
+        for (int i = 0; i < journalLocks.length; i++) {
+            journalLocks[i] = new ReentrantLock();
+        }
     }
 
     public static FeedEventStatistics getInstance() {
@@ -211,6 +218,182 @@ public class FeedEventStatistics implements Serializable {
         this.backupLocation = backupLocation;
     }
 
+    public FlowFileTrackingStore getTrackingStore() {
+        return trackingStore;
+    }
+
+    public FeedEventJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Recover the state recorded in the journal and record all further changes to it
+     *
+     * @param journal the journal to use
+     * @return true if the journal was recovered and opened
+     */
+    public boolean openJournal(FeedEventJournal journal) {
+        try {
+            journal.open(new JournalReplay(), this::writeSnapshot);
+            this.journal = journal;
+            this.journalOutput = journal.output();
+            return true;
+        } catch (Exception e) {
+            log.error("Unable to open the feed event journal in {}. {} ", journal.getDirectory(), e.getMessage(), e);
+        }
+        return false;
+    }
+
+    /**
+     * Make a change and write its journal records while holding the lock of the changed key.
+     * Nothing is locked when the journal is disabled
+     *
+     * @param key    the key being changed
+     * @param change changes the key and writes its journal records
+     */
+    private void journaled(Object key, Runnable change) {
+        if (journal.isEnabled()) {
+            int hash = key.hashCode();
+            Lock lock = journalLocks[(hash ^ (hash >>> 16)) & (journalLocks.length - 1)];
+            lock.lock();
+            try {
+                change.run();
+            } finally {
+                lock.unlock();
+            }
+        } else {
+            change.run();
+        }
+    }
+
+    /**
+     * Write the full state to the snapshot output
+     */
+    private void writeSnapshot(FeedEventJournal.Output output) {
+        //cleanup any files that should be removed before the snapshot
+        detailedTrackingFlowFilesToDelete.cleanUp();
+        trackingStore.getFlowFileToFeedFlowFile().forEach(output::flowFileFeedFlowFile);
+        trackingStore.getFlowFileLastEventTimes().forEach(output::flowFileLastEventTime);
+        Map<Long, Long> durations = trackingStore.getEventDurations();
+        trackingStore.getEventStartTimes().forEach((eventId, startTime) -> {
+            Long duration = durations.get(eventId);
+            if (duration != null) {
+                output.eventTimes(eventId, startTime, duration);
+            }
+        });
+        trackingStore.getEndingEvents().forEach(output::endingEvent);
+        feedFlowFileIdToFeedProcessorId.forEach(output::feedFlowProcessor);
+        new ArrayList<>(detailedTrackingFeedFlowFileId).forEach(output::feedFlowDetailedTracking);
+        feedFlowFileStartTime.forEach(output::feedFlowStartTime);
+        feedFlowFileEndTime.forEach(output::feedFlowEndTime);
+        feedFlowProcessing.forEach((feedFlowFileId, count) -> output.feedFlowProcessing(feedFlowFileId, count.get()));
+        feedFlowFileFailureCount.forEach((feedFlowFileId, count) -> output.feedFlowFailures(feedFlowFileId, count.get()));
+        feedProcessorRunningFeedFlows.forEach((feedProcessorId, count) -> output.runningFeedFlows(feedProcessorId, count.get()));
+        output.skippedEvents(skippedEvents.get());
+    }
+
+    /**
+     * Applies the journal records to the maps during recovery
+     */
+    private class JournalReplay implements FeedEventJournal.Handler {
+
+        @Override
+        public void flowFileFeedFlowFile(String flowFileId, String feedFlowFileId) {
+            trackingStore.setFeedFlowFile(flowFileId, feedFlowFileId);
+        }
+
+        @Override
+        public void flowFileLastEventTime(String flowFileId, long eventTime) {
+            trackingStore.setLastEventTime(flowFileId, eventTime);
+        }
+
+        @Override
+        public void flowFileRemoved(String flowFileId) {
+            trackingStore.removeFlowFile(flowFileId);
+        }
+
+        @Override
+        public void eventTimes(long eventId, long startTime, long duration) {
+            trackingStore.setEventTimes(eventId, startTime, duration);
+        }
+
+        @Override
+        public void eventTimesRemoved(long eventId) {
+            trackingStore.removeEventTimes(eventId);
+        }
+
+        @Override
+        public void endingEvent(long eventId) {
+            trackingStore.markEndingEvent(eventId);
+        }
+
+        @Override
+        public void endingEventRemoved(long eventId) {
+            trackingStore.removeEndingEvent(eventId);
+        }
+
+        @Override
+        public void feedFlowProcessor(String feedFlowFileId, String feedProcessorId) {
+            feedFlowFileIdToFeedProcessorId.put(feedFlowFileId, feedProcessorId);
+        }
+
+        @Override
+        public void feedFlowDetailedTracking(String feedFlowFileId) {
+            detailedTrackingFeedFlowFileId.add(feedFlowFileId);
+        }
+
+        @Override
+        public void feedFlowStartTime(String feedFlowFileId, long time) {
+            feedFlowFileStartTime.put(feedFlowFileId, time);
+        }
+
+        @Override
+        public void feedFlowEndTime(String feedFlowFileId, long time) {
+            feedFlowFileEndTime.put(feedFlowFileId, time);
+        }
+
+        @Override
+        public void feedFlowProcessing(String feedFlowFileId, int count) {
+            feedFlowProcessing.computeIfAbsent(feedFlowFileId, id -> new AtomicInteger(0)).set(count);
+        }
+
+        @Override
+        public void feedFlowFailures(String feedFlowFileId, int count) {
+            feedFlowFileFailureCount.computeIfAbsent(feedFlowFileId, id -> new AtomicInteger(0)).set(count);
+        }
+
+        @Override
+        public void feedFlowRemoved(String feedFlowFileId) {
+            clearFeedFlowFileMaps(feedFlowFileId);
+        }
+
+        @Override
+        public void runningFeedFlows(String feedProcessorId, long count) {
+            feedProcessorRunningFeedFlows.computeIfAbsent(feedProcessorId, id -> new AtomicLong(0)).set(count);
+        }
+
+        @Override
+        public void skippedEvents(long count) {
+            skippedEvents.set(count);
+        }
+
+        @Override
+        public void clear() {
+            clearMaps();
+        }
+    }
+    /**
+     * Replace the flow file tracking store (ie. with one backed by memory mapped files), moving over any data already tracked
+     *
+     * @param trackingStore the new store
+     */
+    public void setTrackingStore(FlowFileTrackingStore trackingStore) {
+        FlowFileTrackingStore previous = this.trackingStore;
+        previous.copyTo(trackingStore);
+        this.trackingStore = trackingStore;
+        previous.release();
+    }
+
     private boolean shouldSkipChildren(ProvenanceEventType eventType, String componentType) {
         boolean
             skip =
@@ -237,7 +420,16 @@ public class FeedEventStatistics implements Serializable {
 
     }
 
+    /**
+     * Persist the current state.
+     * If the journal is enabled only the outstanding journal changes are flushed, otherwise a full backup is written to the backup location
+     */
     public boolean backup() {
+        if (journal.isEnabled()) {
+            journalOutput.skippedEvents(skippedEvents.get());
+            journal.close();
+            return true;
+        }
         return backup(getBackupLocation());
     }
 
@@ -303,15 +495,29 @@ public class FeedEventStatistics implements Serializable {
 
 
     public void clear() {
+        if (journal.isEnabled()) {
+            for (Lock lock : journalLocks) {
+                lock.lock();
+            }
+            try {
+                clearMaps();
+                journalOutput.clear();
+            } finally {
+                for (Lock lock : journalLocks) {
+                    lock.unlock();
+                }
+            }
+        } else {
+            clearMaps();
+        }
+    }
+
+    private void clearMaps() {
         this.feedFlowFileIdToFeedProcessorId.clear();
         this.detailedTrackingFeedFlowFileId.clear();
-        this.allFlowFileToFeedFlowFile.clear();
-        this.flowFileLastNonDropEventTime.clear();
-        this.eventDuration.clear();
-        this.eventStartTime.clear();
+        this.trackingStore.clear();
         this.feedFlowFileStartTime.clear();
         this.feedFlowFileEndTime.clear();
-        this.eventsThatCompleteFeedFlow.clear();
         this.feedFlowProcessing.clear();
         this.skippedEvents.set(0L);
         this.feedFlowFileFailureCount.clear();
@@ -323,16 +529,20 @@ public class FeedEventStatistics implements Serializable {
         // clear();
         this.feedFlowFileIdToFeedProcessorId.putAll(other.feedFlowFileIdToFeedProcessorId);
         this.detailedTrackingFeedFlowFileId.addAll(other.detailedTrackingFeedFlowFileId);
-        this.allFlowFileToFeedFlowFile.putAll(other.allFlowFileToFeedFlowFile);
-        this.flowFileLastNonDropEventTime.putAll(other.flowFileLastNonDropEventTime);
-        this.eventDuration.putAll(other.eventDuration);
-        this.eventStartTime.putAll(other.eventStartTime);
+        other.allFlowFileToFeedFlowFile.forEach(this.trackingStore::setFeedFlowFile);
+        other.flowFileLastNonDropEventTime.forEach(this.trackingStore::setLastEventTime);
+        other.eventDuration.forEach(this.trackingStore::setEventDuration);
+        other.eventStartTime.forEach(this.trackingStore::setEventStartTime);
         this.feedFlowFileStartTime.putAll(other.feedFlowFileStartTime);
         this.feedFlowFileEndTime.putAll(other.feedFlowFileEndTime);
-        this.eventsThatCompleteFeedFlow.addAll(other.eventsThatCompleteFeedFlow);
+        other.eventsThatCompleteFeedFlow.forEach(this.trackingStore::markEndingEvent);
         this.feedFlowProcessing.putAll(other.feedFlowProcessing);
         this.skippedEvents.set(other.skippedEvents.get());
         this.feedFlowFileFailureCount.putAll(other.feedFlowFileFailureCount);
+        if (journal.isEnabled()) {
+            //the loaded data did not go through the journal
+            journal.checkpoint();
+        }
         return true;
 
 
@@ -342,18 +552,67 @@ public class FeedEventStatistics implements Serializable {
     public void checkAndAssignStartingFlowFile(ProvenanceEventRecord event) {
         if (ProvenanceEventUtil.isStartingFeedFlow(event)) {
             //startingFlowFiles.add(event.getFlowFileUuid());
-            allFlowFileToFeedFlowFile.put(event.getFlowFileUuid(), event.getFlowFileUuid());
-            //add the flow to active processing
-            feedFlowProcessing.computeIfAbsent(event.getFlowFileUuid(), feedFlowFileId -> new AtomicInteger(0)).incrementAndGet();
-            feedFlowFileIdToFeedProcessorId.put(event.getFlowFileUuid(), event.getComponentId());
+            String feedFlowFile = event.getFlowFileUuid();
+            journaled(feedFlowFile, () -> {
+                trackingStore.setFeedFlowFile(feedFlowFile, feedFlowFile);
+                journalOutput.flowFileFeedFlowFile(feedFlowFile, feedFlowFile);
+                //add the flow to active processing
+                int processing = feedFlowProcessing.computeIfAbsent(feedFlowFile, feedFlowFileId -> new AtomicInteger(0)).incrementAndGet();
+                journalOutput.feedFlowProcessing(feedFlowFile, processing);
+                feedFlowFileIdToFeedProcessorId.put(feedFlowFile, event.getComponentId());
+                journalOutput.feedFlowProcessor(feedFlowFile, event.getComponentId());
+            });
 
-            feedProcessorRunningFeedFlows.computeIfAbsent(event.getComponentId(), processorId -> new AtomicLong(0)).incrementAndGet();
+            journaled(event.getComponentId(), () -> {
+                long running = feedProcessorRunningFeedFlows.computeIfAbsent(event.getComponentId(), processorId -> new AtomicLong(0)).incrementAndGet();
+                journalOutput.runningFeedFlows(event.getComponentId(), running);
+            });
             feedProcessorRunningFeedFlowsChanged.set(true);
             changedFeedProcessorRunningFeedFlows.add(event.getComponentId());
             //  feedFlowToRelatedFlowFiles.computeIfAbsent(event.getFlowFileUuid(), feedFlowFileId -> new HashSet<>()).add(event.getFlowFileUuid());
         }
     }
 
+    /**
+     * Determine the starting feed processor for the event without changing any of the tracking data.
+     * This resolves the same feed flow file that {@link #checkAndAssignStartingFlowFile(ProvenanceEventRecord)} and {@link #assignParentsAndChildren(ProvenanceEventRecord)} will assign the event to.
+     *
+     * @param event the event
+     * @return the feed processor id, or null if the event is not part of a tracked feed flow
+     */
+    public String resolveFeedProcessorId(ProvenanceEventRecord event) {
+        if (ProvenanceEventUtil.isStartingFeedFlow(event)) {
+            return event.getComponentId();
+        }
+        String feedFlowFile = trackingStore.getFeedFlowFile(event.getFlowFileUuid());
+        if (feedFlowFile == null && event.getParentUuids() != null && !event.getParentUuids().isEmpty()) {
+            feedFlowFile = determineParentFeedFlow(event);
+        }
+        return feedFlowFile != null ? feedFlowFileIdToFeedProcessorId.get(feedFlowFile) : null;
+    }
+
+    /**
+     * Return the running counts of the feed processors that changed since the last call and reset the changes.
+     * Changes made while draining are either returned now or on the next call.
+     *
+     * @param feedProcessorIds additional feed processors to include in the result, may be null
+     * @return the feed processor id to running feed flow count
+     */
+    public Map<String, Long> drainRunningFeedFlowsChanged(Set<String> feedProcessorIds) {
+        feedProcessorRunningFeedFlowsChanged.set(false);
+        Map<String, Long> changedRunningFlows = new HashMap<>();
+        Iterator<String> changed = changedFeedProcessorRunningFeedFlows.iterator();
+        while (changed.hasNext()) {
+            String processorId = changed.next();
+            changed.remove();
+            changedRunningFlows.put(processorId, getRunningFeedFlows(processorId));
+        }
+        if (feedProcessorIds != null) {
+            feedProcessorIds.stream().filter(id -> !changedRunningFlows.containsKey(id)).forEach(id -> changedRunningFlows.put(id, getRunningFeedFlows(id)));
+        }
+        return changedRunningFlows;
+    }
+
     public void markFeedProcessorRunningFeedFlowsUnchanged() {
         feedProcessorRunningFeedFlowsChanged.set(false);
         changedFeedProcessorRunningFeedFlows.clear();
@@ -389,33 +648,41 @@ public class FeedEventStatistics implements Serializable {
         //Assign the Event to one of the Parents
 
         //  activeFlowFiles.add(event.getFlowFileUuid());
-        String startingFlowFile = allFlowFileToFeedFlowFile.get(event.getFlowFileUuid());
+        String startingFlowFile = trackingStore.getFeedFlowFile(event.getFlowFileUuid());
         boolean trackingEventFlowFile = false;
         if (event.getParentUuids() != null && !event.getParentUuids().isEmpty()) {
 
             if (startingFlowFile == null) {
                 startingFlowFile = determineParentFeedFlow(event);
                 if (startingFlowFile != null) {
-                    allFlowFileToFeedFlowFile.put(event.getFlowFileUuid(), startingFlowFile);
-                    if (feedFlowProcessing.containsKey(startingFlowFile)) {
-                        feedFlowProcessing.get(startingFlowFile).incrementAndGet();
-                        trackingEventFlowFile = true;
-                    }
+                    String parentFeedFlowFile = startingFlowFile;
+                    journaled(event.getFlowFileUuid(), () -> {
+                        trackingStore.setFeedFlowFile(event.getFlowFileUuid(), parentFeedFlowFile);
+                        journalOutput.flowFileFeedFlowFile(event.getFlowFileUuid(), parentFeedFlowFile);
+                    });
+                    trackingEventFlowFile = incrementFeedFlowProcessing(startingFlowFile);
                 }
             }
 
 
         }
         if (startingFlowFile != null && event.getChildUuids() != null && !event.getChildUuids().isEmpty() && !shouldSkipChildren(event.getEventType(), event.getComponentType())) {
+            String feedFlowFile = startingFlowFile;
             for (String child : event.getChildUuids()) {
-                allFlowFileToFeedFlowFile.put(child, startingFlowFile);
+                journaled(child, () -> {
+                    trackingStore.setFeedFlowFile(child, feedFlowFile);
+                    journalOutput.flowFileFeedFlowFile(child, feedFlowFile);
+                });
                 //Add children flow files to active processing
                 //skip this add if we already did it while iterating the parents.
                 //NiFi will create a new Flow File for this event (event.getFlowFileId) and it will also be part of the children
-                if (feedFlowProcessing.containsKey(startingFlowFile) && (!trackingEventFlowFile || (trackingEventFlowFile && !child.equalsIgnoreCase(event.getFlowFileUuid())))) {
-                    feedFlowProcessing.get(startingFlowFile).incrementAndGet();
+                if (!trackingEventFlowFile || (trackingEventFlowFile && !child.equalsIgnoreCase(event.getFlowFileUuid()))) {
+                    incrementFeedFlowProcessing(feedFlowFile);
                 }
-                flowFileLastNonDropEventTime.put(child, event.getEventTime());
+                journaled(child, () -> {
+                    trackingStore.setLastEventTime(child, event.getEventTime());
+                    journalOutput.flowFileLastEventTime(child, event.getEventTime());
+                });
             }
         }
 
@@ -423,6 +690,25 @@ public class FeedEventStatistics implements Serializable {
 
     }
 
+    /**
+     * Add a flow file to the active processing count of the feed flow file, if the feed flow file is being tracked
+     *
+     * @return true if the count was incremented
+     */
+    private boolean incrementFeedFlowProcessing(String feedFlowFile) {
+        if (feedFlowProcessing.containsKey(feedFlowFile)) {
+            journaled(feedFlowFile, () -> {
+                //read again under the lock, the feed flow may have been removed
+                AtomicInteger processing = feedFlowProcessing.get(feedFlowFile);
+                if (processing != null) {
+                    journalOutput.feedFlowProcessing(feedFlowFile, processing.incrementAndGet());
+                }
+            });
+            return true;
+        }
+        return false;
+    }
+
 
     public void calculateTimes(ProvenanceEventRecord event, Long eventId) {
         //  eventIdEventTime.put(eventId,event.getEventTime());
@@ -434,16 +720,25 @@ public class FeedEventStatistics implements Serializable {
             startTime = event.getFlowFileEntryDate();
         }
         DateTime st = new DateTime(startTime);
+        Long eventStartTime = startTime;
         if (ProvenanceEventUtil.isStartingFeedFlow(event)) {
-            feedFlowFileStartTime.put(event.getFlowFileUuid(), startTime);
+            journaled(event.getFlowFileUuid(), () -> {
+                feedFlowFileStartTime.put(event.getFlowFileUuid(), eventStartTime);
+                journalOutput.feedFlowStartTime(event.getFlowFileUuid(), eventStartTime);
+            });
         }
 
         Long duration = event.getEventTime() - startTime;
-        eventDuration.put(eventId, duration);
-        eventStartTime.put(eventId, startTime);
+        journaled(eventId, () -> {
+            trackingStore.setEventTimes(eventId, eventStartTime, duration);
+            journalOutput.eventTimes(eventId, eventStartTime, duration);
+        });
 
         if (!ProvenanceEventType.DROP.equals(event.getEventType())) {
-            flowFileLastNonDropEventTime.put(event.getFlowFileUuid(), event.getEventTime());
+            journaled(event.getFlowFileUuid(), () -> {
+                trackingStore.setLastEventTime(event.getFlowFileUuid(), event.getEventTime());
+                journalOutput.flowFileLastEventTime(event.getFlowFileUuid(), event.getEventTime());
+            });
         }
 
     }
@@ -454,17 +749,23 @@ public class FeedEventStatistics implements Serializable {
 
 
     private Long lastEventTimeForFlowFile(String flowFile) {
-        return flowFileLastNonDropEventTime.get(flowFile);
+        return trackingStore.getLastEventTime(flowFile);
     }
 
 
     private Long lastEventTimeForParent(Collection<String> parentIds) {
-        return parentIds.stream().filter(flowFileId -> flowFileLastNonDropEventTime.containsKey(flowFileId)).findFirst().map(flowFileId -> flowFileLastNonDropEventTime.get(flowFileId)).orElse(null);
+        for (String flowFileId : parentIds) {
+            Long time = trackingStore.getLastEventTime(flowFileId);
+            if (time != null) {
+                return time;
+            }
+        }
+        return null;
     }
 
 
     public boolean isEndingFeedFlow(Long eventId) {
-        return eventsThatCompleteFeedFlow.contains(eventId);
+        return trackingStore.isEndingEvent(eventId);
     }
 
 
@@ -472,7 +773,7 @@ public class FeedEventStatistics implements Serializable {
      * are we tracking details for this feed
      */
     public boolean isTrackingDetails(String eventFlowFileId) {
-        String feedFlowFile = allFlowFileToFeedFlowFile.get(eventFlowFileId);
+        String feedFlowFile = trackingStore.getFeedFlowFile(eventFlowFileId);
         if (feedFlowFile != null) {
             return detailedTrackingFeedFlowFileId.contains(feedFlowFile);
         }
@@ -480,7 +781,10 @@ public class FeedEventStatistics implements Serializable {
     }
 
     public void setTrackingDetails(ProvenanceEventRecord event) {
-        detailedTrackingFeedFlowFileId.add(event.getFlowFileUuid());
+        journaled(event.getFlowFileUuid(), () -> {
+            detailedTrackingFeedFlowFileId.add(event.getFlowFileUuid());
+            journalOutput.feedFlowDetailedTracking(event.getFlowFileUuid());
+        });
     }
 
     private boolean hasParents(ProvenanceEventRecord event) {
@@ -489,11 +793,11 @@ public class FeedEventStatistics implements Serializable {
 
 
     public Long getEventDuration(Long eventId) {
-        return eventDuration.get(eventId);
+        return trackingStore.getEventDuration(eventId);
     }
 
     public Long getEventStartTime(Long eventId) {
-        return eventStartTime.get(eventId);
+        return trackingStore.getEventStartTime(eventId);
     }
 
 
@@ -510,11 +814,11 @@ public class FeedEventStatistics implements Serializable {
     }
 
     public String getFeedFlowFileId(ProvenanceEventRecord event) {
-        return allFlowFileToFeedFlowFile.get(event.getFlowFileUuid());
+        return trackingStore.getFeedFlowFile(event.getFlowFileUuid());
     }
 
     public String getFeedFlowFileId(String eventFlowFileId) {
-        return allFlowFileToFeedFlowFile.get(eventFlowFileId);
+        return trackingStore.getFeedFlowFile(eventFlowFileId);
     }
 
 
@@ -549,8 +853,10 @@ public class FeedEventStatistics implements Serializable {
     }
 
     private void clearMapsForEventFlowFile(String eventFlowFileId) {
-        flowFileLastNonDropEventTime.remove(eventFlowFileId);
-        allFlowFileToFeedFlowFile.remove(eventFlowFileId);
+        journaled(eventFlowFileId, () -> {
+            trackingStore.removeFlowFile(eventFlowFileId);
+            journalOutput.flowFileRemoved(eventFlowFileId);
+        });
     }
 
     /**
@@ -620,16 +926,27 @@ public class FeedEventStatistics implements Serializable {
     private void decrementRunningProcessorFeedFlows(String feedFlowFile) {
         String feedProcessor = feedFlowFileIdToFeedProcessorId.get(feedFlowFile);
         if (feedProcessor != null) {
-            AtomicLong runningCount = feedProcessorRunningFeedFlows.get(feedProcessor);
-            if (runningCount != null && runningCount.get() >= 1) {
-                runningCount.decrementAndGet();
-                feedProcessorRunningFeedFlowsChanged.set(true);
-                changedFeedProcessorRunningFeedFlows.add(feedProcessor);
-            }
+            journaled(feedProcessor, () -> {
+                AtomicLong runningCount = feedProcessorRunningFeedFlows.get(feedProcessor);
+                if (runningCount != null && runningCount.get() >= 1) {
+                    journalOutput.runningFeedFlows(feedProcessor, runningCount.decrementAndGet());
+                    feedProcessorRunningFeedFlowsChanged.set(true);
+                    changedFeedProcessorRunningFeedFlows.add(feedProcessor);
+                }
+            });
         }
     }
 
     private void clearMapsForFeedFlowFile(String feedFlowFile) {
+        if (feedFlowFile != null) {
+            journaled(feedFlowFile, () -> {
+                clearFeedFlowFileMaps(feedFlowFile);
+                journalOutput.feedFlowRemoved(feedFlowFile);
+            });
+        }
+    }
+
+    private void clearFeedFlowFileMaps(String feedFlowFile) {
         if (feedFlowFile != null) {
             detailedTrackingFeedFlowFileId.remove(feedFlowFile);
             feedFlowFileFailureCount.remove(feedFlowFile);
@@ -646,7 +963,10 @@ public class FeedEventStatistics implements Serializable {
         clearMapsForEventFlowFile(eventFlowFileId);
         if (isEndingFeedFlow(eventId)) {
             clearMapsForFeedFlowFile(feedFlowFile);
-            eventsThatCompleteFeedFlow.remove(eventId);
+            journaled(eventId, () -> {
+                trackingStore.removeEndingEvent(eventId);
+                journalOutput.endingEventRemoved(eventId);
+            });
         }
     }
 
@@ -667,8 +987,10 @@ public class FeedEventStatistics implements Serializable {
             }
         }
 
-        eventDuration.remove(eventId);
-        eventStartTime.remove(eventId);
+        journaled(eventId, () -> {
+            trackingStore.removeEventTimes(eventId);
+            journalOutput.eventTimesRemoved(eventId);
+        });
     }
 
 
@@ -680,7 +1002,7 @@ public class FeedEventStatistics implements Serializable {
      * @return true if last event, false if not
      */
     public boolean beforeProcessingIsLastEventForTrackedFeed(ProvenanceEventRecord event, Long eventId) {
-        String feedFlowFileId = allFlowFileToFeedFlowFile.get(event.getFlowFileUuid());
+        String feedFlowFileId = trackingStore.getFeedFlowFile(event.getFlowFileUuid());
         if (isTrackingDetails(event.getFlowFileUuid()) && feedFlowFileId != null && ProvenanceEventType.DROP.equals(event.getEventType())) {
             //get the feed flow fileId for this event
             AtomicInteger activeCounts = feedFlowProcessing.get(feedFlowFileId);
@@ -693,16 +1015,28 @@ public class FeedEventStatistics implements Serializable {
 
     public void finishedEvent(ProvenanceEventRecord event, Long eventId) {
 
-        String feedFlowFileId = allFlowFileToFeedFlowFile.get(event.getFlowFileUuid());
+        String feedFlowFileId = trackingStore.getFeedFlowFile(event.getFlowFileUuid());
         if (feedFlowFileId != null && ProvenanceEventType.DROP.equals(event.getEventType())) {
             //get the feed flow fileId for this event
             AtomicInteger activeCounts = feedFlowProcessing.get(feedFlowFileId);
             if (activeCounts != null) {
-                feedFlowProcessing.get(feedFlowFileId).decrementAndGet();
+                journaled(feedFlowFileId, () -> {
+                    int processing = activeCounts.decrementAndGet();
+                    //do not journal a count for a feed flow that was removed, replay would add it back
+                    if (feedFlowProcessing.get(feedFlowFileId) == activeCounts) {
+                        journalOutput.feedFlowProcessing(feedFlowFileId, processing);
+                    }
+                });
                 if (activeCounts.get() <= 0) {
                     //Feed is finished
-                    eventsThatCompleteFeedFlow.add(eventId);
-                    feedFlowFileEndTime.put(feedFlowFileId, event.getEventTime());
+                    journaled(eventId, () -> {
+                        trackingStore.markEndingEvent(eventId);
+                        journalOutput.endingEvent(eventId);
+                    });
+                    journaled(feedFlowFileId, () -> {
+                        feedFlowFileEndTime.put(feedFlowFileId, event.getEventTime());
+                        journalOutput.feedFlowEndTime(feedFlowFileId, event.getEventTime());
+                    });
                     decrementRunningProcessorFeedFlows(feedFlowFileId);
                 }
 
@@ -712,7 +1046,10 @@ public class FeedEventStatistics implements Serializable {
 
         if (feedFlowFileId != null && ProvenanceEventUtil.isTerminatedByFailureRelationship(event)) {
             //add to failureMap
-            feedFlowFileFailureCount.computeIfAbsent(feedFlowFileId, flowFileId -> new AtomicInteger(0)).incrementAndGet();
+            journaled(feedFlowFileId, () -> {
+                int failures = feedFlowFileFailureCount.computeIfAbsent(feedFlowFileId, flowFileId -> new AtomicInteger(0)).incrementAndGet();
+                journalOutput.feedFlowFailures(feedFlowFileId, failures);
+            });
         }
 
 
@@ -730,7 +1067,7 @@ public class FeedEventStatistics implements Serializable {
     public String toString() {
         final StringBuilder sb = new StringBuilder("FeedEventStatistics{");
         sb.append("detailedTrackingFeedFlowFileId=").append(detailedTrackingFeedFlowFileId.size());
-        sb.append(", allFlowFileToFeedFlowFile=").append(allFlowFileToFeedFlowFile.size());
+        sb.append(", allFlowFileToFeedFlowFile=").append(trackingStore.flowFileCount());
         sb.append(", feedFlowProcessing=").append(feedFlowProcessing.size());
         sb.append(", skippedEvents=").append(skippedEvents);
         sb.append('}');
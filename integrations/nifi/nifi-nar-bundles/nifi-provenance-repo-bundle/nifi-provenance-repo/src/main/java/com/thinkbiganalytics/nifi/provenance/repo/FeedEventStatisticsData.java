@@ -106,14 +106,14 @@ public class FeedEventStatisticsData implements Serializable {
 
     public FeedEventStatisticsData(FeedEventStatistics other) {
         this.feedFlowFileIdToFeedProcessorId = other.feedFlowFileIdToFeedProcessorId;
-        this.detailedTrackingFeedFlowFileId = other.detailedTrackingFeedFlowFileId;
-        this.allFlowFileToFeedFlowFile = other.allFlowFileToFeedFlowFile;
-        this.flowFileLastNonDropEventTime = other.flowFileLastNonDropEventTime;
-        this.eventDuration = other.eventDuration;
-        this.eventStartTime = other.eventStartTime;
+        this.detailedTrackingFeedFlowFileId = new HashSet<>(other.detailedTrackingFeedFlowFileId);
+        this.allFlowFileToFeedFlowFile = other.trackingStore.getFlowFileToFeedFlowFile();
+        this.flowFileLastNonDropEventTime = other.trackingStore.getFlowFileLastEventTimes();
+        this.eventDuration = other.trackingStore.getEventDurations();
+        this.eventStartTime = other.trackingStore.getEventStartTimes();
         this.feedFlowFileStartTime = other.feedFlowFileStartTime;
         this.feedFlowFileEndTime = other.feedFlowFileEndTime;
-        this.eventsThatCompleteFeedFlow = other.eventsThatCompleteFeedFlow;
+        this.eventsThatCompleteFeedFlow = other.trackingStore.getEndingEvents();
         this.feedFlowProcessing = other.feedFlowProcessing;
         this.skippedEvents = other.skippedEvents;
         this.feedFlowFileFailureCount = other.feedFlowFileFailureCount;
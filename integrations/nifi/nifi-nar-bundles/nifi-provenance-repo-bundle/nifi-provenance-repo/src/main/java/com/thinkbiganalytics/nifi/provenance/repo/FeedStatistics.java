@@ -61,16 +61,14 @@ public class FeedStatistics {
 
 
     /**
-     * Records to send off to JMS
+     * The window events and stats are currently added to
      */
-    private Map<String, ProvenanceEventRecordDTO> lastRecords = new ConcurrentHashMap<>(limit);
-
+    private volatile Window window = new Window();
 
     /**
-     * SourceQueueIdentifier to Grouped Stats
-     * Stats are grouped by their SourceQueueId so Kylo can detect if it came off a "failure" path
+     * A drained window that is reused once the next window is taken
      */
-    private Map<String, GroupedStats> stats;
+    private Window spareWindow = new Window();
 
     /**
      * Flag to indicate we are throttling the start Job events that get sent to ops manager
@@ -149,7 +147,6 @@ public class FeedStatistics {
     public FeedStatistics(String feedProcessorId, String processorId) {
         this.feedProcessorId = feedProcessorId;
         this.processorId = processorId;
-        stats = new ConcurrentHashMap<>();
         this.limit = ConfigurationProperties.getInstance().getFeedProcessorMaxEvents();
         this.throttleStartingFeedFlowsThreshold = ConfigurationProperties.getInstance().getThrottleStartingFeedFlowsThreshold();
         this.throttleStartingFeedFlowsTimePeriod = ConfigurationProperties.getInstance().getDefaultThrottleStartingFeedFlowsTimePeriodMillis();
@@ -160,12 +157,14 @@ public class FeedStatistics {
         if (key == null) {
             key = GroupedStats.DEFAULT_SOURCE_CONNECTION_ID;
         }
-        return stats.computeIfAbsent(key, sourceConnectionIdentifier -> new GroupedStatsV2(sourceConnectionIdentifier));
+        return window.stats.computeIfAbsent(key, sourceConnectionIdentifier -> new GroupedStatsV2(sourceConnectionIdentifier));
     }
 
 
     public void addEvent(ProvenanceEventRecord event, Long eventId) {
 
+        Map<String, ProvenanceEventRecordDTO> lastRecords = window.lastRecords;
+
         FeedEventStatistics.getInstance().calculateTimes(event, eventId);
 
         ProvenanceEventRecordDTO eventRecordDTO = null;
@@ -226,7 +225,7 @@ public class FeedStatistics {
     }
 
     public boolean hasStats() {
-        return getStats().stream().anyMatch(s -> s.getTotalCount() > 0);
+        return window.hasStats();
     }
 
     public String getFeedProcessorId() {
@@ -238,7 +237,7 @@ public class FeedStatistics {
     }
 
     public Collection<ProvenanceEventRecordDTO> getEventsToSend() {
-        return lastRecords.values();
+        return window.getEventsToSend();
     }
 
     //  public AggregatedProcessorStatistics getFeedProcessorStatistics(){
@@ -246,16 +245,70 @@ public class FeedStatistics {
     //  }
 
     public Collection<GroupedStats> getStats() {
-        return stats.values();
+        return window.getStats();
     }
 
     public void clear() {
-        lastRecords.clear();
-        stats.clear();
+        window.clear();
+    }
+
+    /**
+     * Swap in an empty window and return the current one so it can be drained while new events are added.
+     * The caller must hold the lock used to add events, and must {@link #recycle(Window)} the window before it is taken again.
+     *
+     * @return the window holding the events and stats added since the last call
+     */
+    Window takeWindow() {
+        Window current = window;
+        window = spareWindow != null ? spareWindow : new Window();
+        spareWindow = null;
+        return current;
+    }
+
+    /**
+     * Return a drained window so it can be reused by the next {@link #takeWindow()}
+     */
+    void recycle(Window drained) {
+        drained.clear();
+        spareWindow = drained;
     }
 
     public void setLimit(Integer limit) {
         this.limit = limit;
     }
 
+    /**
+     * The events and stats collected between two gather intervals
+     */
+    static class Window {
+
+        /**
+         * Records to send off to JMS
+         */
+        private final Map<String, ProvenanceEventRecordDTO> lastRecords = new ConcurrentHashMap<>(limit);
+
+        /**
+         * SourceQueueIdentifier to Grouped Stats
+         * Stats are grouped by their SourceQueueId so Kylo can detect if it came off a "failure" path
+         */
+        private final Map<String, GroupedStats> stats = new ConcurrentHashMap<>();
+
+        public boolean hasStats() {
+            return stats.values().stream().anyMatch(s -> s.getTotalCount() > 0);
+        }
+
+        public Collection<ProvenanceEventRecordDTO> getEventsToSend() {
+            return lastRecords.values();
+        }
+
+        public Collection<GroupedStats> getStats() {
+            return stats.values();
+        }
+
+        void clear() {
+            lastRecords.clear();
+            stats.clear();
+        }
+    }
+
 }
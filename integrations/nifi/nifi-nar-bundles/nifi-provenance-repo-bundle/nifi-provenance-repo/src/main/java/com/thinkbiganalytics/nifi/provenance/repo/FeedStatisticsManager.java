@@ -33,7 +33,7 @@ import org.apache.nifi.provenance.ProvenanceEventRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -57,9 +57,17 @@ public class FeedStatisticsManager {
 
     private Long sendJmsTimeMillis = ConfigurationProperties.DEFAULT_RUN_INTERVAL_MILLIS; //every 3 seconds
 
+    /**
+     * Number of shards events are striped across by their feed processor id
+     */
+    static final int SHARDS = shardCount(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Guards the gathering of stats and the timer settings.  Event ingestion only locks the shard of the event
+     */
     private Lock lock = new ReentrantLock();
 
-    private Map<String, FeedStatistics> feedStatisticsMap = new ConcurrentHashMap<>();
+    private final Shard[] shards = new Shard[SHARDS];
 
 
     private KyloFeedBatchStreamTypeJmsListener kyloFeedBatchStreamTypeJmsListener;
@@ -67,9 +75,20 @@ public class FeedStatisticsManager {
     private static final FeedStatisticsManager instance = new FeedStatisticsManager();
 
     private FeedStatisticsManager() {
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard();
+        }
         initTimerThread();
     }
 
+    /**
+     * @return the power of 2 number of shards used for the given number of processors
+     */
+    static int shardCount(int processors) {
+        int shards = Integer.highestOneBit(Math.max(1, processors * 2 - 1)) << 1;
+        return Math.min(Math.max(shards, 4), 256);
+    }
+
     public static FeedStatisticsManager getInstance() {
         return instance;
     }
@@ -94,8 +113,18 @@ public class FeedStatisticsManager {
     private ScheduledExecutorService jmsGatherEventsToSendService = Executors.newSingleThreadScheduledExecutor(gatherStatsThreadFactory);
 
 
+    /**
+     * Add the event to the stats of its feed.
+     * Events are striped by their feed processor id, so events for different feeds are processed in parallel.  Events for the same feed are processed in order under the lock of its shard.
+     */
     public void addEvent(ProvenanceEventRecord event, Long eventId) {
-        lock.lock();
+        String resolvedFeedProcessorId = FeedEventStatistics.getInstance().resolveFeedProcessorId(event);
+        if (resolvedFeedProcessorId == null) {
+            //UNABLE TO FIND data in maps.  The event is not part of a tracked feed flow
+            return;
+        }
+        Shard shard = shardFor(resolvedFeedProcessorId);
+        shard.lock.lock();
         try {
             //build up feed flow file map relationships
             boolean isStartingFeedFlow = ProvenanceEventUtil.isStartingFeedFlow(event);
@@ -108,12 +137,58 @@ public class FeedStatisticsManager {
             String feedProcessorId = FeedEventStatistics.getInstance().getFeedProcessorId(event);
             if (feedProcessorId != null) {
                 String key = feedProcessorId + event.getComponentId();
-                feedStatisticsMap.computeIfAbsent(key, feedStatisticsKey -> new FeedStatistics(feedProcessorId, event.getComponentId())).addEvent(event, eventId);
+                shard.feedStatisticsMap.computeIfAbsent(key, feedStatisticsKey -> new FeedStatistics(feedProcessorId, event.getComponentId())).addEvent(event, eventId);
             } else {
                 //UNABLE TO FIND data in maps
             }
         } finally {
-            lock.unlock();
+            shard.lock.unlock();
+        }
+    }
+
+    private Shard shardFor(String feedProcessorId) {
+        int hash = feedProcessorId.hashCode();
+        return shards[(hash ^ (hash >>> 16)) & (shards.length - 1)];
+    }
+
+    /**
+     * Take the current window of every FeedStatistics in the shard.
+     * The shard is only locked while the windows are swapped, the returned windows are drained while events continue to be added.
+     */
+    private List<DrainedWindow> takeWindows(Shard shard) {
+        List<DrainedWindow> windows = new ArrayList<>();
+        shard.lock.lock();
+        try {
+            for (FeedStatistics feedStatistics : shard.feedStatisticsMap.values()) {
+                windows.add(new DrainedWindow(shard, feedStatistics, feedStatistics.takeWindow()));
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+        return windows;
+    }
+
+    /**
+     * Hand the drained windows back to be reused.  The shard lock is needed as the spare window is read when the next window is taken
+     */
+    private void recycleWindows(List<DrainedWindow> windows) {
+        Shard locked = null;
+        try {
+            //windows are grouped by their shard
+            for (DrainedWindow drained : windows) {
+                if (drained.shard != locked) {
+                    if (locked != null) {
+                        locked.lock.unlock();
+                    }
+                    locked = drained.shard;
+                    locked.lock.lock();
+                }
+                drained.feedStatistics.recycle(drained.window);
+            }
+        } finally {
+            if (locked != null) {
+                locked.lock.unlock();
+            }
         }
     }
 
@@ -129,20 +204,25 @@ public class FeedStatisticsManager {
         lock.lock();
         List<ProvenanceEventRecordDTO> eventsToSend = null;
         Map<String, AggregatedFeedProcessorStatistics> statsToSend = null;
+        List<DrainedWindow> windows = new ArrayList<>();
         try {
             //Gather Events and Stats to send Ops Manager
             //filter out the streaming feeds
             ensureStreamingFeedMetadata();
+            for (Shard shard : shards) {
+                windows.addAll(takeWindows(shard));
+            }
             eventsToSend =
-                feedStatisticsMap.values().stream()
-                    .flatMap(stats -> stats.getEventsToSend().stream().filter(event -> !FeedEventStatistics.getInstance().streamingFeedProcessorIdsList.contains(event.getFirstEventProcessorId())))
+                windows.stream()
+                    .flatMap(drained -> drained.window.getEventsToSend().stream()
+                        .filter(event -> !FeedEventStatistics.getInstance().streamingFeedProcessorIdsList.contains(event.getFirstEventProcessorId())))
                     .collect(Collectors.toList());
 
             final String collectionId = UUID.randomUUID().toString();
-            Map<String, Long> runningFlowsCount = new HashMap<>();
 
-            for (FeedStatistics feedStatistics : feedStatisticsMap.values()) {
-                if (feedStatistics.hasStats()) {
+            for (DrainedWindow drained : windows) {
+                FeedStatistics feedStatistics = drained.feedStatistics;
+                if (drained.window.hasStats()) {
                     if (statsToSend == null) {
                         statsToSend = new ConcurrentHashMap<>();
                     }
@@ -157,7 +237,7 @@ public class FeedStatisticsManager {
                             .computeIfAbsent(feedStatistics.getProcessorId(), processorId -> new AggregatedProcessorStatisticsV2(feedStatistics.getProcessorId(), null, collectionId));
 
                     //accumulate the stats together into the processorStatistics object grouped by source connection id
-                    feedStatistics.getStats().stream().forEach(stats -> {
+                    drained.window.getStats().stream().forEach(stats -> {
                         FeedProcessorStatisticsAggregator.getInstance().addStats1(processorStatistics.getStats(stats.getSourceConnectionIdentifier()), stats);
                     });
                 }
@@ -165,12 +245,14 @@ public class FeedStatisticsManager {
 
             if ((eventsToSend != null && !eventsToSend.isEmpty()) || (statsToSend != null && !statsToSend.isEmpty())) {
                 //send it off to jms on a different thread
-                JmsSender jmsSender = new JmsSender(eventsToSend, statsToSend.values(), FeedEventStatistics.getInstance().getRunningFeedFlowsForFeed(statsToSend.keySet()));
+                //the running flow counts are sent along with the stats
+                Map<String, Long> runningFlows = statsToSend != null ? FeedEventStatistics.getInstance().drainRunningFeedFlowsChanged(statsToSend.keySet()) : null;
+                JmsSender jmsSender = new JmsSender(eventsToSend, statsToSend != null ? statsToSend.values() : null, runningFlows);
                 this.jmsService.submit(new JmsSenderConsumer(jmsSender));
             } else {
                 //if we are empty but the runningFlows have changed, then send off as well
                 if (FeedEventStatistics.getInstance().isFeedProcessorRunningFeedFlowsChanged()) {
-                    JmsSender jmsSender = new JmsSender(null, null, FeedEventStatistics.getInstance().getRunningFeedFlowsChanged());
+                    JmsSender jmsSender = new JmsSender(null, null, FeedEventStatistics.getInstance().drainRunningFeedFlowsChanged(null));
                     this.jmsService.submit(new JmsSenderConsumer(jmsSender));
                 }
 
@@ -178,9 +260,7 @@ public class FeedStatisticsManager {
 
 
         } finally {
-            FeedEventStatistics.getInstance().markFeedProcessorRunningFeedFlowsUnchanged();
-
-            feedStatisticsMap.values().stream().forEach(stats -> stats.clear());
+            recycleWindows(windows);
             lock.unlock();
         }
 
@@ -211,7 +291,9 @@ public class FeedStatisticsManager {
     public void resetMaxEvents(Integer limit) {
         lock.lock();
         try {
-            feedStatisticsMap.values().forEach(stats -> stats.setLimit(limit));
+            for (Shard shard : shards) {
+                shard.feedStatisticsMap.values().forEach(stats -> stats.setLimit(limit));
+            }
         } finally {
             lock.unlock();
         }
@@ -248,4 +330,32 @@ public class FeedStatisticsManager {
 
     }
 
+    /**
+     * The FeedStatistics for the feed processors that hash to the shard
+     */
+    private static class Shard {
+
+        private final Lock lock = new ReentrantLock();
+
+        private final Map<String, FeedStatistics> feedStatisticsMap = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * A window taken from a FeedStatistics that is being drained
+     */
+    private static class DrainedWindow {
+
+        private final Shard shard;
+
+        private final FeedStatistics feedStatistics;
+
+        private final FeedStatistics.Window window;
+
+        DrainedWindow(Shard shard, FeedStatistics feedStatistics, FeedStatistics.Window window) {
+            this.shard = shard;
+            this.feedStatistics = feedStatistics;
+            this.window = window;
+        }
+    }
+
 }
@@ -18,12 +18,16 @@ package com.thinkbiganalytics.nifi.provenance.repo;
  * limitations under the License.
  * #L%
  */
+import com.thinkbiganalytics.nifi.provenance.repo.store.FlowFileTrackingStore;
+import com.thinkbiganalytics.nifi.provenance.repo.store.MappedLongArrayAllocator;
 import com.thinkbiganalytics.nifi.provenance.util.SpringApplicationContext;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeansException;
 
+import java.io.File;
+
 /**
  * Created by sr186054 on 6/21/17.
  */
@@ -52,6 +56,24 @@ public class KyloProvenanceEventRepositoryUtil {
         if (backupLocation != null) {
             FeedEventStatistics.getInstance().setBackupLocation(backupLocation);
         }
+        String trackingStoreLocation = ConfigurationProperties.getInstance().getTrackingStoreLocation();
+        if (trackingStoreLocation != null) {
+            try {
+                FeedEventStatistics.getInstance().setTrackingStore(new FlowFileTrackingStore(new MappedLongArrayAllocator(new File(trackingStoreLocation))));
+                log.info("Tracking flow files off heap in memory mapped files located in {} ", trackingStoreLocation);
+            } catch (Exception e) {
+                log.error("Unable to track flow files off heap in {}. Flow files will be tracked on the heap. {} ", trackingStoreLocation, e.getMessage(), e);
+            }
+        }
+        ConfigurationProperties properties = ConfigurationProperties.getInstance();
+        String journalLocation = properties.getJournalLocation();
+        if (journalLocation != null) {
+            FeedEventJournal journal = new FeedEventJournal(new File(journalLocation), properties.getJournalSegmentBytes(), properties.getJournalCheckpointBytes());
+            if (FeedEventStatistics.getInstance().openJournal(journal)) {
+                log.info("Recovered feed event statistics from the journal located in {} ", journalLocation);
+            }
+        }
+        //a full backup from an earlier version is merged into the journal when it exists
         boolean success = FeedEventStatistics.getInstance().loadBackup();
         if (success) {
             log.info("Successfully loaded backup from {} ", FeedEventStatistics.getInstance().getBackupLocation());
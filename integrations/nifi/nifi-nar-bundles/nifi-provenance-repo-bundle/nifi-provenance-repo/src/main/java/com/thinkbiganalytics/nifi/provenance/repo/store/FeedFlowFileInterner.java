@@ -0,0 +1,108 @@
+package com.thinkbiganalytics.nifi.provenance.repo.store;
+
+/*-
+ * #%L
+ * thinkbig-nifi-provenance-repo
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reference counted intern table for the feed flow file ids.
+ * Many flow files point to the same feed flow file, so the flow file rows store a small integer handle and the id String is held once here.
+ * The handle is recycled once the last flow file referencing it is removed.
+ */
+class FeedFlowFileInterner {
+
+    private static final int INITIAL_SIZE = 64;
+
+    private final Map<String, Integer> handles = new HashMap<>();
+
+    private String[] values = new String[INITIAL_SIZE];
+
+    private int[] references = new int[INITIAL_SIZE];
+
+    /**
+     * stack of handles that can be reused
+     */
+    private int[] free = new int[INITIAL_SIZE];
+
+    private int freeCount = 0;
+
+    private int nextHandle = 0;
+
+    /**
+     * Get the handle for the feed flow file, incrementing its reference count
+     */
+    synchronized long acquire(String feedFlowFileId) {
+        Integer handle = handles.get(feedFlowFileId);
+        if (handle == null) {
+            handle = freeCount > 0 ? free[--freeCount] : nextHandle++;
+            if (handle >= values.length) {
+                values = Arrays.copyOf(values, values.length << 1);
+                references = Arrays.copyOf(references, references.length << 1);
+            }
+            values[handle] = feedFlowFileId;
+            references[handle] = 0;
+            handles.put(feedFlowFileId, handle);
+        }
+        references[handle]++;
+        return handle;
+    }
+
+    /**
+     * @return the feed flow file id for the handle, or null if it is no longer referenced
+     */
+    synchronized String lookup(long handle) {
+        return handle >= 0 && handle < nextHandle ? values[(int) handle] : null;
+    }
+
+    /**
+     * Decrement the reference count of the handle, freeing it when it reaches 0
+     */
+    synchronized void release(long handle) {
+        int h = (int) handle;
+        if (h < 0 || h >= nextHandle || values[h] == null) {
+            return;
+        }
+        if (--references[h] <= 0) {
+            handles.remove(values[h]);
+            values[h] = null;
+            references[h] = 0;
+            if (freeCount == free.length) {
+                free = Arrays.copyOf(free, free.length << 1);
+            }
+            free[freeCount++] = h;
+        }
+    }
+
+    synchronized int size() {
+        return handles.size();
+    }
+
+    synchronized void clear() {
+        handles.clear();
+        values = new String[INITIAL_SIZE];
+        references = new int[INITIAL_SIZE];
+        free = new int[INITIAL_SIZE];
+        freeCount = 0;
+        nextHandle = 0;
+    }
+}
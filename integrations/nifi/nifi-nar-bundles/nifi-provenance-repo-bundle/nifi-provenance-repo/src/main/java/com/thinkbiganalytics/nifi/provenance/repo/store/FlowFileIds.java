@@ -0,0 +1,93 @@
+package com.thinkbiganalytics.nifi.provenance.repo.store;
+
+/*-
+ * #%L
+ * thinkbig-nifi-provenance-repo
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.UUID;
+
+/**
+ * Converts NiFi flow file UUID strings to and from their 128 bit representation without creating intermediate objects.
+ * Only the canonical lower case form (as produced by {@link UUID#toString()}) is compacted so the conversion is lossless.
+ */
+public final class FlowFileIds {
+
+    private static final int LENGTH = 36;
+
+    private FlowFileIds() {
+
+    }
+
+    /**
+     * @param id the flow file id
+     * @return true if the id is a canonical lower case UUID that can be stored as 2 longs
+     */
+    public static boolean isCompactable(String id) {
+        if (id == null || id.length() != LENGTH) {
+            return false;
+        }
+        boolean allZero = true;
+        for (int i = 0; i < LENGTH; i++) {
+            char c = id.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if ((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f')) {
+                allZero &= c == '0';
+            } else {
+                return false;
+            }
+        }
+        //the zero UUID is reserved as the empty marker in the PrimitiveLongTable
+        return !allZero;
+    }
+
+    /**
+     * @param id a compactable id
+     * @return the most significant 64 bits
+     */
+    public static long mostSignificantBits(String id) {
+        return hex(id, 0, 8) << 32 | hex(id, 9, 13) << 16 | hex(id, 14, 18);
+    }
+
+    /**
+     * @param id a compactable id
+     * @return the least significant 64 bits
+     */
+    public static long leastSignificantBits(String id) {
+        return hex(id, 19, 23) << 48 | hex(id, 24, 36);
+    }
+
+    /**
+     * @return the canonical UUID string for the 128 bit id
+     */
+    public static String toString(long mostSignificantBits, long leastSignificantBits) {
+        return new UUID(mostSignificantBits, leastSignificantBits).toString();
+    }
+
+    private static long hex(String id, int start, int end) {
+        long value = 0L;
+        for (int i = start; i < end; i++) {
+            char c = id.charAt(i);
+            value = (value << 4) | (c <= '9' ? c - '0' : c - 'a' + 10);
+        }
+        return value;
+    }
+}
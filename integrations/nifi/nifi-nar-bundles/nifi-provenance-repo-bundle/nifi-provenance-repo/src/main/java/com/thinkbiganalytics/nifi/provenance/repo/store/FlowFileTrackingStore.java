@@ -0,0 +1,436 @@
+package com.thinkbiganalytics.nifi.provenance.repo.store;
+
+/*-
+ * #%L
+ * thinkbig-nifi-provenance-repo
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.thinkbiganalytics.nifi.provenance.repo.store.PrimitiveLongTable.NO_VALUE;
+
+/**
+ * Compact store for the per flow file and per event tracking data held by the FeedEventStatistics.
+ *
+ * Flow file ids are stored as 128 bit keys pointing to an interned feed flow file handle and the last non drop event time.
+ * Event ids are stored as primitive keys holding the start time, duration and whether the event completes the feed flow.
+ * The data is split into segments, each guarded by its own monitor, and is stored on the heap or in memory mapped files
+ * depending upon the {@link LongArrayAllocator} supplied.
+ *
+ * Flow file ids that are not canonical UUIDs are kept in regular maps.
+ */
+public class FlowFileTrackingStore {
+
+    public static final int DEFAULT_SEGMENTS = 16;
+
+    public static final int DEFAULT_SEGMENT_CAPACITY = 1024;
+
+    /**
+     * flow file table columns
+     */
+    private static final int FEED_FLOW_FILE = 0;
+    private static final int LAST_EVENT_TIME = 1;
+
+    /**
+     * event table columns
+     */
+    private static final int START_TIME = 0;
+    private static final int DURATION = 1;
+    private static final int ENDING_EVENT = 2;
+
+    private final Segment[] segments;
+
+    private final int segmentMask;
+
+    private final FeedFlowFileInterner feedFlowFiles = new FeedFlowFileInterner();
+
+    private final Map<String, String> otherFeedFlowFiles = new ConcurrentHashMap<>();
+
+    private final Map<String, Long> otherLastEventTimes = new ConcurrentHashMap<>();
+
+    public FlowFileTrackingStore() {
+        this(LongArrayAllocator.HEAP);
+    }
+
+    public FlowFileTrackingStore(LongArrayAllocator allocator) {
+        this(allocator, DEFAULT_SEGMENTS, DEFAULT_SEGMENT_CAPACITY);
+    }
+
+    /**
+     * @param allocator               the storage for the tables
+     * @param segments                the number of segments, rounded up to a power of 2
+     * @param initialSegmentCapacity  the initial number of rows in each segment
+     */
+    public FlowFileTrackingStore(LongArrayAllocator allocator, int segments, int initialSegmentCapacity) {
+        int count = 1;
+        while (count < segments) {
+            count <<= 1;
+        }
+        this.segments = new Segment[count];
+        this.segmentMask = count - 1;
+        for (int i = 0; i < count; i++) {
+            this.segments[i] = new Segment(allocator, initialSegmentCapacity);
+        }
+    }
+
+    private static class Segment {
+
+        /**
+         * flow file UUID to [feed flow file handle, last non drop event time]
+         */
+        private final PrimitiveLongTable flowFiles;
+
+        /**
+         * event id + 1 to [start time, duration, ending event flag]
+         */
+        private final PrimitiveLongTable events;
+
+        Segment(LongArrayAllocator allocator, int initialCapacity) {
+            flowFiles = new PrimitiveLongTable(allocator, 2, 2, initialCapacity);
+            events = new PrimitiveLongTable(allocator, 1, 3, initialCapacity);
+        }
+    }
+
+    private static int spread(long h) {
+        int x = (int) (h ^ (h >>> 32));
+        return x ^ (x >>> 16);
+    }
+
+    private Segment segment(long msb, long lsb) {
+        return segments[spread(msb ^ lsb) & segmentMask];
+    }
+
+    /**
+     * Event ids start at 0 which is reserved in the table, so they are shifted by 1
+     */
+    private static long eventKey(long eventId) {
+        return eventId + 1;
+    }
+
+    private Segment eventSegment(long key) {
+        return segments[spread(key * 0x9E3779B97F4A7C15L) & segmentMask];
+    }
+
+    private static Long boxed(long value) {
+        return value == NO_VALUE ? null : value;
+    }
+
+    /// Flow files
+
+    /**
+     * @return the feed flow file the flow file belongs to, or null if it is not tracked
+     */
+    public String getFeedFlowFile(String flowFileId) {
+        if (flowFileId == null) {
+            return null;
+        }
+        if (!FlowFileIds.isCompactable(flowFileId)) {
+            return otherFeedFlowFiles.get(flowFileId);
+        }
+        long msb = FlowFileIds.mostSignificantBits(flowFileId);
+        long lsb = FlowFileIds.leastSignificantBits(flowFileId);
+        Segment segment = segment(msb, lsb);
+        synchronized (segment) {
+            long handle = segment.flowFiles.get(msb, lsb, FEED_FLOW_FILE);
+            return handle == NO_VALUE ? null : feedFlowFiles.lookup(handle);
+        }
+    }
+
+    public void setFeedFlowFile(String flowFileId, String feedFlowFileId) {
+        if (!FlowFileIds.isCompactable(flowFileId)) {
+            otherFeedFlowFiles.put(flowFileId, feedFlowFileId);
+            return;
+        }
+        long msb = FlowFileIds.mostSignificantBits(flowFileId);
+        long lsb = FlowFileIds.leastSignificantBits(flowFileId);
+        Segment segment = segment(msb, lsb);
+        synchronized (segment) {
+            long previous = segment.flowFiles.set(msb, lsb, FEED_FLOW_FILE, feedFlowFiles.acquire(feedFlowFileId));
+            if (previous != NO_VALUE) {
+                feedFlowFiles.release(previous);
+            }
+        }
+    }
+
+    /**
+     * @return the time of the last event for the flow file that was not a DROP, or null
+     */
+    public Long getLastEventTime(String flowFileId) {
+        if (flowFileId == null) {
+            return null;
+        }
+        if (!FlowFileIds.isCompactable(flowFileId)) {
+            return otherLastEventTimes.get(flowFileId);
+        }
+        long msb = FlowFileIds.mostSignificantBits(flowFileId);
+        long lsb = FlowFileIds.leastSignificantBits(flowFileId);
+        Segment segment = segment(msb, lsb);
+        synchronized (segment) {
+            return boxed(segment.flowFiles.get(msb, lsb, LAST_EVENT_TIME));
+        }
+    }
+
+    public void setLastEventTime(String flowFileId, long eventTime) {
+        if (!FlowFileIds.isCompactable(flowFileId)) {
+            otherLastEventTimes.put(flowFileId, eventTime);
+            return;
+        }
+        long msb = FlowFileIds.mostSignificantBits(flowFileId);
+        long lsb = FlowFileIds.leastSignificantBits(flowFileId);
+        Segment segment = segment(msb, lsb);
+        synchronized (segment) {
+            segment.flowFiles.set(msb, lsb, LAST_EVENT_TIME, eventTime);
+        }
+    }
+
+    /**
+     * Remove all tracking information for the flow file
+     */
+    public void removeFlowFile(String flowFileId) {
+        if (flowFileId == null) {
+            return;
+        }
+        if (!FlowFileIds.isCompactable(flowFileId)) {
+            otherFeedFlowFiles.remove(flowFileId);
+            otherLastEventTimes.remove(flowFileId);
+            return;
+        }
+        long msb = FlowFileIds.mostSignificantBits(flowFileId);
+        long lsb = FlowFileIds.leastSignificantBits(flowFileId);
+        Segment segment = segment(msb, lsb);
+        synchronized (segment) {
+            long handle = segment.flowFiles.get(msb, lsb, FEED_FLOW_FILE);
+            if (segment.flowFiles.removeRow(msb, lsb) && handle != NO_VALUE) {
+                feedFlowFiles.release(handle);
+            }
+        }
+    }
+
+    /// Events
+
+    public void setEventTimes(long eventId, long startTime, long duration) {
+        long key = eventKey(eventId);
+        Segment segment = eventSegment(key);
+        synchronized (segment) {
+            segment.events.set(key, 0L, START_TIME, startTime);
+            segment.events.set(key, 0L, DURATION, duration);
+        }
+    }
+
+    public void setEventStartTime(long eventId, long startTime) {
+        setEventColumn(eventId, START_TIME, startTime);
+    }
+
+    public void setEventDuration(long eventId, long duration) {
+        setEventColumn(eventId, DURATION, duration);
+    }
+
+    public Long getEventStartTime(long eventId) {
+        return boxed(getEventColumn(eventId, START_TIME));
+    }
+
+    public Long getEventDuration(long eventId) {
+        return boxed(getEventColumn(eventId, DURATION));
+    }
+
+    public void removeEventTimes(long eventId) {
+        long key = eventKey(eventId);
+        Segment segment = eventSegment(key);
+        synchronized (segment) {
+            segment.events.remove(key, 0L, START_TIME);
+            segment.events.remove(key, 0L, DURATION);
+        }
+    }
+
+    /**
+     * Mark the event as the one that completes the feed flow
+     */
+    public void markEndingEvent(long eventId) {
+        setEventColumn(eventId, ENDING_EVENT, 1L);
+    }
+
+    public boolean isEndingEvent(long eventId) {
+        return getEventColumn(eventId, ENDING_EVENT) != NO_VALUE;
+    }
+
+    public void removeEndingEvent(long eventId) {
+        long key = eventKey(eventId);
+        Segment segment = eventSegment(key);
+        synchronized (segment) {
+            segment.events.remove(key, 0L, ENDING_EVENT);
+        }
+    }
+
+    private void setEventColumn(long eventId, int column, long value) {
+        long key = eventKey(eventId);
+        Segment segment = eventSegment(key);
+        synchronized (segment) {
+            segment.events.set(key, 0L, column, value);
+        }
+    }
+
+    private long getEventColumn(long eventId, int column) {
+        long key = eventKey(eventId);
+        Segment segment = eventSegment(key);
+        synchronized (segment) {
+            return segment.events.get(key, 0L, column);
+        }
+    }
+
+    /// Sizing and maintenance
+
+    /**
+     * @return the number of flow files with tracking information
+     */
+    public int flowFileCount() {
+        int count = otherFeedFlowFiles.size();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                count += segment.flowFiles.size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of events with tracking information
+     */
+    public int eventCount() {
+        int count = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                count += segment.events.size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the bytes used by the primitive tables, either on the heap or in the mapped files
+     */
+    public long storageBytes() {
+        long bytes = 0L;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                bytes += segment.flowFiles.storageBytes() + segment.events.storageBytes();
+            }
+        }
+        return bytes;
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.flowFiles.clear();
+                segment.events.clear();
+            }
+        }
+        feedFlowFiles.clear();
+        otherFeedFlowFiles.clear();
+        otherLastEventTimes.clear();
+    }
+
+    /**
+     * Release the storage.  The store cannot be used afterwards
+     */
+    public void release() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.flowFiles.release();
+                segment.events.release();
+            }
+        }
+    }
+
+    /**
+     * Copy all the data into the supplied store
+     */
+    public void copyTo(FlowFileTrackingStore other) {
+        getFlowFileToFeedFlowFile().forEach(other::setFeedFlowFile);
+        getFlowFileLastEventTimes().forEach(other::setLastEventTime);
+        getEventStartTimes().forEach(other::setEventStartTime);
+        getEventDurations().forEach(other::setEventDuration);
+        getEndingEvents().forEach(other::markEndingEvent);
+    }
+
+    /// Map views used for the backup.  These are copies of the data
+
+    public Map<String, String> getFlowFileToFeedFlowFile() {
+        Map<String, String> map = new ConcurrentHashMap<>(otherFeedFlowFiles);
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                PrimitiveLongTable table = segment.flowFiles;
+                table.forEach((msb, lsb, row) -> {
+                    long handle = table.valueAt(row, FEED_FLOW_FILE);
+                    String feedFlowFile = handle == NO_VALUE ? null : feedFlowFiles.lookup(handle);
+                    if (feedFlowFile != null) {
+                        map.put(FlowFileIds.toString(msb, lsb), feedFlowFile);
+                    }
+                });
+            }
+        }
+        return map;
+    }
+
+    public Map<String, Long> getFlowFileLastEventTimes() {
+        Map<String, Long> map = new ConcurrentHashMap<>(otherLastEventTimes);
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                PrimitiveLongTable table = segment.flowFiles;
+                table.forEach((msb, lsb, row) -> {
+                    long time = table.valueAt(row, LAST_EVENT_TIME);
+                    if (time != NO_VALUE) {
+                        map.put(FlowFileIds.toString(msb, lsb), time);
+                    }
+                });
+            }
+        }
+        return map;
+    }
+
+    public Map<Long, Long> getEventStartTimes() {
+        return eventColumn(START_TIME);
+    }
+
+    public Map<Long, Long> getEventDurations() {
+        return eventColumn(DURATION);
+    }
+
+    public Set<Long> getEndingEvents() {
+        return new HashSet<>(eventColumn(ENDING_EVENT).keySet());
+    }
+
+    private Map<Long, Long> eventColumn(int column) {
+        Map<Long, Long> map = new ConcurrentHashMap<>();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                PrimitiveLongTable table = segment.events;
+                table.forEach((key, unused, row) -> {
+                    long value = table.valueAt(row, column);
+                    if (value != NO_VALUE) {
+                        map.put(key - 1, value);
+                    }
+                });
+            }
+        }
+        return map;
+    }
+}
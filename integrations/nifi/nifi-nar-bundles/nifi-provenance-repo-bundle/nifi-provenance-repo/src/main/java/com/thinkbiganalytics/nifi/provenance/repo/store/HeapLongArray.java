@@ -0,0 +1,60 @@
+package com.thinkbiganalytics.nifi.provenance.repo.store;
+
+/*-
+ * #%L
+ * thinkbig-nifi-provenance-repo
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+
+/**
+ * {@link LongArray} backed by a plain long[] on the java heap
+ */
+public class HeapLongArray implements LongArray {
+
+    private final long[] values;
+
+    public HeapLongArray(int length) {
+        this.values = new long[length];
+    }
+
+    @Override
+    public long get(int index) {
+        return values[index];
+    }
+
+    @Override
+    public void set(int index, long value) {
+        values[index] = value;
+    }
+
+    @Override
+    public int length() {
+        return values.length;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, 0L);
+    }
+
+    @Override
+    public void release() {
+        //nothing to release.  the garbage collector will reclaim the array
+    }
+}
@@ -0,0 +1,55 @@
+package com.thinkbiganalytics.nifi.provenance.repo.store;
+
+/*-
+ * #%L
+ * thinkbig-nifi-provenance-repo
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Fixed length array of primitive longs.
+ * New arrays are always filled with 0.
+ */
+public interface LongArray {
+
+    /**
+     * @param index the position in the array
+     * @return the value at the given position
+     */
+    long get(int index);
+
+    /**
+     * @param index the position in the array
+     * @param value the value to store
+     */
+    void set(int index, long value);
+
+    /**
+     * @return the number of longs this array holds
+     */
+    int length();
+
+    /**
+     * Reset every position in the array to 0
+     */
+    void clear();
+
+    /**
+     * Release any resources held by this array.  The array must not be used after it is released.
+     */
+    void release();
+}
@@ -0,0 +1,38 @@
+package com.thinkbiganalytics.nifi.provenance.repo.store;
+
+/*-
+ * #%L
+ * thinkbig-nifi-provenance-repo
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Creates the {@link LongArray} storage used by the {@link PrimitiveLongTable}
+ */
+public interface LongArrayAllocator {
+
+    /**
+     * Allocates arrays on the java heap
+     */
+    LongArrayAllocator HEAP = HeapLongArray::new;
+
+    /**
+     * @param length the number of longs
+     * @return a new zero filled array
+     */
+    LongArray allocate(int length);
+}
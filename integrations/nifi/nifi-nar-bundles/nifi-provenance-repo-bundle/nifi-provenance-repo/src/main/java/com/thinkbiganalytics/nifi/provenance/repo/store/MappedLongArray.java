@@ -0,0 +1,97 @@
+package com.thinkbiganalytics.nifi.provenance.repo.store;
+
+/*-
+ * #%L
+ * thinkbig-nifi-provenance-repo
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * {@link LongArray} stored outside of the java heap in a memory mapped scratch file.
+ * The file is removed from the directory as soon as it is mapped so nothing is left behind if NiFi is killed.
+ */
+public class MappedLongArray implements LongArray {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedLongArray.class);
+
+    private final int length;
+
+    private MappedByteBuffer buffer;
+
+    public MappedLongArray(File directory, int length) {
+        if ((long) length * Long.BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Unable to map " + length + " longs into a single file. The maximum is " + (Integer.MAX_VALUE / Long.BYTES));
+        }
+        this.length = length;
+        File file = null;
+        try {
+            file = File.createTempFile("flowfile-tracking-", ".bin", directory);
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength((long) length * Long.BYTES);
+                buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, (long) length * Long.BYTES);
+                buffer.order(ByteOrder.nativeOrder());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to create memory mapped tracking file in " + directory + ". " + e.getMessage(), e);
+        } finally {
+            if (file != null && !file.delete()) {
+                log.debug("Unable to remove mapped file {} while it is in use. It will be removed on exit", file);
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    @Override
+    public long get(int index) {
+        return buffer.getLong(index << 3);
+    }
+
+    @Override
+    public void set(int index, long value) {
+        buffer.putLong(index << 3, value);
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < length; i++) {
+            buffer.putLong(i << 3, 0L);
+        }
+    }
+
+    /**
+     * The mapping is released by the garbage collector once the buffer is no longer referenced
+     */
+    @Override
+    public void release() {
+        buffer = null;
+    }
+}
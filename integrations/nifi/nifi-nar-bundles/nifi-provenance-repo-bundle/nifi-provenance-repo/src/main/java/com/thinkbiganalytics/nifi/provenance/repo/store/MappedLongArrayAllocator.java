@@ -0,0 +1,47 @@
+package com.thinkbiganalytics.nifi.provenance.repo.store;
+
+/*-
+ * #%L
+ * thinkbig-nifi-provenance-repo
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.File;
+
+/**
+ * Allocates {@link MappedLongArray}s in the supplied directory
+ */
+public class MappedLongArrayAllocator implements LongArrayAllocator {
+
+    private final File directory;
+
+    public MappedLongArrayAllocator(File directory) {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IllegalArgumentException("Unable to create the flow file tracking directory " + directory);
+        }
+        this.directory = directory;
+    }
+
+    @Override
+    public LongArray allocate(int length) {
+        return new MappedLongArray(directory, length);
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+}
@@ -0,0 +1,363 @@
+package com.thinkbiganalytics.nifi.provenance.repo.store;
+
+/*-
+ * #%L
+ * thinkbig-nifi-provenance-repo
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Open addressing hash table keyed by one or two primitive longs (ie. an event id or the two halves of a 128 bit UUID)
+ * holding a fixed number of long columns per row.
+ *
+ * Rows are stored inline in a single {@link LongArray} as [key..., column...] so no objects are created per entry.
+ * A column that has not been set holds {@link #NO_VALUE}.  A row is removed once all of its columns are removed.
+ * A key made up of all zeros is reserved to mark empty slots and cannot be stored.
+ *
+ * This class is not thread safe.
+ */
+public class PrimitiveLongTable {
+
+    /**
+     * Marker for a column that has no value
+     */
+    public static final long NO_VALUE = Long.MIN_VALUE;
+
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final LongArrayAllocator allocator;
+
+    private final int keyWidth;
+
+    private final int columns;
+
+    private final int stride;
+
+    private LongArray table;
+
+    private int capacity;
+
+    private int mask;
+
+    private int size;
+
+    private int resizeThreshold;
+
+    /**
+     * @param allocator       the storage to use for the table
+     * @param keyWidth        the number of longs in the key, 1 or 2
+     * @param columns         the number of value columns per row
+     * @param initialCapacity the expected number of rows
+     */
+    public PrimitiveLongTable(LongArrayAllocator allocator, int keyWidth, int columns, int initialCapacity) {
+        if (keyWidth < 1 || keyWidth > 2) {
+            throw new IllegalArgumentException("keyWidth must be 1 or 2");
+        }
+        if (columns < 1) {
+            throw new IllegalArgumentException("At least 1 column is required");
+        }
+        this.allocator = allocator;
+        this.keyWidth = keyWidth;
+        this.columns = columns;
+        this.stride = keyWidth + columns;
+        allocateTable(tableSizeFor(initialCapacity));
+    }
+
+    private static int tableSizeFor(int expected) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * LOAD_FACTOR < expected) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private void allocateTable(int capacity) {
+        if ((long) capacity * stride > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Unable to grow the table beyond " + this.capacity + " rows");
+        }
+        this.table = allocator.allocate(capacity * stride);
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.resizeThreshold = (int) (capacity * LOAD_FACTOR);
+        this.size = 0;
+    }
+
+    /**
+     * murmur3 64 bit finalizer
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private int slotFor(long k0, long k1) {
+        long h = keyWidth == 1 ? mix(k0) : mix(k0 ^ mix(k1));
+        return (int) h & mask;
+    }
+
+    private boolean isEmpty(int slot) {
+        int offset = slot * stride;
+        return table.get(offset) == 0L && (keyWidth == 1 || table.get(offset + 1) == 0L);
+    }
+
+    private boolean keyEquals(int slot, long k0, long k1) {
+        int offset = slot * stride;
+        return table.get(offset) == k0 && (keyWidth == 1 || table.get(offset + 1) == k1);
+    }
+
+    private void checkKey(long k0, long k1) {
+        if (k0 == 0L && (keyWidth == 1 || k1 == 0L)) {
+            throw new IllegalArgumentException("A key of all zeros is reserved");
+        }
+    }
+
+    /**
+     * @return the slot holding the key, or -1 if it is not in the table
+     */
+    private int find(long k0, long k1) {
+        int slot = slotFor(k0, k1);
+        while (true) {
+            if (keyEquals(slot, k0, k1)) {
+                return slot;
+            }
+            if (isEmpty(slot)) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * @return the value of the column, or {@link #NO_VALUE} if it is not set
+     */
+    public long get(long k0, long k1, int column) {
+        if (k0 == 0L && (keyWidth == 1 || k1 == 0L)) {
+            return NO_VALUE;
+        }
+        int slot = find(k0, k1);
+        return slot < 0 ? NO_VALUE : table.get(slot * stride + keyWidth + column);
+    }
+
+    public boolean contains(long k0, long k1, int column) {
+        return get(k0, k1, column) != NO_VALUE;
+    }
+
+    /**
+     * Set the column value, adding the row if needed
+     *
+     * @return the previous value of the column, or {@link #NO_VALUE}
+     */
+    public long set(long k0, long k1, int column, long value) {
+        checkKey(k0, k1);
+        if (value == NO_VALUE) {
+            throw new IllegalArgumentException("Long.MIN_VALUE is reserved and cannot be stored");
+        }
+        int slot = slotFor(k0, k1);
+        while (true) {
+            if (keyEquals(slot, k0, k1)) {
+                int index = slot * stride + keyWidth + column;
+                long previous = table.get(index);
+                table.set(index, value);
+                return previous;
+            }
+            if (isEmpty(slot)) {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        //new row
+        int offset = slot * stride;
+        table.set(offset, k0);
+        if (keyWidth == 2) {
+            table.set(offset + 1, k1);
+        }
+        for (int c = 0; c < columns; c++) {
+            table.set(offset + keyWidth + c, c == column ? value : NO_VALUE);
+        }
+        if (++size > resizeThreshold) {
+            resize(capacity << 1);
+        }
+        return NO_VALUE;
+    }
+
+    /**
+     * Remove the column value.  If no other columns are set the row is removed
+     *
+     * @return the previous value of the column, or {@link #NO_VALUE}
+     */
+    public long remove(long k0, long k1, int column) {
+        if (k0 == 0L && (keyWidth == 1 || k1 == 0L)) {
+            return NO_VALUE;
+        }
+        int slot = find(k0, k1);
+        if (slot < 0) {
+            return NO_VALUE;
+        }
+        int offset = slot * stride + keyWidth;
+        long previous = table.get(offset + column);
+        table.set(offset + column, NO_VALUE);
+        for (int c = 0; c < columns; c++) {
+            if (table.get(offset + c) != NO_VALUE) {
+                return previous;
+            }
+        }
+        deleteSlot(slot);
+        return previous;
+    }
+
+    /**
+     * Remove the entire row
+     *
+     * @return true if the row existed
+     */
+    public boolean removeRow(long k0, long k1) {
+        if (k0 == 0L && (keyWidth == 1 || k1 == 0L)) {
+            return false;
+        }
+        int slot = find(k0, k1);
+        if (slot < 0) {
+            return false;
+        }
+        deleteSlot(slot);
+        return true;
+    }
+
+    /**
+     * Remove the slot, shifting back any following entries in the probe sequence so no tombstones are needed
+     */
+    private void deleteSlot(int slot) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (!isEmpty(next)) {
+            int offset = next * stride;
+            int ideal = slotFor(table.get(offset), keyWidth == 2 ? table.get(offset + 1) : 0L);
+            //the entry can move into the gap if the gap lies between its ideal slot and its current slot
+            if (((next - ideal) & mask) >= ((next - gap) & mask)) {
+                copySlot(next, gap);
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        int offset = gap * stride;
+        for (int i = 0; i < stride; i++) {
+            table.set(offset + i, 0L);
+        }
+        size--;
+    }
+
+    private void copySlot(int from, int to) {
+        int src = from * stride;
+        int dest = to * stride;
+        for (int i = 0; i < stride; i++) {
+            table.set(dest + i, table.get(src + i));
+        }
+    }
+
+    private void resize(int newCapacity) {
+        LongArray old = table;
+        int oldCapacity = capacity;
+        allocateTable(newCapacity);
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            int offset = slot * stride;
+            long k0 = old.get(offset);
+            long k1 = keyWidth == 2 ? old.get(offset + 1) : 0L;
+            if (k0 == 0L && k1 == 0L) {
+                continue;
+            }
+            int newSlot = slotFor(k0, k1);
+            while (!isEmpty(newSlot)) {
+                newSlot = (newSlot + 1) & mask;
+            }
+            int newOffset = newSlot * stride;
+            for (int i = 0; i < stride; i++) {
+                table.set(newOffset + i, old.get(offset + i));
+            }
+            size++;
+        }
+        old.release();
+    }
+
+    /**
+     * Visit every row in the table
+     */
+    public void forEach(RowVisitor visitor) {
+        for (int slot = 0; slot < capacity; slot++) {
+            if (!isEmpty(slot)) {
+                int offset = slot * stride;
+                visitor.visit(table.get(offset), keyWidth == 2 ? table.get(offset + 1) : 0L, slot);
+            }
+        }
+    }
+
+    /**
+     * @param row    the row passed to the {@link RowVisitor}
+     * @param column the column
+     * @return the column value for the row visited
+     */
+    public long valueAt(int row, int column) {
+        return table.get(row * stride + keyWidth + column);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Remove all rows, keeping the current capacity
+     */
+    public void clear() {
+        table.clear();
+        size = 0;
+    }
+
+    /**
+     * @return the number of bytes used by the table storage
+     */
+    public long storageBytes() {
+        return (long) table.length() * Long.BYTES;
+    }
+
+    /**
+     * Release the storage. The table cannot be used afterwards
+     */
+    public void release() {
+        table.release();
+    }
+
+    /**
+     * Callback for {@link #forEach(RowVisitor)}
+     */
+    public interface RowVisitor {
+
+        /**
+         * @param k0  the first key long
+         * @param k1  the second key long, 0 if the table has a single long key
+         * @param row the row to pass to {@link #valueAt(int, int)}
+         */
+        void visit(long k0, long k1, int row);
+    }
+}
@@ -0,0 +1,315 @@
+package com.thinkbiganalytics.nifi.provenance.repo;
+
+/*-
+ * #%L
+ * thinkbig-nifi-provenance-repo
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class FeedEventJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReplay() throws Exception {
+        File dir = folder.newFolder("journal");
+        String feedFlowFile = UUID.randomUUID().toString();
+        String child = UUID.randomUUID().toString();
+
+        FeedEventJournal journal = new FeedEventJournal(dir, 64 * 1024, Long.MAX_VALUE);
+        State state = new State();
+        journal.open(state, state::writeTo);
+        FeedEventJournal.Output output = journal.output();
+        output.flowFileFeedFlowFile(feedFlowFile, feedFlowFile);
+        output.flowFileFeedFlowFile(child, feedFlowFile);
+        output.flowFileFeedFlowFile("custom-flow-file", feedFlowFile);
+        output.flowFileLastEventTime(child, 100L);
+        output.eventTimes(1L, 50L, 10L);
+        output.eventTimes(2L, 60L, 20L);
+        output.eventTimesRemoved(1L);
+        output.endingEvent(2L);
+        output.feedFlowProcessor(feedFlowFile, "processor");
+        output.feedFlowProcessing(feedFlowFile, 2);
+        output.runningFeedFlows("processor", 1L);
+        output.skippedEvents(5L);
+        output.flowFileRemoved(child);
+        journal.close();
+
+        State recovered = new State();
+        new FeedEventJournal(dir, 64 * 1024, Long.MAX_VALUE).open(recovered, recovered::writeTo);
+        Assert.assertEquals(2, recovered.flowFiles.size());
+        Assert.assertEquals(feedFlowFile, recovered.flowFiles.get("custom-flow-file"));
+        Assert.assertFalse(recovered.flowFiles.containsKey(child));
+        Assert.assertEquals(Long.valueOf(100L), recovered.lastEventTimes.get(child));
+        Assert.assertEquals(1, recovered.eventTimes.size());
+        Assert.assertEquals(20L, recovered.eventTimes.get(2L)[1]);
+        Assert.assertTrue(recovered.endingEvents.contains(2L));
+        Assert.assertEquals("processor", recovered.feedFlowProcessors.get(feedFlowFile));
+        Assert.assertEquals(Integer.valueOf(2), recovered.feedFlowProcessing.get(feedFlowFile));
+        Assert.assertEquals(Long.valueOf(1L), recovered.runningFeedFlows.get("processor"));
+        Assert.assertEquals(5L, recovered.skippedEvents);
+    }
+
+    /**
+     * Checkpoints compact the journal into a snapshot and remove the older segments, recovery replays the snapshot and the segments after it
+     */
+    @Test
+    public void testCheckpoint() throws Exception {
+        File dir = folder.newFolder("journal");
+        FeedEventJournal journal = new FeedEventJournal(dir, 4 * 1024, Long.MAX_VALUE);
+        State state = new State();
+        journal.open(state, state::writeTo);
+        FeedEventJournal.Output output = journal.output();
+        //write enough to roll over several segments
+        for (int i = 0; i < 1000; i++) {
+            String flowFile = UUID.randomUUID().toString();
+            state.flowFileFeedFlowFile(flowFile, "feed-flow-file");
+            output.flowFileFeedFlowFile(flowFile, "feed-flow-file");
+        }
+        Assert.assertTrue(segments(dir).length > 2);
+        journal.checkpoint();
+        Assert.assertEquals(1, segments(dir).length);
+        Assert.assertTrue(new File(dir, "snapshot-" + sequence(segments(dir)[0]) + ".bin").exists());
+
+        output.flowFileFeedFlowFile("after-checkpoint", "feed-flow-file");
+        journal.close();
+
+        State recovered = new State();
+        new FeedEventJournal(dir, 4 * 1024, Long.MAX_VALUE).open(recovered, recovered::writeTo);
+        Assert.assertEquals(1001, recovered.flowFiles.size());
+        Assert.assertEquals("feed-flow-file", recovered.flowFiles.get("after-checkpoint"));
+    }
+
+    /**
+     * A partially written record at the end of a segment is ignored on recovery
+     */
+    @Test
+    public void testTornWrite() throws Exception {
+        File dir = folder.newFolder("journal");
+        FeedEventJournal journal = new FeedEventJournal(dir, 64 * 1024, Long.MAX_VALUE);
+        State state = new State();
+        journal.open(state, state::writeTo);
+        journal.output().flowFileFeedFlowFile("first", "feed-flow-file");
+        journal.output().flowFileFeedFlowFile("second", "feed-flow-file");
+        journal.close();
+
+        //corrupt the last byte of the second record
+        File segment = segments(dir)[0];
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            long position = 0;
+            raf.seek(position);
+            int first = raf.readInt();
+            position = 8 + first;
+            raf.seek(position);
+            int second = raf.readInt();
+            raf.seek(position + 8 + second - 1);
+            raf.writeByte(0x7f);
+        }
+
+        State recovered = new State();
+        new FeedEventJournal(dir, 64 * 1024, Long.MAX_VALUE).open(recovered, recovered::writeTo);
+        Assert.assertEquals(1, recovered.flowFiles.size());
+        Assert.assertTrue(recovered.flowFiles.containsKey("first"));
+    }
+
+    /**
+     * Records appended from many threads are all recovered, including across segment rolls, and the records of each key keep their order
+     */
+    @Test
+    public void testConcurrentAppend() throws Exception {
+        File dir = folder.newFolder("journal");
+        FeedEventJournal journal = new FeedEventJournal(dir, 4 * 1024, Long.MAX_VALUE);
+        State state = new State();
+        journal.open(state, state::writeTo);
+        FeedEventJournal.Output output = journal.output();
+
+        int threads = 8;
+        int records = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String feedFlowFile = "feed-flow-file-" + t;
+            futures.add(executor.submit(() -> {
+                for (int i = 1; i <= records; i++) {
+                    output.flowFileFeedFlowFile(feedFlowFile + "-" + i, feedFlowFile);
+                    output.feedFlowProcessing(feedFlowFile, i);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        journal.close();
+        Assert.assertTrue(segments(dir).length > 2);
+
+        State recovered = new State();
+        new FeedEventJournal(dir, 4 * 1024, Long.MAX_VALUE).open(recovered, recovered::writeTo);
+        Assert.assertEquals(threads * records, recovered.flowFiles.size());
+        for (int t = 0; t < threads; t++) {
+            Assert.assertEquals(Integer.valueOf(records), recovered.feedFlowProcessing.get("feed-flow-file-" + t));
+        }
+    }
+
+    /**
+     * The disabled journal does not record anything
+     */
+    @Test
+    public void testDisabled() {
+        Assert.assertFalse(FeedEventJournal.DISABLED.isEnabled());
+        Assert.assertSame(FeedEventJournal.Output.NONE, FeedEventJournal.DISABLED.output());
+    }
+
+    private File[] segments(File dir) {
+        File[] segments = dir.listFiles((d, name) -> name.startsWith("journal-"));
+        Arrays.sort(segments, (f1, f2) -> Long.compare(sequence(f1), sequence(f2)));
+        return segments;
+    }
+
+    private long sequence(File file) {
+        return Long.parseLong(file.getName().replaceAll("\\D", ""));
+    }
+
+    private static class State implements FeedEventJournal.Handler {
+
+        Map<String, String> flowFiles = new HashMap<>();
+        Map<String, Long> lastEventTimes = new HashMap<>();
+        Map<Long, long[]> eventTimes = new HashMap<>();
+        Set<Long> endingEvents = new HashSet<>();
+        Map<String, String> feedFlowProcessors = new HashMap<>();
+        Map<String, Integer> feedFlowProcessing = new HashMap<>();
+        Map<String, Long> runningFeedFlows = new HashMap<>();
+        long skippedEvents;
+
+        void writeTo(FeedEventJournal.Output output) {
+            flowFiles.forEach(output::flowFileFeedFlowFile);
+            lastEventTimes.forEach(output::flowFileLastEventTime);
+            eventTimes.forEach((eventId, times) -> output.eventTimes(eventId, times[0], times[1]));
+            endingEvents.forEach(output::endingEvent);
+            feedFlowProcessors.forEach(output::feedFlowProcessor);
+            feedFlowProcessing.forEach(output::feedFlowProcessing);
+            runningFeedFlows.forEach(output::runningFeedFlows);
+            output.skippedEvents(skippedEvents);
+        }
+
+        @Override
+        public void flowFileFeedFlowFile(String flowFileId, String feedFlowFileId) {
+            flowFiles.put(flowFileId, feedFlowFileId);
+        }
+
+        @Override
+        public void flowFileLastEventTime(String flowFileId, long eventTime) {
+            lastEventTimes.put(flowFileId, eventTime);
+        }
+
+        @Override
+        public void flowFileRemoved(String flowFileId) {
+            flowFiles.remove(flowFileId);
+        }
+
+        @Override
+        public void eventTimes(long eventId, long startTime, long duration) {
+            eventTimes.put(eventId, new long[]{startTime, duration});
+        }
+
+        @Override
+        public void eventTimesRemoved(long eventId) {
+            eventTimes.remove(eventId);
+        }
+
+        @Override
+        public void endingEvent(long eventId) {
+            endingEvents.add(eventId);
+        }
+
+        @Override
+        public void endingEventRemoved(long eventId) {
+            endingEvents.remove(eventId);
+        }
+
+        @Override
+        public void feedFlowProcessor(String feedFlowFileId, String feedProcessorId) {
+            feedFlowProcessors.put(feedFlowFileId, feedProcessorId);
+        }
+
+        @Override
+        public void feedFlowDetailedTracking(String feedFlowFileId) {
+
+        }
+
+        @Override
+        public void feedFlowStartTime(String feedFlowFileId, long time) {
+
+        }
+
+        @Override
+        public void feedFlowEndTime(String feedFlowFileId, long time) {
+
+        }
+
+        @Override
+        public void feedFlowProcessing(String feedFlowFileId, int count) {
+            feedFlowProcessing.put(feedFlowFileId, count);
+        }
+
+        @Override
+        public void feedFlowFailures(String feedFlowFileId, int count) {
+
+        }
+
+        @Override
+        public void feedFlowRemoved(String feedFlowFileId) {
+            feedFlowProcessors.remove(feedFlowFileId);
+            feedFlowProcessing.remove(feedFlowFileId);
+        }
+
+        @Override
+        public void runningFeedFlows(String feedProcessorId, long count) {
+            runningFeedFlows.put(feedProcessorId, count);
+        }
+
+        @Override
+        public void skippedEvents(long count) {
+            skippedEvents = count;
+        }
+
+        @Override
+        public void clear() {
+            flowFiles.clear();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.thinkbiganalytics.nifi.provenance.repo;
+
+/*-
+ * #%L
+ * thinkbig-nifi-provenance-repo
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.provenance.StandardProvenanceEventRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the events/sec the {@link FeedStatisticsManager} can ingest as the number of NiFi provenance writer threads grows.
+ * Each writer thread runs small CREATE, ATTRIBUTES_MODIFIED, DROP flows for feeds picked at random from the configured number of feeds,
+ * while the gather thread drains the stats on its normal schedule.
+ *
+ * Run with: java -cp target/test-classes:<test classpath> com.thinkbiganalytics.nifi.provenance.repo.FeedStatisticsManagerBenchmark
+ * The events/sec for 1 to 64 writer threads is printed at the end of the run.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FeedStatisticsManagerBenchmark {
+
+    private static final int[] WRITER_THREADS = {1, 2, 4, 8, 16, 32, 64};
+
+    private static final AtomicLong eventIds = new AtomicLong();
+
+    @State(Scope.Benchmark)
+    public static class Feeds {
+
+        @Param({"100"})
+        public int feeds;
+
+        String[] feedProcessorIds;
+
+        String[] processorIds;
+
+        @Setup
+        public void setup() {
+            feedProcessorIds = new String[feeds];
+            processorIds = new String[feeds];
+            for (int i = 0; i < feeds; i++) {
+                feedProcessorIds[i] = UUID.randomUUID().toString();
+                processorIds[i] = UUID.randomUUID().toString();
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Writer {
+
+        private int step;
+
+        private int feed;
+
+        private String flowFileId;
+
+        ProvenanceEventRecord next(Feeds feeds) {
+            ProvenanceEventRecord event;
+            if (step == 0) {
+                feed = ThreadLocalRandom.current().nextInt(feeds.feeds);
+                flowFileId = UUID.randomUUID().toString();
+                event = event(feeds.feedProcessorIds[feed], ProvenanceEventType.CREATE);
+            } else if (step == 1) {
+                event = event(feeds.processorIds[feed], ProvenanceEventType.ATTRIBUTES_MODIFIED);
+            } else {
+                event = event(feeds.processorIds[feed], ProvenanceEventType.DROP);
+            }
+            step = step == 2 ? 0 : step + 1;
+            return event;
+        }
+
+        private ProvenanceEventRecord event(String componentId, ProvenanceEventType type) {
+            long now = System.currentTimeMillis();
+            return new StandardProvenanceEventRecord.Builder()
+                .setEventTime(now)
+                .setFlowFileEntryDate(now)
+                .setComponentId(componentId)
+                .setComponentType("PROCESSOR")
+                .setCurrentContentClaim("container", "section", "identifier", 0L, 0L)
+                .setFlowFileUUID(flowFileId)
+                .setEventType(type)
+                .build();
+        }
+    }
+
+    @Benchmark
+    public void addEvent(Feeds feeds, Writer writer) {
+        FeedStatisticsManager.getInstance().addEvent(writer.next(feeds), eventIds.incrementAndGet());
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<Integer, Double> eventsPerSecond = new LinkedHashMap<>();
+        for (int threads : WRITER_THREADS) {
+            Collection<RunResult> results = new Runner(new OptionsBuilder()
+                                                           .include(FeedStatisticsManagerBenchmark.class.getSimpleName())
+                                                           .threads(threads)
+                                                           .build()).run();
+            results.forEach(result -> eventsPerSecond.put(threads, result.getPrimaryResult().getScore()));
+        }
+        System.out.println("Shards: " + FeedStatisticsManager.SHARDS);
+        eventsPerSecond.forEach((threads, score) -> System.out.println(String.format("%2d writer threads: %,.0f events/sec", threads, score)));
+    }
+}
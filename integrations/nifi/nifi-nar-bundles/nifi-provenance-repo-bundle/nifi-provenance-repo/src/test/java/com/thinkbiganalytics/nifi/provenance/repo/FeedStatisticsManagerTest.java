@@ -0,0 +1,106 @@
+package com.thinkbiganalytics.nifi.provenance.repo;
+
+/*-
+ * #%L
+ * thinkbig-nifi-provenance-repo
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.provenance.StandardProvenanceEventRecord;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class FeedStatisticsManagerTest {
+
+    private final AtomicLong eventIds = new AtomicLong(1000000L);
+
+    @Test
+    public void testShardCount() {
+        Assert.assertEquals(4, FeedStatisticsManager.shardCount(1));
+        Assert.assertEquals(8, FeedStatisticsManager.shardCount(4));
+        Assert.assertEquals(64, FeedStatisticsManager.shardCount(32));
+        Assert.assertEquals(256, FeedStatisticsManager.shardCount(1024));
+    }
+
+    /**
+     * Writers for different feeds add events in parallel while the stats are gathered, all the feed flows should complete
+     */
+    @Test
+    public void testConcurrentWriters() throws Exception {
+        FeedStatisticsManager manager = FeedStatisticsManager.getInstance();
+        int writers = 8;
+        int flows = 500;
+        List<String> feedProcessorIds = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            feedProcessorIds.add(UUID.randomUUID().toString());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        Future<?> gather = executor.submit(() -> {
+            while (writing.get()) {
+                manager.gatherStatistics();
+            }
+        });
+        List<Future<?>> futures = new ArrayList<>();
+        for (String feedProcessorId : feedProcessorIds) {
+            futures.add(executor.submit(() -> {
+                String processorId = UUID.randomUUID().toString();
+                for (int i = 0; i < flows; i++) {
+                    String flowFileId = UUID.randomUUID().toString();
+                    manager.addEvent(event(feedProcessorId, flowFileId, ProvenanceEventType.CREATE), eventIds.incrementAndGet());
+                    manager.addEvent(event(processorId, flowFileId, ProvenanceEventType.ATTRIBUTES_MODIFIED), eventIds.incrementAndGet());
+                    manager.addEvent(event(processorId, flowFileId, ProvenanceEventType.DROP), eventIds.incrementAndGet());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        writing.set(false);
+        gather.get(60, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        for (String feedProcessorId : feedProcessorIds) {
+            Assert.assertEquals(Long.valueOf(0L), FeedEventStatistics.getInstance().getRunningFeedFlows(feedProcessorId));
+        }
+    }
+
+    private ProvenanceEventRecord event(String componentId, String flowFileId, ProvenanceEventType type) {
+        long now = System.currentTimeMillis();
+        return new StandardProvenanceEventRecord.Builder()
+            .setEventTime(now)
+            .setFlowFileEntryDate(now)
+            .setComponentId(componentId)
+            .setComponentType("PROCESSOR")
+            .setCurrentContentClaim("container", "section", "identifier", 0L, 0L)
+            .setFlowFileUUID(flowFileId)
+            .setEventType(type)
+            .build();
+    }
+}
@@ -0,0 +1,228 @@
+package com.thinkbiganalytics.nifi.provenance.repo.store;
+
+/*-
+ * #%L
+ * thinkbig-nifi-provenance-repo
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the event throughput of the {@link FlowFileTrackingStore} against the ConcurrentHashMaps previously used by the FeedEventStatistics.
+ * Each operation simulates the tracking calls made for one provenance event with the given number of flow files in flight.
+ *
+ * Run with: java -cp target/test-classes:<test classpath> com.thinkbiganalytics.nifi.provenance.repo.store.FlowFileTrackingStoreBenchmark
+ * The retained heap for each implementation is printed before the JMH run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlowFileTrackingStoreBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int inFlightFlowFiles;
+
+    private String[] flowFiles;
+
+    private String[] feedFlowFiles;
+
+    private int next;
+
+    private long eventId;
+
+    private Map<String, String> allFlowFileToFeedFlowFile;
+    private Map<String, Long> flowFileLastNonDropEventTime;
+    private Map<Long, Long> eventDuration;
+    private Map<Long, Long> eventStartTime;
+
+    private FlowFileTrackingStore heapStore;
+
+    private FlowFileTrackingStore mappedStore;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        flowFiles = new String[inFlightFlowFiles];
+        feedFlowFiles = new String[Math.max(1, inFlightFlowFiles / 100)];
+        for (int i = 0; i < feedFlowFiles.length; i++) {
+            feedFlowFiles[i] = UUID.randomUUID().toString();
+        }
+        for (int i = 0; i < flowFiles.length; i++) {
+            flowFiles[i] = UUID.randomUUID().toString();
+        }
+        allFlowFileToFeedFlowFile = new ConcurrentHashMap<>();
+        flowFileLastNonDropEventTime = new ConcurrentHashMap<>();
+        eventDuration = new ConcurrentHashMap<>();
+        eventStartTime = new ConcurrentHashMap<>();
+        heapStore = new FlowFileTrackingStore();
+        mappedStore = new FlowFileTrackingStore(new MappedLongArrayAllocator(Files.createTempDirectory("tracking-benchmark").toFile()));
+        for (int i = 0; i < flowFiles.length; i++) {
+            String feedFlowFile = feedFlowFiles[i % feedFlowFiles.length];
+            allFlowFileToFeedFlowFile.put(flowFiles[i], feedFlowFile);
+            flowFileLastNonDropEventTime.put(flowFiles[i], (long) i);
+            heapStore.setFeedFlowFile(flowFiles[i], feedFlowFile);
+            heapStore.setLastEventTime(flowFiles[i], i);
+            mappedStore.setFeedFlowFile(flowFiles[i], feedFlowFile);
+            mappedStore.setLastEventTime(flowFiles[i], i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mappedStore.release();
+    }
+
+    /**
+     * replace an in flight flow file with a new child, as a DROP of one flow file and the creation of another
+     */
+    private int nextIndex() {
+        next = next + 1 == flowFiles.length ? 0 : next + 1;
+        return next;
+    }
+
+    @Benchmark
+    public void concurrentHashMaps(Blackhole blackhole) {
+        int i = nextIndex();
+        long id = eventId++;
+        String flowFile = flowFiles[i];
+        String feedFlowFile = allFlowFileToFeedFlowFile.get(flowFile);
+        Long startTime = flowFileLastNonDropEventTime.get(flowFile);
+        eventStartTime.put(id, startTime);
+        eventDuration.put(id, id - startTime);
+        blackhole.consume(eventStartTime.get(id));
+        blackhole.consume(eventDuration.get(id));
+        eventDuration.remove(id);
+        eventStartTime.remove(id);
+        flowFileLastNonDropEventTime.remove(flowFile);
+        allFlowFileToFeedFlowFile.remove(flowFile);
+        String child = UUID.randomUUID().toString();
+        allFlowFileToFeedFlowFile.put(child, feedFlowFile);
+        flowFileLastNonDropEventTime.put(child, id);
+        flowFiles[i] = child;
+    }
+
+    @Benchmark
+    public void heapTrackingStore(Blackhole blackhole) {
+        track(heapStore, blackhole);
+    }
+
+    @Benchmark
+    public void mappedTrackingStore(Blackhole blackhole) {
+        track(mappedStore, blackhole);
+    }
+
+    private void track(FlowFileTrackingStore store, Blackhole blackhole) {
+        int i = nextIndex();
+        long id = eventId++;
+        String flowFile = flowFiles[i];
+        String feedFlowFile = store.getFeedFlowFile(flowFile);
+        Long startTime = store.getLastEventTime(flowFile);
+        store.setEventTimes(id, startTime, id - startTime);
+        blackhole.consume(store.getEventStartTime(id));
+        blackhole.consume(store.getEventDuration(id));
+        store.removeEventTimes(id);
+        store.removeFlowFile(flowFile);
+        String child = UUID.randomUUID().toString();
+        store.setFeedFlowFile(child, feedFlowFile);
+        store.setLastEventTime(child, id);
+        flowFiles[i] = child;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Print the heap retained by 1 million in flight flow files.  The flow file id Strings are held by the caller in both cases, as they are by NiFi
+     */
+    private static void reportHeapUsage() {
+        int count = 1000000;
+        String[] ids = new String[count];
+        String[] feeds = new String[count / 100];
+        for (int i = 0; i < feeds.length; i++) {
+            feeds[i] = UUID.randomUUID().toString();
+        }
+        for (int i = 0; i < count; i++) {
+            ids[i] = UUID.randomUUID().toString();
+        }
+
+        long before = usedHeap();
+        Map<String, String> flowFileToFeed = new ConcurrentHashMap<>();
+        Map<String, Long> lastEventTime = new ConcurrentHashMap<>();
+        Map<Long, Long> start = new ConcurrentHashMap<>();
+        Map<Long, Long> duration = new ConcurrentHashMap<>();
+        for (int i = 0; i < count; i++) {
+            flowFileToFeed.put(ids[i], feeds[i % feeds.length]);
+            lastEventTime.put(ids[i], (long) i);
+            start.put((long) i, (long) i);
+            duration.put((long) i, 10L);
+        }
+        long maps = usedHeap() - before;
+        System.out.println("ConcurrentHashMaps retained heap bytes: " + maps + " (" + flowFileToFeed.size() + ")");
+        flowFileToFeed = null;
+        lastEventTime = null;
+        start = null;
+        duration = null;
+
+        before = usedHeap();
+        FlowFileTrackingStore store = new FlowFileTrackingStore();
+        for (int i = 0; i < count; i++) {
+            store.setFeedFlowFile(ids[i], feeds[i % feeds.length]);
+            store.setLastEventTime(ids[i], i);
+            store.setEventTimes(i, i, 10L);
+        }
+        long tracking = usedHeap() - before;
+        System.out.println("FlowFileTrackingStore retained heap bytes: " + tracking + " (" + store.flowFileCount() + ")");
+    }
+
+    public static void main(String[] args) throws Exception {
+        reportHeapUsage();
+        new Runner(new OptionsBuilder()
+                       .include(FlowFileTrackingStoreBenchmark.class.getSimpleName())
+                       .addProfiler(GCProfiler.class)
+                       .build()).run();
+    }
+}
@@ -0,0 +1,147 @@
+package com.thinkbiganalytics.nifi.provenance.repo.store;
+
+/*-
+ * #%L
+ * thinkbig-nifi-provenance-repo
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+public class FlowFileTrackingStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testFlowFileIds() {
+        String id = UUID.randomUUID().toString();
+        Assert.assertTrue(FlowFileIds.isCompactable(id));
+        Assert.assertEquals(id, FlowFileIds.toString(FlowFileIds.mostSignificantBits(id), FlowFileIds.leastSignificantBits(id)));
+
+        Assert.assertFalse(FlowFileIds.isCompactable(id.toUpperCase()));
+        Assert.assertFalse(FlowFileIds.isCompactable("not-a-uuid"));
+        Assert.assertFalse(FlowFileIds.isCompactable(new UUID(0L, 0L).toString()));
+        Assert.assertFalse(FlowFileIds.isCompactable(null));
+    }
+
+    /**
+     * Compare the table against a HashMap through random puts and removes to exercise resizing and the backward shift delete
+     */
+    @Test
+    public void testPrimitiveLongTable() {
+        PrimitiveLongTable table = new PrimitiveLongTable(LongArrayAllocator.HEAP, 1, 2, 4);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200000; i++) {
+            long key = random.nextInt(5000) + 1;
+            if (random.nextInt(3) == 0) {
+                Long previous = expected.remove(key);
+                boolean removed = table.removeRow(key, 0L);
+                Assert.assertEquals(previous != null, removed);
+            } else {
+                long value = random.nextLong();
+                if (value == PrimitiveLongTable.NO_VALUE) {
+                    continue;
+                }
+                expected.put(key, value);
+                table.set(key, 0L, 0, value);
+            }
+        }
+        Assert.assertEquals(expected.size(), table.size());
+        expected.forEach((key, value) -> Assert.assertEquals(value.longValue(), table.get(key, 0L, 0)));
+        Assert.assertEquals(PrimitiveLongTable.NO_VALUE, table.get(5001L, 0L, 0));
+    }
+
+    @Test
+    public void testRowRemovedWhenAllColumnsRemoved() {
+        PrimitiveLongTable table = new PrimitiveLongTable(LongArrayAllocator.HEAP, 2, 2, 16);
+        table.set(1L, 2L, 0, 10L);
+        table.set(1L, 2L, 1, 20L);
+        Assert.assertEquals(10L, table.remove(1L, 2L, 0));
+        Assert.assertEquals(1, table.size());
+        Assert.assertEquals(20L, table.remove(1L, 2L, 1));
+        Assert.assertEquals(0, table.size());
+    }
+
+    @Test
+    public void testHeapStore() {
+        verifyStore(new FlowFileTrackingStore(LongArrayAllocator.HEAP, 4, 16));
+    }
+
+    @Test
+    public void testMappedStore() throws Exception {
+        FlowFileTrackingStore store = new FlowFileTrackingStore(new MappedLongArrayAllocator(folder.newFolder("tracking")), 4, 16);
+        verifyStore(store);
+        store.release();
+    }
+
+    private void verifyStore(FlowFileTrackingStore store) {
+        String feedFlowFile = UUID.randomUUID().toString();
+        List<String> children = new ArrayList<>();
+        store.setFeedFlowFile(feedFlowFile, feedFlowFile);
+        for (int i = 0; i < 1000; i++) {
+            String child = UUID.randomUUID().toString();
+            children.add(child);
+            store.setFeedFlowFile(child, feedFlowFile);
+            store.setLastEventTime(child, i);
+            store.setEventTimes(i, 100L + i, i);
+        }
+        //non uuid flow files are tracked as well
+        store.setFeedFlowFile("custom-flow-file", feedFlowFile);
+
+        Assert.assertEquals(1002, store.flowFileCount());
+        Assert.assertEquals(1000, store.eventCount());
+        Assert.assertEquals(feedFlowFile, store.getFeedFlowFile(children.get(500)));
+        Assert.assertSame(store.getFeedFlowFile(children.get(1)), store.getFeedFlowFile(children.get(2)));
+        Assert.assertEquals(feedFlowFile, store.getFeedFlowFile("custom-flow-file"));
+        Assert.assertEquals(Long.valueOf(500L), store.getLastEventTime(children.get(500)));
+        Assert.assertEquals(Long.valueOf(600L), store.getEventStartTime(500L));
+        Assert.assertEquals(Long.valueOf(0L), store.getEventDuration(0L));
+        Assert.assertNull(store.getFeedFlowFile(UUID.randomUUID().toString()));
+
+        store.markEndingEvent(999L);
+        store.removeEventTimes(999L);
+        Assert.assertTrue(store.isEndingEvent(999L));
+        Assert.assertNull(store.getEventStartTime(999L));
+        store.removeEndingEvent(999L);
+        Assert.assertFalse(store.isEndingEvent(999L));
+
+        Map<String, String> backup = store.getFlowFileToFeedFlowFile();
+        Assert.assertEquals(1002, backup.size());
+        Assert.assertEquals(feedFlowFile, backup.get(children.get(10)));
+        Assert.assertEquals(999, store.getEventStartTimes().size());
+
+        children.forEach(store::removeFlowFile);
+        Assert.assertEquals(2, store.flowFileCount());
+        Assert.assertEquals(feedFlowFile, store.getFeedFlowFile(feedFlowFile));
+
+        store.clear();
+        Assert.assertEquals(0, store.flowFileCount());
+        Assert.assertEquals(0, store.eventCount());
+    }
+}
@@ -0,0 +1,168 @@
+package com.thinkbiganalytics.nifi.provenance.model.codec;
+
+/*-
+ * #%L
+ * thinkbig-nifi-provenance-model
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a message written by the {@link BinaryWriter}
+ */
+class BinaryReader {
+
+    private final byte[] buffer;
+
+    private int position;
+
+    private final int limit;
+
+    private String[] dictionary;
+
+    BinaryReader(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    /**
+     * Read the dictionary written ahead of the body
+     */
+    void readDictionary() {
+        int count = readCount();
+        dictionary = new String[count + 1];
+        for (int i = 1; i <= count; i++) {
+            int length = readCount();
+            require(length);
+            dictionary[i] = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+        }
+    }
+
+    private void require(int bytes) {
+        if (bytes < 0 || position + bytes > limit) {
+            throw new IllegalArgumentException("Unexpected end of the binary message at " + position);
+        }
+    }
+
+    int readByte() {
+        require(1);
+        return buffer[position++] & 0xFF;
+    }
+
+    int readInt() {
+        require(4);
+        int value = ((buffer[position] & 0xFF) << 24) | ((buffer[position + 1] & 0xFF) << 16) | ((buffer[position + 2] & 0xFF) << 8) | (buffer[position + 3] & 0xFF);
+        position += 4;
+        return value;
+    }
+
+    long readVarLong() {
+        long value = 0L;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed variable length long at " + position);
+    }
+
+    long readSignedVarLong() {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Read a non negative count or length
+     */
+    int readCount() {
+        long value = readVarLong();
+        if (value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid length " + value + " at " + position);
+        }
+        return (int) value;
+    }
+
+    double readDouble() {
+        long high = readInt() & 0xFFFFFFFFL;
+        long low = readInt() & 0xFFFFFFFFL;
+        return Double.longBitsToDouble((high << 32) | low);
+    }
+
+    String readString() {
+        int index = readCount();
+        if (index == 0) {
+            return null;
+        }
+        if (index >= dictionary.length) {
+            throw new IllegalArgumentException("Invalid string reference " + index + " at " + position);
+        }
+        return dictionary[index];
+    }
+
+    List<String> readStringList() {
+        int count = readCount();
+        if (count == 0) {
+            return null;
+        }
+        List<String> values = new ArrayList<>(count - 1);
+        for (int i = 1; i < count; i++) {
+            values.add(readString());
+        }
+        return values;
+    }
+
+    Map<String, String> readStringMap() {
+        int count = readCount();
+        if (count == 0) {
+            return null;
+        }
+        Map<String, String> values = new HashMap<>(Math.max(4, count * 2));
+        for (int i = 1; i < count; i++) {
+            values.put(readString(), readString());
+        }
+        return values;
+    }
+
+    Map<String, Long> readLongMap() {
+        int count = readCount();
+        if (count == 0) {
+            return null;
+        }
+        Map<String, Long> values = new HashMap<>(Math.max(4, count * 2));
+        for (int i = 1; i < count; i++) {
+            values.put(readString(), readNullableLong());
+        }
+        return values;
+    }
+
+    Long readNullableLong() {
+        return readByte() == 0 ? null : readSignedVarLong();
+    }
+
+    boolean hasRemaining() {
+        return position < limit;
+    }
+}
@@ -0,0 +1,197 @@
+package com.thinkbiganalytics.nifi.provenance.model.codec;
+
+/*-
+ * #%L
+ * thinkbig-nifi-provenance-model
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the body of a binary message.
+ * Strings are written as a reference into a per message dictionary so repeated ids and names are only written once.
+ * The dictionary is written ahead of the body by {@link #writeTo(BinaryWriter)}.
+ */
+class BinaryWriter {
+
+    private byte[] buffer;
+
+    private int position;
+
+    private final Map<String, Integer> dictionary;
+
+    private final List<String> strings;
+
+    BinaryWriter(int initialSize) {
+        this(initialSize, true);
+    }
+
+    private BinaryWriter(int initialSize, boolean withDictionary) {
+        this.buffer = new byte[Math.max(16, initialSize)];
+        this.dictionary = withDictionary ? new HashMap<>() : null;
+        this.strings = withDictionary ? new ArrayList<>() : null;
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (position + bytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + bytes));
+        }
+    }
+
+    void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+    }
+
+    void writeBytes(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+    }
+
+    void writeInt(int value) {
+        ensureCapacity(4);
+        buffer[position++] = (byte) (value >>> 24);
+        buffer[position++] = (byte) (value >>> 16);
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    /**
+     * Write an unsigned variable length long
+     */
+    void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0L) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    /**
+     * Write a signed variable length long, zig zag encoded so small negative values stay small
+     */
+    void writeSignedVarLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    void writeDouble(double value) {
+        long bits = Double.doubleToLongBits(value);
+        writeInt((int) (bits >>> 32));
+        writeInt((int) bits);
+    }
+
+    /**
+     * Write a reference to the string in the dictionary.  0 is null
+     */
+    void writeString(String value) {
+        if (value == null) {
+            writeVarLong(0);
+            return;
+        }
+        Integer index = dictionary.get(value);
+        if (index == null) {
+            strings.add(value);
+            index = strings.size();
+            dictionary.put(value, index);
+        }
+        writeVarLong(index);
+    }
+
+    void writeStringList(List<String> values) {
+        if (values == null) {
+            writeVarLong(0);
+            return;
+        }
+        writeVarLong(values.size() + 1L);
+        for (String value : values) {
+            writeString(value);
+        }
+    }
+
+    void writeStringMap(Map<String, String> values) {
+        if (values == null) {
+            writeVarLong(0);
+            return;
+        }
+        writeVarLong(values.size() + 1L);
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            writeString(entry.getKey());
+            writeString(entry.getValue());
+        }
+    }
+
+    void writeLongMap(Map<String, Long> values) {
+        if (values == null) {
+            writeVarLong(0);
+            return;
+        }
+        writeVarLong(values.size() + 1L);
+        for (Map.Entry<String, Long> entry : values.entrySet()) {
+            writeString(entry.getKey());
+            writeNullableLong(entry.getValue());
+        }
+    }
+
+    void writeNullableLong(Long value) {
+        if (value == null) {
+            writeByte(0);
+        } else {
+            writeByte(1);
+            writeSignedVarLong(value);
+        }
+    }
+
+    /**
+     * Write the dictionary followed by the body to the output
+     */
+    void writeTo(BinaryWriter out) {
+        out.writeVarLong(strings.size());
+        for (String value : strings) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeVarLong(bytes.length);
+            out.writeBytes(bytes, 0, bytes.length);
+        }
+        out.writeBytes(buffer, 0, position);
+    }
+
+    /**
+     * @return a writer for raw bytes that does not keep a dictionary
+     */
+    static BinaryWriter raw(int initialSize) {
+        return new BinaryWriter(initialSize, false);
+    }
+
+    byte[] buffer() {
+        return buffer;
+    }
+
+    int size() {
+        return position;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+}
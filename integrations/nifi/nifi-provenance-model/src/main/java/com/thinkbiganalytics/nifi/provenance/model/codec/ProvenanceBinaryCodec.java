@@ -0,0 +1,725 @@
+package com.thinkbiganalytics.nifi.provenance.model.codec;
+
+/*-
+ * #%L
+ * thinkbig-nifi-provenance-model
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.nifi.provenance.KyloProcessorFlowType;
+import com.thinkbiganalytics.nifi.provenance.model.ProvenanceEventRecordDTO;
+import com.thinkbiganalytics.nifi.provenance.model.ProvenanceEventRecordDTOHolder;
+import com.thinkbiganalytics.nifi.provenance.model.stats.AggregatedFeedProcessorStatistics;
+import com.thinkbiganalytics.nifi.provenance.model.stats.AggregatedFeedProcessorStatisticsHolder;
+import com.thinkbiganalytics.nifi.provenance.model.stats.AggregatedFeedProcessorStatisticsHolderV2;
+import com.thinkbiganalytics.nifi.provenance.model.stats.AggregatedFeedProcessorStatisticsHolderV3;
+import com.thinkbiganalytics.nifi.provenance.model.stats.AggregatedFeedProcessorStatisticsV2;
+import com.thinkbiganalytics.nifi.provenance.model.stats.AggregatedProcessorStatistics;
+import com.thinkbiganalytics.nifi.provenance.model.stats.AggregatedProcessorStatisticsV2;
+import com.thinkbiganalytics.nifi.provenance.model.stats.GroupedStats;
+import com.thinkbiganalytics.nifi.provenance.model.stats.GroupedStatsV2;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of the provenance event batches and feed statistics sent from NiFi to Kylo over JMS.
+ *
+ * Each message is a small frame header followed by a string dictionary and the body.
+ * The processor, group, feed and flow file ids repeat across the events in a batch so they are written once in the dictionary and referenced by index.
+ * Numbers are variable length encoded and the event ids and times are written as the delta from the previous event.
+ * The frame can optionally be compressed with LZ4.
+ *
+ * The JMS headers returned by {@link #headers()} identify the codec so the receiver can tell a binary message apart from a serialized object message.
+ */
+public class ProvenanceBinaryCodec {
+
+    /**
+     * JMS header holding the codec name
+     */
+    public static final String HEADER_CODEC = "kylo_codec";
+
+    /**
+     * JMS header holding the frame version
+     */
+    public static final String HEADER_VERSION = "kylo_codec_version";
+
+    /**
+     * JMS header holding the compression used
+     */
+    public static final String HEADER_COMPRESSION = "kylo_codec_compression";
+
+    public static final String CODEC_NAME = "kylo-binary";
+
+    public static final String COMPRESSION_NONE = "none";
+
+    public static final String COMPRESSION_LZ4 = "lz4";
+
+    /**
+     * The frame version written by this codec. Frames with a greater version are rejected.
+     */
+    public static final int VERSION = 1;
+
+    private static final byte MAGIC_1 = 'K';
+    private static final byte MAGIC_2 = 'P';
+
+    private static final int FLAG_LZ4 = 1;
+
+    private static final int TYPE_EVENTS = 1;
+    private static final int TYPE_STATS = 2;
+
+    private static final int FRAME_HEADER_SIZE = 5;
+
+    /**
+     * Frames smaller than this are not worth compressing
+     */
+    private static final int MIN_COMPRESS_SIZE = 256;
+
+    private static final int EVENT_START_OF_JOB = 1;
+    private static final int EVENT_FINAL_JOB_EVENT = 1 << 1;
+    private static final int EVENT_FAILURE = 1 << 2;
+    private static final int EVENT_STREAM = 1 << 3;
+    private static final int EVENT_HAS_ID = 1 << 4;
+    private static final int EVENT_HAS_TIME = 1 << 5;
+    private static final int EVENT_HAS_START_TIME = 1 << 6;
+    private static final int EVENT_HAS_DURATION = 1 << 7;
+    private static final int EVENT_HAS_FILE_SIZE = 1 << 8;
+    private static final int EVENT_HAS_INPUT_CLAIM_SIZE = 1 << 9;
+    private static final int EVENT_HAS_OUTPUT_CLAIM_SIZE = 1 << 10;
+    private static final int EVENT_HAS_ADDITIONAL_PROPERTIES = 1 << 11;
+
+    private static final int VALUE_NULL = 0;
+    private static final int VALUE_STRING = 1;
+    private static final int VALUE_LONG = 2;
+    private static final int VALUE_INTEGER = 3;
+    private static final int VALUE_DOUBLE = 4;
+    private static final int VALUE_BOOLEAN = 5;
+
+    private static final KyloProcessorFlowType[] FLOW_TYPES = KyloProcessorFlowType.values();
+
+    private final boolean compress;
+
+    private final LZ4Compressor compressor;
+
+    private final LZ4FastDecompressor decompressor;
+
+    public ProvenanceBinaryCodec() {
+        this(false);
+    }
+
+    /**
+     * @param compress true to compress the frames with LZ4
+     */
+    public ProvenanceBinaryCodec(boolean compress) {
+        this.compress = compress;
+        LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.compressor = factory.fastCompressor();
+        this.decompressor = factory.fastDecompressor();
+    }
+
+    /**
+     * @return the JMS headers to send along with the encoded messages
+     */
+    public Map<String, Object> headers() {
+        Map<String, Object> headers = new HashMap<>();
+        headers.put(HEADER_CODEC, CODEC_NAME);
+        headers.put(HEADER_VERSION, VERSION);
+        headers.put(HEADER_COMPRESSION, compress ? COMPRESSION_LZ4 : COMPRESSION_NONE);
+        return headers;
+    }
+
+    /**
+     * Check the JMS headers of a received message
+     *
+     * @param codec   the value of the {@link #HEADER_CODEC} header
+     * @param version the value of the {@link #HEADER_VERSION} header, or null if missing
+     * @return true if the message was written by this codec and can be decoded
+     */
+    public static boolean isSupported(Object codec, Object version) {
+        if (!CODEC_NAME.equals(codec)) {
+            return false;
+        }
+        if (version == null) {
+            return true;
+        }
+        try {
+            return Integer.parseInt(version.toString()) <= VERSION;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Encode the batch of events
+     *
+     * @throws IllegalArgumentException if an event holds an additional property value that cannot be encoded
+     */
+    public byte[] encodeEvents(ProvenanceEventRecordDTOHolder holder) {
+        List<ProvenanceEventRecordDTO> events = holder.getEvents();
+        BinaryWriter body = new BinaryWriter(events != null ? events.size() * 96 : 64);
+        body.writeString(holder.getBatchId());
+        if (events == null) {
+            body.writeVarLong(0);
+        } else {
+            body.writeVarLong(events.size() + 1L);
+            long previousId = 0L;
+            long previousTime = 0L;
+            for (ProvenanceEventRecordDTO event : events) {
+                writeEvent(body, event, previousId, previousTime);
+                if (event.getEventId() != null) {
+                    previousId = event.getEventId();
+                }
+                if (event.getEventTime() != null) {
+                    previousTime = event.getEventTime();
+                }
+            }
+        }
+        return frame(TYPE_EVENTS, body);
+    }
+
+    /**
+     * Encode the feed statistics
+     *
+     * @throws IllegalArgumentException if the statistics are of a type the codec does not know how to encode
+     */
+    public byte[] encodeStats(AggregatedFeedProcessorStatisticsHolder holder) {
+        BinaryWriter body = new BinaryWriter(512);
+        writeStatsHolder(body, holder);
+        return frame(TYPE_STATS, body);
+    }
+
+    /**
+     * Decode a frame written by {@link #encodeEvents(ProvenanceEventRecordDTOHolder)} or {@link #encodeStats(AggregatedFeedProcessorStatisticsHolder)}
+     *
+     * @return a {@link ProvenanceEventRecordDTOHolder} or an {@link AggregatedFeedProcessorStatisticsHolder}
+     * @throws IllegalArgumentException if the frame is not valid
+     */
+    public Object decode(byte[] bytes) {
+        if (bytes == null || bytes.length < FRAME_HEADER_SIZE || bytes[0] != MAGIC_1 || bytes[1] != MAGIC_2) {
+            throw new IllegalArgumentException("Not a " + CODEC_NAME + " frame");
+        }
+        int version = bytes[2] & 0xFF;
+        if (version > VERSION) {
+            throw new IllegalArgumentException("Unsupported " + CODEC_NAME + " frame version " + version + ". The highest supported version is " + VERSION);
+        }
+        int flags = bytes[3] & 0xFF;
+        int type = bytes[4] & 0xFF;
+
+        BinaryReader reader;
+        if ((flags & FLAG_LZ4) != 0) {
+            BinaryReader lengthReader = new BinaryReader(bytes, FRAME_HEADER_SIZE, 4);
+            int length = lengthReader.readInt();
+            if (length < 0) {
+                throw new IllegalArgumentException("Invalid uncompressed length " + length);
+            }
+            byte[] uncompressed = new byte[length];
+            try {
+                decompressor.decompress(bytes, FRAME_HEADER_SIZE + 4, uncompressed, 0, length);
+            } catch (LZ4Exception e) {
+                throw new IllegalArgumentException("Unable to decompress the " + CODEC_NAME + " frame", e);
+            }
+            reader = new BinaryReader(uncompressed, 0, length);
+        } else {
+            reader = new BinaryReader(bytes, FRAME_HEADER_SIZE, bytes.length - FRAME_HEADER_SIZE);
+        }
+        reader.readDictionary();
+
+        switch (type) {
+            case TYPE_EVENTS:
+                return readEvents(reader);
+            case TYPE_STATS:
+                return readStatsHolder(reader);
+            default:
+                throw new IllegalArgumentException("Unknown " + CODEC_NAME + " payload type " + type);
+        }
+    }
+
+    public ProvenanceEventRecordDTOHolder decodeEvents(byte[] bytes) {
+        Object decoded = decode(bytes);
+        if (!(decoded instanceof ProvenanceEventRecordDTOHolder)) {
+            throw new IllegalArgumentException("The frame does not hold provenance events");
+        }
+        return (ProvenanceEventRecordDTOHolder) decoded;
+    }
+
+    public AggregatedFeedProcessorStatisticsHolder decodeStats(byte[] bytes) {
+        Object decoded = decode(bytes);
+        if (!(decoded instanceof AggregatedFeedProcessorStatisticsHolder)) {
+            throw new IllegalArgumentException("The frame does not hold feed statistics");
+        }
+        return (AggregatedFeedProcessorStatisticsHolder) decoded;
+    }
+
+    /**
+     * Write the frame header followed by the dictionary and body, compressing them if enabled
+     */
+    private byte[] frame(int type, BinaryWriter body) {
+        BinaryWriter payload = BinaryWriter.raw(body.size() + 256);
+        body.writeTo(payload);
+
+        boolean lz4 = compress && payload.size() >= MIN_COMPRESS_SIZE;
+        BinaryWriter out = BinaryWriter.raw(lz4 ? compressor.maxCompressedLength(payload.size()) + FRAME_HEADER_SIZE + 4 : payload.size() + FRAME_HEADER_SIZE);
+        out.writeByte(MAGIC_1);
+        out.writeByte(MAGIC_2);
+        out.writeByte(VERSION);
+        out.writeByte(lz4 ? FLAG_LZ4 : 0);
+        out.writeByte(type);
+        if (lz4) {
+            out.writeInt(payload.size());
+            byte[] compressed = new byte[compressor.maxCompressedLength(payload.size())];
+            int length = compressor.compress(payload.buffer(), 0, payload.size(), compressed, 0, compressed.length);
+            out.writeBytes(compressed, 0, length);
+        } else {
+            out.writeBytes(payload.buffer(), 0, payload.size());
+        }
+        return out.toByteArray();
+    }
+
+    private void writeEvent(BinaryWriter out, ProvenanceEventRecordDTO event, long previousId, long previousTime) {
+        int flags = 0;
+        flags |= event.isStartOfJob() ? EVENT_START_OF_JOB : 0;
+        flags |= event.isFinalJobEvent() ? EVENT_FINAL_JOB_EVENT : 0;
+        flags |= event.isFailure() ? EVENT_FAILURE : 0;
+        flags |= event.isStream() ? EVENT_STREAM : 0;
+        flags |= event.getEventId() != null ? EVENT_HAS_ID : 0;
+        flags |= event.getEventTime() != null ? EVENT_HAS_TIME : 0;
+        flags |= event.getStartTime() != null ? EVENT_HAS_START_TIME : 0;
+        flags |= event.getEventDuration() != null ? EVENT_HAS_DURATION : 0;
+        flags |= event.getFileSizeBytes() != null ? EVENT_HAS_FILE_SIZE : 0;
+        flags |= event.getInputContentClaimFileSizeBytes() != null ? EVENT_HAS_INPUT_CLAIM_SIZE : 0;
+        flags |= event.getOutputContentClaimFileSizeBytes() != null ? EVENT_HAS_OUTPUT_CLAIM_SIZE : 0;
+        flags |= event.getAdditionalProperties() != null ? EVENT_HAS_ADDITIONAL_PROPERTIES : 0;
+        out.writeVarLong(flags);
+
+        if (event.getEventId() != null) {
+            out.writeSignedVarLong(event.getEventId() - previousId);
+        }
+        long eventTime = event.getEventTime() != null ? event.getEventTime() : previousTime;
+        if (event.getEventTime() != null) {
+            out.writeSignedVarLong(eventTime - previousTime);
+        }
+        if (event.getStartTime() != null) {
+            out.writeSignedVarLong(eventTime - event.getStartTime());
+        }
+        if (event.getEventDuration() != null) {
+            out.writeSignedVarLong(event.getEventDuration());
+        }
+        if (event.getFileSizeBytes() != null) {
+            out.writeSignedVarLong(event.getFileSizeBytes());
+        }
+        if (event.getInputContentClaimFileSizeBytes() != null) {
+            out.writeSignedVarLong(event.getInputContentClaimFileSizeBytes());
+        }
+        if (event.getOutputContentClaimFileSizeBytes() != null) {
+            out.writeSignedVarLong(event.getOutputContentClaimFileSizeBytes());
+        }
+        out.writeVarLong(event.getProcessorType() != null ? event.getProcessorType().ordinal() + 1 : 0);
+
+        out.writeString(event.getEventType());
+        out.writeString(event.getFlowFileUuid());
+        out.writeString(event.getFileSize());
+        out.writeString(event.getClusterNodeId());
+        out.writeString(event.getClusterNodeAddress());
+        out.writeString(event.getGroupId());
+        out.writeString(event.getComponentId());
+        out.writeString(event.getComponentType());
+        out.writeString(event.getComponentName());
+        out.writeString(event.getDetails());
+        out.writeString(event.getSourceConnectionIdentifier());
+        out.writeString(event.getInputContentClaimFileSize());
+        out.writeString(event.getOutputContentClaimFileSize());
+        out.writeString(event.getJobFlowFileId());
+        out.writeString(event.getRelationship());
+        out.writeString(event.getFirstEventProcessorId());
+        out.writeString(event.getFeedName());
+        out.writeString(event.getFeedProcessGroupId());
+        out.writeStringList(event.getParentUuids());
+        out.writeStringList(event.getChildUuids());
+        out.writeStringMap(event.getUpdatedAttributes());
+        out.writeStringMap(event.getPreviousAttributes());
+        out.writeStringMap(event.getAttributeMap());
+        if (event.getAdditionalProperties() != null) {
+            writeObjectMap(out, event.getAdditionalProperties());
+        }
+    }
+
+    private ProvenanceEventRecordDTOHolder readEvents(BinaryReader in) {
+        ProvenanceEventRecordDTOHolder holder = new ProvenanceEventRecordDTOHolder();
+        holder.setBatchId(in.readString());
+        int count = in.readCount();
+        if (count > 0) {
+            List<ProvenanceEventRecordDTO> events = new ArrayList<>(count - 1);
+            long previousId = 0L;
+            long previousTime = 0L;
+            for (int i = 1; i < count; i++) {
+                ProvenanceEventRecordDTO event = readEvent(in, previousId, previousTime);
+                if (event.getEventId() != null) {
+                    previousId = event.getEventId();
+                }
+                if (event.getEventTime() != null) {
+                    previousTime = event.getEventTime();
+                }
+                events.add(event);
+            }
+            holder.setEvents(events);
+        } else {
+            holder.setEvents(null);
+        }
+        return holder;
+    }
+
+    private ProvenanceEventRecordDTO readEvent(BinaryReader in, long previousId, long previousTime) {
+        ProvenanceEventRecordDTO event = new ProvenanceEventRecordDTO();
+        long flags = in.readVarLong();
+        event.setIsStartOfJob((flags & EVENT_START_OF_JOB) != 0);
+        event.setIsFinalJobEvent((flags & EVENT_FINAL_JOB_EVENT) != 0);
+        event.setIsFailure((flags & EVENT_FAILURE) != 0);
+        event.setStream((flags & EVENT_STREAM) != 0);
+
+        if ((flags & EVENT_HAS_ID) != 0) {
+            event.setEventId(previousId + in.readSignedVarLong());
+        }
+        long eventTime = previousTime;
+        if ((flags & EVENT_HAS_TIME) != 0) {
+            eventTime = previousTime + in.readSignedVarLong();
+            event.setEventTime(eventTime);
+        }
+        if ((flags & EVENT_HAS_START_TIME) != 0) {
+            event.setStartTime(eventTime - in.readSignedVarLong());
+        }
+        if ((flags & EVENT_HAS_DURATION) != 0) {
+            event.setEventDuration(in.readSignedVarLong());
+        }
+        if ((flags & EVENT_HAS_FILE_SIZE) != 0) {
+            event.setFileSizeBytes(in.readSignedVarLong());
+        }
+        if ((flags & EVENT_HAS_INPUT_CLAIM_SIZE) != 0) {
+            event.setInputContentClaimFileSizeBytes(in.readSignedVarLong());
+        }
+        if ((flags & EVENT_HAS_OUTPUT_CLAIM_SIZE) != 0) {
+            event.setOutputContentClaimFileSizeBytes(in.readSignedVarLong());
+        }
+        int processorType = in.readCount();
+        if (processorType > FLOW_TYPES.length) {
+            throw new IllegalArgumentException("Unknown processor flow type " + processorType);
+        }
+        event.setProcessorType(processorType == 0 ? null : FLOW_TYPES[processorType - 1]);
+
+        event.setEventType(in.readString());
+        event.setFlowFileUuid(in.readString());
+        event.setFileSize(in.readString());
+        event.setClusterNodeId(in.readString());
+        event.setClusterNodeAddress(in.readString());
+        event.setGroupId(in.readString());
+        event.setComponentId(in.readString());
+        event.setComponentType(in.readString());
+        event.setComponentName(in.readString());
+        event.setDetails(in.readString());
+        event.setSourceConnectionIdentifier(in.readString());
+        event.setInputContentClaimFileSize(in.readString());
+        event.setOutputContentClaimFileSize(in.readString());
+        event.setJobFlowFileId(in.readString());
+        event.setRelationship(in.readString());
+        event.setFirstEventProcessorId(in.readString());
+        event.setFeedName(in.readString());
+        event.setFeedProcessGroupId(in.readString());
+        event.setParentUuids(in.readStringList());
+        event.setChildUuids(in.readStringList());
+        event.setUpdatedAttributes(in.readStringMap());
+        event.setPreviousAttributes(in.readStringMap());
+        event.setAttributeMap(in.readStringMap());
+        event.setAdditionalProperties((flags & EVENT_HAS_ADDITIONAL_PROPERTIES) != 0 ? readObjectMap(in) : null);
+        return event;
+    }
+
+    private void writeStatsHolder(BinaryWriter out, AggregatedFeedProcessorStatisticsHolder holder) {
+        Class<?> type = holder.getClass();
+        int version;
+        if (type == AggregatedFeedProcessorStatisticsHolder.class) {
+            version = 1;
+        } else if (type == AggregatedFeedProcessorStatisticsHolderV2.class) {
+            version = 2;
+        } else if (type == AggregatedFeedProcessorStatisticsHolderV3.class) {
+            version = 3;
+        } else {
+            throw new IllegalArgumentException("Unable to encode statistics of type " + type.getName());
+        }
+        out.writeVarLong(version);
+        out.writeString(holder.getCollectionId());
+        out.writeSignedVarLong(holder.getEventCount().get());
+        out.writeNullableLong(holder.getMinEventId());
+        out.writeNullableLong(holder.getMaxEventId());
+        if (version >= 2) {
+            out.writeLongMap(((AggregatedFeedProcessorStatisticsHolderV2) holder).getProcessorIdRunningFlows());
+        }
+        if (version >= 3) {
+            out.writeNullableLong(((AggregatedFeedProcessorStatisticsHolderV3) holder).getTimestamp());
+        }
+
+        Map<String, AggregatedFeedProcessorStatistics> feedStatistics = holder.getFeedStatistics();
+        out.writeVarLong(feedStatistics.size());
+        for (Map.Entry<String, AggregatedFeedProcessorStatistics> entry : feedStatistics.entrySet()) {
+            out.writeString(entry.getKey());
+            writeFeedStatistics(out, entry.getValue());
+        }
+    }
+
+    private AggregatedFeedProcessorStatisticsHolder readStatsHolder(BinaryReader in) {
+        int version = in.readCount();
+        AggregatedFeedProcessorStatisticsHolder holder;
+        switch (version) {
+            case 1:
+                holder = new AggregatedFeedProcessorStatisticsHolder();
+                break;
+            case 2:
+                holder = new AggregatedFeedProcessorStatisticsHolderV2();
+                break;
+            case 3:
+                holder = new AggregatedFeedProcessorStatisticsHolderV3();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown statistics version " + version);
+        }
+        holder.setCollectionId(in.readString());
+        holder.getEventCount().set(in.readSignedVarLong());
+        holder.setMinEventId(in.readNullableLong());
+        holder.setMaxEventId(in.readNullableLong());
+        if (version >= 2) {
+            ((AggregatedFeedProcessorStatisticsHolderV2) holder).setProcessorIdRunningFlows(in.readLongMap());
+        }
+        if (version >= 3) {
+            ((AggregatedFeedProcessorStatisticsHolderV3) holder).setTimestamp(in.readNullableLong());
+        }
+
+        int count = in.readCount();
+        Map<String, AggregatedFeedProcessorStatistics> feedStatistics = holder.getFeedStatistics();
+        for (int i = 0; i < count; i++) {
+            String key = in.readString();
+            feedStatistics.put(key, readFeedStatistics(in));
+        }
+        return holder;
+    }
+
+    private void writeFeedStatistics(BinaryWriter out, AggregatedFeedProcessorStatistics stats) {
+        boolean v2 = stats instanceof AggregatedFeedProcessorStatisticsV2;
+        out.writeByte(v2 ? 2 : 1);
+        out.writeString(stats.getStartingProcessorId());
+        out.writeString(stats.getProcessGroup());
+        out.writeString(stats.getCollectionId());
+        out.writeNullableLong(stats.getTotalEvents());
+        out.writeNullableLong(stats.getMinEventId());
+        out.writeNullableLong(stats.getMaxEventId());
+        out.writeNullableLong(stats.getCollectionIntervalMillis());
+        if (v2) {
+            out.writeString(((AggregatedFeedProcessorStatisticsV2) stats).getFeedName());
+        }
+
+        Map<String, AggregatedProcessorStatistics> processorStats = stats.getProcessorStats();
+        out.writeVarLong(processorStats.size());
+        for (Map.Entry<String, AggregatedProcessorStatistics> entry : processorStats.entrySet()) {
+            out.writeString(entry.getKey());
+            writeProcessorStatistics(out, entry.getValue());
+        }
+    }
+
+    private AggregatedFeedProcessorStatistics readFeedStatistics(BinaryReader in) {
+        int version = in.readByte();
+        AggregatedFeedProcessorStatistics stats = version == 2 ? new AggregatedFeedProcessorStatisticsV2() : new AggregatedFeedProcessorStatistics();
+        stats.setStartingProcessorId(in.readString());
+        stats.setProcessGroup(in.readString());
+        stats.setCollectionId(in.readString());
+        stats.setTotalEvents(in.readNullableLong());
+        stats.setMinEventId(in.readNullableLong());
+        stats.setMaxEventId(in.readNullableLong());
+        stats.setCollectionIntervalMillis(in.readNullableLong());
+        if (version == 2) {
+            ((AggregatedFeedProcessorStatisticsV2) stats).setFeedName(in.readString());
+        }
+
+        int count = in.readCount();
+        Map<String, AggregatedProcessorStatistics> processorStats = stats.getProcessorStats();
+        for (int i = 0; i < count; i++) {
+            String key = in.readString();
+            processorStats.put(key, readProcessorStatistics(in));
+        }
+        return stats;
+    }
+
+    private void writeProcessorStatistics(BinaryWriter out, AggregatedProcessorStatistics stats) {
+        out.writeByte(stats instanceof AggregatedProcessorStatisticsV2 ? 2 : 1);
+        out.writeString(stats.getProcessorId());
+        out.writeString(stats.getProcessorName());
+        out.writeString(stats.getCollectionId());
+
+        Map<String, GroupedStats> groupedStats = stats.getStats();
+        out.writeVarLong(groupedStats.size());
+        for (Map.Entry<String, GroupedStats> entry : groupedStats.entrySet()) {
+            out.writeString(entry.getKey());
+            writeGroupedStats(out, entry.getValue());
+        }
+    }
+
+    private AggregatedProcessorStatistics readProcessorStatistics(BinaryReader in) {
+        int version = in.readByte();
+        String processorId = in.readString();
+        String processorName = in.readString();
+        String collectionId = in.readString();
+        AggregatedProcessorStatistics stats = version == 2 ? new AggregatedProcessorStatisticsV2(processorId, processorName, collectionId)
+                                                           : new AggregatedProcessorStatistics(processorId, processorName, collectionId);
+        int count = in.readCount();
+        Map<String, GroupedStats> groupedStats = stats.getStats();
+        for (int i = 0; i < count; i++) {
+            String key = in.readString();
+            groupedStats.put(key, readGroupedStats(in));
+        }
+        return stats;
+    }
+
+    private void writeGroupedStats(BinaryWriter out, GroupedStats stats) {
+        boolean v2 = stats instanceof GroupedStatsV2;
+        out.writeByte(v2 ? 2 : 1);
+        out.writeNullableLong(stats.getTime());
+        out.writeSignedVarLong(stats.getBytesIn());
+        out.writeSignedVarLong(stats.getBytesOut());
+        out.writeSignedVarLong(stats.getDuration());
+        out.writeSignedVarLong(stats.getTotalCount());
+        out.writeSignedVarLong(stats.getJobsStarted());
+        out.writeSignedVarLong(stats.getJobsFinished());
+        out.writeSignedVarLong(stats.getProcessorsFailed());
+        out.writeSignedVarLong(stats.getFlowFilesStarted());
+        out.writeSignedVarLong(stats.getFlowFilesFinished());
+        out.writeSignedVarLong(stats.getJobsFailed());
+        out.writeSignedVarLong(stats.getSuccessfulJobDuration());
+        out.writeSignedVarLong(stats.getJobDuration());
+        out.writeSignedVarLong(stats.getMaxEventId());
+        out.writeString(stats.getSourceConnectionIdentifier());
+        out.writeString(stats.getClusterNodeId());
+        out.writeString(stats.getClusterNodeAddress());
+        out.writeString(stats.getGroupKey());
+        out.writeNullableLong(stats.getMinTime());
+        out.writeNullableLong(stats.getMaxTime());
+        if (v2) {
+            GroupedStatsV2 statsV2 = (GroupedStatsV2) stats;
+            out.writeString(statsV2.getLatestFlowFileId());
+            out.writeByte(statsV2.getAdditionalProperties() != null ? 1 : 0);
+            if (statsV2.getAdditionalProperties() != null) {
+                writeObjectMap(out, statsV2.getAdditionalProperties());
+            }
+        }
+    }
+
+    private GroupedStats readGroupedStats(BinaryReader in) {
+        int version = in.readByte();
+        GroupedStats stats = version == 2 ? new GroupedStatsV2() : new GroupedStats();
+        stats.setTime(in.readNullableLong());
+        stats.setBytesIn(in.readSignedVarLong());
+        stats.setBytesOut(in.readSignedVarLong());
+        stats.setDuration(in.readSignedVarLong());
+        stats.setTotalCount(in.readSignedVarLong());
+        stats.setJobsStarted(in.readSignedVarLong());
+        stats.setJobsFinished(in.readSignedVarLong());
+        stats.setProcessorsFailed(in.readSignedVarLong());
+        stats.setFlowFilesStarted(in.readSignedVarLong());
+        stats.setFlowFilesFinished(in.readSignedVarLong());
+        stats.setJobsFailed(in.readSignedVarLong());
+        stats.setSuccessfulJobDuration(in.readSignedVarLong());
+        stats.setJobDuration(in.readSignedVarLong());
+        stats.setMaxEventId(in.readSignedVarLong());
+        stats.setSourceConnectionIdentifier(in.readString());
+        stats.setClusterNodeId(in.readString());
+        stats.setClusterNodeAddress(in.readString());
+        stats.setGroupKey(in.readString());
+        stats.setMinTime(in.readNullableLong());
+        stats.setMaxTime(in.readNullableLong());
+        if (version == 2) {
+            GroupedStatsV2 statsV2 = (GroupedStatsV2) stats;
+            statsV2.setLatestFlowFileId(in.readString());
+            statsV2.setAdditionalProperties(in.readByte() != 0 ? readObjectMap(in) : null);
+        }
+        return stats;
+    }
+
+    /**
+     * Write a map of the simple values found in the additional properties
+     */
+    private void writeObjectMap(BinaryWriter out, Map<String, Object> values) {
+        out.writeVarLong(values.size());
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            out.writeString(entry.getKey());
+            Object value = entry.getValue();
+            if (value == null) {
+                out.writeByte(VALUE_NULL);
+            } else if (value instanceof String) {
+                out.writeByte(VALUE_STRING);
+                out.writeString((String) value);
+            } else if (value instanceof Long) {
+                out.writeByte(VALUE_LONG);
+                out.writeSignedVarLong((Long) value);
+            } else if (value instanceof Integer) {
+                out.writeByte(VALUE_INTEGER);
+                out.writeSignedVarLong((Integer) value);
+            } else if (value instanceof Double) {
+                out.writeByte(VALUE_DOUBLE);
+                out.writeDouble((Double) value);
+            } else if (value instanceof Boolean) {
+                out.writeByte(VALUE_BOOLEAN);
+                out.writeByte((Boolean) value ? 1 : 0);
+            } else {
+                throw new IllegalArgumentException("Unable to encode the property " + entry.getKey() + " of type " + value.getClass().getName());
+            }
+        }
+    }
+
+    private Map<String, Object> readObjectMap(BinaryReader in) {
+        int count = in.readCount();
+        Map<String, Object> values = new HashMap<>(Math.max(4, count * 2));
+        for (int i = 0; i < count; i++) {
+            String key = in.readString();
+            int type = in.readByte();
+            switch (type) {
+                case VALUE_NULL:
+                    values.put(key, null);
+                    break;
+                case VALUE_STRING:
+                    values.put(key, in.readString());
+                    break;
+                case VALUE_LONG:
+                    values.put(key, in.readSignedVarLong());
+                    break;
+                case VALUE_INTEGER:
+                    values.put(key, (int) in.readSignedVarLong());
+                    break;
+                case VALUE_DOUBLE:
+                    values.put(key, in.readDouble());
+                    break;
+                case VALUE_BOOLEAN:
+                    values.put(key, in.readByte() != 0);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown property type " + type + " for " + key);
+            }
+        }
+        return values;
+    }
+}
@@ -68,6 +68,14 @@ public class AggregatedFeedProcessorStatisticsHolder implements Serializable {
         return maxEventId;
     }
 
+    public void setMinEventId(Long minEventId) {
+        this.minEventId = minEventId;
+    }
+
+    public void setMaxEventId(Long maxEventId) {
+        this.maxEventId = maxEventId;
+    }
+
     public Map<String, AggregatedFeedProcessorStatistics> getFeedStatistics() {
         return feedStatistics;
     }
@@ -91,6 +99,10 @@ public class AggregatedFeedProcessorStatisticsHolder implements Serializable {
         return feedStatistics.values().stream().anyMatch(s -> s.hasStats());
     }
 
+    public String getCollectionId() {
+        return collectionId;
+    }
+
     public void setCollectionId(String collectionId) {
         this.collectionId = collectionId;
     }
@@ -0,0 +1,165 @@
+package com.thinkbiganalytics.nifi.provenance.model.codec;
+
+/*-
+ * #%L
+ * thinkbig-nifi-provenance-model
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.nifi.provenance.model.ProvenanceEventRecordDTOHolder;
+import com.thinkbiganalytics.nifi.provenance.model.stats.AggregatedFeedProcessorStatisticsHolder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Java serialization used by the JMS ObjectMessages against the {@link ProvenanceBinaryCodec}, with and without LZ4.
+ * The batches are generated to resemble the event batches and statistics sent by the KyloProvenanceEventReporter.
+ *
+ * Run with: java -cp target/test-classes:<test classpath> com.thinkbiganalytics.nifi.provenance.model.codec.ProvenanceBinaryCodecBenchmark
+ * The encoded size of each batch is printed before the JMH run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProvenanceBinaryCodecBenchmark {
+
+    @Param({"100", "1000"})
+    public int batchSize;
+
+    private ProvenanceEventRecordDTOHolder events;
+
+    private AggregatedFeedProcessorStatisticsHolder stats;
+
+    private ProvenanceBinaryCodec binary;
+
+    private ProvenanceBinaryCodec lz4;
+
+    private byte[] serializedEvents;
+
+    private byte[] binaryEvents;
+
+    private byte[] lz4Events;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        events = ProvenanceBinaryCodecTest.sampleEvents(batchSize);
+        stats = ProvenanceBinaryCodecTest.sampleStats(Math.max(1, batchSize / 50), 10);
+        binary = new ProvenanceBinaryCodec(false);
+        lz4 = new ProvenanceBinaryCodec(true);
+        serializedEvents = serialize(events);
+        binaryEvents = binary.encodeEvents(events);
+        lz4Events = lz4.encodeEvents(events);
+    }
+
+    private static byte[] serialize(Serializable object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+
+    @Benchmark
+    public byte[] encodeEventsSerialized() throws IOException {
+        return serialize(events);
+    }
+
+    @Benchmark
+    public byte[] encodeEventsBinary() {
+        return binary.encodeEvents(events);
+    }
+
+    @Benchmark
+    public byte[] encodeEventsBinaryLz4() {
+        return lz4.encodeEvents(events);
+    }
+
+    @Benchmark
+    public Object decodeEventsSerialized() throws IOException, ClassNotFoundException {
+        return deserialize(serializedEvents);
+    }
+
+    @Benchmark
+    public Object decodeEventsBinary() {
+        return binary.decode(binaryEvents);
+    }
+
+    @Benchmark
+    public Object decodeEventsBinaryLz4() {
+        return lz4.decode(lz4Events);
+    }
+
+    @Benchmark
+    public byte[] encodeStatsSerialized() throws IOException {
+        return serialize(stats);
+    }
+
+    @Benchmark
+    public byte[] encodeStatsBinaryLz4() {
+        return lz4.encodeStats(stats);
+    }
+
+    private static void reportSizes() throws IOException {
+        ProvenanceBinaryCodec binary = new ProvenanceBinaryCodec(false);
+        ProvenanceBinaryCodec lz4 = new ProvenanceBinaryCodec(true);
+        for (int size : new int[]{100, 1000}) {
+            ProvenanceEventRecordDTOHolder events = ProvenanceBinaryCodecTest.sampleEvents(size);
+            System.out.println(String.format("%d events: serialized %d bytes, binary %d bytes, binary+lz4 %d bytes", size, serialize(events).length,
+                                             binary.encodeEvents(events).length, lz4.encodeEvents(events).length));
+            AggregatedFeedProcessorStatisticsHolder stats = ProvenanceBinaryCodecTest.sampleStats(Math.max(1, size / 50), 10);
+            System.out.println(String.format("%d feed statistics: serialized %d bytes, binary %d bytes, binary+lz4 %d bytes", stats.getFeedStatistics().size(), serialize(stats).length,
+                                             binary.encodeStats(stats).length, lz4.encodeStats(stats).length));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        reportSizes();
+        new Runner(new OptionsBuilder()
+                       .include(ProvenanceBinaryCodecBenchmark.class.getSimpleName())
+                       .build()).run();
+    }
+}
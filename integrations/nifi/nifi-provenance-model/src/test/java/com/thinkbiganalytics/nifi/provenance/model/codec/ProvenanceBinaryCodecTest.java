@@ -0,0 +1,265 @@
+package com.thinkbiganalytics.nifi.provenance.model.codec;
+
+/*-
+ * #%L
+ * thinkbig-nifi-provenance-model
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.nifi.provenance.KyloProcessorFlowType;
+import com.thinkbiganalytics.nifi.provenance.model.ProvenanceEventRecordDTO;
+import com.thinkbiganalytics.nifi.provenance.model.ProvenanceEventRecordDTOHolder;
+import com.thinkbiganalytics.nifi.provenance.model.stats.AggregatedFeedProcessorStatistics;
+import com.thinkbiganalytics.nifi.provenance.model.stats.AggregatedFeedProcessorStatisticsHolder;
+import com.thinkbiganalytics.nifi.provenance.model.stats.AggregatedFeedProcessorStatisticsHolderV3;
+import com.thinkbiganalytics.nifi.provenance.model.stats.AggregatedFeedProcessorStatisticsV2;
+import com.thinkbiganalytics.nifi.provenance.model.stats.AggregatedProcessorStatistics;
+import com.thinkbiganalytics.nifi.provenance.model.stats.AggregatedProcessorStatisticsV2;
+import com.thinkbiganalytics.nifi.provenance.model.stats.GroupedStats;
+import com.thinkbiganalytics.nifi.provenance.model.stats.GroupedStatsV2;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class ProvenanceBinaryCodecTest {
+
+    /**
+     * Build a batch of events resembling those sent by the KyloProvenanceEventReporter, with a few feeds sharing processors
+     */
+    static ProvenanceEventRecordDTOHolder sampleEvents(int count) {
+        String[] feeds = {"category.feed_a", "category.feed_b", "category.feed_c"};
+        String[] processors = new String[8];
+        for (int i = 0; i < processors.length; i++) {
+            processors[i] = UUID.randomUUID().toString();
+        }
+        String[] jobFlowFiles = new String[Math.max(1, count / 20)];
+        for (int i = 0; i < jobFlowFiles.length; i++) {
+            jobFlowFiles[i] = UUID.randomUUID().toString();
+        }
+        long eventTime = System.currentTimeMillis();
+        List<ProvenanceEventRecordDTO> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ProvenanceEventRecordDTO event = new ProvenanceEventRecordDTO();
+            String feed = feeds[i % feeds.length];
+            int processor = i % processors.length;
+            eventTime += i % 7;
+            event.setEventId(1000L + i);
+            event.setEventTime(eventTime);
+            event.setStartTime(eventTime - 15);
+            event.setEventDuration(15L);
+            event.setEventType(processor == 0 ? "CREATE" : "ATTRIBUTES_MODIFIED");
+            event.setFlowFileUuid(UUID.randomUUID().toString());
+            event.setFileSize("1.2 KB");
+            event.setFileSizeBytes(1228L);
+            event.setGroupId(feed + "-group");
+            event.setComponentId(processors[processor]);
+            event.setComponentType("UpdateAttribute");
+            event.setComponentName("Processor " + processor);
+            event.setSourceConnectionIdentifier(UUID.randomUUID().toString());
+            event.setJobFlowFileId(jobFlowFiles[i % jobFlowFiles.length]);
+            event.setFirstEventProcessorId(processors[0]);
+            event.setFeedName(feed);
+            event.setFeedProcessGroupId(feed + "-group");
+            event.setIsStartOfJob(processor == 0);
+            event.setIsFinalJobEvent(processor == processors.length - 1);
+            event.setIsFailure(i % 50 == 0);
+            event.setProcessorType(i % 50 == 0 ? KyloProcessorFlowType.FAILURE : KyloProcessorFlowType.NORMAL_FLOW);
+            event.setParentUuids(Collections.singletonList(event.getJobFlowFileId()));
+            event.setChildUuids(new ArrayList<>());
+            Map<String, String> attributes = new HashMap<>();
+            attributes.put("feed", feed);
+            attributes.put("filename", "file-" + (i % 20) + ".csv");
+            event.setUpdatedAttributes(attributes);
+            event.setPreviousAttributes(new HashMap<>());
+            events.add(event);
+        }
+        ProvenanceEventRecordDTOHolder holder = new ProvenanceEventRecordDTOHolder();
+        holder.setEvents(events);
+        return holder;
+    }
+
+    static AggregatedFeedProcessorStatisticsHolder sampleStats(int feedCount, int processorCount) {
+        AggregatedFeedProcessorStatisticsHolderV3 holder = new AggregatedFeedProcessorStatisticsHolderV3();
+        holder.setTimestamp(System.currentTimeMillis());
+        holder.getEventCount().set(feedCount * processorCount * 10L);
+        holder.setMinEventId(1L);
+        holder.setMaxEventId(feedCount * processorCount * 10L);
+        Map<String, Long> runningFlows = new HashMap<>();
+        for (int f = 0; f < feedCount; f++) {
+            String startingProcessorId = UUID.randomUUID().toString();
+            AggregatedFeedProcessorStatisticsV2 feedStats = new AggregatedFeedProcessorStatisticsV2(startingProcessorId, holder.getCollectionId(), 3000L, "category.feed_" + f);
+            feedStats.setProcessGroup(UUID.randomUUID().toString());
+            feedStats.setTotalEvents(processorCount * 10L);
+            for (int p = 0; p < processorCount; p++) {
+                String processorId = UUID.randomUUID().toString();
+                AggregatedProcessorStatistics processorStats = new AggregatedProcessorStatisticsV2(processorId, "Processor " + p, holder.getCollectionId());
+                GroupedStatsV2 stats = (GroupedStatsV2) processorStats.getStats(GroupedStats.DEFAULT_SOURCE_CONNECTION_ID);
+                stats.setTime(System.currentTimeMillis());
+                stats.setBytesIn(1024L * p);
+                stats.setDuration(150L);
+                stats.setTotalCount(10L);
+                stats.setJobsFinished(p % 2);
+                stats.setMaxEventId(f * 1000L + p);
+                stats.setLatestFlowFileId(UUID.randomUUID().toString());
+                stats.setMinTime(10L);
+                stats.setMaxTime(20L);
+                feedStats.getProcessorStats().put(processorId, processorStats);
+                runningFlows.put(processorId, (long) p);
+            }
+            holder.getFeedStatistics().put(startingProcessorId, feedStats);
+        }
+        holder.setProcessorIdRunningFlows(runningFlows);
+        return holder;
+    }
+
+    @Test
+    public void testEventsRoundTrip() {
+        verifyEventsRoundTrip(new ProvenanceBinaryCodec(false));
+        verifyEventsRoundTrip(new ProvenanceBinaryCodec(true));
+    }
+
+    private void verifyEventsRoundTrip(ProvenanceBinaryCodec codec) {
+        ProvenanceEventRecordDTOHolder holder = sampleEvents(500);
+        ProvenanceEventRecordDTO nullable = new ProvenanceEventRecordDTO();
+        nullable.setAdditionalProperties(null);
+        holder.getEvents().add(nullable);
+        holder.getEvents().get(0).setAdditionalProperty("count", 3L);
+        holder.getEvents().get(0).setAdditionalProperty("ratio", 0.5d);
+        holder.getEvents().get(0).setAdditionalProperty("stream", Boolean.TRUE);
+        holder.getEvents().get(0).setAdditionalProperty("name", "value");
+
+        ProvenanceEventRecordDTOHolder decoded = codec.decodeEvents(codec.encodeEvents(holder));
+        Assert.assertEquals(holder.getBatchId(), decoded.getBatchId());
+        Assert.assertEquals(holder.getEvents().size(), decoded.getEvents().size());
+        for (int i = 0; i < holder.getEvents().size(); i++) {
+            assertEventEquals(holder.getEvents().get(i), decoded.getEvents().get(i));
+        }
+    }
+
+    private void assertEventEquals(ProvenanceEventRecordDTO expected, ProvenanceEventRecordDTO actual) {
+        Assert.assertEquals(expected.getEventId(), actual.getEventId());
+        Assert.assertEquals(expected.getEventTime(), actual.getEventTime());
+        Assert.assertEquals(expected.getStartTime(), actual.getStartTime());
+        Assert.assertEquals(expected.getEventDuration(), actual.getEventDuration());
+        Assert.assertEquals(expected.getEventType(), actual.getEventType());
+        Assert.assertEquals(expected.getFlowFileUuid(), actual.getFlowFileUuid());
+        Assert.assertEquals(expected.getFileSize(), actual.getFileSize());
+        Assert.assertEquals(expected.getFileSizeBytes(), actual.getFileSizeBytes());
+        Assert.assertEquals(expected.getComponentId(), actual.getComponentId());
+        Assert.assertEquals(expected.getComponentName(), actual.getComponentName());
+        Assert.assertEquals(expected.getJobFlowFileId(), actual.getJobFlowFileId());
+        Assert.assertEquals(expected.getFeedName(), actual.getFeedName());
+        Assert.assertEquals(expected.getFeedProcessGroupId(), actual.getFeedProcessGroupId());
+        Assert.assertEquals(expected.getSourceConnectionIdentifier(), actual.getSourceConnectionIdentifier());
+        Assert.assertEquals(expected.isStartOfJob(), actual.isStartOfJob());
+        Assert.assertEquals(expected.isFinalJobEvent(), actual.isFinalJobEvent());
+        Assert.assertEquals(expected.isFailure(), actual.isFailure());
+        Assert.assertEquals(expected.isStream(), actual.isStream());
+        Assert.assertEquals(expected.getProcessorType(), actual.getProcessorType());
+        Assert.assertEquals(expected.getParentUuids(), actual.getParentUuids());
+        Assert.assertEquals(expected.getChildUuids(), actual.getChildUuids());
+        Assert.assertEquals(expected.getUpdatedAttributes(), actual.getUpdatedAttributes());
+        Assert.assertEquals(expected.getPreviousAttributes(), actual.getPreviousAttributes());
+        Assert.assertEquals(expected.getAttributeMap(), actual.getAttributeMap());
+        Assert.assertEquals(expected.getAdditionalProperties(), actual.getAdditionalProperties());
+    }
+
+    @Test
+    public void testStatsRoundTrip() {
+        ProvenanceBinaryCodec codec = new ProvenanceBinaryCodec(true);
+        AggregatedFeedProcessorStatisticsHolderV3 holder = (AggregatedFeedProcessorStatisticsHolderV3) sampleStats(5, 10);
+
+        AggregatedFeedProcessorStatisticsHolder decoded = codec.decodeStats(codec.encodeStats(holder));
+        Assert.assertTrue(decoded instanceof AggregatedFeedProcessorStatisticsHolderV3);
+        AggregatedFeedProcessorStatisticsHolderV3 decodedV3 = (AggregatedFeedProcessorStatisticsHolderV3) decoded;
+        Assert.assertEquals(holder.getCollectionId(), decodedV3.getCollectionId());
+        Assert.assertEquals(holder.getTimestamp(), decodedV3.getTimestamp());
+        Assert.assertEquals(holder.getEventCount().get(), decodedV3.getEventCount().get());
+        Assert.assertEquals(holder.getMaxEventId(), decodedV3.getMaxEventId());
+        Assert.assertEquals(holder.getProcessorIdRunningFlows(), decodedV3.getProcessorIdRunningFlows());
+        Assert.assertEquals(holder.getFeedStatistics().keySet(), decodedV3.getFeedStatistics().keySet());
+
+        for (Map.Entry<String, AggregatedFeedProcessorStatistics> entry : holder.getFeedStatistics().entrySet()) {
+            AggregatedFeedProcessorStatistics actual = decodedV3.getFeedStatistics().get(entry.getKey());
+            Assert.assertTrue(actual instanceof AggregatedFeedProcessorStatisticsV2);
+            Assert.assertEquals(((AggregatedFeedProcessorStatisticsV2) entry.getValue()).getFeedName(), ((AggregatedFeedProcessorStatisticsV2) actual).getFeedName());
+            Assert.assertEquals(entry.getValue().getProcessGroup(), actual.getProcessGroup());
+            Assert.assertEquals(entry.getValue().getCollectionIntervalMillis(), actual.getCollectionIntervalMillis());
+            Assert.assertEquals(entry.getValue().getProcessorStats().keySet(), actual.getProcessorStats().keySet());
+            for (AggregatedProcessorStatistics processorStats : entry.getValue().getProcessorStats().values()) {
+                AggregatedProcessorStatistics actualProcessorStats = actual.getProcessorStats().get(processorStats.getProcessorId());
+                Assert.assertTrue(actualProcessorStats instanceof AggregatedProcessorStatisticsV2);
+                Assert.assertEquals(processorStats.getProcessorName(), actualProcessorStats.getProcessorName());
+                GroupedStatsV2 expectedStats = (GroupedStatsV2) processorStats.getStats().get(GroupedStats.DEFAULT_SOURCE_CONNECTION_ID);
+                GroupedStatsV2 actualStats = (GroupedStatsV2) actualProcessorStats.getStats().get(GroupedStats.DEFAULT_SOURCE_CONNECTION_ID);
+                Assert.assertEquals(expectedStats.getTime(), actualStats.getTime());
+                Assert.assertEquals(expectedStats.getBytesIn(), actualStats.getBytesIn());
+                Assert.assertEquals(expectedStats.getDuration(), actualStats.getDuration());
+                Assert.assertEquals(expectedStats.getJobsFinished(), actualStats.getJobsFinished());
+                Assert.assertEquals(expectedStats.getMaxEventId(), actualStats.getMaxEventId());
+                Assert.assertEquals(expectedStats.getLatestFlowFileId(), actualStats.getLatestFlowFileId());
+                Assert.assertEquals(expectedStats.getMinTime(), actualStats.getMinTime());
+                Assert.assertEquals(expectedStats.getSourceConnectionIdentifier(), actualStats.getSourceConnectionIdentifier());
+            }
+        }
+    }
+
+    @Test
+    public void testHeaders() {
+        Map<String, Object> headers = new ProvenanceBinaryCodec(true).headers();
+        Assert.assertEquals(ProvenanceBinaryCodec.COMPRESSION_LZ4, headers.get(ProvenanceBinaryCodec.HEADER_COMPRESSION));
+        Assert.assertTrue(ProvenanceBinaryCodec.isSupported(headers.get(ProvenanceBinaryCodec.HEADER_CODEC), headers.get(ProvenanceBinaryCodec.HEADER_VERSION)));
+        Assert.assertFalse(ProvenanceBinaryCodec.isSupported(null, null));
+        Assert.assertFalse(ProvenanceBinaryCodec.isSupported(ProvenanceBinaryCodec.CODEC_NAME, ProvenanceBinaryCodec.VERSION + 1));
+    }
+
+    @Test
+    public void testInvalidFrames() {
+        ProvenanceBinaryCodec codec = new ProvenanceBinaryCodec();
+        byte[] bytes = codec.encodeEvents(sampleEvents(10));
+        try {
+            codec.decode(Arrays.copyOf(bytes, bytes.length / 2));
+            Assert.fail("Expected the truncated frame to be rejected");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+        bytes[2] = (byte) (ProvenanceBinaryCodec.VERSION + 1);
+        try {
+            codec.decode(bytes);
+            Assert.fail("Expected the newer frame version to be rejected");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+
+        ProvenanceEventRecordDTOHolder holder = sampleEvents(1);
+        holder.getEvents().get(0).setAdditionalProperty("unsupported", new Object());
+        try {
+            codec.encodeEvents(holder);
+            Assert.fail("Expected the unsupported property to be rejected");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+    }
+}
@@ -38,6 +38,24 @@ public class ProfilerConfiguration implements Serializable {
     private String outputTableName = "profilestats";
     private String outputTablePartitionColumnName = "processing_dttm";
     private String sqlDialect = "hiveql";  // Hive supported HQL
+    private Mode mode = Mode.EXACT;
+    private Integer uniqueCountPrecision = 14;
+    private Integer topNCapacity = 1000;
+
+    /**
+     * How the profile statistics are calculated
+     */
+    public enum Mode {
+        /**
+         * Count every distinct value of every column. Requires a shuffle of all the distinct values.
+         */
+        EXACT,
+
+        /**
+         * Calculate all statistics in a single pass without a shuffle. Unique counts and top-N values are estimated with sketches.
+         */
+        APPROXIMATE
+    }
 
     /**
      * Number of decimals to print out in console<br>
@@ -129,4 +147,39 @@ public class ProfilerConfiguration implements Serializable {
     public void setSqlDialect(String sqlDialect) {
         this.sqlDialect = sqlDialect;
     }
+
+    /**
+     * How the profile statistics are calculated<br>
+     * Defaults to {@link Mode#EXACT}
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * Precision of the HyperLogLog sketch used for unique counts in {@link Mode#APPROXIMATE} mode<br>
+     * The relative error is about 1.04 / sqrt(2^precision), or 0.8% for the default of 14
+     */
+    public Integer getUniqueCountPrecision() {
+        return uniqueCountPrecision;
+    }
+
+    public void setUniqueCountPrecision(Integer uniqueCountPrecision) {
+        this.uniqueCountPrecision = uniqueCountPrecision;
+    }
+
+    /**
+     * Number of values tracked by the sketch used for top-N values in {@link Mode#APPROXIMATE} mode
+     */
+    public Integer getTopNCapacity() {
+        return topNCapacity;
+    }
+
+    public void setTopNCapacity(Integer topNCapacity) {
+        this.topNCapacity = topNCapacity;
+    }
 }
@@ -37,6 +37,8 @@ import com.thinkbiganalytics.spark.dataprofiler.columns.TimestampColumnStatistic
 import com.thinkbiganalytics.spark.dataprofiler.columns.UnsupportedColumnStatistics;
 import com.thinkbiganalytics.spark.dataprofiler.output.OutputWriter;
 import com.thinkbiganalytics.spark.dataprofiler.output.OutputRow;
+import com.thinkbiganalytics.spark.dataprofiler.sketch.HeavyHitters;
+import com.thinkbiganalytics.spark.dataprofiler.sketch.HyperLogLog;
 import com.thinkbiganalytics.spark.dataprofiler.topn.TopNDataItem;
 import com.thinkbiganalytics.spark.dataprofiler.topn.TopNDataList;
 
@@ -55,9 +57,17 @@ import javax.annotation.Nonnull;
 @Configuration
 public class ProfilerApp {
 
+    /**
+     * Spark property to select the profiling mode, either {@code exact} (the default) or {@code approximate}
+     */
+    public static final String PROFILER_MODE_PROPERTY = "spark.kylo.profiler.mode";
+
     @Bean
     public ProfilerConfiguration profilerConfiguration() {
-        return new ProfilerConfiguration();
+        final ProfilerConfiguration profilerConfiguration = new ProfilerConfiguration();
+        final SparkConf conf = new SparkConf();
+        profilerConfiguration.setMode(ProfilerConfiguration.Mode.valueOf(conf.get(PROFILER_MODE_PROPERTY, ProfilerConfiguration.Mode.EXACT.name()).toUpperCase()));
+        return profilerConfiguration;
     }
 
     @Bean
@@ -97,6 +107,8 @@ public class ProfilerApp {
         serializeClassesList.add(StatisticsModel.class);
         serializeClassesList.add(TopNDataItem.class);
         serializeClassesList.add(TopNDataList.class);
+        serializeClassesList.add(HyperLogLog.class);
+        serializeClassesList.add(HeavyHitters.class);
         serializeClassesList.add(OutputRow.class);
         serializeClassesList.add(OutputWriter.class);
 
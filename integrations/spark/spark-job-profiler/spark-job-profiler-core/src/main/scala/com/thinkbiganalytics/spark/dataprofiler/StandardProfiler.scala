@@ -1,6 +1,7 @@
 package com.thinkbiganalytics.spark.dataprofiler
 
 import com.thinkbiganalytics.spark.dataprofiler.function.PartitionLevelModels
+import com.thinkbiganalytics.spark.dataprofiler.model.StandardStatisticsModel
 import com.thinkbiganalytics.spark.{DataSet, SparkContextService}
 import org.apache.spark.sql.SQLContext
 import org.apache.spark.sql.types.StructField
@@ -35,6 +36,20 @@ class StandardProfiler(val sqlContext: SQLContext, val sparkContextService: Spar
       * @return the statistics model
       */
     private def profileStatistics(dataset: DataSet, schemaMap: Map[Int, StructField], profilerConfiguration: ProfilerConfiguration): Option[StatisticsModel] = {
+        if (profilerConfiguration.getMode == ProfilerConfiguration.Mode.APPROXIMATE) {
+            profileApproximateStatistics(dataset, schemaMap, profilerConfiguration)
+        } else {
+            profileExactStatistics(dataset, schemaMap, profilerConfiguration)
+        }
+    }
+
+    /** Profiles the columns by counting each distinct value of each column.
+      *
+      * @param dataset   the data set
+      * @param schemaMap the schema map
+      * @return the statistics model
+      */
+    private def profileExactStatistics(dataset: DataSet, schemaMap: Map[Int, StructField], profilerConfiguration: ProfilerConfiguration): Option[StatisticsModel] = {
         // Get ((column index, column value), count)
         val columnValueCounts = dataset.rdd
             .flatMap((row) => row.toSeq.zipWithIndex.map((tuple) => ((tuple._2, tuple._1), 1)))
@@ -51,4 +66,37 @@ class StandardProfiler(val sqlContext: SQLContext, val sparkContextService: Spar
             Option.empty
         }
     }
+
+    /** Profiles the columns in the specified data set in a single pass.
+      *
+      * Each partition adds its rows to one model and the models are combined with a tree aggregate, so no values are shuffled. Unique counts and
+      * top-N values are estimated by the sketches in the column statistics.
+      *
+      * @param dataset   the data set
+      * @param schemaMap the schema map
+      * @return the statistics model
+      */
+    private def profileApproximateStatistics(dataset: DataSet, schemaMap: Map[Int, StructField], profilerConfiguration: ProfilerConfiguration): Option[StatisticsModel] = {
+        val fields = schemaMap.toSeq.sortBy(_._1).map(_._2).toArray
+
+        val statisticsModel = dataset.rdd.treeAggregate(new StandardStatisticsModel(profilerConfiguration))(
+            (model, row) => {
+                var index = 0
+                while (index < row.length) {
+                    model.add(index, row.get(index), 1L, fields(index))
+                    index += 1
+                }
+                model
+            },
+            (a, b) => {
+                a.combine(b)
+                a
+            })
+
+        if (!statisticsModel.getColumnStatisticsMap.isEmpty) {
+            Option(statisticsModel)
+        } else {
+            Option.empty
+        }
+    }
 }
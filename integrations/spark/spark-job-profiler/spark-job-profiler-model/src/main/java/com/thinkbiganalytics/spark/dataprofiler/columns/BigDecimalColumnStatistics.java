@@ -78,7 +78,7 @@ public class BigDecimalColumnStatistics extends StandardColumnStatistics {
 
         if (columnValue != null) {
 
-            columnBigDecimalValue = new BigDecimal(String.valueOf(columnValue));
+            columnBigDecimalValue = (columnValue instanceof BigDecimal) ? (BigDecimal) columnValue : new BigDecimal(String.valueOf(columnValue));
             columnBigDecimalCount = new BigDecimal(columnCount);
 
             if (max.compareTo(columnBigDecimalValue) < 0) {
@@ -72,9 +72,9 @@ public class BooleanColumnStatistics extends StandardColumnStatistics {
 
         if (columnValue != null) {
 
-            columnBooleanValue = Boolean.valueOf(String.valueOf(columnValue));
+            columnBooleanValue = (columnValue instanceof Boolean) ? (Boolean) columnValue : Boolean.valueOf(String.valueOf(columnValue));
 
-            if (columnBooleanValue == Boolean.TRUE) {
+            if (columnBooleanValue) {
                 trueCount += columnCount;
             } else {
                 falseCount += columnCount;
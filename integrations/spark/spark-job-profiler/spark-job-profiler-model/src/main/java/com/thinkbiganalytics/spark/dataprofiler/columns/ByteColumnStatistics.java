@@ -48,11 +48,7 @@ public class ByteColumnStatistics extends StandardColumnStatistics {
 
     /* Other variables */
     private double sumOfSquares;
-    private long oldTotalCount;
-    private long oldNullCount;
-    private double oldMean;
-    private double oldStdDev;
-    private double oldSumOfSquares;
+    private boolean derivedStatisticsStale;
 
     private byte columnByteValue;
 
@@ -74,11 +70,6 @@ public class ByteColumnStatistics extends StandardColumnStatistics {
         variance = 0.0d;
 
         sumOfSquares = 0.0d;
-        oldTotalCount = 0L;
-        oldNullCount = 0L;
-        oldMean = 0.0d;
-        oldStdDev = 0.0d;
-        oldSumOfSquares = 0.0d;
 
         columnByteValue = 0;
     }
@@ -93,7 +84,7 @@ public class ByteColumnStatistics extends StandardColumnStatistics {
 
         if (columnValue != null) {
 
-            columnByteValue = Byte.valueOf(String.valueOf(columnValue));
+            columnByteValue = (columnValue instanceof Number) ? ((Number) columnValue).byteValue() : Byte.valueOf(String.valueOf(columnValue));
 
             if (max < columnByteValue) {
                 max = columnByteValue;
@@ -105,19 +96,12 @@ public class ByteColumnStatistics extends StandardColumnStatistics {
 
             sum += (columnByteValue * columnCount);
 
-            oldMean = 0.0d;
-            oldSumOfSquares = 0.0d;
-
-            for (int i = 1; i <= columnCount; i++) {
-                oldMean = mean;
-                oldSumOfSquares = sumOfSquares;
-
-                mean = oldMean + ((columnByteValue - oldMean) / (totalCount - columnCount + i - nullCount));
-                sumOfSquares = oldSumOfSquares + ((columnByteValue - mean) * (columnByteValue - oldMean));
-            }
-
-            variance = sumOfSquares / (totalCount - nullCount);
-            stddev = Math.sqrt(variance);
+            /* Welford's update for columnCount occurrences of the value at once */
+            long nonNullCount = totalCount - nullCount;
+            double delta = columnByteValue - mean;
+            mean += delta * columnCount / nonNullCount;
+            sumOfSquares += delta * delta * (nonNullCount - columnCount) * columnCount / nonNullCount;
+            derivedStatisticsStale = true;
         }
     }
 
@@ -128,50 +112,37 @@ public class ByteColumnStatistics extends StandardColumnStatistics {
     @Override
     public void combine(StandardColumnStatistics v_columnStatistics) {
 
-        saveMetricsForStdDevCalc();
+        ByteColumnStatistics vByte_columnStatistics = (ByteColumnStatistics) v_columnStatistics;
+        long nonNullCount = totalCount - nullCount;
+        long otherNonNullCount = vByte_columnStatistics.totalCount - vByte_columnStatistics.nullCount;
+        double previousMean = mean;
 
         combineCommon(v_columnStatistics);
 
-        ByteColumnStatistics vByte_columnStatistics = (ByteColumnStatistics) v_columnStatistics;
-
         max = (byte) Math.max(max, vByte_columnStatistics.max);
         min = (byte) Math.min(min, vByte_columnStatistics.min);
         sum += vByte_columnStatistics.sum;
         mean = (double) sum / (totalCount - nullCount);
-        stddev = getCombinedStdDev(vByte_columnStatistics);
-        variance = Math.pow(stddev, 2);
 
+        /* Parallel form of Welford's algorithm */
+        if (nonNullCount + otherNonNullCount > 0) {
+            double delta = vByte_columnStatistics.mean - previousMean;
+            sumOfSquares += vByte_columnStatistics.sumOfSquares + delta * delta * nonNullCount * otherNonNullCount / (nonNullCount + otherNonNullCount);
+        }
+        derivedStatisticsStale = true;
     }
 
 
     /*
-     * Save values for running statistical calculations
-     */
-    private void saveMetricsForStdDevCalc() {
-        oldTotalCount = totalCount;
-        oldNullCount = nullCount;
-        oldMean = mean;
-        oldStdDev = stddev;
-    }
-
-
-    /*
-     * Get combined standard deviations from two standard deviations
+     * Calculate the variance and standard deviation from the running sum of squares
      */
-    private double getCombinedStdDev(ByteColumnStatistics vByte_columnStatistics) {
-
-        double meanComb = (
-                              ((oldTotalCount - oldNullCount) * oldMean) +
-                              ((vByte_columnStatistics.totalCount - vByte_columnStatistics.nullCount) * vByte_columnStatistics.mean)
-                          )
-                          / ((oldTotalCount - oldNullCount) + (vByte_columnStatistics.totalCount - vByte_columnStatistics.nullCount));
-
-        double term1 = (oldTotalCount - oldNullCount) * Math.pow(oldStdDev, 2);
-        double term2 = (vByte_columnStatistics.totalCount - vByte_columnStatistics.nullCount) * Math.pow(vByte_columnStatistics.stddev, 2);
-        double term3 = (oldTotalCount - oldNullCount) * Math.pow((oldMean - meanComb), 2);
-        double term4 = (vByte_columnStatistics.totalCount - vByte_columnStatistics.nullCount) * Math.pow((vByte_columnStatistics.mean - meanComb), 2);
-        double term5 = (oldTotalCount - oldNullCount) + (vByte_columnStatistics.totalCount - vByte_columnStatistics.nullCount);
-        return (Math.sqrt((term1 + term2 + term3 + term4) / term5));
+    private void calculateDerivedStatistics() {
+        if (derivedStatisticsStale) {
+            long nonNullCount = totalCount - nullCount;
+            variance = (nonNullCount > 0) ? sumOfSquares / nonNullCount : 0.0d;
+            stddev = Math.sqrt(variance);
+            derivedStatisticsStale = false;
+        }
     }
 
 
@@ -181,6 +152,7 @@ public class ByteColumnStatistics extends StandardColumnStatistics {
     @Override
     public String getVerboseStatistics() {
 
+        calculateDerivedStatistics();
         return "{\n" + getVerboseStatisticsCommon()
                + "\n"
                + "ByteColumnStatistics ["
@@ -199,6 +171,7 @@ public class ByteColumnStatistics extends StandardColumnStatistics {
      */
     @Override
     public List<OutputRow> getStatistics() {
+        calculateDerivedStatistics();
         final List<OutputRow> rows = new ArrayList<>();
 
         writeStatisticsCommon(rows);
@@ -266,6 +239,7 @@ public class ByteColumnStatistics extends StandardColumnStatistics {
      * @return standard deviation (population)
      */
     public double getStddev() {
+        calculateDerivedStatistics();
         return stddev;
     }
 
@@ -275,6 +249,7 @@ public class ByteColumnStatistics extends StandardColumnStatistics {
      * @return variance (population)
      */
     public double getVariance() {
+        calculateDerivedStatistics();
         return variance;
     }
 
@@ -73,7 +73,7 @@ public class DateColumnStatistics extends StandardColumnStatistics {
         accomodateCommon(columnValue, columnCount);
 
         if (columnValue != null) {
-            columnDateValue = Date.valueOf(String.valueOf(columnValue));
+            columnDateValue = (columnValue instanceof Date) ? (Date) columnValue : Date.valueOf(String.valueOf(columnValue));
         }
         if (columnDateValue != null) {
             if (maxDate.before(columnDateValue)) {
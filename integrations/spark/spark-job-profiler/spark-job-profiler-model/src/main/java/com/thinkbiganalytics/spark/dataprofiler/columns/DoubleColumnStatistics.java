@@ -48,11 +48,7 @@ public class DoubleColumnStatistics extends StandardColumnStatistics {
 
     /* Other variables */
     private double sumOfSquares;
-    private long oldTotalCount;
-    private long oldNullCount;
-    private double oldMean;
-    private double oldStdDev;
-    private double oldSumOfSquares;
+    private boolean derivedStatisticsStale;
 
     private double columnDoubleValue;
 
@@ -74,11 +70,6 @@ public class DoubleColumnStatistics extends StandardColumnStatistics {
         variance = 0.0d;
 
         sumOfSquares = 0.0d;
-        oldTotalCount = 0L;
-        oldNullCount = 0L;
-        oldMean = 0.0d;
-        oldStdDev = 0.0d;
-        oldSumOfSquares = 0.0d;
 
         columnDoubleValue = 0.0d;
     }
@@ -93,7 +84,7 @@ public class DoubleColumnStatistics extends StandardColumnStatistics {
         accomodateCommon(columnValue, columnCount);
 
         if (columnValue != null) {
-            columnDoubleValue = Double.valueOf(String.valueOf(columnValue));
+            columnDoubleValue = (columnValue instanceof Number) ? ((Number) columnValue).doubleValue() : Double.valueOf(String.valueOf(columnValue));
 
             if (max < columnDoubleValue) {
                 max = columnDoubleValue;
@@ -105,19 +96,12 @@ public class DoubleColumnStatistics extends StandardColumnStatistics {
 
             sum += (columnDoubleValue * columnCount);
 
-            oldMean = 0.0d;
-            oldSumOfSquares = 0.0d;
-
-            for (int i = 1; i <= columnCount; i++) {
-                oldMean = mean;
-                oldSumOfSquares = sumOfSquares;
-
-                mean = oldMean + ((columnDoubleValue - oldMean) / (totalCount - columnCount + i - nullCount));
-                sumOfSquares = oldSumOfSquares + ((columnDoubleValue - mean) * (columnDoubleValue - oldMean));
-            }
-
-            variance = sumOfSquares / (totalCount - nullCount);
-            stddev = Math.sqrt(variance);
+            /* Welford's update for columnCount occurrences of the value at once */
+            long nonNullCount = totalCount - nullCount;
+            double delta = columnDoubleValue - mean;
+            mean += delta * columnCount / nonNullCount;
+            sumOfSquares += delta * delta * (nonNullCount - columnCount) * columnCount / nonNullCount;
+            derivedStatisticsStale = true;
         }
     }
 
@@ -128,49 +112,37 @@ public class DoubleColumnStatistics extends StandardColumnStatistics {
     @Override
     public void combine(StandardColumnStatistics v_columnStatistics) {
 
-        saveMetricsForStdDevCalc();
+        DoubleColumnStatistics vDouble_columnStatistics = (DoubleColumnStatistics) v_columnStatistics;
+        long nonNullCount = totalCount - nullCount;
+        long otherNonNullCount = vDouble_columnStatistics.totalCount - vDouble_columnStatistics.nullCount;
+        double previousMean = mean;
 
         combineCommon(v_columnStatistics);
 
-        DoubleColumnStatistics vDouble_columnStatistics = (DoubleColumnStatistics) v_columnStatistics;
-
         max = Math.max(max, vDouble_columnStatistics.max);
         min = Math.min(min, vDouble_columnStatistics.min);
         sum += vDouble_columnStatistics.sum;
         mean = sum / (totalCount - nullCount);
-        stddev = getCombinedStdDev(vDouble_columnStatistics);
-        variance = Math.pow(stddev, 2);
 
-    }
-
-    /*
-     * Save values for running statistical calculations
-     */
-    private void saveMetricsForStdDevCalc() {
-        oldTotalCount = totalCount;
-        oldNullCount = nullCount;
-        oldMean = mean;
-        oldStdDev = stddev;
+        /* Parallel form of Welford's algorithm */
+        if (nonNullCount + otherNonNullCount > 0) {
+            double delta = vDouble_columnStatistics.mean - previousMean;
+            sumOfSquares += vDouble_columnStatistics.sumOfSquares + delta * delta * nonNullCount * otherNonNullCount / (nonNullCount + otherNonNullCount);
+        }
+        derivedStatisticsStale = true;
     }
 
 
     /*
-     * Get combined standard deviations from two standard deviations
+     * Calculate the variance and standard deviation from the running sum of squares
      */
-    private double getCombinedStdDev(DoubleColumnStatistics vDouble_columnStatistics) {
-
-        double meanComb = (
-                              ((oldTotalCount - oldNullCount) * oldMean) +
-                              ((vDouble_columnStatistics.totalCount - vDouble_columnStatistics.nullCount) * vDouble_columnStatistics.mean)
-                          )
-                          / ((oldTotalCount - oldNullCount) + (vDouble_columnStatistics.totalCount - vDouble_columnStatistics.nullCount));
-
-        double term1 = (oldTotalCount - oldNullCount) * Math.pow(oldStdDev, 2);
-        double term2 = (vDouble_columnStatistics.totalCount - vDouble_columnStatistics.nullCount) * Math.pow(vDouble_columnStatistics.stddev, 2);
-        double term3 = (oldTotalCount - oldNullCount) * Math.pow((oldMean - meanComb), 2);
-        double term4 = (vDouble_columnStatistics.totalCount - vDouble_columnStatistics.nullCount) * Math.pow((vDouble_columnStatistics.mean - meanComb), 2);
-        double term5 = (oldTotalCount - oldNullCount) + (vDouble_columnStatistics.totalCount - vDouble_columnStatistics.nullCount);
-        return (Math.sqrt((term1 + term2 + term3 + term4) / term5));
+    private void calculateDerivedStatistics() {
+        if (derivedStatisticsStale) {
+            long nonNullCount = totalCount - nullCount;
+            variance = (nonNullCount > 0) ? sumOfSquares / nonNullCount : 0.0d;
+            stddev = Math.sqrt(variance);
+            derivedStatisticsStale = false;
+        }
     }
 
 
@@ -180,6 +152,7 @@ public class DoubleColumnStatistics extends StandardColumnStatistics {
     @Override
     public String getVerboseStatistics() {
 
+        calculateDerivedStatistics();
         return "{\n" + getVerboseStatisticsCommon()
                + "\n"
                + "DoubleColumnStatistics ["
@@ -198,6 +171,7 @@ public class DoubleColumnStatistics extends StandardColumnStatistics {
      */
     @Override
     public List<OutputRow> getStatistics() {
+        calculateDerivedStatistics();
         final List<OutputRow> rows = new ArrayList<>();
 
         writeStatisticsCommon(rows);
@@ -267,6 +241,7 @@ public class DoubleColumnStatistics extends StandardColumnStatistics {
      * @return standard deviation (population)
      */
     public double getStddev() {
+        calculateDerivedStatistics();
         return stddev;
     }
 
@@ -277,6 +252,7 @@ public class DoubleColumnStatistics extends StandardColumnStatistics {
      * @return variance (population)
      */
     public double getVariance() {
+        calculateDerivedStatistics();
         return variance;
     }
 }
@@ -48,11 +48,7 @@ public class FloatColumnStatistics extends StandardColumnStatistics {
 
     /* Other variables */
     private double sumOfSquares;
-    private long oldTotalCount;
-    private long oldNullCount;
-    private double oldMean;
-    private double oldStdDev;
-    private double oldSumOfSquares;
+    private boolean derivedStatisticsStale;
 
     private float columnFloatValue;
 
@@ -74,11 +70,6 @@ public class FloatColumnStatistics extends StandardColumnStatistics {
         variance = 0.0d;
 
         sumOfSquares = 0.0d;
-        oldTotalCount = 0L;
-        oldNullCount = 0L;
-        oldMean = 0.0d;
-        oldStdDev = 0.0d;
-        oldSumOfSquares = 0.0d;
 
         columnFloatValue = 0.0f;
 
@@ -94,7 +85,7 @@ public class FloatColumnStatistics extends StandardColumnStatistics {
         accomodateCommon(columnValue, columnCount);
 
         if (columnValue != null) {
-            columnFloatValue = Float.valueOf(String.valueOf(columnValue));
+            columnFloatValue = (columnValue instanceof Number) ? ((Number) columnValue).floatValue() : Float.valueOf(String.valueOf(columnValue));
 
             if (max < columnFloatValue) {
                 max = columnFloatValue;
@@ -106,19 +97,12 @@ public class FloatColumnStatistics extends StandardColumnStatistics {
 
             sum += (columnFloatValue * columnCount);
 
-            oldMean = 0.0d;
-            oldSumOfSquares = 0.0d;
-
-            for (int i = 1; i <= columnCount; i++) {
-                oldMean = mean;
-                oldSumOfSquares = sumOfSquares;
-
-                mean = oldMean + ((columnFloatValue - oldMean) / (totalCount - columnCount + i - nullCount));
-                sumOfSquares = oldSumOfSquares + ((columnFloatValue - mean) * (columnFloatValue - oldMean));
-            }
-
-            variance = sumOfSquares / (totalCount - nullCount);
-            stddev = Math.sqrt(variance);
+            /* Welford's update for columnCount occurrences of the value at once */
+            long nonNullCount = totalCount - nullCount;
+            double delta = columnFloatValue - mean;
+            mean += delta * columnCount / nonNullCount;
+            sumOfSquares += delta * delta * (nonNullCount - columnCount) * columnCount / nonNullCount;
+            derivedStatisticsStale = true;
         }
     }
 
@@ -129,57 +113,37 @@ public class FloatColumnStatistics extends StandardColumnStatistics {
     @Override
     public void combine(StandardColumnStatistics v_columnStatistics) {
 
-        saveMetricsForStdDevCalc();
+        FloatColumnStatistics vFloat_columnStatistics = (FloatColumnStatistics) v_columnStatistics;
+        long nonNullCount = totalCount - nullCount;
+        long otherNonNullCount = vFloat_columnStatistics.totalCount - vFloat_columnStatistics.nullCount;
+        double previousMean = mean;
 
         combineCommon(v_columnStatistics);
 
-        FloatColumnStatistics vFloat_columnStatistics = (FloatColumnStatistics) v_columnStatistics;
-
         max = Math.max(max, vFloat_columnStatistics.max);
         min = Math.min(min, vFloat_columnStatistics.min);
         sum += vFloat_columnStatistics.sum;
         mean = sum / (totalCount - nullCount);
 
-        double term1 = (totalCount - nullCount) * Math.pow(stddev, 2);
-        double term2 = (vFloat_columnStatistics.totalCount - vFloat_columnStatistics.nullCount) * Math.pow(vFloat_columnStatistics.stddev, 2);
-        double term3 = (totalCount - nullCount) * Math.pow((mean - vFloat_columnStatistics.mean), 2);
-        double term4 = (vFloat_columnStatistics.totalCount - vFloat_columnStatistics.nullCount) * Math.pow((vFloat_columnStatistics.mean - mean), 2);
-        double term5 = (totalCount - nullCount) + (vFloat_columnStatistics.totalCount - vFloat_columnStatistics.nullCount);
-        stddev = Math.sqrt((term1 + term2 + term3 + term4) / term5);
-
-        stddev = getCombinedStdDev(vFloat_columnStatistics);
-        variance = Math.pow(stddev, 2);
-    }
-
-
-    /*
-     * Save values for running statistical calculations
-     */
-    private void saveMetricsForStdDevCalc() {
-        oldTotalCount = totalCount;
-        oldNullCount = nullCount;
-        oldMean = mean;
-        oldStdDev = stddev;
+        /* Parallel form of Welford's algorithm */
+        if (nonNullCount + otherNonNullCount > 0) {
+            double delta = vFloat_columnStatistics.mean - previousMean;
+            sumOfSquares += vFloat_columnStatistics.sumOfSquares + delta * delta * nonNullCount * otherNonNullCount / (nonNullCount + otherNonNullCount);
+        }
+        derivedStatisticsStale = true;
     }
 
 
     /*
-     * Get combined standard deviations from two standard deviations
+     * Calculate the variance and standard deviation from the running sum of squares
      */
-    private double getCombinedStdDev(FloatColumnStatistics vFloat_columnStatistics) {
-
-        double meanComb = (
-                              ((oldTotalCount - oldNullCount) * oldMean) +
-                              ((vFloat_columnStatistics.totalCount - vFloat_columnStatistics.nullCount) * vFloat_columnStatistics.mean)
-                          )
-                          / ((oldTotalCount - oldNullCount) + (vFloat_columnStatistics.totalCount - vFloat_columnStatistics.nullCount));
-
-        double term1 = (oldTotalCount - oldNullCount) * Math.pow(oldStdDev, 2);
-        double term2 = (vFloat_columnStatistics.totalCount - vFloat_columnStatistics.nullCount) * Math.pow(vFloat_columnStatistics.stddev, 2);
-        double term3 = (oldTotalCount - oldNullCount) * Math.pow((oldMean - meanComb), 2);
-        double term4 = (vFloat_columnStatistics.totalCount - vFloat_columnStatistics.nullCount) * Math.pow((vFloat_columnStatistics.mean - meanComb), 2);
-        double term5 = (oldTotalCount - oldNullCount) + (vFloat_columnStatistics.totalCount - vFloat_columnStatistics.nullCount);
-        return (Math.sqrt((term1 + term2 + term3 + term4) / term5));
+    private void calculateDerivedStatistics() {
+        if (derivedStatisticsStale) {
+            long nonNullCount = totalCount - nullCount;
+            variance = (nonNullCount > 0) ? sumOfSquares / nonNullCount : 0.0d;
+            stddev = Math.sqrt(variance);
+            derivedStatisticsStale = false;
+        }
     }
 
 
@@ -189,6 +153,7 @@ public class FloatColumnStatistics extends StandardColumnStatistics {
     @Override
     public String getVerboseStatistics() {
 
+        calculateDerivedStatistics();
         return "{\n" + getVerboseStatisticsCommon()
                + "\n"
                + "FloatColumnStatistics ["
@@ -207,6 +172,7 @@ public class FloatColumnStatistics extends StandardColumnStatistics {
      */
     @Override
     public List<OutputRow> getStatistics() {
+        calculateDerivedStatistics();
         final List<OutputRow> rows = new ArrayList<>();
 
         writeStatisticsCommon(rows);
@@ -276,6 +242,7 @@ public class FloatColumnStatistics extends StandardColumnStatistics {
      * @return standard deviation (population)
      */
     public double getStddev() {
+        calculateDerivedStatistics();
         return stddev;
     }
 
@@ -286,6 +253,7 @@ public class FloatColumnStatistics extends StandardColumnStatistics {
      * @return variance (population)
      */
     public double getVariance() {
+        calculateDerivedStatistics();
         return variance;
     }
 
@@ -49,11 +49,7 @@ public class IntegerColumnStatistics extends StandardColumnStatistics {
 
     /* Other variables */
     private double sumOfSquares;
-    private long oldTotalCount;
-    private long oldNullCount;
-    private double oldMean;
-    private double oldStdDev;
-    private double oldSumOfSquares;
+    private boolean derivedStatisticsStale;
 
     private int columnIntegerValue;
 
@@ -75,11 +71,6 @@ public class IntegerColumnStatistics extends StandardColumnStatistics {
         variance = 0.0d;
 
         sumOfSquares = 0.0d;
-        oldTotalCount = 0L;
-        oldNullCount = 0L;
-        oldMean = 0.0d;
-        oldStdDev = 0.0d;
-        oldSumOfSquares = 0.0d;
 
         columnIntegerValue = 0;
     }
@@ -95,7 +86,7 @@ public class IntegerColumnStatistics extends StandardColumnStatistics {
 
         if (columnValue != null) {
 
-            columnIntegerValue = Integer.valueOf(String.valueOf(columnValue));
+            columnIntegerValue = (columnValue instanceof Number) ? ((Number) columnValue).intValue() : Integer.valueOf(String.valueOf(columnValue));
 
             if (max < columnIntegerValue) {
                 max = columnIntegerValue;
@@ -107,19 +98,12 @@ public class IntegerColumnStatistics extends StandardColumnStatistics {
 
             sum += (columnIntegerValue * columnCount);
 
-            oldMean = 0.0d;
-            oldSumOfSquares = 0.0d;
-
-            for (int i = 1; i <= columnCount; i++) {
-                oldMean = mean;
-                oldSumOfSquares = sumOfSquares;
-
-                mean = oldMean + ((columnIntegerValue - oldMean) / (totalCount - columnCount + i - nullCount));
-                sumOfSquares = oldSumOfSquares + ((columnIntegerValue - mean) * (columnIntegerValue - oldMean));
-            }
-
-            variance = sumOfSquares / (totalCount - nullCount);
-            stddev = Math.sqrt(variance);
+            /* Welford's update for columnCount occurrences of the value at once */
+            long nonNullCount = totalCount - nullCount;
+            double delta = columnIntegerValue - mean;
+            mean += delta * columnCount / nonNullCount;
+            sumOfSquares += delta * delta * (nonNullCount - columnCount) * columnCount / nonNullCount;
+            derivedStatisticsStale = true;
 
         }
     }
@@ -131,49 +115,37 @@ public class IntegerColumnStatistics extends StandardColumnStatistics {
     @Override
     public void combine(StandardColumnStatistics v_columnStatistics) {
 
-        saveMetricsForStdDevCalc();
+        IntegerColumnStatistics vInteger_columnStatistics = (IntegerColumnStatistics) v_columnStatistics;
+        long nonNullCount = totalCount - nullCount;
+        long otherNonNullCount = vInteger_columnStatistics.totalCount - vInteger_columnStatistics.nullCount;
+        double previousMean = mean;
 
         combineCommon(v_columnStatistics);
 
-        IntegerColumnStatistics vInteger_columnStatistics = (IntegerColumnStatistics) v_columnStatistics;
-
         max = Math.max(max, vInteger_columnStatistics.max);
         min = Math.min(min, vInteger_columnStatistics.min);
         sum += vInteger_columnStatistics.sum;
         mean = (double) sum / (totalCount - nullCount);
-        stddev = getCombinedStdDev(vInteger_columnStatistics);
-        variance = Math.pow(stddev, 2);
-    }
-
 
-    /*
-     * Save values for running statistical calculations
-     */
-    private void saveMetricsForStdDevCalc() {
-        oldTotalCount = totalCount;
-        oldNullCount = nullCount;
-        oldMean = mean;
-        oldStdDev = stddev;
+        /* Parallel form of Welford's algorithm */
+        if (nonNullCount + otherNonNullCount > 0) {
+            double delta = vInteger_columnStatistics.mean - previousMean;
+            sumOfSquares += vInteger_columnStatistics.sumOfSquares + delta * delta * nonNullCount * otherNonNullCount / (nonNullCount + otherNonNullCount);
+        }
+        derivedStatisticsStale = true;
     }
 
 
     /*
-     * Get combined standard deviations from two standard deviations
+     * Calculate the variance and standard deviation from the running sum of squares
      */
-    private double getCombinedStdDev(IntegerColumnStatistics vInteger_columnStatistics) {
-
-        double meanComb = (
-                              ((oldTotalCount - oldNullCount) * oldMean) +
-                              ((vInteger_columnStatistics.totalCount - vInteger_columnStatistics.nullCount) * vInteger_columnStatistics.mean)
-                          )
-                          / ((oldTotalCount - oldNullCount) + (vInteger_columnStatistics.totalCount - vInteger_columnStatistics.nullCount));
-
-        double term1 = (oldTotalCount - oldNullCount) * Math.pow(oldStdDev, 2);
-        double term2 = (vInteger_columnStatistics.totalCount - vInteger_columnStatistics.nullCount) * Math.pow(vInteger_columnStatistics.stddev, 2);
-        double term3 = (oldTotalCount - oldNullCount) * Math.pow((oldMean - meanComb), 2);
-        double term4 = (vInteger_columnStatistics.totalCount - vInteger_columnStatistics.nullCount) * Math.pow((vInteger_columnStatistics.mean - meanComb), 2);
-        double term5 = (oldTotalCount - oldNullCount) + (vInteger_columnStatistics.totalCount - vInteger_columnStatistics.nullCount);
-        return (Math.sqrt((term1 + term2 + term3 + term4) / term5));
+    private void calculateDerivedStatistics() {
+        if (derivedStatisticsStale) {
+            long nonNullCount = totalCount - nullCount;
+            variance = (nonNullCount > 0) ? sumOfSquares / nonNullCount : 0.0d;
+            stddev = Math.sqrt(variance);
+            derivedStatisticsStale = false;
+        }
     }
 
 
@@ -183,6 +155,7 @@ public class IntegerColumnStatistics extends StandardColumnStatistics {
     @Override
     public String getVerboseStatistics() {
 
+        calculateDerivedStatistics();
         return "{\n" + getVerboseStatisticsCommon()
                + "\n"
                + "IntegerColumnStatistics ["
@@ -202,6 +175,7 @@ public class IntegerColumnStatistics extends StandardColumnStatistics {
      */
     @Override
     public List<OutputRow> getStatistics() {
+        calculateDerivedStatistics();
         final List<OutputRow> rows = new ArrayList<>();
 
         writeStatisticsCommon(rows);
@@ -271,6 +245,7 @@ public class IntegerColumnStatistics extends StandardColumnStatistics {
      * @return standard deviation (population)
      */
     public double getStddev() {
+        calculateDerivedStatistics();
         return stddev;
     }
 
@@ -281,6 +256,7 @@ public class IntegerColumnStatistics extends StandardColumnStatistics {
      * @return variance (population)
      */
     public double getVariance() {
+        calculateDerivedStatistics();
         return variance;
     }
 }
@@ -48,11 +48,7 @@ public class LongColumnStatistics extends StandardColumnStatistics {
 
     /* Other variables */
     private double sumOfSquares;
-    private long oldTotalCount;
-    private long oldNullCount;
-    private double oldMean;
-    private double oldStdDev;
-    private double oldSumOfSquares;
+    private boolean derivedStatisticsStale;
 
     private Long columnLongValue;
 
@@ -74,11 +70,6 @@ public class LongColumnStatistics extends StandardColumnStatistics {
         variance = 0.0d;
 
         sumOfSquares = 0.0d;
-        oldTotalCount = 0L;
-        oldNullCount = 0L;
-        oldMean = 0.0d;
-        oldStdDev = 0.0d;
-        oldSumOfSquares = 0.0d;
 
         columnLongValue = 0L;
     }
@@ -94,7 +85,7 @@ public class LongColumnStatistics extends StandardColumnStatistics {
 
         if (columnValue != null) {
 
-            columnLongValue = Long.valueOf(String.valueOf(columnValue));
+            columnLongValue = (columnValue instanceof Number) ? ((Number) columnValue).longValue() : Long.valueOf(String.valueOf(columnValue));
 
             if (max < columnLongValue) {
                 max = columnLongValue;
@@ -106,19 +97,12 @@ public class LongColumnStatistics extends StandardColumnStatistics {
 
             sum += (columnLongValue * columnCount);
 
-            oldMean = 0.0d;
-            oldSumOfSquares = 0.0d;
-
-            for (int i = 1; i <= columnCount; i++) {
-                oldMean = mean;
-                oldSumOfSquares = sumOfSquares;
-
-                mean = oldMean + ((columnLongValue - oldMean) / (totalCount - columnCount + i - nullCount));
-                sumOfSquares = oldSumOfSquares + ((columnLongValue - mean) * (columnLongValue - oldMean));
-            }
-
-            variance = sumOfSquares / (totalCount - nullCount);
-            stddev = Math.sqrt(variance);
+            /* Welford's update for columnCount occurrences of the value at once */
+            long nonNullCount = totalCount - nullCount;
+            double delta = columnLongValue - mean;
+            mean += delta * columnCount / nonNullCount;
+            sumOfSquares += delta * delta * (nonNullCount - columnCount) * columnCount / nonNullCount;
+            derivedStatisticsStale = true;
         }
 
     }
@@ -130,50 +114,37 @@ public class LongColumnStatistics extends StandardColumnStatistics {
     @Override
     public void combine(StandardColumnStatistics v_columnStatistics) {
 
-        saveMetricsForStdDevCalc();
+        LongColumnStatistics vLong_columnStatistics = (LongColumnStatistics) v_columnStatistics;
+        long nonNullCount = totalCount - nullCount;
+        long otherNonNullCount = vLong_columnStatistics.totalCount - vLong_columnStatistics.nullCount;
+        double previousMean = mean;
 
         combineCommon(v_columnStatistics);
 
-        LongColumnStatistics vLong_columnStatistics = (LongColumnStatistics) v_columnStatistics;
-
         max = Math.max(max, vLong_columnStatistics.max);
         min = Math.min(min, vLong_columnStatistics.min);
         sum += vLong_columnStatistics.sum;
         mean = (double) sum / (totalCount - nullCount);
-        stddev = getCombinedStdDev(vLong_columnStatistics);
-        variance = Math.pow(stddev, 2);
 
+        /* Parallel form of Welford's algorithm */
+        if (nonNullCount + otherNonNullCount > 0) {
+            double delta = vLong_columnStatistics.mean - previousMean;
+            sumOfSquares += vLong_columnStatistics.sumOfSquares + delta * delta * nonNullCount * otherNonNullCount / (nonNullCount + otherNonNullCount);
+        }
+        derivedStatisticsStale = true;
     }
 
 
     /*
-     * Save values for running statistical calculations
-     */
-    private void saveMetricsForStdDevCalc() {
-        oldTotalCount = totalCount;
-        oldNullCount = nullCount;
-        oldMean = mean;
-        oldStdDev = stddev;
-    }
-
-
-    /*
-     * Get combined standard deviations from two standard deviations
+     * Calculate the variance and standard deviation from the running sum of squares
      */
-    private double getCombinedStdDev(LongColumnStatistics vLong_columnStatistics) {
-
-        double meanComb = (
-                              ((oldTotalCount - oldNullCount) * oldMean) +
-                              ((vLong_columnStatistics.totalCount - vLong_columnStatistics.nullCount) * vLong_columnStatistics.mean)
-                          )
-                          / ((oldTotalCount - oldNullCount) + (vLong_columnStatistics.totalCount - vLong_columnStatistics.nullCount));
-
-        double term1 = (oldTotalCount - oldNullCount) * Math.pow(oldStdDev, 2);
-        double term2 = (vLong_columnStatistics.totalCount - vLong_columnStatistics.nullCount) * Math.pow(vLong_columnStatistics.stddev, 2);
-        double term3 = (oldTotalCount - oldNullCount) * Math.pow((oldMean - meanComb), 2);
-        double term4 = (vLong_columnStatistics.totalCount - vLong_columnStatistics.nullCount) * Math.pow((vLong_columnStatistics.mean - meanComb), 2);
-        double term5 = (oldTotalCount - oldNullCount) + (vLong_columnStatistics.totalCount - vLong_columnStatistics.nullCount);
-        return (Math.sqrt((term1 + term2 + term3 + term4) / term5));
+    private void calculateDerivedStatistics() {
+        if (derivedStatisticsStale) {
+            long nonNullCount = totalCount - nullCount;
+            variance = (nonNullCount > 0) ? sumOfSquares / nonNullCount : 0.0d;
+            stddev = Math.sqrt(variance);
+            derivedStatisticsStale = false;
+        }
     }
 
 
@@ -183,6 +154,7 @@ public class LongColumnStatistics extends StandardColumnStatistics {
     @Override
     public String getVerboseStatistics() {
 
+        calculateDerivedStatistics();
         return "{\n" + getVerboseStatisticsCommon()
                + "\n"
                + "LongColumnStatistics ["
@@ -202,6 +174,7 @@ public class LongColumnStatistics extends StandardColumnStatistics {
      */
     @Override
     public List<OutputRow> getStatistics() {
+        calculateDerivedStatistics();
         final List<OutputRow> rows = new ArrayList<>();
 
         writeStatisticsCommon(rows);
@@ -271,6 +244,7 @@ public class LongColumnStatistics extends StandardColumnStatistics {
      * @return standard deviation (population)
      */
     public double getStddev() {
+        calculateDerivedStatistics();
         return stddev;
     }
 
@@ -281,6 +255,7 @@ public class LongColumnStatistics extends StandardColumnStatistics {
      * @return variance (population)
      */
     public double getVariance() {
+        calculateDerivedStatistics();
         return variance;
     }
 
@@ -24,6 +24,8 @@ import com.thinkbiganalytics.spark.dataprofiler.ColumnStatistics;
 import com.thinkbiganalytics.spark.dataprofiler.ProfilerConfiguration;
 import com.thinkbiganalytics.spark.dataprofiler.model.MetricType;
 import com.thinkbiganalytics.spark.dataprofiler.output.OutputRow;
+import com.thinkbiganalytics.spark.dataprofiler.sketch.HeavyHitters;
+import com.thinkbiganalytics.spark.dataprofiler.sketch.HyperLogLog;
 import com.thinkbiganalytics.spark.dataprofiler.topn.TopNDataItem;
 import com.thinkbiganalytics.spark.dataprofiler.topn.TopNDataList;
 
@@ -45,7 +47,7 @@ public abstract class StandardColumnStatistics implements ColumnStatistics, Seri
     final StructField columnField;
     /* Other variables */
     final DecimalFormat df;
-    private final TopNDataList topNValues;
+    private TopNDataList topNValues;
     /* Common metrics for all data types */
     long nullCount;
     long totalCount;
@@ -55,6 +57,13 @@ public abstract class StandardColumnStatistics implements ColumnStatistics, Seri
     private double percDuplicateValues;
     private ProfilerConfiguration profilerConfiguration;
 
+    /* Sketches used instead of exact counts in approximate mode */
+    private HyperLogLog uniqueValues;
+    private HeavyHitters frequentValues;
+
+    /* Percentages (and the sketch estimates) are calculated when the statistics are read rather than for every value */
+    private boolean commonStatisticsStale;
+
 
     /**
      * One-argument constructor
@@ -71,6 +80,11 @@ public abstract class StandardColumnStatistics implements ColumnStatistics, Seri
         percDuplicateValues = 0.0d;
         this.profilerConfiguration = profilerConfiguration;
         topNValues = new TopNDataList(profilerConfiguration.getNumberOfTopNValues());
+
+        if (profilerConfiguration.getMode() == ProfilerConfiguration.Mode.APPROXIMATE) {
+            uniqueValues = new HyperLogLog(profilerConfiguration.getUniqueCountPrecision());
+            frequentValues = new HeavyHitters(profilerConfiguration.getTopNCapacity());
+        }
         df = new DecimalFormat(getDecimalFormatPattern());
     }
 
@@ -84,15 +98,20 @@ public abstract class StandardColumnStatistics implements ColumnStatistics, Seri
     void accomodateCommon(Object columnValue, Long columnCount) {
 
         totalCount += columnCount;
-        uniqueCount += 1;
 
         if (columnValue == null) {
             nullCount += columnCount;
         }
 
-        doPercentageCalculationsCommon();
+        commonStatisticsStale = true;
 
-        topNValues.add(columnValue, columnCount);
+        if (uniqueValues != null) {
+            uniqueValues.offer(columnValue);
+            frequentValues.offer(columnValue, columnCount);
+        } else {
+            uniqueCount += 1;
+            topNValues.add(columnValue, columnCount);
+        }
     }
 
 
@@ -104,10 +123,17 @@ public abstract class StandardColumnStatistics implements ColumnStatistics, Seri
     void combineCommon(StandardColumnStatistics v_columnStatistics) {
 
         totalCount += v_columnStatistics.totalCount;
-        uniqueCount += v_columnStatistics.uniqueCount;
         nullCount += v_columnStatistics.nullCount;
 
-        doPercentageCalculationsCommon();
+        commonStatisticsStale = true;
+
+        if (uniqueValues != null && v_columnStatistics.uniqueValues != null) {
+            uniqueValues.merge(v_columnStatistics.uniqueValues);
+            frequentValues.merge(v_columnStatistics.frequentValues);
+            return;
+        }
+
+        uniqueCount += v_columnStatistics.uniqueCount;
 
         for (TopNDataItem dataItem :
             v_columnStatistics.topNValues.getTopNDataItemsForColumn()) {
@@ -116,6 +142,22 @@ public abstract class StandardColumnStatistics implements ColumnStatistics, Seri
     }
 
 
+    /**
+     * Calculate the percentages, and in approximate mode the unique count and top-N values from the sketches
+     */
+    private void calculateDerivedStatisticsCommon() {
+        if (commonStatisticsStale) {
+            if (uniqueValues != null) {
+                /* Null is considered a unique value */
+                uniqueCount = Math.min(uniqueValues.cardinality() + ((nullCount > 0) ? 1 : 0), totalCount);
+                topNValues = frequentValues.getTopN(profilerConfiguration.getNumberOfTopNValues());
+            }
+            doPercentageCalculationsCommon();
+            commonStatisticsStale = false;
+        }
+    }
+
+
     /**
      * Write column's schema information for output result table
      */
@@ -168,6 +210,7 @@ public abstract class StandardColumnStatistics implements ColumnStatistics, Seri
      */
     void writeStatisticsCommon(@Nonnull final List<OutputRow> rows) {
 
+        calculateDerivedStatisticsCommon();
         writeColumnSchemaInformation(rows);
 
         rows.add(new OutputRow(columnField.name(), String.valueOf(MetricType.NULL_COUNT), String.valueOf(nullCount)));
@@ -188,6 +231,7 @@ public abstract class StandardColumnStatistics implements ColumnStatistics, Seri
      */
     String getVerboseStatisticsCommon() {
 
+        calculateDerivedStatisticsCommon();
         return getVerboseColumnSchemaInformation()
                + "\n"
                + "CommonStatistics ["
@@ -256,6 +300,7 @@ public abstract class StandardColumnStatistics implements ColumnStatistics, Seri
      * @return unique count
      */
     public long getUniqueCount() {
+        calculateDerivedStatisticsCommon();
         return uniqueCount;
     }
 
@@ -266,6 +311,7 @@ public abstract class StandardColumnStatistics implements ColumnStatistics, Seri
      * @return percentage of null values
      */
     public double getPercNullValues() {
+        calculateDerivedStatisticsCommon();
         return percNullValues;
     }
 
@@ -276,6 +322,7 @@ public abstract class StandardColumnStatistics implements ColumnStatistics, Seri
      * @return percentage of unique values
      */
     public double getPercUniqueValues() {
+        calculateDerivedStatisticsCommon();
         return percUniqueValues;
     }
 
@@ -286,6 +333,7 @@ public abstract class StandardColumnStatistics implements ColumnStatistics, Seri
      * @return percentage of duplicate values
      */
     public double getPercDuplicateValues() {
+        calculateDerivedStatisticsCommon();
         return percDuplicateValues;
     }
 
@@ -296,6 +344,7 @@ public abstract class StandardColumnStatistics implements ColumnStatistics, Seri
      * @return top n values
      */
     public TopNDataList getTopNValues() {
+        calculateDerivedStatisticsCommon();
         return topNValues;
     }
 
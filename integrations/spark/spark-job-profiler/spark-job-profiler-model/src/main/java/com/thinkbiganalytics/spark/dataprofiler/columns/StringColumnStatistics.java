@@ -96,7 +96,7 @@ public class StringColumnStatistics extends StandardColumnStatistics {
             columnStringValue = String.valueOf(columnValue);
             columnStringLength = columnStringValue.length();
 
-            if (maxLength < columnStringLength) {
+            if (maxLength < columnStringLength || (maxLength == columnStringLength && longestString.compareTo(columnStringValue) > 0)) {
                 maxLength = columnStringLength;
                 longestString = columnStringValue;
             }
@@ -107,7 +107,7 @@ public class StringColumnStatistics extends StandardColumnStatistics {
              */
             if (!columnStringValue.isEmpty()) {
 
-                if (minLength > columnStringLength) {
+                if (minLength > columnStringLength || (minLength == columnStringLength && shortestString.compareTo(columnStringValue) > 0)) {
                     minLength = columnStringLength;
                     shortestString = columnStringValue;
                 }
@@ -142,8 +142,6 @@ public class StringColumnStatistics extends StandardColumnStatistics {
             if (columnStringValue.isEmpty()) {
                 emptyCount += columnCount;
             }
-
-            doPercentageCalculations();
         }
     }
 
@@ -166,7 +164,8 @@ public class StringColumnStatistics extends StandardColumnStatistics {
          */
         if ((minLength != Integer.MAX_VALUE) && (vString_columnStatistics.minLength != Integer.MAX_VALUE)) {
 
-            if (minLength > vString_columnStatistics.minLength) {
+            if (minLength > vString_columnStatistics.minLength
+                || (minLength == vString_columnStatistics.minLength && shortestString.compareTo(vString_columnStatistics.shortestString) > 0)) {
                 minLength = vString_columnStatistics.minLength;
                 shortestString = vString_columnStatistics.shortestString;
             }
@@ -216,21 +215,20 @@ public class StringColumnStatistics extends StandardColumnStatistics {
         }
         */
 
-        if (longestString.length() < vString_columnStatistics.longestString.length()) {
+        if (longestString.length() < vString_columnStatistics.longestString.length()
+            || (longestString.length() == vString_columnStatistics.longestString.length() && longestString.compareTo(vString_columnStatistics.longestString) > 0)) {
             longestString = vString_columnStatistics.longestString;
         }
 
         emptyCount += vString_columnStatistics.emptyCount;
-
-        doPercentageCalculations();
     }
 
 
     /*
-     * Calculate percentage metrics
+     * Calculate percentage metrics, only when they are read
      */
     private void doPercentageCalculations() {
-        percEmptyValues = ((double) emptyCount / totalCount) * 100;
+        percEmptyValues = (totalCount > 0) ? ((double) emptyCount / totalCount) * 100 : 0;
     }
 
 
@@ -242,6 +240,7 @@ public class StringColumnStatistics extends StandardColumnStatistics {
         final List<OutputRow> rows = new ArrayList<>();
 
         writeStatisticsCommon(rows);
+        doPercentageCalculations();
 
         rows.add(new OutputRow(columnField.name(), String.valueOf(MetricType.MAX_LENGTH), String.valueOf(maxLength)));
         rows.add(new OutputRow(columnField.name(), String.valueOf(MetricType.MIN_LENGTH), String.valueOf(minLength)));
@@ -262,6 +261,7 @@ public class StringColumnStatistics extends StandardColumnStatistics {
      */
     @Override
     public String getVerboseStatistics() {
+        doPercentageCalculations();
 
         return "{\n" + getVerboseStatisticsCommon()
                + "\n"
@@ -336,6 +336,7 @@ public class StringColumnStatistics extends StandardColumnStatistics {
      * @return perc empty strings
      */
     public double getPercEmptyValues() {
+        doPercentageCalculations();
         return percEmptyValues;
     }
 
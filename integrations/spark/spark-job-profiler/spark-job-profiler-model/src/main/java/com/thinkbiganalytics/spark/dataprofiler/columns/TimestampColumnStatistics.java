@@ -75,10 +75,17 @@ public class TimestampColumnStatistics extends StandardColumnStatistics {
         accomodateCommon(columnValue, columnCount);
 
         // Update timestamp-specific statistics
-        String stringValue = (columnValue != null) ? columnValue.toString() : null;
+        Timestamp timestamp = null;
+        if (columnValue instanceof Timestamp) {
+            timestamp = (Timestamp) columnValue;
+        } else {
+            String stringValue = (columnValue != null) ? columnValue.toString() : null;
+            if (!StringUtils.isEmpty(stringValue)) {
+                timestamp = Timestamp.valueOf(stringValue);
+            }
+        }
 
-        if (!StringUtils.isEmpty(stringValue)) {
-            Timestamp timestamp = Timestamp.valueOf(stringValue);
+        if (timestamp != null) {
             if (maxTimestamp == null || maxTimestamp.before(timestamp)) {
                 maxTimestamp = timestamp;
             }
@@ -0,0 +1,146 @@
+package com.thinkbiganalytics.spark.dataprofiler.sketch;
+
+/*-
+ * #%L
+ * thinkbig-spark-job-profiler-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.spark.dataprofiler.topn.TopNDataList;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sketch to find the most frequent values in a column in a single pass with bounded memory.<br>
+ * Counts are kept for up to twice the capacity of values. When that fills up only the capacity most frequent values are kept.
+ * Values that are dropped and seen again start counting from zero, so the counts reported are lower bounds. Values that make up
+ * a large share of the column stay in the sketch and have exact counts.<br>
+ * Sketches built on different partitions can be merged.
+ */
+@SuppressWarnings("serial")
+public class HeavyHitters implements Serializable {
+
+    /**
+     * Key used for null, as the counts map does not accept null keys
+     */
+    private static final String NULL_KEY = "\u0000null";
+
+    private final int capacity;
+
+    private final Map<Object, long[]> counts;
+
+    /**
+     * Create a sketch that keeps counts for at least the specified number of values
+     *
+     * @param capacity number of values to keep counts for
+     */
+    public HeavyHitters(int capacity) {
+        this.capacity = Math.max(capacity, 1);
+        this.counts = new HashMap<>(this.capacity * 4);
+    }
+
+    /**
+     * Add occurrences of a value
+     *
+     * @param value value
+     * @param count number of occurrences
+     */
+    public void offer(Object value, long count) {
+        Object key = (value != null) ? value : NULL_KEY;
+        long[] current = counts.get(key);
+        if (current != null) {
+            current[0] += count;
+        } else {
+            counts.put(key, new long[]{count});
+            if (counts.size() > capacity * 2) {
+                prune();
+            }
+        }
+    }
+
+    /**
+     * Merge another sketch into this one
+     *
+     * @param other sketch to merge
+     */
+    public void merge(HeavyHitters other) {
+        for (Map.Entry<Object, long[]> entry : other.counts.entrySet()) {
+            long[] current = counts.get(entry.getKey());
+            if (current != null) {
+                current[0] += entry.getValue()[0];
+            } else {
+                counts.put(entry.getKey(), new long[]{entry.getValue()[0]});
+            }
+        }
+        if (counts.size() > capacity * 2) {
+            prune();
+        }
+    }
+
+    /**
+     * Get the most frequent values
+     *
+     * @param n number of values
+     * @return top-N list
+     */
+    public TopNDataList getTopN(int n) {
+        TopNDataList topN = new TopNDataList(n);
+        for (Map.Entry<Object, long[]> entry : sortedEntries()) {
+            topN.add(entry.getKey() != NULL_KEY ? entry.getKey() : null, entry.getValue()[0]);
+        }
+        return topN;
+    }
+
+    /**
+     * Get the number of values currently tracked
+     *
+     * @return number of values
+     */
+    public int size() {
+        return counts.size();
+    }
+
+    /*
+     * Keep only the most frequent values
+     */
+    private void prune() {
+        List<Map.Entry<Object, long[]>> entries = sortedEntries();
+        for (int i = capacity; i < entries.size(); i++) {
+            counts.remove(entries.get(i).getKey());
+        }
+    }
+
+    /*
+     * Entries ordered from highest count to lowest count
+     */
+    private List<Map.Entry<Object, long[]>> sortedEntries() {
+        List<Map.Entry<Object, long[]>> entries = new ArrayList<>(counts.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<Object, long[]>>() {
+            @Override
+            public int compare(Map.Entry<Object, long[]> a, Map.Entry<Object, long[]> b) {
+                return Long.compare(b.getValue()[0], a.getValue()[0]);
+            }
+        });
+        return entries;
+    }
+}
@@ -0,0 +1,171 @@
+package com.thinkbiganalytics.spark.dataprofiler.sketch;
+
+/*-
+ * #%L
+ * thinkbig-spark-job-profiler-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * HyperLogLog sketch to estimate the number of distinct values in a column in a single pass.<br>
+ * Sketches built on different partitions can be merged, and the relative error is about 1.04 / sqrt(2^precision).
+ */
+@SuppressWarnings("serial")
+public class HyperLogLog implements Serializable {
+
+    private final int precision;
+
+    private final byte[] registers;
+
+    /**
+     * Create a sketch with 2^precision registers
+     *
+     * @param precision number of bits of the hash used to pick a register (4 to 18)
+     */
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("HyperLogLog precision must be between 4 and 18: " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Include a value in the estimate
+     *
+     * @param value value (nulls are ignored)
+     */
+    public void offer(Object value) {
+        if (value != null) {
+            offerHash(hash(value));
+        }
+    }
+
+    /**
+     * Include a hashed value in the estimate
+     *
+     * @param hash 64-bit hash of the value
+     */
+    void offerHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        //position of the first set bit in the remaining bits (the guard bit limits the rank to 64 - precision + 1)
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * Merge another sketch into this one
+     *
+     * @param other sketch with the same precision
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Unable to merge HyperLogLog sketches with precision " + precision + " and " + other.precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * Get the estimated number of distinct values
+     *
+     * @return estimated distinct count
+     */
+    public long cardinality() {
+        int m = registers.length;
+        double sum = 0.0d;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0d / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+
+        //small range correction
+        if (estimate <= 2.5d * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Get the precision of this sketch
+     *
+     * @return number of bits used to pick a register
+     */
+    public int getPrecision() {
+        return precision;
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673d;
+            case 32:
+                return 0.697d;
+            case 64:
+                return 0.709d;
+            default:
+                return 0.7213d / (1.0d + 1.079d / m);
+        }
+    }
+
+    /**
+     * 64-bit hash of the string form of the value (FNV-1a followed by the MurmurHash3 finalizer).<br>
+     * Using the string form makes the hash stable across JVMs, unlike {@link Object#hashCode()} for some types.
+     */
+    static long hash(Object value) {
+        byte[] bytes = String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "HyperLogLog [precision=" + precision + ", cardinality=" + cardinality() + "]";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof HyperLogLog && precision == ((HyperLogLog) o).precision && Arrays.equals(registers, ((HyperLogLog) o).registers);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(registers);
+    }
+}
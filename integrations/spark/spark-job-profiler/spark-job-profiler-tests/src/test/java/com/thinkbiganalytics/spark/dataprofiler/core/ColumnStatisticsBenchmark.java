@@ -0,0 +1,131 @@
+package com.thinkbiganalytics.spark.dataprofiler.core;
+
+/*-
+ * #%L
+ * thinkbig-spark-job-profiler-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.spark.dataprofiler.ProfilerConfiguration;
+import com.thinkbiganalytics.spark.dataprofiler.model.StandardStatisticsModel;
+
+import org.apache.spark.sql.types.DataType;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.StructField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the rows per second accumulated by the column statistics of each data type, one value per row.
+ * Values are generated up front as the boxed objects found in a Spark row so only the statistics are measured.
+ *
+ * Run with: java -cp target/test-classes:<test classpath> com.thinkbiganalytics.spark.dataprofiler.core.ColumnStatisticsBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ColumnStatisticsBenchmark {
+
+    private static final int ROWS = 100000;
+
+    @Param({"int", "long", "double", "float", "string"})
+    public String type;
+
+    @Param({"EXACT", "APPROXIMATE"})
+    public ProfilerConfiguration.Mode mode;
+
+    private Object[] values;
+
+    private StructField field;
+
+    private ProfilerConfiguration profilerConfiguration;
+
+    @Setup
+    public void setup() {
+        profilerConfiguration = new ProfilerConfiguration();
+        profilerConfiguration.setMode(mode);
+
+        Random random = new Random(42);
+        values = new Object[ROWS];
+        DataType dataType;
+        switch (type) {
+            case "int":
+                dataType = DataTypes.IntegerType;
+                for (int i = 0; i < ROWS; i++) {
+                    values[i] = random.nextInt(10000);
+                }
+                break;
+            case "long":
+                dataType = DataTypes.LongType;
+                for (int i = 0; i < ROWS; i++) {
+                    values[i] = (long) random.nextInt(10000);
+                }
+                break;
+            case "double":
+                dataType = DataTypes.DoubleType;
+                for (int i = 0; i < ROWS; i++) {
+                    values[i] = random.nextGaussian() * 100;
+                }
+                break;
+            case "float":
+                dataType = DataTypes.FloatType;
+                for (int i = 0; i < ROWS; i++) {
+                    values[i] = (float) random.nextGaussian() * 100;
+                }
+                break;
+            default:
+                dataType = DataTypes.StringType;
+                for (int i = 0; i < ROWS; i++) {
+                    values[i] = "value-" + random.nextInt(10000);
+                }
+        }
+        field = DataTypes.createStructField(type, dataType, true);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void accomodate(Blackhole blackhole) {
+        StandardStatisticsModel model = new StandardStatisticsModel(profilerConfiguration);
+        for (Object value : values) {
+            model.add(0, value, 1L, field);
+        }
+        blackhole.consume(model.getColumnStatisticsMap().get(0).getStatistics());
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(ColumnStatisticsBenchmark.class.getSimpleName()).build()).run();
+    }
+}
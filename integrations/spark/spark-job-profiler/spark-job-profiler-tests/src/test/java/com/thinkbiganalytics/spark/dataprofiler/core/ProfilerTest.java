@@ -64,6 +64,9 @@ public abstract class ProfilerTest {
     public static final double epsilon2 = 3000.0d; //only used for long-variance, since they are extremely large numbers
     //columnStatsMap is static to be shared between multiple sub-classes
     protected static Map<Integer, StandardColumnStatistics> columnStatsMap;
+
+    //same data profiled in approximate mode
+    protected static Map<Integer, StandardColumnStatistics> approximateColumnStatsMap;
     private JavaSparkContext sc;
 
     @Inject
@@ -282,6 +285,12 @@ public abstract class ProfilerTest {
             */
             StatisticsModel statsModel = profiler.profile(dataDF, new ProfilerConfiguration());
             columnStatsMap = (statsModel != null) ? (Map) statsModel.getColumnStatisticsMap() : (Map<Integer, StandardColumnStatistics>) Collections.EMPTY_MAP;
+
+            ProfilerConfiguration approximateConfiguration = new ProfilerConfiguration();
+            approximateConfiguration.setMode(ProfilerConfiguration.Mode.APPROXIMATE);
+            StatisticsModel approximateStatsModel = profiler.profile(dataDF, approximateConfiguration);
+            approximateColumnStatsMap = (approximateStatsModel != null) ? (Map) approximateStatsModel.getColumnStatisticsMap()
+                                                                        : (Map<Integer, StandardColumnStatistics>) Collections.EMPTY_MAP;
         }
     }
 
@@ -0,0 +1,129 @@
+package com.thinkbiganalytics.spark.dataprofiler.testcases;
+
+/*-
+ * #%L
+ * thinkbig-spark-job-profiler-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.spark.dataprofiler.columns.StandardColumnStatistics;
+import com.thinkbiganalytics.spark.dataprofiler.core.ProfilerTest;
+import com.thinkbiganalytics.spark.dataprofiler.model.MetricType;
+import com.thinkbiganalytics.spark.dataprofiler.output.OutputRow;
+import com.thinkbiganalytics.spark.dataprofiler.sketch.HeavyHitters;
+import com.thinkbiganalytics.spark.dataprofiler.sketch.HyperLogLog;
+import com.thinkbiganalytics.spark.dataprofiler.topn.TopNDataItem;
+import com.thinkbiganalytics.spark.dataprofiler.topn.TopNDataList;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Approximate Mode Test Case 1
+ */
+public class ApproximateCase1Test extends ProfilerTest {
+
+    private static final List<String> FLOATING_POINT_METRICS = Arrays.asList(String.valueOf(MetricType.MEAN), String.valueOf(MetricType.STDDEV), String.valueOf(MetricType.VARIANCE));
+
+    @Before
+    public void setUp() {
+        super.setUp();
+    }
+
+    @Test
+    public void testSameStatisticsAsExactMode() {
+        Assert.assertEquals(columnStatsMap.keySet(), approximateColumnStatsMap.keySet());
+
+        for (Map.Entry<Integer, StandardColumnStatistics> entry : columnStatsMap.entrySet()) {
+            List<OutputRow> expected = entry.getValue().getStatistics();
+            List<OutputRow> actual = approximateColumnStatsMap.get(entry.getKey()).getStatistics();
+            Assert.assertEquals(expected.size(), actual.size());
+
+            for (int i = 0; i < expected.size(); i++) {
+                OutputRow expectedRow = expected.get(i);
+                OutputRow actualRow = actual.get(i);
+                Assert.assertEquals(expectedRow.getColumnName(), actualRow.getColumnName());
+                Assert.assertEquals(expectedRow.getMetricType(), actualRow.getMetricType());
+
+                String message = expectedRow.getColumnName() + " " + expectedRow.getMetricType();
+                if (String.valueOf(MetricType.TOP_N_VALUES).equals(expectedRow.getMetricType())) {
+                    //values with the same count may be listed in a different order
+                    Assert.assertEquals(message, topNCounts(entry.getValue().getTopNValues()), topNCounts(approximateColumnStatsMap.get(entry.getKey()).getTopNValues()));
+                } else if (FLOATING_POINT_METRICS.contains(expectedRow.getMetricType())) {
+                    Assert.assertEquals(message, Double.parseDouble(expectedRow.getMetricValue()), Double.parseDouble(actualRow.getMetricValue()), epsilon * 10);
+                } else {
+                    Assert.assertEquals(message, expectedRow.getMetricValue(), actualRow.getMetricValue());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testUniqueCountEstimate() {
+        HyperLogLog first = new HyperLogLog(14);
+        HyperLogLog second = new HyperLogLog(14);
+        int count = 200000;
+        for (int i = 0; i < count; i++) {
+            (i % 2 == 0 ? first : second).offer("value-" + (i % (count / 2)));
+        }
+        first.merge(second);
+
+        Assert.assertEquals(count / 2, first.cardinality(), count / 2 * 0.02);
+    }
+
+    @Test
+    public void testHeavyHitters() {
+        HeavyHitters first = new HeavyHitters(50);
+        HeavyHitters second = new HeavyHitters(50);
+        for (int i = 0; i < 100000; i++) {
+            HeavyHitters sketch = (i % 2 == 0) ? first : second;
+            if (i % 10 < 3) {
+                sketch.offer("frequent-" + (i % 10), 1L);
+            } else {
+                sketch.offer("rare-" + i, 1L);
+            }
+        }
+        first.merge(second);
+
+        Assert.assertTrue(first.size() <= 100);
+        TopNDataList topN = first.getTopN(3);
+        List<Long> counts = topNCounts(topN);
+        Assert.assertEquals(Arrays.asList(10000L, 10000L, 10000L), counts);
+        for (TopNDataItem item : topN.getTopNDataItemsForColumn()) {
+            Assert.assertTrue(String.valueOf(item.getValue()).startsWith("frequent-"));
+        }
+    }
+
+    /**
+     * Counts of the top-N values from highest to lowest
+     */
+    private static List<Long> topNCounts(TopNDataList topN) {
+        List<Long> counts = new ArrayList<>();
+        Iterator<TopNDataItem> iterator = topN.getTopNDataItemsForColumn().descendingIterator();
+        while (iterator.hasNext()) {
+            counts.add(iterator.next().getCount());
+        }
+        return counts;
+    }
+}
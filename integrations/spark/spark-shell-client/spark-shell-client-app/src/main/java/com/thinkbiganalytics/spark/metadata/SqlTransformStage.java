@@ -34,6 +34,7 @@ import com.thinkbiganalytics.spark.rest.model.JdbcDatasource;
 import com.thinkbiganalytics.spark.util.ScalaUtil;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.rdd.JdbcRDD;
 import org.apache.spark.rdd.RDD;
 import org.apache.spark.sql.Row;
@@ -48,20 +49,29 @@ import org.apache.spark.sql.types.StructField;
 import org.apache.spark.sql.types.StructType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.ResultSetExtractor;
 
+import java.math.BigInteger;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.sql.DataSource;
 
 import scala.Function0;
@@ -77,6 +87,11 @@ public class SqlTransformStage implements Supplier<TransformResult>, ResultSetEx
 
     private static final Logger log = LoggerFactory.getLogger(SqlTransformStage.class);
 
+    /**
+     * Matches queries whose results depend on the order or number of rows, which cannot be read in separate partitions.
+     */
+    private static final Pattern UNSPLITTABLE_QUERY = Pattern.compile("\\b(?:order\\s+by|limit|top|fetch|rownum|sample)\\b", Pattern.CASE_INSENSITIVE);
+
     /**
      * SQL data source.
      */
@@ -101,6 +116,12 @@ public class SqlTransformStage implements Supplier<TransformResult>, ResultSetEx
     @Nonnull
     private final String sql;
 
+    /**
+     * Label of the column for reading the query in parallel partitions, or {@code null} to find a column.
+     */
+    @Nullable
+    private final String splitColumn;
+
     /**
      * Spark context.
      */
@@ -109,12 +130,16 @@ public class SqlTransformStage implements Supplier<TransformResult>, ResultSetEx
 
     /**
      * Constructs a {@code SqlTransformStage}.
+     *
+     * @param splitColumn the label of an integer column, or {@code null} to use the primary key or another integer column
      */
-    public SqlTransformStage(@Nonnull final String sql, @Nonnull final JdbcDatasource datasource, @Nonnull final SQLContext sqlContext, @Nonnull final SparkContextService sparkContextService) {
+    public SqlTransformStage(@Nonnull final String sql, @Nullable final String splitColumn, @Nonnull final JdbcDatasource datasource, @Nonnull final SQLContext sqlContext,
+                             @Nonnull final SparkContextService sparkContextService) {
         this.dataSource = new DataSourceSupplier(datasource);
         this.dialect = JdbcDialects$.MODULE$.get(datasource.getDatabaseConnectionUrl());
         this.sparkContextService = sparkContextService;
         this.sql = sql;
+        this.splitColumn = StringUtils.trimToNull(splitColumn);
         this.sqlContext = sqlContext;
     }
 
@@ -124,7 +149,8 @@ public class SqlTransformStage implements Supplier<TransformResult>, ResultSetEx
     @Nonnull
     @Override
     public TransformResult get() {
-        return new JdbcTemplate(dataSource.get()).query(sql, this);
+        // Only the metadata is needed from the driver; the rows are read by the executors
+        return new JdbcTemplate(dataSource.get()).query("SELECT * FROM (" + sql + ") rdd WHERE 1 = 0", this);
     }
 
     @Override
@@ -139,12 +165,222 @@ public class SqlTransformStage implements Supplier<TransformResult>, ResultSetEx
         //noinspection RedundantCast,unchecked
         final ClassTag<Row> classTag = (ClassTag) ClassTag$.MODULE$.apply(Row.class);
 
-        final RDD<Row> rdd = new JdbcRDD<Row>(sqlContext.sparkContext(), getConnection, "SELECT * FROM (" + sql + ") rdd WHERE ? = ?", 1, 1, 1, mapRow, classTag);
-        result.setDataSet(sparkContextService.toDataSet(sqlContext, rdd.toJavaRDD(), schema));
+        final String query = "SELECT * FROM (" + sql + ") rdd";
+        final SplitColumn split = getSplitColumn(rs);
+        final long[] bounds = (split != null) ? getSplitColumnBounds(split) : null;
+
+        final JavaRDD<Row> rdd;
+        if (split != null && bounds != null) {
+            // Read ranges of the split column in parallel, plus the rows where it is null
+            final int numPartitions = getNumPartitions(bounds[0], bounds[1], sqlContext.sparkContext().defaultParallelism());
+            log.debug("Reading SQL query in {} partitions of column {} from {} to {}", numPartitions, split.name, bounds[0], bounds[1]);
+
+            final RDD<Row> ranges = new JdbcRDD<>(sqlContext.sparkContext(), getConnection, query + " WHERE ? <= " + split.name + " AND " + split.name + " <= ?", bounds[0], bounds[1],
+                                                  numPartitions, mapRow, classTag);
+            final RDD<Row> nulls = new JdbcRDD<>(sqlContext.sparkContext(), getConnection, query + " WHERE " + split.name + " IS NULL AND ? = ?", 1, 1, 1, mapRow, classTag);
+            rdd = ranges.toJavaRDD().union(nulls.toJavaRDD());
+        } else {
+            rdd = new JdbcRDD<>(sqlContext.sparkContext(), getConnection, query + " WHERE ? = ?", 1, 1, 1, mapRow, classTag).toJavaRDD();
+        }
+        result.setDataSet(sparkContextService.toDataSet(sqlContext, rdd, schema));
 
         return result;
     }
 
+    /**
+     * Indicates if the results of the specified query can be read in separate partitions.
+     */
+    static boolean isSplittable(@Nonnull final String sql) {
+        return !UNSPLITTABLE_QUERY.matcher(sql).find();
+    }
+
+    /**
+     * Gets the number of partitions for reading the specified range of the split column. The range may be wider than a {@code long}.
+     *
+     * @param lower              the minimum value of the split column
+     * @param upper              the maximum value of the split column
+     * @param defaultParallelism the default number of partitions
+     * @return the number of partitions
+     */
+    static int getNumPartitions(final long lower, final long upper, final int defaultParallelism) {
+        final BigInteger length = BigInteger.valueOf(upper).subtract(BigInteger.valueOf(lower)).add(BigInteger.ONE);
+        return (length.signum() > 0 && length.compareTo(BigInteger.valueOf(defaultParallelism)) < 0) ? length.intValue() : defaultParallelism;
+    }
+
+    /**
+     * Finds an integer column for reading the query in parallel partitions.
+     *
+     * <p>The column named by the caller is preferred, followed by the primary key of a table in the query. Otherwise the first integer column is used, which may have few
+     * distinct values.</p>
+     *
+     * @return the split column, or {@code null} if the query cannot be split
+     */
+    @Nullable
+    private SplitColumn getSplitColumn(@Nonnull final ResultSet rs) throws SQLException {
+        if (!isSplittable(sql)) {
+            return null;
+        }
+
+        final ResultSetMetaData rsmd = rs.getMetaData();
+        final List<Integer> columns = new ArrayList<>();
+        for (int i = 1; i <= rsmd.getColumnCount(); ++i) {
+            switch (rsmd.getColumnType(i)) {
+                case Types.BIGINT:
+                case Types.INTEGER:
+                case Types.SMALLINT:
+                case Types.TINYINT:
+                    columns.add(i);
+                    break;
+
+                default:
+                    // not a split column
+            }
+        }
+        if (columns.isEmpty()) {
+            return null;
+        }
+
+        // Use the column named by the caller
+        Integer column = null;
+        if (splitColumn != null) {
+            for (final int i : columns) {
+                if (splitColumn.equalsIgnoreCase(rsmd.getColumnLabel(i))) {
+                    column = i;
+                    break;
+                }
+            }
+            if (column == null) {
+                log.debug("Split column {} is not an integer column of the query", splitColumn);
+            }
+        }
+
+        // Look for a primary key and the table of the split column. The tables are read from the metadata of the query itself, as they are hidden by the derived table.
+        final Statement statement = rs.getStatement();
+        if (statement != null) {
+            final Connection conn = statement.getConnection();
+            try (final PreparedStatement query = conn.prepareStatement(sql)) {
+                final ResultSetMetaData queryMetaData = query.getMetaData();
+                if (queryMetaData != null && queryMetaData.getColumnCount() == rsmd.getColumnCount()) {
+                    if (column == null) {
+                        final DatabaseMetaData dbmd = conn.getMetaData();
+                        for (final int i : columns) {
+                            if (isPrimaryKey(dbmd, queryMetaData, i)) {
+                                column = i;
+                                break;
+                            }
+                        }
+                    }
+                    if (column == null) {
+                        column = columns.get(0);
+                    }
+                    return new SplitColumn(dialect.quoteIdentifier(rsmd.getColumnLabel(column)), getTableBoundsQuery(queryMetaData, column));
+                }
+            } catch (final SQLException e) {
+                log.debug("Unable to read the metadata of the SQL query", e);
+            }
+        }
+
+        return new SplitColumn(dialect.quoteIdentifier(rsmd.getColumnLabel((column != null) ? column : columns.get(0))), null);
+    }
+
+    /**
+     * Gets a query for the minimum and maximum values of the table column of the specified query column.
+     *
+     * @return the bounds query, or {@code null} if the query column is not a table column
+     */
+    @Nullable
+    private String getTableBoundsQuery(@Nonnull final ResultSetMetaData rsmd, final int column) {
+        try {
+            final String table = StringUtils.trimToNull(rsmd.getTableName(column));
+            final String name = StringUtils.trimToNull(rsmd.getColumnName(column));
+            if (table == null || name == null) {
+                return null;
+            }
+
+            final List<String> tableParts = new ArrayList<>(3);
+            for (final String part : new String[]{StringUtils.trimToNull(rsmd.getCatalogName(column)), StringUtils.trimToNull(rsmd.getSchemaName(column)), table}) {
+                if (part != null) {
+                    tableParts.add(dialect.quoteIdentifier(part));
+                }
+            }
+            final String quotedName = dialect.quoteIdentifier(name);
+            return "SELECT MIN(" + quotedName + "), MAX(" + quotedName + ") FROM " + StringUtils.join(tableParts, ".");
+        } catch (final SQLException e) {
+            log.debug("Unable to determine the table of column {}", column, e);
+            return null;
+        }
+    }
+
+    /**
+     * Indicates if the specified column is the only column in the primary key of its table.
+     */
+    private boolean isPrimaryKey(@Nonnull final DatabaseMetaData dbmd, @Nonnull final ResultSetMetaData rsmd, final int column) {
+        try {
+            final String table = rsmd.getTableName(column);
+            if (StringUtils.isEmpty(table)) {
+                return false;
+            }
+
+            final Set<String> keys = new HashSet<>();
+            try (final ResultSet rs = dbmd.getPrimaryKeys(StringUtils.trimToNull(rsmd.getCatalogName(column)), StringUtils.trimToNull(rsmd.getSchemaName(column)), table)) {
+                while (rs.next()) {
+                    keys.add(rs.getString("COLUMN_NAME"));
+                }
+            }
+            return keys.size() == 1 && StringUtils.equalsIgnoreCase(keys.iterator().next(), rsmd.getColumnName(column));
+        } catch (final SQLException e) {
+            log.debug("Unable to determine the primary key of column {}", column, e);
+            return false;
+        }
+    }
+
+    /**
+     * Queries the minimum and maximum values of the split column.
+     *
+     * <p>If the split column is a table column then its bounds are read from the table, which avoids running the whole query. These bounds may be wider than the bounds of the query results,
+     * which only leaves some partitions with fewer rows. Otherwise the bounds are read from the query results.</p>
+     *
+     * @return the lower and upper bounds, or {@code null} if the bounds are not available
+     */
+    @Nullable
+    private long[] getSplitColumnBounds(@Nonnull final SplitColumn split) {
+        if (split.tableBoundsQuery != null) {
+            try {
+                return getBounds(split.tableBoundsQuery);
+            } catch (final DataAccessException e) {
+                log.debug("Unable to determine the bounds of split column {} from its table", split.name, e);
+            }
+        }
+
+        try {
+            return getBounds("SELECT MIN(" + split.name + "), MAX(" + split.name + ") FROM (" + sql + ") rdd");
+        } catch (final DataAccessException e) {
+            log.warn("Unable to determine the bounds of split column {}", split.name, e);
+            return null;
+        }
+    }
+
+    /**
+     * Executes the specified query for the minimum and maximum values of a column.
+     *
+     * @return the lower and upper bounds, or {@code null} if there are no values
+     */
+    @Nullable
+    private long[] getBounds(@Nonnull final String boundsSql) {
+        return new JdbcTemplate(dataSource.get()).query(boundsSql, new ResultSetExtractor<long[]>() {
+            @Nullable
+            @Override
+            public long[] extractData(@Nonnull final ResultSet rs) throws SQLException {
+                if (rs.next()) {
+                    final long lower = rs.getLong(1);
+                    final long upper = rs.getLong(2);
+                    return rs.wasNull() ? null : new long[]{lower, upper};
+                }
+                return null;
+            }
+        });
+    }
+
     /**
      * Builds the Spark SQL schema from the specified result set.
      */
@@ -271,4 +507,27 @@ public class SqlTransformStage implements Supplier<TransformResult>, ResultSetEx
                 return DataTypes.StringType;
         }
     }
+
+    /**
+     * An integer column for reading the query in parallel partitions.
+     */
+    private static class SplitColumn {
+
+        /**
+         * Quoted label of the query column
+         */
+        @Nonnull
+        final String name;
+
+        /**
+         * Query for the bounds of the table column, or {@code null} if not a table column
+         */
+        @Nullable
+        final String tableBoundsQuery;
+
+        SplitColumn(@Nonnull final String name, @Nullable final String tableBoundsQuery) {
+            this.name = name;
+            this.tableBoundsQuery = tableBoundsQuery;
+        }
+    }
 }
@@ -25,6 +25,7 @@ import com.thinkbiganalytics.spark.metadata.SaveJob;
 import com.thinkbiganalytics.spark.metadata.TransformJob;
 import com.thinkbiganalytics.spark.model.SaveResult;
 import com.thinkbiganalytics.spark.rest.model.SaveResponse;
+import com.thinkbiganalytics.spark.rest.model.TransformQueryResult;
 import com.thinkbiganalytics.spark.rest.model.TransformResponse;
 import com.thinkbiganalytics.spark.service.TransformService;
 
@@ -35,10 +36,12 @@ import java.util.ResourceBundle;
 
 import javax.annotation.Nonnull;
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
@@ -122,6 +125,36 @@ public abstract class AbstractTransformController {
         }
     }
 
+    /**
+     * Requests a page of rows from the result of a transformation.
+     *
+     * @param id    the destination table name
+     * @param start the index of the first row
+     * @param limit the maximum number of rows
+     * @return the rows
+     */
+    @GET
+    @Path("{table}/rows")
+    @Produces(MediaType.APPLICATION_JSON)
+    @ApiOperation("Fetches a page of rows from the result of a transformation.")
+    @ApiResponses({
+                      @ApiResponse(code = 200, message = "Returns the rows.", response = TransformQueryResult.class),
+                      @ApiResponse(code = 400, message = "The page is not valid.", response = TransformResponse.class),
+                      @ApiResponse(code = 404, message = "The transformation does not exist or was not requested with a page size.", response = TransformResponse.class)
+                  })
+    @Nonnull
+    public Response getRows(@Nonnull @PathParam("table") final String id, @QueryParam("start") @DefaultValue("0") final int start, @QueryParam("limit") @DefaultValue("1000") final int limit) {
+        if (start < 0 || limit < 0) {
+            return error(Response.Status.BAD_REQUEST, "getRows.invalidPage");
+        }
+
+        try {
+            return Response.ok(transformService.getRows(id, start, limit)).build();
+        } catch (final IllegalArgumentException e) {
+            return error(Response.Status.NOT_FOUND, "getRows.notFound");
+        }
+    }
+
     /**
      * Requests the status of a save.
      *
@@ -21,6 +21,7 @@ package com.thinkbiganalytics.spark.service;
  */
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
 import com.google.common.base.Objects;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
@@ -28,6 +29,8 @@ import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
 import com.thinkbiganalytics.discovery.schema.QueryResultColumn;
 import com.thinkbiganalytics.policy.rest.model.FieldPolicy;
 import com.thinkbiganalytics.spark.DataSet;
@@ -57,7 +60,6 @@ import com.thinkbiganalytics.spark.rest.model.TransformResponse;
 import com.thinkbiganalytics.spark.shell.DatasourceProvider;
 import com.thinkbiganalytics.spark.shell.DatasourceProviderFactory;
 
-import org.apache.commons.lang3.StringEscapeUtils;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.spark.sql.types.StructType;
 import org.slf4j.ext.XLogger;
@@ -132,6 +134,33 @@ public class TransformService {
         .maximumSize(100)
         .build();
 
+    /**
+     * Results of recent transformations, registered as temporary tables so they can be read as the parent of the next transformation
+     */
+    @Nonnull
+    private final Cache<String, DataSet> resultCache = CacheBuilder.newBuilder()
+        .expireAfterAccess(1, TimeUnit.HOURS)
+        .maximumSize(10)
+        .removalListener(new RemovalListener<String, DataSet>() {
+            @Override
+            public void onRemoval(@Nonnull final RemovalNotification<String, DataSet> notification) {
+                if (notification.getKey() != null && notification.getValue() != null) {
+                    engine.getSQLContext().dropTempTable(notification.getKey());
+                    notification.getValue().unpersist(false);
+                }
+            }
+        })
+        .build();
+
+    /**
+     * Rows of recent transformations that are fetched a page at a time
+     */
+    @Nonnull
+    private final Cache<String, TransformQueryResult> rowCache = CacheBuilder.newBuilder()
+        .expireAfterAccess(1, TimeUnit.HOURS)
+        .maximumSize(10)
+        .build();
+
     /**
      * Class for the transform script.
      */
@@ -200,7 +229,7 @@ public class TransformService {
         // Execute script
         final DataSet dataSet = createShellTask(request);
         final StructType schema = dataSet.schema();
-        TransformResponse response = submitTransformJob(new ShellTransformStage(dataSet), getPolicies(request));
+        TransformResponse response = submitTransformJob(new ShellTransformStage(dataSet), getPolicies(request), request.getPageSize());
 
         // Build response
         if (response.getStatus() != TransformResponse.Status.SUCCESS) {
@@ -254,6 +283,27 @@ public class TransformService {
         }
     }
 
+    /**
+     * Gets a page of rows from the result of a transformation that was requested with a page size.
+     *
+     * @param id    the table with the results
+     * @param start the index of the first row
+     * @param limit the maximum number of rows
+     * @return the rows
+     * @throws IllegalArgumentException if the result does not exist
+     */
+    @Nonnull
+    public TransformQueryResult getRows(@Nonnull final String id, final int start, final int limit) {
+        log.entry(id, start, limit);
+
+        final TransformQueryResult result = rowCache.getIfPresent(id);
+        if (result != null) {
+            return log.exit(getPage(result, start, limit));
+        } else {
+            throw log.throwing(new IllegalArgumentException());
+        }
+    }
+
     /**
      * Gets the transformation job with the specified id.
      *
@@ -314,7 +364,7 @@ public class TransformService {
         }
 
         // Execute query
-        final TransformResponse response = submitTransformJob(createSqlTask(request), getPolicies(request));
+        final TransformResponse response = submitTransformJob(createSqlTask(request), getPolicies(request), request.getPageSize());
         return log.exit(response);
     }
 
@@ -373,6 +423,8 @@ public class TransformService {
     /**
      * Converts the specified transformation request to a Scala script that can be executed by the script engine.
      *
+     * <p>The parent table is read from the {@code parentTableName} binding so that chained transformations compile to the same script.</p>
+     *
      * @param request the transformation request
      * @return the Scala script
      */
@@ -380,7 +432,11 @@ public class TransformService {
     @VisibleForTesting
     String toScript(@Nonnull final TransformRequest request) {
         final StringBuilder script = new StringBuilder();
-        script.append("class Transform (sqlContext: org.apache.spark.sql.SQLContext, sparkContextService: com.thinkbiganalytics.spark.SparkContextService) extends ");
+        script.append("class Transform (sqlContext: org.apache.spark.sql.SQLContext, sparkContextService: com.thinkbiganalytics.spark.SparkContextService");
+        if (request.getParent() != null) {
+            script.append(", parentTableName: String");
+        }
+        script.append(") extends ");
         script.append(transformScriptClass.getName());
         script.append("(sqlContext, sparkContextService) {\n");
 
@@ -392,13 +448,11 @@ public class TransformService {
             script.append("override def parentDataFrame: org.apache.spark.sql.DataFrame = {");
             script.append(request.getParent().getScript());
             script.append("}\n");
-            script.append("override def parentTable: String = {\"");
-            script.append(StringEscapeUtils.escapeJava(request.getParent().getTable()));
-            script.append("\"}\n");
+            script.append("override def parentTable: String = parentTableName\n");
         }
 
         script.append("}\n");
-        script.append("new Transform(sqlContext, sparkContextService).run()\n");
+        script.append((request.getParent() != null) ? "new Transform(sqlContext, sparkContextService, parentTableName).run()\n" : "new Transform(sqlContext, sparkContextService).run()\n");
 
         return script.toString();
     }
@@ -433,10 +487,19 @@ public class TransformService {
     private DataSet createShellTask(@Nonnull final TransformRequest request) throws ScriptException {
         log.entry(request);
 
+        // Keep the parent result available while it is being used
+        if (request.getParent() != null && request.getParent().getTable() != null) {
+            resultCache.getIfPresent(request.getParent().getTable());
+        }
+
         // Build bindings list
         final List<NamedParam> bindings = new ArrayList<>();
         bindings.add(new NamedParamClass("sparkContextService", SparkContextService.class.getName(), sparkContextService));
 
+        if (request.getParent() != null) {
+            bindings.add(new NamedParamClass("parentTableName", "String", request.getParent().getTable()));
+        }
+
         if (request.getDatasources() != null && !request.getDatasources().isEmpty()) {
             if (datasourceProviderFactory != null) {
                 final DatasourceProvider datasourceProvider = datasourceProviderFactory.getDatasourceProvider(request.getDatasources());
@@ -474,7 +537,8 @@ public class TransformService {
         }
 
         // Create task
-        final Supplier<TransformResult> task = new SqlTransformStage(request.getScript(), (JdbcDatasource) request.getDatasources().get(0), engine.getSQLContext(), sparkContextService);
+        final Supplier<TransformResult> task = new SqlTransformStage(request.getScript(), request.getSplitColumn(), (JdbcDatasource) request.getDatasources().get(0), engine.getSQLContext(),
+                                                                   sparkContextService);
         return log.exit(task);
     }
 
@@ -535,15 +599,46 @@ public class TransformService {
         return log.exit(response);
     }
 
+    /**
+     * Gets the specified page of rows from the result.
+     */
+    @Nonnull
+    private static TransformQueryResult getPage(@Nonnull final TransformQueryResult result, final int start, final int limit) {
+        final List<List<Object>> rows = result.getRows();
+        final int fromIndex = Math.min(start, rows.size());
+        final int toIndex = (int) Math.min((long) fromIndex + limit, rows.size());
+
+        final TransformQueryResult page = new TransformQueryResult();
+        page.setColumns(result.getColumns());
+        page.setRows(rows.subList(fromIndex, toIndex));
+        page.setTotalRows(rows.size());
+        if (result.getValidationResults() != null) {
+            page.setValidationResults(result.getValidationResults().subList(fromIndex, toIndex));
+        }
+        return page;
+    }
+
     /**
      * Submits the specified task to be executed and returns the result.
+     *
+     * @param pageSize the maximum number of rows to include in the response, or {@code null} for all rows
      */
     @Nonnull
-    private TransformResponse submitTransformJob(@Nonnull final Supplier<TransformResult> task, @Nullable final FieldPolicy[] policies) throws ScriptException {
-        log.entry(task, policies);
+    private TransformResponse submitTransformJob(@Nonnull final Supplier<TransformResult> task, @Nullable final FieldPolicy[] policies, @Nullable final Integer pageSize) throws ScriptException {
+        log.entry(task, policies, pageSize);
 
         // Prepare script
-        Supplier<TransformResult> result = task;
+        final String table = newTableName();
+        Supplier<TransformResult> result = Suppliers.compose(new Function<TransformResult, TransformResult>() {
+            @Nonnull
+            @Override
+            public TransformResult apply(@Nullable final TransformResult input) {
+                Preconditions.checkNotNull(input);
+                input.getDataSet().registerTempTable(table);
+                resultCache.put(table, input.getDataSet());
+                return input;
+            }
+        }, task);
 
         if (policies != null && policies.length > 0 && validator != null) {
             result = Suppliers.compose(new ValidationStage(policies, validator), result);
@@ -552,9 +647,24 @@ public class TransformService {
             result = Suppliers.compose(new ProfileStage(profiler), result);
         }
 
+        Supplier<TransformResponse> transformResponse = Suppliers.compose(new ResponseStage(table), result);
+        if (pageSize != null && pageSize >= 0) {
+            transformResponse = Suppliers.compose(new Function<TransformResponse, TransformResponse>() {
+                @Nonnull
+                @Override
+                public TransformResponse apply(@Nullable final TransformResponse input) {
+                    Preconditions.checkNotNull(input);
+                    final TransformQueryResult results = input.getResults();
+                    results.setRows(new ArrayList<>(results.getRows()));
+                    rowCache.put(table, results);
+                    input.setResults(getPage(results, 0, pageSize));
+                    return input;
+                }
+            }, transformResponse);
+        }
+
         // Execute script
-        final String table = newTableName();
-        final TransformJob job = new TransformJob(table, Suppliers.compose(new ResponseStage(table), result), engine.getSparkContext());
+        final TransformJob job = new TransformJob(table, transformResponse, engine.getSparkContext());
         tracker.submitJob(job);
 
         // Build response
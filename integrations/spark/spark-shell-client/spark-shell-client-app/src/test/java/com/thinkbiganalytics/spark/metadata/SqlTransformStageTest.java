@@ -0,0 +1,246 @@
+package com.thinkbiganalytics.spark.metadata;
+
+/*-
+ * #%L
+ * thinkbig-spark-shell-client-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.spark.DataSet;
+import com.thinkbiganalytics.spark.SparkContextService;
+import com.thinkbiganalytics.spark.rest.model.JdbcDatasource;
+
+import org.apache.spark.SparkConf;
+import org.apache.spark.SparkContext;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.SQLContext;
+import org.apache.spark.sql.types.StructType;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+public class SqlTransformStageTest {
+
+    /**
+     * JDBC URL of the test database
+     */
+    private static final String URL = "jdbc:h2:mem:SqlTransformStageTest;DB_CLOSE_DELAY=-1";
+
+    /**
+     * Number of rows in the test table
+     */
+    private static final int ROWS = 100;
+
+    /**
+     * Default number of partitions
+     */
+    private static final int PARALLELISM = 4;
+
+    /**
+     * Spark SQL context
+     */
+    private static SQLContext sqlContext;
+
+    /**
+     * Creates the test table and Spark context.
+     */
+    @BeforeClass
+    public static void setUp() throws Exception {
+        // The flag column comes first so it would be chosen if the primary key were ignored. Every tenth score is null.
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "")) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE items (flag TINYINT, id INTEGER PRIMARY KEY, score INTEGER)");
+            }
+            try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO items VALUES (?, ?, ?)")) {
+                for (int id = 1; id <= ROWS; ++id) {
+                    stmt.setInt(1, id % 2);
+                    stmt.setInt(2, id);
+                    if (id % 10 == 0) {
+                        stmt.setNull(3, Types.INTEGER);
+                    } else {
+                        stmt.setInt(3, id);
+                    }
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+        }
+
+        sqlContext = new SQLContext(new SparkContext(new SparkConf().setMaster("local[" + PARALLELISM + "]").setAppName("SqlTransformStageTest")));
+    }
+
+    /**
+     * Stops the Spark context.
+     */
+    @AfterClass
+    public static void tearDown() {
+        sqlContext.sparkContext().stop();
+    }
+
+    /**
+     * Verify detecting queries that cannot be read in separate partitions.
+     */
+    @Test
+    public void isSplittable() {
+        Assert.assertTrue(SqlTransformStage.isSplittable("SELECT * FROM items"));
+        Assert.assertTrue(SqlTransformStage.isSplittable("SELECT topic, sampled FROM items WHERE id > 10"));
+        Assert.assertTrue(SqlTransformStage.isSplittable("SELECT id FROM items GROUP BY id"));
+
+        Assert.assertFalse(SqlTransformStage.isSplittable("SELECT * FROM items ORDER BY id"));
+        Assert.assertFalse(SqlTransformStage.isSplittable("SELECT * FROM items order\n  by id"));
+        Assert.assertFalse(SqlTransformStage.isSplittable("SELECT * FROM items LIMIT 10"));
+        Assert.assertFalse(SqlTransformStage.isSplittable("SELECT TOP 10 * FROM items"));
+        Assert.assertFalse(SqlTransformStage.isSplittable("SELECT * FROM items FETCH FIRST 10 ROWS ONLY"));
+        Assert.assertFalse(SqlTransformStage.isSplittable("SELECT * FROM items WHERE ROWNUM < 10"));
+        Assert.assertFalse(SqlTransformStage.isSplittable("SELECT * FROM items SAMPLE (10)"));
+    }
+
+    /**
+     * Verify computing the number of partitions from the bounds of the split column.
+     */
+    @Test
+    public void getNumPartitions() {
+        Assert.assertEquals(PARALLELISM, SqlTransformStage.getNumPartitions(1, ROWS, PARALLELISM));
+        Assert.assertEquals(2, SqlTransformStage.getNumPartitions(0, 1, PARALLELISM));
+        Assert.assertEquals(1, SqlTransformStage.getNumPartitions(-5, -5, PARALLELISM));
+        Assert.assertEquals(PARALLELISM, SqlTransformStage.getNumPartitions(-3, 0, PARALLELISM));
+
+        // Ranges wider than a long
+        Assert.assertEquals(PARALLELISM, SqlTransformStage.getNumPartitions(Long.MIN_VALUE, Long.MAX_VALUE, PARALLELISM));
+        Assert.assertEquals(PARALLELISM, SqlTransformStage.getNumPartitions(-1, Long.MAX_VALUE, PARALLELISM));
+        Assert.assertEquals(PARALLELISM, SqlTransformStage.getNumPartitions(Long.MIN_VALUE, 0, PARALLELISM));
+        Assert.assertEquals(1, SqlTransformStage.getNumPartitions(Long.MAX_VALUE, Long.MAX_VALUE, PARALLELISM));
+    }
+
+    /**
+     * Verify reading a query in partitions of the primary key.
+     */
+    @Test
+    public void getWithPrimaryKey() {
+        final JavaRDD<Row> rdd = execute("SELECT * FROM items", null);
+
+        // Partitions of the id column, plus one for null values
+        Assert.assertEquals(PARALLELISM + 1, rdd.partitions().size());
+        Assert.assertEquals(ROWS, getIds(rdd.collect()).size());
+    }
+
+    /**
+     * Verify reading a query in partitions of the column named by the caller, including the rows where the column is null.
+     */
+    @Test
+    public void getWithSplitColumn() {
+        final JavaRDD<Row> rdd = execute("SELECT * FROM items", "SCORE");
+        Assert.assertEquals(PARALLELISM + 1, rdd.partitions().size());
+
+        final List<Row> rows = rdd.collect();
+        Assert.assertEquals(ROWS, getIds(rows).size());
+
+        int nulls = 0;
+        for (final Row row : rows) {
+            if (row.isNullAt(2)) {
+                ++nulls;
+            }
+        }
+        Assert.assertEquals(ROWS / 10, nulls);
+    }
+
+    /**
+     * Verify reading a filtered query in partitions of the bounds of the table column.
+     */
+    @Test
+    public void getWithFilter() {
+        final JavaRDD<Row> rdd = execute("SELECT * FROM items WHERE id > 50", null);
+        Assert.assertEquals(PARALLELISM + 1, rdd.partitions().size());
+
+        final Set<Integer> ids = getIds(rdd.collect());
+        Assert.assertEquals(ROWS - 50, ids.size());
+        Assert.assertEquals(51, ((TreeSet<Integer>) ids).first().intValue());
+    }
+
+    /**
+     * Verify falling back to the first integer column if the caller names a column that is not an integer.
+     */
+    @Test
+    public void getWithoutPrimaryKey() {
+        final JavaRDD<Row> rdd = execute("SELECT flag, id + 0 AS num FROM items", "missing");
+
+        // Partitions of the flag column, plus one for null values
+        Assert.assertEquals(2 + 1, rdd.partitions().size());
+        Assert.assertEquals(ROWS, rdd.count());
+    }
+
+    /**
+     * Verify reading a query that cannot be split in a single partition.
+     */
+    @Test
+    public void getUnsplittable() {
+        final JavaRDD<Row> rdd = execute("SELECT * FROM items ORDER BY id", null);
+        Assert.assertEquals(1, rdd.partitions().size());
+        Assert.assertEquals(ROWS, getIds(rdd.collect()).size());
+    }
+
+    /**
+     * Executes the specified query and returns the rows passed to the Spark context service.
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    private JavaRDD<Row> execute(@Nonnull final String sql, @Nullable final String splitColumn) {
+        final JdbcDatasource datasource = new JdbcDatasource();
+        datasource.setDatabaseConnectionUrl(URL);
+        datasource.setDatabaseDriverClassName("org.h2.Driver");
+        datasource.setDatabaseUser("sa");
+        datasource.setPassword("");
+
+        final SparkContextService sparkContextService = Mockito.mock(SparkContextService.class);
+        Mockito.when(sparkContextService.toDataSet(Mockito.any(SQLContext.class), Mockito.any(JavaRDD.class), Mockito.any(StructType.class))).thenReturn(Mockito.mock(DataSet.class));
+
+        new SqlTransformStage(sql, splitColumn, datasource, sqlContext, sparkContextService).get();
+
+        final ArgumentCaptor<JavaRDD> rdd = ArgumentCaptor.forClass(JavaRDD.class);
+        Mockito.verify(sparkContextService).toDataSet(Mockito.eq(sqlContext), rdd.capture(), Mockito.any(StructType.class));
+        return (JavaRDD<Row>) rdd.getValue();
+    }
+
+    /**
+     * Gets the distinct ids of the specified rows.
+     */
+    @Nonnull
+    private Set<Integer> getIds(@Nonnull final List<Row> rows) {
+        final Set<Integer> ids = new TreeSet<>();
+        for (final Row row : rows) {
+            ids.add(((Number) row.get(1)).intValue());
+        }
+        Assert.assertEquals(rows.size(), ids.size());
+        return ids;
+    }
+}
@@ -21,6 +21,7 @@ package com.thinkbiganalytics.spark.rest;
  */
 
 import com.thinkbiganalytics.spark.metadata.TransformJob;
+import com.thinkbiganalytics.spark.rest.model.TransformQueryResult;
 import com.thinkbiganalytics.spark.rest.model.TransformResponse;
 import com.thinkbiganalytics.spark.service.TransformService;
 
@@ -32,6 +33,37 @@ import javax.ws.rs.core.Response;
 
 public class AbstractTransformControllerTest {
 
+    /**
+     * Verify requesting a page of rows.
+     */
+    @Test
+    public void getRows() {
+        // Mock transform objects
+        TransformQueryResult page = new TransformQueryResult();
+
+        TransformService transformService = Mockito.mock(TransformService.class);
+        Mockito.when(transformService.getRows("SuccessJob", 10, 5)).thenReturn(page);
+        Mockito.when(transformService.getRows("MissingJob", 0, 5)).thenThrow(new IllegalArgumentException());
+
+        AbstractTransformController controller = new AbstractTransformController() {
+        };
+        controller.transformService = transformService;
+
+        // Test with existing rows
+        Response response = controller.getRows("SuccessJob", 10, 5);
+        Assert.assertEquals(Response.Status.OK, response.getStatusInfo());
+        Assert.assertEquals(page, response.getEntity());
+
+        // Test with missing rows
+        response = controller.getRows("MissingJob", 0, 5);
+        Assert.assertEquals(Response.Status.NOT_FOUND, response.getStatusInfo());
+        Assert.assertEquals(TransformResponse.Status.ERROR, ((TransformResponse) response.getEntity()).getStatus());
+
+        // Test with invalid page
+        response = controller.getRows("SuccessJob", -1, 5);
+        Assert.assertEquals(Response.Status.BAD_REQUEST, response.getStatusInfo());
+    }
+
     /**
      * Verify requesting a transformation status.
      */
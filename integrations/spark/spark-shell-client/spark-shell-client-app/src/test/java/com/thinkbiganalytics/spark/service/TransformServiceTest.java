@@ -42,6 +42,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -163,6 +164,57 @@ public class TransformServiceTest {
         Assert.assertEquals(datasourceProvider, bindings.get(1).value());
     }
 
+    /**
+     * Verify chained transformations with different parent tables evaluate the same script, so the compiled script can be reused.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void executeWithParent() throws Exception {
+        // Mock data set
+        final DataSet dataSet = Mockito.mock(DataSet.class);
+        Mockito.when(dataSet.persist(Mockito.any(StorageLevel.class))).thenReturn(dataSet);
+        Mockito.when(dataSet.schema()).thenReturn(new StructType());
+
+        // Mock Spark script engine
+        final SparkScriptEngine engine = Mockito.mock(SparkScriptEngine.class);
+        Mockito.when(engine.eval(Mockito.anyString(), Mockito.anyListOf(NamedParam.class))).thenReturn(dataSet);
+        Mockito.when(engine.getSparkContext()).thenReturn(Mockito.mock(SparkContext.class));
+
+        // Test executing chained requests
+        final TransformService service = new TransformService(TransformScript.class, engine, Mockito.mock(SparkContextService.class), new MockJobTrackerService());
+        final List<String> tables = Arrays.asList("parent_table1", "parent_table2");
+
+        for (final String table : tables) {
+            final TransformRequest.Parent parent = new TransformRequest.Parent();
+            parent.setScript("sqlContext.range(1,10)");
+            parent.setTable(table);
+
+            final TransformRequest request = new TransformRequest();
+            request.setParent(parent);
+            request.setScript("parent.withColumn(functions.expr(\"id+1\")");
+            service.execute(request);
+        }
+
+        // Test eval arguments
+        final ArgumentCaptor<String> evalScript = ArgumentCaptor.forClass(String.class);
+        final ArgumentCaptor<List> evalBindings = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(engine, Mockito.times(2)).eval(evalScript.capture(), evalBindings.capture());
+
+        InputStream inputStream = getClass().getResourceAsStream("transform-service-script2.scala");
+        final String expectedScript = IOUtils.toString(inputStream, "UTF-8");
+        inputStream.close();
+        Assert.assertEquals(expectedScript, evalScript.getAllValues().get(0));
+        Assert.assertEquals(expectedScript, evalScript.getAllValues().get(1));
+
+        for (int i = 0; i < tables.size(); ++i) {
+            final List<NamedParam> bindings = evalBindings.getAllValues().get(i);
+            Assert.assertEquals(2, bindings.size());
+            Assert.assertEquals("parentTableName", bindings.get(1).name());
+            Assert.assertEquals("String", bindings.get(1).tpe());
+            Assert.assertEquals(tables.get(i), bindings.get(1).value());
+        }
+    }
+
     /**
      * Verify converting a transformation request to a Scala script.
      */
@@ -20,10 +20,21 @@ package com.thinkbiganalytics.spark.datavalidator;
  * #L%
  */
 
+import com.thinkbiganalytics.policy.FieldPolicy;
+import com.thinkbiganalytics.spark.DataSet;
+import com.thinkbiganalytics.spark.SparkContextService;
+import com.thinkbiganalytics.spark.datavalidator.functions.CleanseAndValidateRow;
+
 import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.sql.hive.HiveContext;
+import org.apache.spark.sql.types.StructField;
+import org.apache.spark.sql.types.StructType;
 
 import java.io.Serializable;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
 /**
  * Validator Strategy interface (to enable support for Spark 1 and 2)
  */
@@ -37,4 +48,22 @@ public interface IValidatorStrategy extends Serializable {
      * @return RDD containing counts of invalid columns, and total valid and invalid rows
      */
     JavaRDD<long[]> getCleansedRowResultPartitionCounts(JavaRDD<CleansedRowResult> cleansedRowResultJavaRDD, int schemaLength);
+
+    /**
+     * Cleanses and validates the dataset with Spark SQL expressions instead of {@link CleanseAndValidateRow}, if every field policy can be expressed that way.
+     *
+     * <p>The returned data set contains the columns of {@code schema} with the same values as the rows produced by {@link CleanseAndValidateRow}, followed by the
+     * {@link CleanseAndValidateRow#ROW_VALID_COL} column and one {@link CleanseAndValidateRow#COLUMN_VALID_COL_PREFIX} column for each field.</p>
+     *
+     * @param dataset     the rows to validate
+     * @param policies    the field policies
+     * @param fields      the target schema
+     * @param schema      the schema of the cleansed rows
+     * @param hiveContext Hive context
+     * @param scs         Spark context service
+     * @return the cleansed rows, or {@code null} if the policies must be applied to each row
+     */
+    @Nullable
+    DataSet cleanseAndValidateColumns(@Nonnull DataSet dataset, @Nonnull FieldPolicy[] policies, @Nonnull StructField[] fields, @Nonnull StructType schema, @Nonnull HiveContext hiveContext,
+                                      @Nonnull SparkContextService scs);
 }
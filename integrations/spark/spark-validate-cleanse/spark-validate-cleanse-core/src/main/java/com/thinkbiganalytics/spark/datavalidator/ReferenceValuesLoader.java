@@ -0,0 +1,212 @@
+package com.thinkbiganalytics.spark.datavalidator;
+
+/*-
+ * #%L
+ * kylo-spark-validate-cleanse-core
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.hive.util.HiveUtils;
+import com.thinkbiganalytics.policy.BaseFieldPolicy;
+import com.thinkbiganalytics.policy.FieldPolicy;
+import com.thinkbiganalytics.policy.validation.ReferenceLookupValidator;
+import com.thinkbiganalytics.policy.validation.ReferenceValues;
+import com.thinkbiganalytics.spark.SparkContextService;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.spark.SparkContext;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.broadcast.Broadcast;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.SQLContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Loads the values of reference tables for {@link ReferenceLookupValidator} policies.
+ *
+ * <p>Each table column is read once and broadcast to the executors. The broadcast is reused by later validations of the same Spark context until the table properties change, such as after the table
+ * is overwritten.</p>
+ */
+class ReferenceValuesLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(ReferenceValuesLoader.class);
+
+    /**
+     * Broadcast values by Spark context, then by table and column. Broadcasts belong to the context that created them, so the entries of a context are dropped once the context is garbage
+     * collected.
+     */
+    private static final Map<SparkContext, Map<String, CachedValues>> cache = Collections.synchronizedMap(new WeakHashMap<SparkContext, Map<String, CachedValues>>());
+
+    private final SparkContextService scs;
+
+    /**
+     * Constructs a {@code ReferenceValuesLoader}.
+     */
+    ReferenceValuesLoader(@Nonnull final SparkContextService scs) {
+        this.scs = scs;
+    }
+
+    /**
+     * Indicates if any of the specified policies requires reference values.
+     */
+    static boolean hasReferenceLookups(@Nonnull final FieldPolicy[] policies) {
+        for (final FieldPolicy policy : policies) {
+            if (policy != null) {
+                for (final BaseFieldPolicy fieldPolicy : policy.getAllPolicies()) {
+                    if (fieldPolicy instanceof ReferenceLookupValidator) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Provides the reference values to each {@link ReferenceLookupValidator} in the specified policies.
+     *
+     * @param policies the field policies
+     * @param context  the SQL context for reading the reference tables
+     */
+    void load(@Nonnull final FieldPolicy[] policies, @Nonnull final SQLContext context) {
+        for (final FieldPolicy policy : policies) {
+            if (policy != null) {
+                for (final BaseFieldPolicy fieldPolicy : policy.getAllPolicies()) {
+                    if (fieldPolicy instanceof ReferenceLookupValidator) {
+                        final ReferenceLookupValidator validator = (ReferenceLookupValidator) fieldPolicy;
+                        validator.setSource(new BroadcastSource(getValues(validator.getTable(), validator.getColumn(), context)));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the broadcast values of the specified table column, reading the table if it has changed since it was last read.
+     */
+    @Nonnull
+    private Broadcast<ReferenceValues> getValues(@Nonnull final String table, @Nonnull final String column, @Nonnull final SQLContext context) {
+        final String key = table + "." + column;
+        final String version = getVersion(table, context);
+
+        final SparkContext sparkContext = context.sparkContext();
+
+        synchronized (cache) {
+            Map<String, CachedValues> contextCache = cache.get(sparkContext);
+            if (contextCache == null) {
+                contextCache = new HashMap<>();
+                cache.put(sparkContext, contextCache);
+            }
+
+            final CachedValues cached = contextCache.get(key);
+            if (cached != null && version != null && version.equals(cached.version)) {
+                log.debug("Using cached reference values for {}", key);
+                return cached.broadcast;
+            }
+
+            final String sql = "SELECT DISTINCT CAST(" + HiveUtils.quoteIdentifier(column) + " AS STRING) FROM " + quoteTable(table) + " WHERE " + HiveUtils.quoteIdentifier(column) + " IS NOT NULL";
+            log.info("Loading reference values: {}", sql);
+            final List<String> list = new ArrayList<>();
+            for (final Row row : scs.sql(context, sql).collectAsList()) {
+                list.add(row.getString(0));
+            }
+
+            final ReferenceValues values = ReferenceValues.of(list);
+            log.info("Loaded {} reference values from {}", values.size(), key);
+
+            @SuppressWarnings("squid:S2095") final Broadcast<ReferenceValues> broadcast = JavaSparkContext.fromSparkContext(sparkContext).broadcast(values);
+            if (cached != null) {
+                cached.broadcast.unpersist(false);
+            }
+            contextCache.put(key, new CachedValues(broadcast, version));
+            return broadcast;
+        }
+    }
+
+    /**
+     * Gets a string that changes whenever the specified table is modified, or {@code null} if the table properties cannot be read.
+     */
+    @Nullable
+    private String getVersion(@Nonnull final String table, @Nonnull final SQLContext context) {
+        try {
+            final List<String> properties = new ArrayList<>();
+            for (final Row row : scs.sql(context, "SHOW TBLPROPERTIES " + quoteTable(table)).collectAsList()) {
+                properties.add(row.mkString("="));
+            }
+            Collections.sort(properties);
+            return StringUtils.join(properties, ",");
+        } catch (final Exception e) {
+            log.warn("Unable to read properties of reference table {}. The table will be read for every validation: {}", table, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Quotes a table name in the format {@code database.table} or {@code table}.
+     */
+    @Nonnull
+    private static String quoteTable(@Nonnull final String table) {
+        final int dot = table.indexOf('.');
+        return (dot > 0) ? HiveUtils.quoteIdentifier(table.substring(0, dot), table.substring(dot + 1)) : HiveUtils.quoteIdentifier(table);
+    }
+
+    /**
+     * Reference values that have been broadcast to the executors.
+     */
+    private static class CachedValues {
+
+        final Broadcast<ReferenceValues> broadcast;
+
+        @Nullable
+        final String version;
+
+        CachedValues(@Nonnull final Broadcast<ReferenceValues> broadcast, @Nullable final String version) {
+            this.broadcast = broadcast;
+            this.version = version;
+        }
+    }
+
+    /**
+     * Provides reference values from a broadcast variable, which is fetched once by each executor and shared between its tasks.
+     */
+    private static class BroadcastSource implements ReferenceLookupValidator.Source {
+
+        private static final long serialVersionUID = 4370268961742290331L;
+
+        private final Broadcast<ReferenceValues> broadcast;
+
+        BroadcastSource(@Nonnull final Broadcast<ReferenceValues> broadcast) {
+            this.broadcast = broadcast;
+        }
+
+        @Override
+        public ReferenceValues get() {
+            return broadcast.value();
+        }
+    }
+}
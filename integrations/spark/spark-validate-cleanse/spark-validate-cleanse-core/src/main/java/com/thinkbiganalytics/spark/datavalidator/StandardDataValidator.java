@@ -28,14 +28,20 @@ import com.thinkbiganalytics.policy.validation.ValidationResult;
 import com.thinkbiganalytics.spark.DataSet;
 import com.thinkbiganalytics.spark.SparkContextService;
 import com.thinkbiganalytics.spark.dataprofiler.output.OutputRow;
+import com.thinkbiganalytics.spark.datavalidator.functions.AccumulateRowValidationCounts;
+import com.thinkbiganalytics.spark.datavalidator.functions.AccumulateValidationCounts;
 import com.thinkbiganalytics.spark.datavalidator.functions.CleanseAndValidateRow;
+import com.thinkbiganalytics.spark.datavalidator.functions.PartitionLevelCountsParam;
 import com.thinkbiganalytics.spark.datavalidator.functions.SumPartitionLevelCounts;
+import com.thinkbiganalytics.spark.datavalidator.functions.ToCleansedRowResult;
 
 import org.apache.commons.lang.StringUtils;
+import org.apache.spark.Accumulable;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.api.java.function.Function;
 import org.apache.spark.sql.Row;
+import org.apache.spark.sql.SQLContext;
 import org.apache.spark.sql.hive.HiveContext;
 import org.apache.spark.sql.types.StructField;
 import org.apache.spark.sql.types.StructType;
@@ -44,13 +50,17 @@ import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
+import static com.thinkbiganalytics.spark.datavalidator.functions.CleanseAndValidateRow.COLUMN_VALID_COL_PREFIX;
 import static com.thinkbiganalytics.spark.datavalidator.functions.CleanseAndValidateRow.PROCESSING_DTTM_COL;
 import static com.thinkbiganalytics.spark.datavalidator.functions.CleanseAndValidateRow.REJECT_REASON_COL;
+import static com.thinkbiganalytics.spark.datavalidator.functions.CleanseAndValidateRow.ROW_VALID_COL;
 
 
 /**
@@ -101,7 +111,13 @@ public class StandardDataValidator implements DataValidator, Serializable {
     @Override
     public List<OutputRow> getProfileStats(@Nonnull final DataValidatorResult result) {
         final List<OutputRow> stats = new ArrayList<>();
-        final long[] validationCounts = cleansedRowResultsValidationCounts(result.getCleansedRowResultRDD(), result.getSchema().length() - 1);
+
+        // Use the counts collected while saving the rows, or count them now if the rows have not been computed
+        long[] validationCounts = accumulatedValidationCounts(result);
+        if (validationCounts == null) {
+            log.info("Validation counts were not collected by a previous action. Counting the cleansed rows.");
+            validationCounts = cleansedRowResultsValidationCounts(result.getCleansedRowResultRDD(), result.getSchema().length() - 1);
+        }
 
         // Calculate global stats
         final long validCount = validationCounts[result.getSchema().length() - 1];
@@ -126,7 +142,7 @@ public class StandardDataValidator implements DataValidator, Serializable {
     public DataValidatorResult validate(@Nonnull final DataSet dataset, @Nonnull final Map<String, FieldPolicy> policyMap) {
         final StructField[] fields = dataset.schema().fields();
         final FieldPolicy[] policies = resolvePolicies(fields, policyMap);
-        return validate(dataset, policies, fields);
+        return validate(dataset, policies, fields, null);
     }
 
     @Nonnull
@@ -148,11 +164,18 @@ public class StandardDataValidator implements DataValidator, Serializable {
             sourceDF = sourceDF.repartition(numPartitions);
         }
 
-        return validate(sourceDF, policies, fields);
+        return validate(sourceDF, policies, fields, hiveContext);
     }
 
     @Override
     public void saveInvalidToTable(@Nonnull final String databaseName, @Nonnull final String tableName, @Nonnull final DataValidatorResult result, @Nonnull final HiveContext hiveContext) {
+        if (result.getCleansedDataSet() != null) {
+            final DataSet invalidDataFrame = dropValidColumns(result.getCleansedDataSet().filter("NOT " + ROW_VALID_COL), result);
+            writeToTargetTable(invalidDataFrame, databaseName, tableName, hiveContext);
+            log.info("wrote values to the invalid Table  {}", tableName);
+            return;
+        }
+
         // Return a new rdd based for Invalid Results
         //noinspection serial
         JavaRDD<CleansedRowResult> invalidResultRDD = result.getCleansedRowResultRDD().filter(new Function<CleansedRowResult, Boolean>() {
@@ -196,6 +219,14 @@ public class StandardDataValidator implements DataValidator, Serializable {
     @Override
     public void saveValidToTable(@Nonnull final String databaseName, @Nonnull final String sourceTableName, @Nonnull final String targetTableName, @Nonnull final DataValidatorResult result,
                                  @Nonnull final HiveContext hiveContext) {
+        if (result.getCleansedDataSet() != null) {
+            // Rows are inserted by position so the columns are converted to the valid table types by Hive
+            final DataSet validDataFrame = dropValidColumns(result.getCleansedDataSet().filter(ROW_VALID_COL), result).drop(REJECT_REASON_COL).toDF();
+            writeToTargetTable(validDataFrame, databaseName, targetTableName, hiveContext);
+            log.info("wrote values to the valid Table  {}", targetTableName);
+            return;
+        }
+
         // Return a new rdd based for Valid Results
         //noinspection serial
         JavaRDD<CleansedRowResult> validResultRDD = result.getCleansedRowResultRDD().filter(new Function<CleansedRowResult, Boolean>() {
@@ -220,14 +251,47 @@ public class StandardDataValidator implements DataValidator, Serializable {
     /**
      * Validates the specified dataset and returns the results.
      *
-     * @param policies the field policies
-     * @param fields   the target schema
+     * <p>If a Hive context is given then the policies are applied with Spark SQL expressions when the validator strategy supports them.</p>
+     *
+     * @param policies    the field policies
+     * @param fields      the target schema
+     * @param hiveContext the Hive context, or {@code null} to always apply the policies to each row
      */
     @Nonnull
-    private DataValidatorResult validate(@Nonnull final DataSet dataset, @Nonnull final FieldPolicy[] policies, @Nonnull final StructField[] fields) {
+    private DataValidatorResult validate(@Nonnull final DataSet dataset, @Nonnull final FieldPolicy[] policies, @Nonnull final StructField[] fields, @Nullable final HiveContext hiveContext) {
+        if (ReferenceValuesLoader.hasReferenceLookups(policies)) {
+            new ReferenceValuesLoader(scs).load(policies, (hiveContext != null) ? hiveContext : SQLContext.getOrCreate(dataset.javaRDD().context()));
+        }
+
         final CleanseAndValidateRow function = new CleanseAndValidateRow(policies, fields);
-        final JavaRDD<CleansedRowResult> cleansedRowResultRDD = dataset.javaRDD().map(function);
-        return new DataValidatorResult(cleansedRowResultRDD, policies, function.getSchema());
+        @SuppressWarnings({"deprecation", "squid:S2095"}) final Accumulable<HashMap<Integer, long[]>, CleansedRowResult> validationCounts = JavaSparkContext.fromSparkContext(
+            dataset.javaRDD().context()).accumulable(new HashMap<Integer, long[]>(), new PartitionLevelCountsParam(function.getSchema().length() - 1));
+
+        if (hiveContext != null) {
+            final DataSet validatedDataSet = validatorStrategy.cleanseAndValidateColumns(dataset, policies, fields, function.getSchema(), hiveContext, scs);
+            if (validatedDataSet != null) {
+                log.info("Validating with Spark SQL expressions");
+                final ToCleansedRowResult toCleansedRowResult = new ToCleansedRowResult(fields.length);
+                final JavaRDD<Row> countedRows = validatedDataSet.javaRDD().map(new AccumulateRowValidationCounts(validationCounts, toCleansedRowResult));
+                final DataSet cleansedDataSet = scs.toDataSet(hiveContext, countedRows, validatedDataSet.schema());
+                return new DataValidatorResult(cleansedDataSet, toCleansedRowResult, policies, function.getSchema(), validationCounts);
+            }
+        }
+
+        final JavaRDD<CleansedRowResult> cleansedRowResultRDD = dataset.javaRDD().map(function).map(new AccumulateValidationCounts(validationCounts));
+        return new DataValidatorResult(cleansedRowResultRDD, policies, function.getSchema(), validationCounts);
+    }
+
+    /**
+     * Removes the row and column valid flags from the cleansed rows.
+     */
+    @Nonnull
+    private DataSet dropValidColumns(@Nonnull final DataSet dataset, @Nonnull final DataValidatorResult result) {
+        DataSet cleansedRows = dataset.drop(ROW_VALID_COL);
+        for (int idx = 0; idx < result.getPolicies().length; idx++) {
+            cleansedRows = cleansedRows.drop(COLUMN_VALID_COL_PREFIX + idx);
+        }
+        return cleansedRows;
     }
 
     private DataSet getRows(@Nonnull final JavaRDD<CleansedRowResult> results, @Nonnull final StructType schema, @Nonnull final HiveContext hiveContext) {
@@ -278,6 +342,31 @@ public class StandardDataValidator implements DataValidator, Serializable {
         return partitionCounts.reduce(new SumPartitionLevelCounts());
     }
 
+    /**
+     * Sums the validation counts collected while the cleansed rows were computed.
+     *
+     * @return the counts in the same layout as {@link #cleansedRowResultsValidationCounts(JavaRDD, int)}, or {@code null} if some partitions have not been computed
+     */
+    @Nullable
+    long[] accumulatedValidationCounts(@Nonnull final DataValidatorResult result) {
+        if (result.getValidationCounts() == null) {
+            return null;
+        }
+
+        final Map<Integer, long[]> partitionCounts = result.getValidationCounts().value();
+        if (partitionCounts.size() < result.getCleansedRowResultRDD().partitions().size()) {
+            return null;
+        }
+
+        long[] validationCounts = new long[result.getSchema().length() + 1];
+        for (long[] counts : partitionCounts.values()) {
+            for (int idx = 0; idx < validationCounts.length; idx++) {
+                validationCounts[idx] += counts[idx];
+            }
+        }
+        return validationCounts;
+    }
+
     @Nonnull
     private StructField[] resolveSchema(@Nonnull final String databaseName, @Nonnull final String tableName, @Nonnull final HiveContext hiveContext) {
         StructType schema = scs.toDataSet(hiveContext, HiveUtils.quoteIdentifier(databaseName, tableName)).schema();
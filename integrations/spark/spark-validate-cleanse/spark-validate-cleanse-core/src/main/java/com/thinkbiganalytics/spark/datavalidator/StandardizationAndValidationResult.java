@@ -55,6 +55,16 @@ public class StandardizationAndValidationResult {
         return finalResult;
     }
 
+    /**
+     * Clears the results so this object can be reused for another value.
+     */
+    public void reset(Object value){
+        fieldValue = value;
+        if(validationResults != null){
+            validationResults.clear();
+        }
+    }
+
     public void addValidationResult(ValidationResult validationResult){
         validationResults = (validationResults == null ? new ArrayList<ValidationResult>() : validationResults);
         validationResults.add(validationResult);
@@ -0,0 +1,58 @@
+package com.thinkbiganalytics.spark.datavalidator.functions;
+
+/*-
+ * #%L
+ * kylo-spark-validate-cleanse-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.spark.datavalidator.CleansedRowResult;
+
+import org.apache.spark.Accumulable;
+import org.apache.spark.api.java.function.Function;
+import org.apache.spark.sql.Row;
+
+import java.util.HashMap;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Adds each row validated with Spark SQL expressions to the validation counts as it passes through, so the counts are collected by whichever action first computes the
+ * rows.
+ */
+public class AccumulateRowValidationCounts implements Function<Row, Row> {
+
+    private static final long serialVersionUID = -1748623509861741522L;
+
+    @Nonnull
+    private final Accumulable<HashMap<Integer, long[]>, CleansedRowResult> validationCounts;
+
+    @Nonnull
+    private final Function<Row, CleansedRowResult> toCleansedRowResult;
+
+    public AccumulateRowValidationCounts(@Nonnull final Accumulable<HashMap<Integer, long[]>, CleansedRowResult> validationCounts,
+                                         @Nonnull final Function<Row, CleansedRowResult> toCleansedRowResult) {
+        this.validationCounts = validationCounts;
+        this.toCleansedRowResult = toCleansedRowResult;
+    }
+
+    @Override
+    public Row call(@Nonnull final Row row) throws Exception {
+        validationCounts.add(toCleansedRowResult.call(row));
+        return row;
+    }
+}
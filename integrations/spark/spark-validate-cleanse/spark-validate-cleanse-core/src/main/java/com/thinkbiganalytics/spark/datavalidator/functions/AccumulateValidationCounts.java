@@ -0,0 +1,51 @@
+package com.thinkbiganalytics.spark.datavalidator.functions;
+
+/*-
+ * #%L
+ * kylo-spark-validate-cleanse-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.spark.datavalidator.CleansedRowResult;
+
+import org.apache.spark.Accumulable;
+import org.apache.spark.api.java.function.Function;
+
+import java.util.HashMap;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Adds each cleansed row to the validation counts as it passes through, so the counts are collected by whichever action first computes the rows.
+ */
+public class AccumulateValidationCounts implements Function<CleansedRowResult, CleansedRowResult> {
+
+    private static final long serialVersionUID = 7366471327916853310L;
+
+    @Nonnull
+    private final Accumulable<HashMap<Integer, long[]>, CleansedRowResult> validationCounts;
+
+    public AccumulateValidationCounts(@Nonnull final Accumulable<HashMap<Integer, long[]>, CleansedRowResult> validationCounts) {
+        this.validationCounts = validationCounts;
+    }
+
+    @Override
+    public CleansedRowResult call(@Nonnull final CleansedRowResult cleansedRowResult) throws Exception {
+        validationCounts.add(cleansedRowResult);
+        return cleansedRowResult;
+    }
+}
@@ -23,19 +23,12 @@ package com.thinkbiganalytics.spark.datavalidator.functions;
 import com.google.common.base.Predicate;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.Iterables;
-import com.thinkbiganalytics.policy.BaseFieldPolicy;
 import com.thinkbiganalytics.policy.FieldPolicy;
-import com.thinkbiganalytics.policy.standardization.AcceptsEmptyValues;
-import com.thinkbiganalytics.policy.standardization.StandardizationPolicy;
-import com.thinkbiganalytics.policy.validation.NotNullValidator;
-import com.thinkbiganalytics.policy.validation.ValidationPolicy;
 import com.thinkbiganalytics.policy.validation.ValidationResult;
 import com.thinkbiganalytics.spark.datavalidator.CleansedRowResult;
 import com.thinkbiganalytics.spark.datavalidator.StandardizationAndValidationResult;
-import com.thinkbiganalytics.spark.util.InvalidFormatException;
 import com.thinkbiganalytics.spark.validation.HCatDataType;
 
-import org.apache.commons.lang.StringUtils;
 import org.apache.spark.api.java.function.Function;
 import org.apache.spark.sql.Row;
 import org.apache.spark.sql.RowFactory;
@@ -46,19 +39,13 @@ import org.apache.spark.sql.types.StructType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.ParameterizedType;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Vector;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
-import static com.thinkbiganalytics.spark.datavalidator.StandardDataValidator.VALID_RESULT;
-
 /**
  * Spark function to perform both cleansing and validation of a data row based on data policies and the target datatype
  */
@@ -74,6 +61,16 @@ public class CleanseAndValidateRow implements Function<Row, CleansedRowResult> {
      */
     public static final String REJECT_REASON_COL = "dlp_reject_reason";
 
+    /**
+     * Name of the column indicating if a row is valid, when the rows are validated with Spark SQL expressions.
+     */
+    public static final String ROW_VALID_COL = "dlp_row_valid";
+
+    /**
+     * Prefix of the columns indicating if each field is valid, when the rows are validated with Spark SQL expressions.
+     */
+    public static final String COLUMN_VALID_COL_PREFIX = "dlp_column_valid_";
+
     private static final Logger log = LoggerFactory.getLogger(CleanseAndValidateRow.class);
     private static final long serialVersionUID = 5092972811157021179L;
 
@@ -97,6 +94,22 @@ public class CleanseAndValidateRow implements Function<Row, CleansedRowResult> {
     @Nonnull
     private final StructType schema;
 
+    /**
+     * Policies of each column, resolved on first use
+     */
+    @Nullable
+    private transient CompiledFieldPolicy[] compiledPolicies;
+
+    /**
+     * Original value of each column of the current row
+     */
+    private transient Object[] originalValues;
+
+    /**
+     * Result of the current field
+     */
+    private transient StandardizationAndValidationResult fieldResult;
+
     public CleanseAndValidateRow(@Nonnull final FieldPolicy[] policies, @Nonnull final StructField[] fields) {
         this.policies = policies;
         hasProcessingDttm = Iterables.any(Arrays.asList(fields), new Predicate<StructField>() {
@@ -112,10 +125,9 @@ public class CleanseAndValidateRow implements Function<Row, CleansedRowResult> {
 
     @Override
     public CleansedRowResult call(@Nonnull final Row row) throws Exception {
-        /*
-    Cache for performance. Validators accept different parameters (numeric,string, etc) so we need to resolve the type using reflection
-     */
-        Map<Class, Class> validatorParamType = new HashMap<>();
+        if (compiledPolicies == null) {
+            compile();
+        }
 
         int nulls = hasProcessingDttm ? 1 : 0;
 
@@ -126,26 +138,22 @@ public class CleanseAndValidateRow implements Function<Row, CleansedRowResult> {
         List<ValidationResult> results = null;
         boolean[] columnsValid = new boolean[dataTypes.length];
 
-        Map<Integer, Object> originalValues = new HashMap<>();
-
         // Iterate through columns to cleanse and validate
         for (int idx = 0; idx < dataTypes.length; idx++) {
             ValidationResult result;
-            FieldPolicy fieldPolicy = policies[idx];
-            HCatDataType dataType = dataTypes[idx];
+            CompiledFieldPolicy fieldPolicy = compiledPolicies[idx];
             boolean columnValid = true;
-            boolean isBinaryType = dataType.getConvertibleType().equals(byte[].class);
 
             // Extract the value (allowing for null or missing field for odd-ball data)
             Object val = (idx == row.length() || row.isNullAt(idx) ? null : row.get(idx));
             // Handle complex types by passing them through
 
-            if (dataType.isUnchecked()) {
+            if (fieldPolicy.isUnchecked()) {
                 if (val == null) {
                     nulls++;
                 }
                 newValues[idx] = val;
-                originalValues.put(idx, val);
+                originalValues[idx] = val;
             } else {
                 Object fieldValue = (val);
                 boolean isEmpty;
@@ -153,23 +161,23 @@ public class CleanseAndValidateRow implements Function<Row, CleansedRowResult> {
                 if (fieldValue == null) {
                     nulls++;
                 }
-                originalValues.put(idx, fieldValue);
+                originalValues[idx] = fieldValue;
 
-                StandardizationAndValidationResult standardizationAndValidationResult = standardizeAndValidateField(fieldPolicy, fieldValue, dataType, validatorParamType);
-                result = standardizationAndValidationResult.getFinalValidationResult();
+                fieldPolicy.standardizeAndValidate(fieldValue, fieldResult);
+                result = fieldResult.getFinalValidationResult();
 
                 //only apply the standardized result value if the routine is valid
-                fieldValue = result.isValid() ? standardizationAndValidationResult.getFieldValue() : fieldValue;
+                fieldValue = result.isValid() ? fieldResult.getFieldValue() : fieldValue;
 
                 //reevaluate the isEmpty flag
-                isEmpty = ((fieldValue == null) || (StringUtils.isEmpty(fieldValue.toString())));
+                isEmpty = CompiledFieldPolicy.isEmpty(fieldValue);
 
                 //if the field is a binary type, but cant be converted set it to null.
                 //hive will auto convert byte[] or String fields to a target binary type.
-                if (result.isValid() && isBinaryType && !(fieldValue instanceof byte[]) && !(fieldValue instanceof String)) {
+                if (result.isValid() && fieldPolicy.isBinaryType() && !(fieldValue instanceof byte[]) && !(fieldValue instanceof String)) {
                     //set it to null
                     fieldValue = null;
-                } else if ((dataType.isNumeric() || isBinaryType) && isEmpty) {
+                } else if ((fieldPolicy.isNumericType() || fieldPolicy.isBinaryType()) && isEmpty) {
                     //if its a numeric column and the field is empty then set it to null as well
                     fieldValue = null;
                 }
@@ -177,8 +185,8 @@ public class CleanseAndValidateRow implements Function<Row, CleansedRowResult> {
 
                 if (!result.isValid()) {
                     rowValid = false;
-                    results = (results == null ? new Vector<ValidationResult>() : results);
-                    results.addAll(standardizationAndValidationResult.getValidationResults());
+                    results = (results == null ? new ArrayList<ValidationResult>() : results);
+                    results.addAll(fieldResult.getValidationResults());
                     columnValid = false;
                 }
 
@@ -190,7 +198,7 @@ public class CleanseAndValidateRow implements Function<Row, CleansedRowResult> {
         // Return success unless all values were null.  That would indicate a blank line in the file.
         if (nulls >= dataTypes.length) {
             rowValid = false;
-            results = (results == null ? new Vector<ValidationResult>() : results);
+            results = (results == null ? new ArrayList<ValidationResult>() : results);
             results.add(ValidationResult.failRow("empty", "Row is empty"));
         }
 
@@ -198,8 +206,8 @@ public class CleanseAndValidateRow implements Function<Row, CleansedRowResult> {
             for (int idx = 0; idx < dataTypes.length; idx++) {
                 //if the value is not able to match the invalid dataTypes and the datatype has changed then replace with original value
                 //the _invalid table dataTypes matches the source, not the destination
-                if (newValues[idx] == null || originalValues.get(idx) == null || newValues[idx].getClass() != originalValues.get(idx).getClass()) {
-                    newValues[idx] = originalValues.get(idx);
+                if (newValues[idx] == null || originalValues[idx] == null || newValues[idx].getClass() != originalValues[idx].getClass()) {
+                    newValues[idx] = originalValues[idx];
                 }
                 //otherwise the data has changed, but its still the same data type so we can keep the newly changed value
 
@@ -228,102 +236,24 @@ public class CleanseAndValidateRow implements Function<Row, CleansedRowResult> {
         return schema;
     }
 
-    StandardizationAndValidationResult standardizeAndValidateField(FieldPolicy fieldPolicy, Object value, HCatDataType dataType, Map<Class, Class> validatorParamType) {
+    StandardizationAndValidationResult standardizeAndValidateField(FieldPolicy fieldPolicy, Object value, HCatDataType dataType) {
         StandardizationAndValidationResult result = new StandardizationAndValidationResult(value);
-
-        List<BaseFieldPolicy> fieldPolicies = fieldPolicy.getAllPolicies();
-
-        int standardizerCount = 0;
-        for (BaseFieldPolicy p : fieldPolicies) {
-            if (p instanceof StandardizationPolicy) {
-                standardizerCount++;
-            }
-        }
-        boolean validateNullValues = false;
-        int processedStandardizers = 0;
-        for (BaseFieldPolicy p : fieldPolicies) {
-            boolean isEmpty = ((result.getFieldValue() == null) || (StringUtils.isEmpty(result.getFieldValue().toString())));
-            if (p instanceof StandardizationPolicy) {
-                processedStandardizers++;
-                StandardizationPolicy standardizationPolicy = (StandardizationPolicy) p;
-                boolean shouldStandardize = true;
-                if (isEmpty && !(standardizationPolicy instanceof AcceptsEmptyValues)) {
-                    shouldStandardize = false;
-                }
-
-                if (!standardizationPolicy.accepts(result.getFieldValue())) {
-                    shouldStandardize = false;
-                }
-
-                if (shouldStandardize) {
-                    Object newValue = standardizationPolicy.convertRawValue(result.getFieldValue());
-
-                    //If this is the last standardizer for this field and the standardized value is returned as a String, and target column is not String, then validate and convert it to correct type
-                    if (newValue != null && dataType.getConvertibleType() != newValue.getClass() && standardizerCount == processedStandardizers) {
-                        try {
-                            //Date and timestamp fields can be valid as strings
-                            boolean isValueOk = dataType.isStringValueValidForHiveType(newValue.toString());
-                            if (!isValueOk) {
-                                //if the current string is not in a correct format attempt to convert it
-                                try {
-                                    newValue = dataType.toNativeValue(newValue.toString());
-                                } catch (RuntimeException e) {
-                                    result.addValidationResult(ValidationResult
-                                                                   .failField("incompatible", dataType.getName(),
-                                                                              "Not convertible to " + dataType.getNativeType()));
-                                }
-                            }
-                        } catch (InvalidFormatException e) {
-                            log.warn("Could not convert value {} to correct type {}", newValue.toString(), dataType.getConvertibleType().getName());
-                        }
-                    }
-                    result.setFieldValue(newValue);
-                }
-            }
-
-            if (p instanceof ValidationPolicy) {
-                ValidationPolicy validationPolicy = (ValidationPolicy) p;
-                //run through the validator if the value is not null, or if we are allowed to validate nulls based upon a previous
-                //not null validator
-                if (!isEmpty || validateNullValues || validationPolicy instanceof NotNullValidator) {
-                    ValidationResult validationResult = validateValue(validationPolicy, dataType, result.getFieldValue(), validatorParamType);
-                    if (isEmpty && validationPolicy instanceof NotNullValidator) {
-                        validateNullValues = validationPolicy != VALID_RESULT;
-                    }
-                    //only need to add those that are invalid
-                    if (validationResult != VALID_RESULT) {
-                        result.addValidationResult(validationResult);
-                        break; //exit out of processing if invalid records found.
-                    }
-                }
-                //reset the failOnEmpty flag back to false
-                if (!(validationPolicy instanceof NotNullValidator)) {
-                    validateNullValues = false;
-                }
-            }
-
-        }
-        ValidationResult finalValidationCheck = finalValidationCheck(fieldPolicy, dataType, result.getFieldValue());
-        if (finalValidationCheck != VALID_RESULT) {
-            result.addValidationResult(finalValidationCheck);
-        }
-
+        new CompiledFieldPolicy(fieldPolicy, dataType).standardizeAndValidate(value, result);
         return result;
     }
 
     /**
-     * Perform validation using both dataTypes validation the validation policies
+     * Resolves the policies of each column and allocates the buffers reused for every row. Called once per task as the function is deserialized for each task.
      */
-    private ValidationResult finalValidationCheck(FieldPolicy fieldPolicy, HCatDataType fieldDataType, Object fieldValue) {
-
-        boolean isEmpty = ((fieldValue instanceof String && StringUtils.isEmpty((String) fieldValue)) || fieldValue == null);
-        if (!isEmpty && !fieldPolicy.shouldSkipSchemaValidation() && !fieldDataType.isValueConvertibleToType(fieldValue)) {
-            return ValidationResult
-                .failField("incompatible", fieldDataType.getName(),
-                           "Not convertible to " + fieldDataType.getNativeType());
+    private void compile() {
+        final CompiledFieldPolicy[] compiled = new CompiledFieldPolicy[dataTypes.length];
+        for (int idx = 0; idx < dataTypes.length; idx++) {
+            compiled[idx] = new CompiledFieldPolicy(policies[idx], dataTypes[idx]);
         }
 
-        return VALID_RESULT;
+        originalValues = new Object[dataTypes.length];
+        fieldResult = new StandardizationAndValidationResult(null);
+        compiledPolicies = compiled;
     }
 
     /**
@@ -394,24 +324,6 @@ public class CleanseAndValidateRow implements Function<Row, CleansedRowResult> {
         return cols.toArray(new HCatDataType[0]);
     }
 
-    /* Resolve the type of param required by the validator. A cache is used to avoid cost of reflection */
-    private Class resolveValidatorParamType(ValidationPolicy validator, Map<Class, Class> validatorParamType) {
-        Class expectedParamClazz = validatorParamType.get(validator.getClass());
-        if (expectedParamClazz == null) {
-            // Cache for future references
-
-            Object t = validator.getClass().getGenericInterfaces()[0];
-            if (t instanceof ParameterizedType) {
-                ParameterizedType type = (ParameterizedType) t;
-                expectedParamClazz = (Class) type.getActualTypeArguments()[0];
-            } else {
-                expectedParamClazz = String.class;
-            }
-            validatorParamType.put(validator.getClass(), expectedParamClazz);
-        }
-        return expectedParamClazz;
-    }
-
     private String toJSONArray(List<ValidationResult> results) {
         // Convert to reject reasons to JSON
         StringBuilder sb = null;
@@ -429,29 +341,4 @@ public class CleanseAndValidateRow implements Function<Row, CleansedRowResult> {
         }
         return (sb == null ? "" : sb.toString());
     }
-
-    private ValidationResult validateValue(ValidationPolicy validator, HCatDataType fieldDataType, Object fieldValue, Map<Class, Class> validatorParamType) {
-        try {
-            // Resolve the type of parameter required by the validator. A cache is used to avoid cost of reflection.
-            Class expectedParamClazz = resolveValidatorParamType(validator, validatorParamType);
-            Object nativeValue = fieldValue;
-            if (expectedParamClazz != String.class && fieldValue instanceof String) {
-                nativeValue = fieldDataType.toNativeValue(fieldValue.toString());
-            }
-            if (!validator.validate(nativeValue)) {
-
-                //get any fields in this validator annotated with PolicyProperty
-
-                return ValidationResult
-                    .failFieldRule("rule", fieldDataType.getName(), validator.getClass().getSimpleName(),
-                                   "Rule violation");
-            }
-            return VALID_RESULT;
-        } catch (InvalidFormatException | ClassCastException e) {
-            return ValidationResult
-                .failField("incompatible", fieldDataType.getName(),
-                           "Not convertible to " + fieldDataType.getNativeType());
-        }
-
-    }
 }
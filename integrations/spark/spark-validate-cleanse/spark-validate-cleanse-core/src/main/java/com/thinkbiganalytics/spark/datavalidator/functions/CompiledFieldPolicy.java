@@ -0,0 +1,286 @@
+package com.thinkbiganalytics.spark.datavalidator.functions;
+
+/*-
+ * #%L
+ * kylo-spark-validate-cleanse-core
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.policy.BaseFieldPolicy;
+import com.thinkbiganalytics.policy.FieldPolicy;
+import com.thinkbiganalytics.policy.standardization.AcceptsEmptyValues;
+import com.thinkbiganalytics.policy.standardization.StandardizationPolicy;
+import com.thinkbiganalytics.policy.validation.NotNullValidator;
+import com.thinkbiganalytics.policy.validation.ValidationPolicy;
+import com.thinkbiganalytics.policy.validation.ValidationResult;
+import com.thinkbiganalytics.spark.datavalidator.StandardizationAndValidationResult;
+import com.thinkbiganalytics.spark.util.InvalidFormatException;
+import com.thinkbiganalytics.spark.validation.HCatDataType;
+
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.ParameterizedType;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import static com.thinkbiganalytics.spark.datavalidator.StandardDataValidator.VALID_RESULT;
+
+/**
+ * The standardizers and validators of a {@link FieldPolicy} resolved once for a column, so that rows can be cleansed and validated without inspecting the policies again.
+ */
+class CompiledFieldPolicy {
+
+    private static final Logger log = LoggerFactory.getLogger(CompiledFieldPolicy.class);
+
+    /**
+     * Target data type
+     */
+    @Nonnull
+    private final HCatDataType dataType;
+
+    /**
+     * Indicates if the target data type is binary
+     */
+    private final boolean binaryType;
+
+    /**
+     * Indicates if the target data type is numeric
+     */
+    private final boolean numericType;
+
+    /**
+     * Indicates if values are not cleansed or validated
+     */
+    private final boolean unchecked;
+
+    /**
+     * Indicates if the final data type check is skipped
+     */
+    private final boolean skipSchemaValidation;
+
+    /**
+     * Standardizers and validators in the order they are applied
+     */
+    @Nonnull
+    private final Step[] steps;
+
+    CompiledFieldPolicy(@Nonnull final FieldPolicy fieldPolicy, @Nonnull final HCatDataType dataType) {
+        this.dataType = dataType;
+        binaryType = dataType.getConvertibleType().equals(byte[].class);
+        numericType = dataType.isNumeric();
+        unchecked = dataType.isUnchecked();
+        skipSchemaValidation = !unchecked && fieldPolicy.shouldSkipSchemaValidation();
+
+        // Values of unchecked types are passed through
+        final List<BaseFieldPolicy> fieldPolicies = unchecked ? Collections.<BaseFieldPolicy>emptyList() : fieldPolicy.getAllPolicies();
+        int lastStandardizer = -1;
+        for (int i = 0; i < fieldPolicies.size(); i++) {
+            if (fieldPolicies.get(i) instanceof StandardizationPolicy) {
+                lastStandardizer = i;
+            }
+        }
+
+        steps = new Step[fieldPolicies.size()];
+        for (int i = 0; i < steps.length; i++) {
+            steps[i] = new Step(fieldPolicies.get(i), i == lastStandardizer);
+        }
+    }
+
+    public boolean isBinaryType() {
+        return binaryType;
+    }
+
+    public boolean isNumericType() {
+        return numericType;
+    }
+
+    public boolean isUnchecked() {
+        return unchecked;
+    }
+
+    /**
+     * Runs the standardizers and validators over the specified value.
+     *
+     * @param value  the field value
+     * @param result receives the standardized value and any failed validations
+     */
+    void standardizeAndValidate(Object value, @Nonnull final StandardizationAndValidationResult result) {
+        result.reset(value);
+
+        boolean validateNullValues = false;
+        for (Step step : steps) {
+            boolean isEmpty = isEmpty(result.getFieldValue());
+            if (step.standardizer != null) {
+                boolean shouldStandardize = !(isEmpty && !step.acceptsEmptyValues);
+
+                if (!step.standardizer.accepts(result.getFieldValue())) {
+                    shouldStandardize = false;
+                }
+
+                if (shouldStandardize) {
+                    result.setFieldValue(standardize(step, result));
+                }
+            }
+
+            if (step.validator != null) {
+                //run through the validator if the value is not null, or if we are allowed to validate nulls based upon a previous
+                //not null validator
+                if (!isEmpty || validateNullValues || step.notNullValidator) {
+                    ValidationResult validationResult = validateValue(step, result.getFieldValue());
+                    if (isEmpty && step.notNullValidator) {
+                        validateNullValues = true;
+                    }
+                    //only need to add those that are invalid
+                    if (validationResult != VALID_RESULT) {
+                        result.addValidationResult(validationResult);
+                        break; //exit out of processing if invalid records found.
+                    }
+                }
+                //reset the failOnEmpty flag back to false
+                if (!step.notNullValidator) {
+                    validateNullValues = false;
+                }
+            }
+        }
+
+        ValidationResult finalValidationCheck = finalValidationCheck(result.getFieldValue());
+        if (finalValidationCheck != VALID_RESULT) {
+            result.addValidationResult(finalValidationCheck);
+        }
+    }
+
+    /**
+     * Indicates if the specified value is null or has an empty string form.
+     */
+    static boolean isEmpty(Object value) {
+        return (value == null) || ((value instanceof String) ? ((String) value).isEmpty() : StringUtils.isEmpty(value.toString()));
+    }
+
+    /**
+     * Applies the standardizer of the step to the current value.
+     */
+    private Object standardize(@Nonnull final Step step, @Nonnull final StandardizationAndValidationResult result) {
+        Object newValue = step.standardizer.convertRawValue(result.getFieldValue());
+
+        //If this is the last standardizer for this field and the standardized value is returned as a String, and target column is not String, then validate and convert it to correct type
+        if (newValue != null && dataType.getConvertibleType() != newValue.getClass() && step.lastStandardizer) {
+            try {
+                //Date and timestamp fields can be valid as strings
+                boolean isValueOk = dataType.isStringValueValidForHiveType(newValue.toString());
+                if (!isValueOk) {
+                    //if the current string is not in a correct format attempt to convert it
+                    try {
+                        newValue = dataType.toNativeValue(newValue.toString());
+                    } catch (RuntimeException e) {
+                        result.addValidationResult(ValidationResult
+                                                       .failField("incompatible", dataType.getName(),
+                                                                  "Not convertible to " + dataType.getNativeType()));
+                    }
+                }
+            } catch (InvalidFormatException e) {
+                log.warn("Could not convert value {} to correct type {}", newValue.toString(), dataType.getConvertibleType().getName());
+            }
+        }
+        return newValue;
+    }
+
+    /**
+     * Perform validation using both dataTypes validation the validation policies
+     */
+    private ValidationResult finalValidationCheck(Object fieldValue) {
+
+        boolean isEmpty = ((fieldValue instanceof String && StringUtils.isEmpty((String) fieldValue)) || fieldValue == null);
+        if (!isEmpty && !skipSchemaValidation && !dataType.isValueConvertibleToType(fieldValue)) {
+            return ValidationResult
+                .failField("incompatible", dataType.getName(),
+                           "Not convertible to " + dataType.getNativeType());
+        }
+
+        return VALID_RESULT;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ValidationResult validateValue(@Nonnull final Step step, Object fieldValue) {
+        try {
+            if (step.parameterType == null) {
+                throw new ClassCastException("Unable to resolve the parameter type of " + step.validator.getClass().getName());
+            }
+            Object nativeValue = fieldValue;
+            if (step.parameterType != String.class && fieldValue instanceof String) {
+                nativeValue = dataType.toNativeValue(fieldValue.toString());
+            }
+            if (!step.validator.validate(nativeValue)) {
+
+                //get any fields in this validator annotated with PolicyProperty
+
+                return ValidationResult
+                    .failFieldRule("rule", dataType.getName(), step.validator.getClass().getSimpleName(),
+                                   "Rule violation");
+            }
+            return VALID_RESULT;
+        } catch (InvalidFormatException | ClassCastException e) {
+            return ValidationResult
+                .failField("incompatible", dataType.getName(),
+                           "Not convertible to " + dataType.getNativeType());
+        }
+    }
+
+    /**
+     * A standardizer and/or validator with its properties resolved ahead of time.
+     */
+    private static class Step {
+
+        final StandardizationPolicy standardizer;
+
+        final boolean acceptsEmptyValues;
+
+        final boolean lastStandardizer;
+
+        final ValidationPolicy validator;
+
+        final boolean notNullValidator;
+
+        /**
+         * Type of value expected by the validator, or {@code null} if it cannot be resolved
+         */
+        final Class parameterType;
+
+        Step(@Nonnull final BaseFieldPolicy policy, final boolean lastStandardizer) {
+            standardizer = (policy instanceof StandardizationPolicy) ? (StandardizationPolicy) policy : null;
+            acceptsEmptyValues = policy instanceof AcceptsEmptyValues;
+            this.lastStandardizer = lastStandardizer;
+            validator = (policy instanceof ValidationPolicy) ? (ValidationPolicy) policy : null;
+            notNullValidator = policy instanceof NotNullValidator;
+            parameterType = (validator != null) ? resolveValidatorParamType(validator) : null;
+        }
+
+        /* Resolve the type of param required by the validator using reflection */
+        private static Class resolveValidatorParamType(@Nonnull final ValidationPolicy validator) {
+            Object t = validator.getClass().getGenericInterfaces()[0];
+            if (t instanceof ParameterizedType) {
+                Object parameterType = ((ParameterizedType) t).getActualTypeArguments()[0];
+                return (parameterType instanceof Class) ? (Class) parameterType : null;
+            } else {
+                return String.class;
+            }
+        }
+    }
+}
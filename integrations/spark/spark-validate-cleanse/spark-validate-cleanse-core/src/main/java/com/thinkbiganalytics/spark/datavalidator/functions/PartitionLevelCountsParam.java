@@ -0,0 +1,78 @@
+package com.thinkbiganalytics.spark.datavalidator.functions;
+
+/*-
+ * #%L
+ * kylo-spark-validate-cleanse-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.spark.datavalidator.CleansedRowResult;
+
+import org.apache.spark.AccumulableParam;
+import org.apache.spark.TaskContext;
+
+import java.util.HashMap;
+
+/**
+ * Accumulates the invalid column counts and total valid/invalid counts of each partition, in the same layout as {@link SumPartitionLevelCounts}.
+ *
+ * <p>Counts are kept per partition and merged by replacing the partition's entry, so a partition that is computed again, by a retry or by a second
+ * action over an RDD that is not persisted, is not counted twice.</p>
+ */
+public class PartitionLevelCountsParam implements AccumulableParam<HashMap<Integer, long[]>, CleansedRowResult> {
+
+    private static final long serialVersionUID = -2206467291582543263L;
+
+    private final int schemaLen;
+
+    public PartitionLevelCountsParam(int schemaLength) {
+        this.schemaLen = schemaLength;
+    }
+
+    @Override
+    public HashMap<Integer, long[]> addAccumulator(HashMap<Integer, long[]> partitionCounts, CleansedRowResult cleansedRowResult) {
+        final int partition = TaskContext.getPartitionId();
+        long[] validationCounts = partitionCounts.get(partition);
+        if (validationCounts == null) {
+            validationCounts = new long[schemaLen + 2];
+            partitionCounts.put(partition, validationCounts);
+        }
+
+        for (int idx = 0; idx < schemaLen; idx++) {
+            if (!cleansedRowResult.isColumnValid(idx)) {
+                validationCounts[idx] = validationCounts[idx] + 1L;
+            }
+        }
+        if (cleansedRowResult.isRowValid()) {
+            validationCounts[schemaLen] = validationCounts[schemaLen] + 1L;
+        } else {
+            validationCounts[schemaLen + 1] = validationCounts[schemaLen + 1] + 1L;
+        }
+        return partitionCounts;
+    }
+
+    @Override
+    public HashMap<Integer, long[]> addInPlace(HashMap<Integer, long[]> partitionCountsA, HashMap<Integer, long[]> partitionCountsB) {
+        partitionCountsA.putAll(partitionCountsB);
+        return partitionCountsA;
+    }
+
+    @Override
+    public HashMap<Integer, long[]> zero(HashMap<Integer, long[]> initialValue) {
+        return new HashMap<>();
+    }
+}
@@ -0,0 +1,63 @@
+package com.thinkbiganalytics.spark.datavalidator.functions;
+
+/*-
+ * #%L
+ * kylo-spark-validate-cleanse-core
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.spark.datavalidator.CleansedRowResult;
+
+import org.apache.spark.api.java.function.Function;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.RowFactory;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Converts a row validated with Spark SQL expressions, including the valid flag columns, into a {@link CleansedRowResult}.
+ */
+public class ToCleansedRowResult implements Function<Row, CleansedRowResult> {
+
+    private static final long serialVersionUID = -3969925286581796127L;
+
+    /**
+     * Number of fields validated
+     */
+    private final int fieldCount;
+
+    public ToCleansedRowResult(int fieldCount) {
+        this.fieldCount = fieldCount;
+    }
+
+    @Override
+    public CleansedRowResult call(@Nonnull final Row row) throws Exception {
+        // Cleansed values plus the reject reason, followed by the row valid flag and the column valid flags
+        final int width = fieldCount + 1;
+        final Object[] values = new Object[width];
+        for (int idx = 0; idx < width; idx++) {
+            values[idx] = row.get(idx);
+        }
+
+        final boolean[] columnsValid = new boolean[fieldCount];
+        for (int idx = 0; idx < fieldCount; idx++) {
+            columnsValid[idx] = row.getBoolean(width + 1 + idx);
+        }
+
+        return new CleansedRowResult(RowFactory.create(values), columnsValid, row.getBoolean(width));
+    }
+}
@@ -0,0 +1,121 @@
+package com.thinkbiganalytics.spark.datavalidator.functions;
+
+/*-
+ * #%L
+ * thinkbig-spark-validate-cleanse-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.policy.BaseFieldPolicy;
+import com.thinkbiganalytics.policy.FieldPolicy;
+import com.thinkbiganalytics.policy.FieldPolicyBuilder;
+import com.thinkbiganalytics.policy.standardization.SimpleRegexReplacer;
+import com.thinkbiganalytics.policy.standardization.UppercaseStandardizer;
+import com.thinkbiganalytics.policy.validation.CharacterValidator;
+import com.thinkbiganalytics.policy.validation.LookupValidator;
+import com.thinkbiganalytics.policy.validation.NotNullValidator;
+import com.thinkbiganalytics.policy.validation.RangeValidator;
+
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.RowFactory;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.Metadata;
+import org.apache.spark.sql.types.StructField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the rows per second cleansed and validated by {@link CleanseAndValidateRow} for a typical feed of string, integer and decimal columns
+ * with a mix of standardizers and validators. Roughly one in ten rows is invalid.
+ *
+ * Run with: java -cp target/test-classes:<test classpath> com.thinkbiganalytics.spark.datavalidator.functions.CleanseAndValidateRowBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CleanseAndValidateRowBenchmark {
+
+    private static final int ROWS = 10000;
+
+    private CleanseAndValidateRow function;
+
+    private Row[] rows;
+
+    @Setup
+    public void setup() {
+        StructField[] fields = {
+            new StructField("name", DataTypes.StringType, true, Metadata.empty()),
+            new StructField("code", DataTypes.StringType, true, Metadata.empty()),
+            new StructField("quantity", DataTypes.IntegerType, true, Metadata.empty()),
+            new StructField("price", DataTypes.createDecimalType(10, 2), true, Metadata.empty()),
+            new StructField("status", DataTypes.StringType, true, Metadata.empty()),
+            new StructField("processing_dttm", DataTypes.StringType, true, Metadata.empty())
+        };
+        FieldPolicy[] policies = {
+            policy("name", new SimpleRegexReplacer("(?i)foo", "bar"), new NotNullValidator(false, true)),
+            policy("code", UppercaseStandardizer.instance(), new CharacterValidator("UPPERCASE")),
+            policy("quantity", new RangeValidator(0, 1000)),
+            policy("price", new RangeValidator(0, 100000)),
+            policy("status", new LookupValidator("NEW,OPEN,CLOSED")),
+            policy("processing_dttm")
+        };
+        function = new CleanseAndValidateRow(policies, fields);
+
+        Random random = new Random(42);
+        String[] statuses = {"NEW", "OPEN", "CLOSED", "CLOSED", "CLOSED", "CLOSED", "CLOSED", "CLOSED", "CLOSED", "UNKNOWN"};
+        rows = new Row[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            rows[i] = RowFactory.create("foo customer " + i, "ab" + random.nextInt(100), String.valueOf(random.nextInt(1000)), random.nextInt(100000) / 100.0 + "",
+                                        statuses[random.nextInt(statuses.length)], "1500000000000");
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void cleanseAndValidate(Blackhole blackhole) throws Exception {
+        for (Row row : rows) {
+            blackhole.consume(function.call(row));
+        }
+    }
+
+    private static FieldPolicy policy(String name, BaseFieldPolicy... policies) {
+        return FieldPolicyBuilder.newBuilder().addPolicies(Arrays.asList(policies)).tableName("benchmark").fieldName(name).feedFieldName(name).build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(CleanseAndValidateRowBenchmark.class.getSimpleName()).build()).run();
+    }
+}
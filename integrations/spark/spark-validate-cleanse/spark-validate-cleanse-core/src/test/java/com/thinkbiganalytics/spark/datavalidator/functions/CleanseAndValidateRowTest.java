@@ -41,7 +41,6 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
@@ -97,7 +96,7 @@ public class CleanseAndValidateRowTest {
         policies.add(validatorPolicy);
 
         FieldPolicy fieldPolicy = FieldPolicyBuilder.newBuilder().addPolicies(policies).tableName("emp").fieldName("field1").feedFieldName("field1").addPolicies(policies).build();
-        StandardizationAndValidationResult result = validator.standardizeAndValidateField(fieldPolicy, value, HCatDataType.createFromDataType("field1", dataType), new HashMap<Class, Class>());
+        StandardizationAndValidationResult result = validator.standardizeAndValidateField(fieldPolicy, value, HCatDataType.createFromDataType("field1", dataType));
         return result.getFinalValidationResult();
     }
 
@@ -110,13 +109,13 @@ public class CleanseAndValidateRowTest {
         FieldPolicy fieldPolicy = FieldPolicyBuilder.newBuilder().addPolicies(policies).tableName("emp").fieldName(fieldName).feedFieldName(fieldName).build();
 
         HCatDataType fieldDataType = HCatDataType.createFromDataType(fieldName, "string");
-        StandardizationAndValidationResult result = validator.standardizeAndValidateField(fieldPolicy, "aafooaa", fieldDataType, new HashMap<Class, Class>());
+        StandardizationAndValidationResult result = validator.standardizeAndValidateField(fieldPolicy, "aafooaa", fieldDataType);
         assertEquals(result.getFieldValue(), "aabaraa");
 
-        result = validator.standardizeAndValidateField(fieldPolicy, null, fieldDataType, new HashMap<Class, Class>());
+        result = validator.standardizeAndValidateField(fieldPolicy, null, fieldDataType);
         assertNull(result.getFieldValue());
 
-        result = validator.standardizeAndValidateField(fieldPolicy, "", fieldDataType, new HashMap<Class, Class>());
+        result = validator.standardizeAndValidateField(fieldPolicy, "", fieldDataType);
         assertEquals(result.getFieldValue(), "");
     }
 
@@ -133,7 +132,7 @@ public class CleanseAndValidateRowTest {
         FieldPolicy fieldPolicy = FieldPolicyBuilder.newBuilder().addPolicies(policies).tableName("emp").fieldName(fieldName).feedFieldName(fieldName).build();
 
         HCatDataType fieldDataType = HCatDataType.createFromDataType(fieldName, "string");
-        StandardizationAndValidationResult result = validator.standardizeAndValidateField(fieldPolicy, "aafooaa", fieldDataType, new HashMap<Class, Class>());
+        StandardizationAndValidationResult result = validator.standardizeAndValidateField(fieldPolicy, "aafooaa", fieldDataType);
         assertEquals(result.getFieldValue(), "aatestaa");
         assertEquals(StandardDataValidator.VALID_RESULT, result.getFinalValidationResult());
     }
@@ -150,7 +149,7 @@ public class CleanseAndValidateRowTest {
         FieldPolicy fieldPolicy = FieldPolicyBuilder.newBuilder().addPolicies(policies).tableName("emp").fieldName(fieldName).feedFieldName(fieldName).build();
 
         HCatDataType fieldDataType = HCatDataType.createFromDataType(fieldName, "string");
-        StandardizationAndValidationResult result = validator.standardizeAndValidateField(fieldPolicy, "aafooaa", fieldDataType, new HashMap<Class, Class>());
+        StandardizationAndValidationResult result = validator.standardizeAndValidateField(fieldPolicy, "aafooaa", fieldDataType);
         assertEquals("aabaraa", result.getFieldValue());
         assertNotEquals(StandardDataValidator.VALID_RESULT, result.getFinalValidationResult());
     }
@@ -167,7 +166,7 @@ public class CleanseAndValidateRowTest {
         FieldPolicy fieldPolicy = FieldPolicyBuilder.newBuilder().addPolicies(policies).tableName("emp").fieldName(fieldName).feedFieldName(fieldName).build();
 
         HCatDataType fieldDataType = HCatDataType.createFromDataType(fieldName, "string");
-        StandardizationAndValidationResult result = validator.standardizeAndValidateField(fieldPolicy, null, fieldDataType, new HashMap<Class, Class>());
+        StandardizationAndValidationResult result = validator.standardizeAndValidateField(fieldPolicy, null, fieldDataType);
         assertEquals(StandardDataValidator.VALID_RESULT, result.getFinalValidationResult());
 
     }
@@ -190,7 +189,7 @@ public class CleanseAndValidateRowTest {
         FieldPolicy fieldPolicy = FieldPolicyBuilder.newBuilder().addPolicies(policies).tableName("emp").fieldName(fieldName).feedFieldName(fieldName).build();
 
         HCatDataType fieldDataType = HCatDataType.createFromDataType(fieldName, "string");
-        StandardizationAndValidationResult result = validator.standardizeAndValidateField(fieldPolicy, fieldValue, fieldDataType, new HashMap<Class, Class>());
+        StandardizationAndValidationResult result = validator.standardizeAndValidateField(fieldPolicy, fieldValue, fieldDataType);
         assertEquals(StandardDataValidator.VALID_RESULT, result.getFinalValidationResult());
         assertEquals("test_field", result.getFieldValue());
 
@@ -209,7 +208,7 @@ public class CleanseAndValidateRowTest {
         policies.add(validatorPolicy);
         FieldPolicy fieldPolicy = FieldPolicyBuilder.newBuilder().addPolicies(policies).tableName("emp").fieldName("field1").feedFieldName("field1").build();
 
-        StandardizationAndValidationResult result = validator.standardizeAndValidateField(fieldPolicy, value, HCatDataType.createFromDataType("field1", dataType), new HashMap<Class, Class>());
+        StandardizationAndValidationResult result = validator.standardizeAndValidateField(fieldPolicy, value, HCatDataType.createFromDataType("field1", dataType));
         return result.getFinalValidationResult();
     }
 
@@ -224,7 +223,7 @@ public class CleanseAndValidateRowTest {
         FieldPolicy fieldPolicy = FieldPolicyBuilder.newBuilder().addPolicies(policies).tableName("temp").fieldName(fieldName).feedFieldName(fieldName).build();
 
         HCatDataType fieldDataType = HCatDataType.createFromDataType(fieldName, "int");
-        StandardizationAndValidationResult result = validator.standardizeAndValidateField(fieldPolicy, 0, fieldDataType, new HashMap<Class, Class>());
+        StandardizationAndValidationResult result = validator.standardizeAndValidateField(fieldPolicy, 0, fieldDataType);
         assertEquals(2, result.getFieldValue());
         assertEquals(StandardDataValidator.VALID_RESULT, result.getFinalValidationResult());
     }
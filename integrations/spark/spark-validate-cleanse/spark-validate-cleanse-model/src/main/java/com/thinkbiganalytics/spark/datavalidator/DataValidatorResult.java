@@ -21,20 +21,33 @@ package com.thinkbiganalytics.spark.datavalidator;
  */
 
 import com.thinkbiganalytics.policy.FieldPolicy;
+import com.thinkbiganalytics.spark.DataSet;
 
+import org.apache.spark.Accumulable;
 import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.function.Function;
+import org.apache.spark.sql.Row;
 import org.apache.spark.sql.types.StructType;
 import org.apache.spark.storage.StorageLevel;
 
+import java.util.HashMap;
+
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * Contains the result of validating a dataset.
  */
 public class DataValidatorResult {
 
-    @Nonnull
-    private final JavaRDD<CleansedRowResult> cleansedRowResultRDD;
+    @Nullable
+    private JavaRDD<CleansedRowResult> cleansedRowResultRDD;
+
+    @Nullable
+    private final DataSet cleansedDataSet;
+
+    @Nullable
+    private final Function<Row, CleansedRowResult> toCleansedRowResult;
 
     @Nonnull
     private final FieldPolicy[] policies;
@@ -42,10 +55,47 @@ public class DataValidatorResult {
     @Nonnull
     private final StructType schema;
 
+    @Nullable
+    private final Accumulable<HashMap<Integer, long[]>, CleansedRowResult> validationCounts;
+
     public DataValidatorResult(@Nonnull final JavaRDD<CleansedRowResult> cleansedRowResultRDD, @Nonnull final FieldPolicy[] policies, @Nonnull final StructType schema) {
+        this(cleansedRowResultRDD, policies, schema, null);
+    }
+
+    public DataValidatorResult(@Nonnull final JavaRDD<CleansedRowResult> cleansedRowResultRDD, @Nonnull final FieldPolicy[] policies, @Nonnull final StructType schema,
+                               @Nullable final Accumulable<HashMap<Integer, long[]>, CleansedRowResult> validationCounts) {
         this.cleansedRowResultRDD = cleansedRowResultRDD;
         this.policies = policies;
         this.schema = schema;
+        this.validationCounts = validationCounts;
+        this.cleansedDataSet = null;
+        this.toCleansedRowResult = null;
+    }
+
+    /**
+     * Constructs a result for rows validated with Spark SQL expressions.
+     *
+     * @param cleansedDataSet     the cleansed rows followed by the row and column valid flags
+     * @param toCleansedRowResult converts the rows of the data set to {@link CleansedRowResult} objects
+     * @param policies            the field policies
+     * @param schema              the schema of the cleansed rows
+     * @param validationCounts    the validation counts of each partition, collected as the data set is computed
+     */
+    public DataValidatorResult(@Nonnull final DataSet cleansedDataSet, @Nonnull final Function<Row, CleansedRowResult> toCleansedRowResult, @Nonnull final FieldPolicy[] policies,
+                               @Nonnull final StructType schema, @Nullable final Accumulable<HashMap<Integer, long[]>, CleansedRowResult> validationCounts) {
+        this.cleansedDataSet = cleansedDataSet;
+        this.toCleansedRowResult = toCleansedRowResult;
+        this.policies = policies;
+        this.schema = schema;
+        this.validationCounts = validationCounts;
+    }
+
+    /**
+     * Gets the cleansed rows followed by the row and column valid flags, if the rows were validated with Spark SQL expressions.
+     */
+    @Nullable
+    public DataSet getCleansedDataSet() {
+        return cleansedDataSet;
     }
 
     /**
@@ -53,6 +103,10 @@ public class DataValidatorResult {
      */
     @Nonnull
     public JavaRDD<CleansedRowResult> getCleansedRowResultRDD() {
+        // Derived on first use so that the RDD reads the data set after it has been persisted
+        if (cleansedRowResultRDD == null && cleansedDataSet != null && toCleansedRowResult != null) {
+            cleansedRowResultRDD = cleansedDataSet.javaRDD().map(toCleansedRowResult);
+        }
         return cleansedRowResultRDD;
     }
 
@@ -72,18 +126,34 @@ public class DataValidatorResult {
         return schema;
     }
 
+    /**
+     * Gets the validation counts of each partition, collected as the cleansed rows are computed.
+     */
+    @Nullable
+    public Accumulable<HashMap<Integer, long[]>, CleansedRowResult> getValidationCounts() {
+        return validationCounts;
+    }
+
     /**
      * Persists the cleansed rows with the specified storage level.
      */
     public void persist(@Nonnull final StorageLevel newLevel) {
-        cleansedRowResultRDD.persist(newLevel);
+        if (cleansedDataSet != null) {
+            cleansedDataSet.persist(newLevel);
+        } else {
+            getCleansedRowResultRDD().persist(newLevel);
+        }
     }
 
     /**
      * Removes all blocks of the cleansed rows from memory and disk.
      */
     public void unpersist() {
-        cleansedRowResultRDD.unpersist();
+        if (cleansedDataSet != null) {
+            cleansedDataSet.unpersist(false);
+        } else {
+            getCleansedRowResultRDD().unpersist();
+        }
     }
 }
 
@@ -20,13 +20,22 @@ package com.thinkbiganalytics.spark.datavalidator;
  * #L%
  */
 
+import com.thinkbiganalytics.policy.FieldPolicy;
+import com.thinkbiganalytics.spark.DataSet;
+import com.thinkbiganalytics.spark.SparkContextService;
 import com.thinkbiganalytics.spark.datavalidator.functions.PartitionLevelCountsV1;
 
 import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.sql.hive.HiveContext;
+import org.apache.spark.sql.types.StructField;
+import org.apache.spark.sql.types.StructType;
 import org.springframework.stereotype.Component;
 
 import java.io.Serializable;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
 /**
  * Validator Strategy for Spark 1
  */
@@ -37,4 +46,12 @@ public class ValidatorStrategyV1 implements IValidatorStrategy, Serializable {
     public JavaRDD<long[]> getCleansedRowResultPartitionCounts(JavaRDD<CleansedRowResult> cleansedRowResultJavaRDD, int schemaLength) {
         return cleansedRowResultJavaRDD.mapPartitions(new PartitionLevelCountsV1(schemaLength));
     }
+
+    @Nullable
+    @Override
+    public DataSet cleanseAndValidateColumns(@Nonnull DataSet dataset, @Nonnull FieldPolicy[] policies, @Nonnull StructField[] fields, @Nonnull StructType schema,
+                                             @Nonnull HiveContext hiveContext, @Nonnull SparkContextService scs) {
+        // Policies are always applied to each row on Spark 1
+        return null;
+    }
 }
@@ -20,42 +20,91 @@ package com.thinkbiganalytics.spark.datavalidator;
  * #L%
  */
 
+import com.thinkbiganalytics.policy.FieldPolicy;
 import com.thinkbiganalytics.spark.SparkContextService;
+import com.thinkbiganalytics.spark.datavalidator.functions.AccumulateValidationCounts;
+import com.thinkbiganalytics.spark.datavalidator.functions.PartitionLevelCountsParam;
 
+import org.apache.spark.Accumulable;
 import org.apache.spark.SparkConf;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.sql.Row;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.StructField;
+import org.apache.spark.sql.types.StructType;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
 import org.junit.Test;
 import org.mockito.Mockito;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
 
 public class ValidatorV1Test {
 
-    @Test
-    public void testCleansedRowResultsValidationCountsV1() {
-        CleansedRowResult cleansedRowResult1 = new CleansedRowResult(Mockito.mock(Row.class), new boolean[]{true, true, true, true, true}, true);
-        CleansedRowResult cleansedRowResult2 = new CleansedRowResult(Mockito.mock(Row.class), new boolean[]{true, false, true, true, false}, false);
-        CleansedRowResult cleansedRowResult3 = new CleansedRowResult(Mockito.mock(Row.class), new boolean[]{false, false, true, true, false}, false);
-        List<CleansedRowResult> cleansedRowResultsList = Arrays.asList(cleansedRowResult1, cleansedRowResult1, cleansedRowResult1,
-                                                                       cleansedRowResult1, cleansedRowResult1, cleansedRowResult1,
-                                                                       cleansedRowResult1, cleansedRowResult2, cleansedRowResult3);
+    private static JavaSparkContext sc;
+
+    private final List<CleansedRowResult> cleansedRowResultsList = cleansedRowResults();
+
+    private final long[] expectedOutput = {1L, 2L, 0L, 0L, 2L, 7L, 2L};
 
+    @BeforeClass
+    public static void setUpClass() {
         SparkConf conf = new SparkConf();
         conf.setMaster("local[*]");
         conf.setAppName("Validator Test - Spark 1");
-        JavaSparkContext sc = new JavaSparkContext(conf);
+        sc = new JavaSparkContext(conf);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        sc.stop();
+    }
+
+    @Test
+    public void testCleansedRowResultsValidationCountsV1() {
         JavaRDD<CleansedRowResult> inputRDD = sc.parallelize(cleansedRowResultsList, 4);
 
         StandardDataValidator validator = new StandardDataValidator(new ValidatorStrategyV1(), Mockito.mock(SparkContextService.class));
 
         long[] output = validator.cleansedRowResultsValidationCounts(inputRDD, 5);
-        long[] expectedOutput = {1L, 2L, 0L, 0L, 2L, 7L, 2L};
 
         assertArrayEquals(expectedOutput, output);
     }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testAccumulatedValidationCountsV1() {
+        Accumulable<HashMap<Integer, long[]>, CleansedRowResult> validationCounts = sc.accumulable(new HashMap<Integer, long[]>(), new PartitionLevelCountsParam(5));
+        JavaRDD<CleansedRowResult> inputRDD = sc.parallelize(cleansedRowResultsList, 4).map(new AccumulateValidationCounts(validationCounts));
+
+        StructField[] fields = new StructField[6];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = DataTypes.createStructField("col" + i, DataTypes.StringType, true);
+        }
+        DataValidatorResult result = new DataValidatorResult(inputRDD, new FieldPolicy[0], new StructType(fields), validationCounts);
+
+        StandardDataValidator validator = new StandardDataValidator(new ValidatorStrategyV1(), Mockito.mock(SparkContextService.class));
+        assertNull(validator.accumulatedValidationCounts(result));
+
+        // Computing the rows a second time should not change the counts
+        inputRDD.count();
+        inputRDD.count();
+
+        assertArrayEquals(expectedOutput, validator.accumulatedValidationCounts(result));
+    }
+
+    private static List<CleansedRowResult> cleansedRowResults() {
+        CleansedRowResult cleansedRowResult1 = new CleansedRowResult(Mockito.mock(Row.class), new boolean[]{true, true, true, true, true}, true);
+        CleansedRowResult cleansedRowResult2 = new CleansedRowResult(Mockito.mock(Row.class), new boolean[]{true, false, true, true, false}, false);
+        CleansedRowResult cleansedRowResult3 = new CleansedRowResult(Mockito.mock(Row.class), new boolean[]{false, false, true, true, false}, false);
+        return Arrays.asList(cleansedRowResult1, cleansedRowResult1, cleansedRowResult1,
+                             cleansedRowResult1, cleansedRowResult1, cleansedRowResult1,
+                             cleansedRowResult1, cleansedRowResult2, cleansedRowResult3);
+    }
 }
@@ -0,0 +1,458 @@
+package com.thinkbiganalytics.spark.datavalidator;
+
+/*-
+ * #%L
+ * kylo-spark-validate-cleanse-spark-v2
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.policy.BaseFieldPolicy;
+import com.thinkbiganalytics.policy.FieldPolicy;
+import com.thinkbiganalytics.policy.standardization.DefaultValueStandardizer;
+import com.thinkbiganalytics.policy.standardization.LowercaseStandardizer;
+import com.thinkbiganalytics.policy.standardization.SimpleRegexReplacer;
+import com.thinkbiganalytics.policy.standardization.StandardizationPolicy;
+import com.thinkbiganalytics.policy.standardization.TrimStandardizer;
+import com.thinkbiganalytics.policy.standardization.UppercaseStandardizer;
+import com.thinkbiganalytics.policy.validation.LengthValidator;
+import com.thinkbiganalytics.policy.validation.LookupValidator;
+import com.thinkbiganalytics.policy.validation.NotNullValidator;
+import com.thinkbiganalytics.policy.validation.RegexValidator;
+import com.thinkbiganalytics.policy.validation.ValidationPolicy;
+import com.thinkbiganalytics.policy.validation.ValidationResult;
+import com.thinkbiganalytics.spark.datavalidator.functions.CleanseAndValidateRow;
+import com.thinkbiganalytics.spark.validation.HCatDataType;
+
+import org.apache.spark.sql.Column;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.StructField;
+import org.apache.spark.sql.types.StructType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import static org.apache.spark.sql.functions.coalesce;
+import static org.apache.spark.sql.functions.concat;
+import static org.apache.spark.sql.functions.concat_ws;
+import static org.apache.spark.sql.functions.encode;
+import static org.apache.spark.sql.functions.length;
+import static org.apache.spark.sql.functions.lit;
+import static org.apache.spark.sql.functions.lower;
+import static org.apache.spark.sql.functions.not;
+import static org.apache.spark.sql.functions.regexp_replace;
+import static org.apache.spark.sql.functions.upper;
+import static org.apache.spark.sql.functions.when;
+
+/**
+ * Builds Spark SQL expressions that cleanse and validate a data set with the same results as {@link CleanseAndValidateRow}.
+ *
+ * <p>Only string columns with the built-in trim, uppercase, lowercase, default value and regex replace standardizers and the not null, length, lookup and regex
+ * validators are supported, along with columns that are not validated. Other policies depend on Java parsing rules that Spark SQL does not reproduce exactly, such as
+ * the range, date and timestamp validators, so those data sets are validated by {@link CleanseAndValidateRow}.</p>
+ */
+class FieldPolicyColumnsV2 {
+
+    private static final Logger log = LoggerFactory.getLogger(FieldPolicyColumnsV2.class);
+
+    /**
+     * Matches the leading and trailing characters removed by {@link String#trim()}
+     */
+    private static final String TRIM_REGEX = "\\A[\\x00-\\x20]+|[\\x00-\\x20]+\\z";
+
+    /**
+     * Matches an empty string
+     */
+    private static final String EMPTY_REGEX = "\\A\\z";
+
+    /**
+     * Names of the intermediate columns
+     */
+    private static final String ORIGINAL_PREFIX = "c";
+    private static final String VALUE_PREFIX = "v";
+    private static final String VALID_PREFIX = "ok";
+    private static final String REASON_PREFIX = "r";
+    private static final String REJECT_REASON_COL = "reject_reason";
+
+    /**
+     * Cleanses and validates the specified data set.
+     *
+     * <p>The expressions are built in a series of selects so they stay linear in the number of columns and policies. The first selects apply the standardizers and
+     * validators of each column, the next computes the row valid flag and reject reason from those columns, and the last chooses the output values.</p>
+     *
+     * @param source   the rows to validate
+     * @param policies the field policies
+     * @param fields   the target schema
+     * @param schema   the schema of the cleansed rows
+     * @return the cleansed rows followed by the row and column valid flags, or {@code null} if a policy cannot be expressed in Spark SQL
+     */
+    @Nullable
+    static Dataset<Row> cleanseAndValidate(@Nonnull final Dataset<Row> source, @Nonnull final FieldPolicy[] policies, @Nonnull final StructField[] fields,
+                                           @Nonnull final StructType schema) {
+        final int fieldCount = fields.length;
+        if (source.schema().length() != fieldCount || policies.length != fieldCount || schema.length() != fieldCount + 1) {
+            log.info("Source columns do not match the target schema");
+            return null;
+        }
+
+        // Refer to the source columns by position
+        final String[] sourceNames = new String[fieldCount];
+        for (int idx = 0; idx < fieldCount; idx++) {
+            sourceNames[idx] = ORIGINAL_PREFIX + idx;
+        }
+        final Dataset<Row> input = source.toDF(sourceNames);
+
+        // Standardize each column up to its first validator
+        final HCatDataType[] dataTypes = new HCatDataType[fieldCount];
+        final List<Column> standardizedColumns = new ArrayList<>(2 * fieldCount);
+
+        for (int idx = 0; idx < fieldCount; idx++) {
+            final StructField field = fields[idx];
+            final Column original = input.col(sourceNames[idx]);
+            dataTypes[idx] = HCatDataType.createFromDataType(field.name(), field.dataType().simpleString());
+            final Column value = isPassThrough(source.schema().fields()[idx], policies[idx], dataTypes[idx]) ? original
+                                                                                                                : standardize(original, getLeadingStandardizers(policies[idx]));
+            if (value == null) {
+                log.info("Column {} cannot be validated with Spark SQL expressions", field.name());
+                return null;
+            }
+            standardizedColumns.add(original);
+            standardizedColumns.add(value.as(VALUE_PREFIX + idx));
+        }
+        final Dataset<Row> standardized = select(input, standardizedColumns);
+
+        // Validate each column
+        final List<Column> fieldColumns = new ArrayList<>(4 * fieldCount);
+        boolean hasProcessingDttm = false;
+
+        for (int idx = 0; idx < fieldCount; idx++) {
+            final StructField field = fields[idx];
+            final Column original = standardized.col(ORIGINAL_PREFIX + idx);
+            final FieldColumns columns = toFieldColumns(original, standardized.col(VALUE_PREFIX + idx), source.schema().fields()[idx], policies[idx], dataTypes[idx]);
+            if (columns == null) {
+                log.info("Column {} cannot be validated with Spark SQL expressions", field.name());
+                return null;
+            }
+            fieldColumns.add(original);
+            fieldColumns.add(when(columns.valid, columns.value).otherwise(original).as(VALUE_PREFIX + idx));
+            fieldColumns.add(columns.valid.as(VALID_PREFIX + idx));
+            fieldColumns.add(columns.reason.as(REASON_PREFIX + idx));
+            hasProcessingDttm |= field.name().equals(CleanseAndValidateRow.PROCESSING_DTTM_COL);
+        }
+        final Dataset<Row> validated = select(standardized, fieldColumns);
+
+        // Determine if the row is valid
+        Column nulls = lit(hasProcessingDttm ? 1 : 0);
+        Column allValid = lit(true);
+        final List<Column> reasons = new ArrayList<>(fieldCount + 1);
+
+        for (int idx = 0; idx < fieldCount; idx++) {
+            nulls = nulls.plus(when(validated.col(ORIGINAL_PREFIX + idx).isNull(), 1).otherwise(0));
+            allValid = allValid.and(validated.col(VALID_PREFIX + idx));
+            reasons.add(validated.col(REASON_PREFIX + idx));
+        }
+
+        final Column emptyRow = nulls.geq(fieldCount);
+        reasons.add(when(emptyRow, lit(ValidationResult.failRow("empty", "Row is empty").toJSON())));
+
+        final Column joinedReasons = concat_ws(",", reasons.toArray(new Column[0]));
+        final List<Column> rowColumns = toColumns(validated);
+        rowColumns.add(allValid.and(not(emptyRow)).as(CleanseAndValidateRow.ROW_VALID_COL));
+        rowColumns.add(when(joinedReasons.equalTo(""), lit("")).otherwise(concat(lit("["), joinedReasons, lit("]"))).as(REJECT_REASON_COL));
+        final Dataset<Row> rows = select(validated, rowColumns);
+        final Column rowValid = rows.col(CleanseAndValidateRow.ROW_VALID_COL);
+
+        // Invalid rows keep the original values if the value changed to or from null
+        final List<Column> values = new ArrayList<>(fieldCount + 1);
+        for (int idx = 0; idx < fieldCount; idx++) {
+            final Column original = rows.col(ORIGINAL_PREFIX + idx);
+            final Column value = rows.col(VALUE_PREFIX + idx);
+            values.add(when(not(rowValid).and(original.isNull().or(value.isNull())), original).otherwise(value));
+        }
+
+        // Move the processing partition value last
+        final Column rejectReason = rows.col(REJECT_REASON_COL);
+        if (hasProcessingDttm) {
+            values.add(values.size() - 1, rejectReason);
+        } else {
+            values.add(rejectReason);
+        }
+
+        final List<Column> output = new ArrayList<>(2 * fieldCount + 2);
+        for (int idx = 0; idx < values.size(); idx++) {
+            output.add(values.get(idx).as(schema.fields()[idx].name()));
+        }
+        output.add(rowValid.as(CleanseAndValidateRow.ROW_VALID_COL));
+        for (int idx = 0; idx < fieldCount; idx++) {
+            output.add(rows.col(VALID_PREFIX + idx).as(CleanseAndValidateRow.COLUMN_VALID_COL_PREFIX + idx));
+        }
+
+        return rows.select(output.toArray(new Column[0]));
+    }
+
+    /**
+     * Indicates if the values of the specified column are passed through without applying the policies.
+     */
+    private static boolean isPassThrough(@Nonnull final StructField sourceField, @Nonnull final FieldPolicy fieldPolicy, @Nonnull final HCatDataType dataType) {
+        return dataType.isUnchecked()
+               || (DataTypes.StringType.equals(sourceField.dataType()) && fieldPolicy.getAllPolicies().isEmpty() && fieldPolicy.shouldSkipSchemaValidation()
+                   && !dataType.getConvertibleType().equals(byte[].class));
+    }
+
+    /**
+     * Returns the standardizers that are applied before the first validator.
+     */
+    @Nonnull
+    private static List<BaseFieldPolicy> getLeadingStandardizers(@Nonnull final FieldPolicy fieldPolicy) {
+        final List<BaseFieldPolicy> policies = fieldPolicy.getAllPolicies();
+        int count = 0;
+        while (count < policies.size() && policies.get(count) instanceof StandardizationPolicy) {
+            ++count;
+        }
+        return policies.subList(0, count);
+    }
+
+    /**
+     * Builds the expressions for cleansing and validating the specified column.
+     *
+     * <p>Each expression refers to the previous value only once, so the expressions grow linearly with the number of policies. The value is not used once a validator
+     * fails, so the standardizers and validators do not check for earlier failures.</p>
+     *
+     * @return the expressions, or {@code null} if the policy cannot be expressed in Spark SQL
+     */
+    @Nullable
+    private static FieldColumns toFieldColumns(@Nonnull final Column original, @Nonnull final Column standardized, @Nonnull final StructField sourceField,
+                                               @Nonnull final FieldPolicy fieldPolicy, @Nonnull final HCatDataType dataType) {
+        // Values of unchecked types are passed through
+        if (dataType.isUnchecked()) {
+            return new FieldColumns(original, lit(true), nullString());
+        }
+        if (!DataTypes.StringType.equals(sourceField.dataType())) {
+            return null;
+        }
+
+        // Columns without policies are passed through, with empty numbers converted to null
+        final boolean binaryType = dataType.getConvertibleType().equals(byte[].class);
+        if (fieldPolicy.getAllPolicies().isEmpty() && fieldPolicy.shouldSkipSchemaValidation() && !binaryType) {
+            final Column value = dataType.isNumeric() ? when(original.equalTo(""), nullString()).otherwise(original) : original;
+            return new FieldColumns(value, lit(true), nullString());
+        }
+
+        // Strings are always convertible to the target type so only the policies are applied
+        if (!"string".equals(dataType.getNativeType())) {
+            return null;
+        }
+
+        Column value = standardized;
+        Column failed = lit(false);
+        Column reason = null;
+        Column validateNullValues = lit(false);
+
+        final List<BaseFieldPolicy> policies = fieldPolicy.getAllPolicies();
+        for (final BaseFieldPolicy policy : policies.subList(getLeadingStandardizers(fieldPolicy).size(), policies.size())) {
+            if (policy instanceof StandardizationPolicy) {
+                value = standardize(policy, value);
+                if (value == null) {
+                    return null;
+                }
+            } else if (policy instanceof ValidationPolicy) {
+                final Column ok = validate(policy, value);
+                if (ok == null) {
+                    return null;
+                }
+
+                // Validators run if the value is not null, or if a previous not null validator allows empty values. Only the first failure is reported.
+                final boolean notNullValidator = policy instanceof NotNullValidator;
+                final Column isEmpty = value.isNull().or(value.equalTo(""));
+                final Column fails = notNullValidator ? not(ok) : not(isEmpty).or(validateNullValues).and(not(ok));
+                final Column failReason = lit(ValidationResult.failFieldRule("rule", dataType.getName(), policy.getClass().getSimpleName(), "Rule violation").toJSON());
+
+                reason = (reason == null) ? when(fails, failReason) : reason.when(fails, failReason);
+                failed = failed.or(fails);
+                validateNullValues = notNullValidator ? isEmpty.or(validateNullValues) : lit(false);
+            } else {
+                return null;
+            }
+        }
+
+        return new FieldColumns(value, not(failed), (reason != null) ? reason : nullString());
+    }
+
+    /**
+     * Builds the expression for applying the specified standardizers in order.
+     *
+     * @return the standardized value, or {@code null} if a standardizer is not supported
+     */
+    @Nullable
+    private static Column standardize(@Nonnull final Column original, @Nonnull final List<BaseFieldPolicy> standardizers) {
+        Column value = original;
+        for (final BaseFieldPolicy policy : standardizers) {
+            value = standardize(policy, value);
+            if (value == null) {
+                return null;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Builds the expression for the specified standardizer. Standardizers other than the default value only apply to values that are not empty.
+     *
+     * @return the standardized value, or {@code null} if the standardizer is not supported
+     */
+    @Nullable
+    private static Column standardize(@Nonnull final BaseFieldPolicy policy, @Nonnull final Column value) {
+        final Class<?> type = policy.getClass();
+        if (type == TrimStandardizer.class) {
+            return regexp_replace(value, TRIM_REGEX, "");
+        } else if (type == UppercaseStandardizer.class) {
+            return upper(value);
+        } else if (type == LowercaseStandardizer.class) {
+            return lower(value);
+        } else if (type == DefaultValueStandardizer.class) {
+            // Replaces a null or empty value
+            final String defaultValue = String.valueOf(((DefaultValueStandardizer) policy).getDefaultStr());
+            return regexp_replace(coalesce(value, lit("")), EMPTY_REGEX, Matcher.quoteReplacement(defaultValue));
+        } else if (type == SimpleRegexReplacer.class) {
+            final SimpleRegexReplacer replacer = (SimpleRegexReplacer) policy;
+            if (!replacer.isValid()) {
+                return value;
+            }
+            // The pattern should not match an empty value. Quoted sections and comments could consume the enclosing group.
+            final String regex = replacer.getPattern().pattern();
+            if (regex.contains("\\Q") || regex.contains("#")) {
+                return null;
+            }
+            return regexp_replace(value, "(?!" + EMPTY_REGEX + ")(?:" + regex + ")", (replacer.getReplacement() != null) ? replacer.getReplacement() : "");
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Builds the expression for the specified validator.
+     *
+     * @return {@code true} if the value is valid, or {@code null} if the validator is not supported
+     */
+    @Nullable
+    private static Column validate(@Nonnull final BaseFieldPolicy policy, @Nonnull final Column value) {
+        final Class<?> type = policy.getClass();
+        if (type == NotNullValidator.class) {
+            final NotNullValidator validator = (NotNullValidator) policy;
+            if (validator.isAllowEmptyString()) {
+                return value.isNotNull();
+            }
+            final Column trimmed = validator.isTrimString() ? regexp_replace(value, TRIM_REGEX, "") : value;
+            return value.isNotNull().and(trimmed.notEqual(""));
+        } else if (type == LengthValidator.class) {
+            // Length of the string in UTF-16 code units
+            final LengthValidator validator = (LengthValidator) policy;
+            final Column bytes = length(encode(value, "UTF-16BE"));
+            return bytes.geq(2L * validator.getMinLength()).and(bytes.leq(2L * validator.getMaxLength()));
+        } else if (type == LookupValidator.class) {
+            final LookupValidator validator = (LookupValidator) policy;
+            return validator.getLookupValues().isEmpty() ? lit(false) : value.isin(validator.getLookupValues().toArray());
+        } else if (type == RegexValidator.class) {
+            final RegexValidator validator = (RegexValidator) policy;
+            if (validator.getPattern() == null) {
+                return lit(true);
+            }
+            // Quoted sections and comments could consume the anchors added to match the whole value
+            final String regex = validator.getPattern().pattern();
+            if (regex.contains("\\Q") || regex.contains("#")) {
+                return null;
+            }
+            return value.rlike("\\A(?:" + regex + ")\\z");
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * A null string literal.
+     */
+    @Nonnull
+    private static Column nullString() {
+        return lit(null).cast(DataTypes.StringType);
+    }
+
+    /**
+     * Selects the specified columns from the data set and starts a new plan from the result.
+     *
+     * <p>The optimizer would otherwise inline the expressions of each select into every column of the next select that refers to them, growing the plan with the product
+     * of the column counts. Reading the rows of the select as a new data set keeps the optimizer from combining the selects, while the rows are still computed in a single
+     * pass without being materialized.</p>
+     */
+    @Nonnull
+    private static Dataset<Row> select(@Nonnull final Dataset<Row> dataset, @Nonnull final List<Column> columns) {
+        final Dataset<Row> selected = dataset.select(columns.toArray(new Column[0]));
+        return selected.sparkSession().createDataFrame(selected.javaRDD(), selected.schema());
+    }
+
+    /**
+     * Returns the columns of the specified data set.
+     */
+    @Nonnull
+    private static List<Column> toColumns(@Nonnull final Dataset<Row> dataset) {
+        final List<Column> columns = new ArrayList<>(dataset.columns().length);
+        for (final String name : dataset.columns()) {
+            columns.add(dataset.col(name));
+        }
+        return columns;
+    }
+
+    /**
+     * Expressions for cleansing and validating one column.
+     */
+    private static class FieldColumns {
+
+        /**
+         * Standardized value
+         */
+        final Column value;
+
+        /**
+         * Indicates if the column is valid
+         */
+        final Column valid;
+
+        /**
+         * Reason the column is invalid as JSON, or null if valid
+         */
+        final Column reason;
+
+        FieldColumns(@Nonnull final Column value, @Nonnull final Column valid, @Nonnull final Column reason) {
+            this.value = value;
+            this.valid = valid;
+            this.reason = reason;
+        }
+    }
+
+    /**
+     * Instances of {@code FieldPolicyColumnsV2} should not be constructed.
+     */
+    private FieldPolicyColumnsV2() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -20,12 +20,24 @@ package com.thinkbiganalytics.spark.datavalidator;
  * #L%
  */
 
+import com.thinkbiganalytics.policy.FieldPolicy;
+import com.thinkbiganalytics.spark.DataSet;
+import com.thinkbiganalytics.spark.SparkContextService;
 import com.thinkbiganalytics.spark.datavalidator.functions.PartitionLevelCountsV2;
 
 import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.hive.HiveContext;
+import org.apache.spark.sql.types.StructField;
+import org.apache.spark.sql.types.StructType;
 import org.springframework.stereotype.Component;
 
 import java.io.Serializable;
+import java.util.UUID;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * Validator Strategy for Spark 2
@@ -37,4 +49,20 @@ public class ValidatorStrategyV2 implements IValidatorStrategy, Serializable {
     public JavaRDD<long[]> getCleansedRowResultPartitionCounts(JavaRDD<CleansedRowResult> cleansedRowResultJavaRDD, int schemaLength) {
         return cleansedRowResultJavaRDD.mapPartitions(new PartitionLevelCountsV2(schemaLength));
     }
+
+    @Nullable
+    @Override
+    public DataSet cleanseAndValidateColumns(@Nonnull final DataSet dataset, @Nonnull final FieldPolicy[] policies, @Nonnull final StructField[] fields, @Nonnull final StructType schema,
+                                             @Nonnull final HiveContext hiveContext, @Nonnull final SparkContextService scs) {
+        // Read the data set back as a Spark 2 Dataset, keeping its plan
+        final String tempTable = "validate_" + UUID.randomUUID().toString().replace("-", "");
+        dataset.registerTempTable(tempTable);
+
+        try {
+            final Dataset<Row> cleansed = FieldPolicyColumnsV2.cleanseAndValidate(hiveContext.table(tempTable), policies, fields, schema);
+            return (cleansed != null) ? scs.toDataSet(cleansed) : null;
+        } finally {
+            hiveContext.dropTempTable(tempTable);
+        }
+    }
 }
@@ -20,42 +20,204 @@ package com.thinkbiganalytics.spark.datavalidator;
  * #L%
  */
 
+import com.thinkbiganalytics.policy.BaseFieldPolicy;
+import com.thinkbiganalytics.policy.FieldPolicy;
+import com.thinkbiganalytics.policy.FieldPolicyBuilder;
+import com.thinkbiganalytics.policy.standardization.DefaultValueStandardizer;
+import com.thinkbiganalytics.policy.standardization.TrimStandardizer;
+import com.thinkbiganalytics.policy.standardization.UppercaseStandardizer;
+import com.thinkbiganalytics.policy.validation.LengthValidator;
+import com.thinkbiganalytics.policy.validation.LookupValidator;
+import com.thinkbiganalytics.policy.validation.NotNullValidator;
 import com.thinkbiganalytics.spark.SparkContextService;
+import com.thinkbiganalytics.spark.datavalidator.functions.AccumulateRowValidationCounts;
+import com.thinkbiganalytics.spark.datavalidator.functions.AccumulateValidationCounts;
+import com.thinkbiganalytics.spark.datavalidator.functions.CleanseAndValidateRow;
+import com.thinkbiganalytics.spark.datavalidator.functions.PartitionLevelCountsParam;
+import com.thinkbiganalytics.spark.datavalidator.functions.ToCleansedRowResult;
 
+import org.apache.spark.Accumulable;
 import org.apache.spark.SparkConf;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.sql.Dataset;
 import org.apache.spark.sql.Row;
+import org.apache.spark.sql.RowFactory;
+import org.apache.spark.sql.SQLContext;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.StructField;
+import org.apache.spark.sql.types.StructType;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 public class ValidatorV2Test {
 
-    @Test
-    public void testCleansedRowResultsValidationCountsV2() {
-        CleansedRowResult cleansedRowResult1 = new CleansedRowResult(Mockito.mock(Row.class), new boolean[]{true, true, true, true, true}, true);
-        CleansedRowResult cleansedRowResult2 = new CleansedRowResult(Mockito.mock(Row.class), new boolean[]{true, false, true, true, false}, false);
-        CleansedRowResult cleansedRowResult3 = new CleansedRowResult(Mockito.mock(Row.class), new boolean[]{false, false, true, true, false}, false);
-        List<CleansedRowResult> cleansedRowResultsList = Arrays.asList(cleansedRowResult1, cleansedRowResult1, cleansedRowResult1,
-                                                                       cleansedRowResult1, cleansedRowResult1, cleansedRowResult1,
-                                                                       cleansedRowResult1, cleansedRowResult2, cleansedRowResult3);
+    private static JavaSparkContext sc;
+
+    private final List<CleansedRowResult> cleansedRowResultsList = cleansedRowResults();
 
+    private final long[] expectedOutput = {1L, 2L, 0L, 0L, 2L, 7L, 2L};
+
+    @BeforeClass
+    public static void setUpClass() {
         SparkConf conf = new SparkConf();
         conf.setMaster("local[*]");
         conf.setAppName("Validator Test - Spark 2");
-        JavaSparkContext sc = new JavaSparkContext(conf);
+        sc = new JavaSparkContext(conf);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        sc.stop();
+    }
+
+    @Test
+    public void testCleansedRowResultsValidationCountsV2() {
         JavaRDD<CleansedRowResult> inputRDD = sc.parallelize(cleansedRowResultsList, 4);
 
         StandardDataValidator validator = new StandardDataValidator(new ValidatorStrategyV2(), Mockito.mock(SparkContextService.class));
 
         long[] output = validator.cleansedRowResultsValidationCounts(inputRDD, 5);
-        long[] expectedOutput = {1L, 2L, 0L, 0L, 2L, 7L, 2L};
 
         assertArrayEquals(expectedOutput, output);
     }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testAccumulatedValidationCountsV2() {
+        Accumulable<HashMap<Integer, long[]>, CleansedRowResult> validationCounts = sc.accumulable(new HashMap<Integer, long[]>(), new PartitionLevelCountsParam(5));
+        JavaRDD<CleansedRowResult> inputRDD = sc.parallelize(cleansedRowResultsList, 4).map(new AccumulateValidationCounts(validationCounts));
+
+        StructField[] fields = new StructField[6];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = DataTypes.createStructField("col" + i, DataTypes.StringType, true);
+        }
+        DataValidatorResult result = new DataValidatorResult(inputRDD, new FieldPolicy[0], new StructType(fields), validationCounts);
+
+        StandardDataValidator validator = new StandardDataValidator(new ValidatorStrategyV2(), Mockito.mock(SparkContextService.class));
+        assertNull(validator.accumulatedValidationCounts(result));
+
+        // Computing the rows a second time should not change the counts
+        inputRDD.count();
+        inputRDD.count();
+
+        assertArrayEquals(expectedOutput, validator.accumulatedValidationCounts(result));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testCleanseAndValidateColumnsV2() throws Exception {
+        StructField[] fields = new StructField[]{DataTypes.createStructField("name", DataTypes.StringType, true),
+                                                 DataTypes.createStructField("code", DataTypes.StringType, true),
+                                                 DataTypes.createStructField("processing_dttm", DataTypes.StringType, true)};
+        FieldPolicy[] policies = new FieldPolicy[]{
+            fieldPolicy("name", TrimStandardizer.instance(), UppercaseStandardizer.instance(), new NotNullValidator(false, true), new LengthValidator(1, 5)),
+            fieldPolicy("code", new DefaultValueStandardizer("A"), new LookupValidator("A", "B")),
+            FieldPolicyBuilder.newBuilder().skipSchemaValidation().tableName("emp").fieldName("processing_dttm").feedFieldName("processing_dttm").build()
+        };
+        List<Row> rows = Arrays.asList(RowFactory.create(" ann ", "B", "1"),
+                                       RowFactory.create("\tbob", null, "1"),
+                                       RowFactory.create("  ", "A", "1"),
+                                       RowFactory.create("charlotte", "C", "1"),
+                                       RowFactory.create(null, "", "1"),
+                                       RowFactory.create(null, null, null),
+                                       RowFactory.create("d\u00e9", "X", "1"));
+
+        CleanseAndValidateRow function = new CleanseAndValidateRow(policies, fields);
+        Dataset<Row> source = new SQLContext(sc).createDataFrame(rows, new StructType(fields));
+        Dataset<Row> cleansed = FieldPolicyColumnsV2.cleanseAndValidate(source, policies, fields, function.getSchema());
+        assertNotNull(cleansed);
+
+        // Results should match validating each row
+        List<Row> actual = cleansed.collectAsList();
+        ToCleansedRowResult toCleansedRowResult = new ToCleansedRowResult(fields.length);
+        for (int i = 0; i < rows.size(); i++) {
+            CleansedRowResult expected = function.call(rows.get(i));
+            CleansedRowResult result = toCleansedRowResult.call(actual.get(i));
+            assertEquals(expected.getRow(), result.getRow());
+            assertEquals(expected.isRowValid(), result.isRowValid());
+            for (int col = 0; col < fields.length; col++) {
+                assertEquals(expected.isColumnValid(col), result.isColumnValid(col));
+            }
+        }
+
+        // Counts collected while the rows are computed should match counting the rows
+        Accumulable<HashMap<Integer, long[]>, CleansedRowResult> validationCounts = sc.accumulable(new HashMap<Integer, long[]>(), new PartitionLevelCountsParam(fields.length));
+        JavaRDD<Row> countedRows = cleansed.javaRDD().map(new AccumulateRowValidationCounts(validationCounts, toCleansedRowResult));
+        DataValidatorResult result = new DataValidatorResult(countedRows.map(toCleansedRowResult), policies, function.getSchema(), validationCounts);
+        countedRows.count();
+
+        StandardDataValidator validator = new StandardDataValidator(new ValidatorStrategyV2(), Mockito.mock(SparkContextService.class));
+        assertArrayEquals(validator.cleansedRowResultsValidationCounts(cleansed.javaRDD().map(toCleansedRowResult), fields.length), validator.accumulatedValidationCounts(result));
+    }
+
+    @Test
+    public void testCleanseAndValidateWideTableV2() throws Exception {
+        // Every column has a chain of standardizers and validators, so the plan is only practical if the expressions grow linearly with the policies and columns
+        final int columns = 200;
+        StructField[] fields = new StructField[columns];
+        FieldPolicy[] policies = new FieldPolicy[columns];
+        for (int col = 0; col < columns; col++) {
+            String name = "col" + col;
+            fields[col] = DataTypes.createStructField(name, DataTypes.StringType, true);
+            policies[col] = fieldPolicy(name, TrimStandardizer.instance(), UppercaseStandardizer.instance(), new DefaultValueStandardizer("NA"), TrimStandardizer.instance(),
+                                        new NotNullValidator(false, true), new LengthValidator(1, 5), new LookupValidator("NA", "ANN", "BOB", "D\u00c9", "TOOLONG"));
+        }
+
+        String[] values = {" ann ", "\tbob", "  ", "toolong", null, "", "d\u00e9", "x"};
+        List<Row> rows = new ArrayList<>();
+        for (int row = 0; row < 20; row++) {
+            Object[] cells = new Object[columns];
+            for (int col = 0; col < columns; col++) {
+                // Mostly valid rows, with an invalid value in some of them
+                cells[col] = (row % 4 == 0 && col == row) ? "toolong" : values[(row + col) % values.length];
+            }
+            rows.add(RowFactory.create(cells));
+        }
+        Object[] empty = new Object[columns];
+        rows.add(RowFactory.create(empty));
+
+        CleanseAndValidateRow function = new CleanseAndValidateRow(policies, fields);
+        Dataset<Row> source = new SQLContext(sc).createDataFrame(rows, new StructType(fields));
+        Dataset<Row> cleansed = FieldPolicyColumnsV2.cleanseAndValidate(source, policies, fields, function.getSchema());
+        assertNotNull(cleansed);
+        List<Row> actual = cleansed.collectAsList();
+        assertEquals(rows.size(), actual.size());
+
+        ToCleansedRowResult toCleansedRowResult = new ToCleansedRowResult(fields.length);
+        for (int i = 0; i < rows.size(); i++) {
+            CleansedRowResult expected = function.call(rows.get(i));
+            CleansedRowResult result = toCleansedRowResult.call(actual.get(i));
+            assertEquals(expected.getRow(), result.getRow());
+            assertEquals(expected.isRowValid(), result.isRowValid());
+            for (int col = 0; col < fields.length; col++) {
+                assertEquals(expected.isColumnValid(col), result.isColumnValid(col));
+            }
+        }
+    }
+
+    private static FieldPolicy fieldPolicy(String fieldName, BaseFieldPolicy... policies) {
+        return FieldPolicyBuilder.newBuilder().addPolicies(Arrays.asList(policies)).tableName("emp").fieldName(fieldName).feedFieldName(fieldName).build();
+    }
+
+    private static List<CleansedRowResult> cleansedRowResults() {
+        CleansedRowResult cleansedRowResult1 = new CleansedRowResult(Mockito.mock(Row.class), new boolean[]{true, true, true, true, true}, true);
+        CleansedRowResult cleansedRowResult2 = new CleansedRowResult(Mockito.mock(Row.class), new boolean[]{true, false, true, true, false}, false);
+        CleansedRowResult cleansedRowResult3 = new CleansedRowResult(Mockito.mock(Row.class), new boolean[]{false, false, true, true, false}, false);
+        return Arrays.asList(cleansedRowResult1, cleansedRowResult1, cleansedRowResult1,
+                             cleansedRowResult1, cleansedRowResult1, cleansedRowResult1,
+                             cleansedRowResult1, cleansedRowResult2, cleansedRowResult3);
+    }
 }
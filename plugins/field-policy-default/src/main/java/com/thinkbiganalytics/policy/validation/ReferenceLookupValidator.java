@@ -0,0 +1,90 @@
+package com.thinkbiganalytics.policy.validation;
+
+/*-
+ * #%L
+ * thinkbig-field-policy-default
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.policy.PolicyProperty;
+import com.thinkbiganalytics.policy.PolicyPropertyRef;
+
+import java.io.Serializable;
+
+/**
+ * Validate the value is contained in a column of a reference table.
+ *
+ * <p>The values are not read by this policy. The engine running the validation loads the table once and provides the values using {@link #setSource(Source)}.</p>
+ */
+@Validator(name = "Reference Lookup", description = "Must be contained in a column of a reference table")
+public class ReferenceLookupValidator implements ValidationPolicy<String> {
+
+    @PolicyProperty(name = "Table", hint = "Reference table as database.table", required = true)
+    private String table;
+
+    @PolicyProperty(name = "Column", hint = "Column containing the reference values", required = true)
+    private String column;
+
+    /**
+     * Provides the reference values
+     */
+    private Source source;
+
+    public ReferenceLookupValidator(@PolicyPropertyRef(name = "Table") String table, @PolicyPropertyRef(name = "Column") String column) {
+        this.table = table;
+        this.column = column;
+    }
+
+    @Override
+    public boolean validate(String value) {
+        if (source == null) {
+            throw new IllegalStateException("Reference values have not been loaded from " + table + "." + column);
+        }
+        return source.get().contains(value);
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    public void setSource(Source source) {
+        this.source = source;
+    }
+
+    /**
+     * Provides the values of a reference table.
+     *
+     * <p>Implementations are serialized with the policy and should share a single copy of the values between all tasks in a process.</p>
+     */
+    public interface Source extends Serializable {
+
+        /**
+         * Gets the reference values.
+         *
+         * @return the reference values
+         */
+        ReferenceValues get();
+    }
+}
@@ -0,0 +1,108 @@
+package com.thinkbiganalytics.policy.validation;
+
+/*-
+ * #%L
+ * thinkbig-field-policy-default
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable set of reference values stored as a sorted array.
+ *
+ * <p>A Bloom filter is checked first so that most values not in the set are rejected without searching the array.</p>
+ */
+public final class ReferenceValues implements Serializable {
+
+    private static final long serialVersionUID = -5021470858128416287L;
+
+    /**
+     * Expected rate of values passing the Bloom filter that are not in the set
+     */
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    /**
+     * Pre-filter for the sorted values
+     */
+    private final BloomFilter<CharSequence> filter;
+
+    /**
+     * Sorted distinct values
+     */
+    private final String[] values;
+
+    /**
+     * Creates a set from the specified values, ignoring duplicates and {@code null} values.
+     *
+     * @param values the reference values
+     * @return the set of values
+     */
+    public static ReferenceValues of(Iterable<String> values) {
+        final List<String> list = new ArrayList<>();
+        for (final String value : values) {
+            if (value != null) {
+                list.add(value);
+            }
+        }
+        Collections.sort(list);
+
+        // Remove duplicates from the sorted list
+        int size = 0;
+        for (final String value : list) {
+            if (size == 0 || !value.equals(list.get(size - 1))) {
+                list.set(size++, value);
+            }
+        }
+        return new ReferenceValues(list.subList(0, size).toArray(new String[size]));
+    }
+
+    private ReferenceValues(String[] values) {
+        this.values = values;
+        filter = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), Math.max(values.length, 1), FALSE_POSITIVE_PROBABILITY);
+        for (final String value : values) {
+            filter.put(value);
+        }
+    }
+
+    /**
+     * Indicates if the specified value is in this set.
+     *
+     * @param value the value to look for
+     * @return {@code true} if the value is in this set, or {@code false} otherwise
+     */
+    public boolean contains(String value) {
+        return value != null && filter.mightContain(value) && Arrays.binarySearch(values, value) >= 0;
+    }
+
+    /**
+     * Gets the number of values in this set.
+     *
+     * @return the number of values
+     */
+    public int size() {
+        return values.length;
+    }
+}
@@ -0,0 +1,61 @@
+package com.thinkbiganalytics.policy.validation;
+
+/*-
+ * #%L
+ * thinkbig-field-policy-default
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * test the {@link ReferenceLookupValidator}
+ */
+public class ReferenceLookupValidatorTest {
+
+    @Test
+    public void testValidate() throws Exception {
+        final ReferenceValues values = ReferenceValues.of(Arrays.asList("CA", "NY", null, "TX", "CA"));
+        assertEquals(3, values.size());
+
+        ReferenceLookupValidator validator = new ReferenceLookupValidator("ref.states", "code");
+        validator.setSource(new ReferenceLookupValidator.Source() {
+            @Override
+            public ReferenceValues get() {
+                return values;
+            }
+        });
+        assertTrue(validator.validate("CA"));
+        assertTrue(validator.validate("NY"));
+        assertTrue(validator.validate("TX"));
+        assertFalse(validator.validate("ca"));
+        assertFalse(validator.validate("WA"));
+        assertFalse(validator.validate(""));
+        assertFalse(validator.validate(null));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testValidateNotLoaded() {
+        new ReferenceLookupValidator("ref.states", "code").validate("CA");
+    }
+}
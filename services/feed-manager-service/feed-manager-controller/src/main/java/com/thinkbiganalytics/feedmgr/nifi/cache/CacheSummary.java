@@ -20,11 +20,8 @@ package com.thinkbiganalytics.feedmgr.nifi.cache;
  * #L%
  */
 
-import com.thinkbiganalytics.metadata.rest.model.nifi.NiFiFlowCacheSync;
-
 import java.util.HashMap;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 
 public class CacheSummary {
@@ -41,12 +38,11 @@ public class CacheSummary {
             this.cachedSyncIds = cacheIds.keySet().size();
         }
 
-        public static CacheSummary build(Map<String, NiFiFlowCacheSync> syncMap) {
-            Map<String, Integer>
-                cacheIds =
-                syncMap.entrySet().stream().collect(Collectors.toMap(stringNiFiFlowCacheSyncEntry -> stringNiFiFlowCacheSyncEntry.getKey(),
-                                                                     stringNiFiFlowCacheSyncEntry1 -> stringNiFiFlowCacheSyncEntry1.getValue().getSnapshot().getProcessorIdToFeedNameMap().size()));
-            return new CacheSummary(cacheIds);
+        /**
+         * @param feedProcessorCounts the number of processor to feed name entries each sync id has received
+         */
+        public static CacheSummary build(Map<String, Integer> feedProcessorCounts) {
+            return new CacheSummary(new HashMap<>(feedProcessorCounts));
         }
 
         public Map<String, Integer> getSummary() {
@@ -0,0 +1,167 @@
+package com.thinkbiganalytics.feedmgr.nifi.cache;
+
+/*-
+ * #%L
+ * thinkbig-feed-manager-controller
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versioned log of the keys written to the {@link NifiFlowCacheImpl} maps.
+ * Every write is stamped with a new, monotonically increasing version so a sync only needs the keys written after the version it last received,
+ * instead of copying and comparing the full maps.
+ *
+ * The log is compacted as it is written: when a key is written again its older entry is dropped, so the log never holds more than one entry per cached key.
+ * The values are not stored here. They are read from the cache maps, which act as the snapshot the log is compacted into.
+ */
+public class NiFiFlowCacheChangeLog {
+
+    /**
+     * The cache maps that are tracked by the log
+     */
+    public enum Type {
+        PROCESSOR_FEED_NAME, PROCESSOR_PROCESS_GROUP, PROCESSOR_NAME, CONNECTION
+    }
+
+    /**
+     * The latest version whose entries are fully recorded
+     */
+    private final AtomicLong version = new AtomicLong(0);
+
+    private final Map<Type, KeyLog> logs = new EnumMap<>(Type.class);
+
+    public NiFiFlowCacheChangeLog() {
+        for (Type type : Type.values()) {
+            logs.put(type, new KeyLog());
+        }
+    }
+
+    /**
+     * Record that the keys were written to the cache map of the given type.
+     * This should be called after the values are in the cache map so a sync that sees the new version also sees the new values.
+     *
+     * @param type the cache map that was written
+     * @param keys the keys that were written
+     * @return the version of this change
+     */
+    public synchronized long record(Type type, Collection<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return version.get();
+        }
+        long next = version.get() + 1;
+        KeyLog log = logs.get(type);
+        keys.stream().forEach(key -> log.put(key, next));
+        version.set(next);
+        return next;
+    }
+
+    /**
+     * @return the latest version in the log
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Return the keys of the given type written after {@code sinceVersion} up to and including {@code toVersion}.
+     *
+     * @param type         the cache map
+     * @param sinceVersion the version the caller already has
+     * @param toVersion    the version the caller is syncing to, usually {@link #getVersion()} read before this call
+     * @return the keys written in the range
+     */
+    public Set<String> keysUpdated(Type type, long sinceVersion, long toVersion) {
+        Set<String> keys = new HashSet<>();
+        if (toVersion > sinceVersion) {
+            logs.get(type).versionToKeys.subMap(sinceVersion, false, toVersion, true).values().stream().forEach(keys::addAll);
+        }
+        return keys;
+    }
+
+    /**
+     * Return the version of the latest write of the key, or {@code 0} if the key is not in the log.
+     *
+     * @param type the cache map
+     * @param key  the key in the cache map
+     * @return the version the key was last written
+     */
+    public long getVersion(Type type, String key) {
+        Long keyVersion = logs.get(type).keyToVersion.get(key);
+        return keyVersion != null ? keyVersion : 0;
+    }
+
+    /**
+     * Return the number of keys of the given type whose latest write is at or before {@code toVersion}.
+     *
+     * @param type      the cache map
+     * @param toVersion the version a sync was updated to
+     * @return the number of keys the sync has received
+     */
+    public int count(Type type, long toVersion) {
+        return logs.get(type).versionToKeys.headMap(toVersion, true).values().stream().mapToInt(Set::size).sum();
+    }
+
+    /**
+     * @return the number of entries in the log
+     */
+    public int size() {
+        return logs.values().stream().mapToInt(log -> log.keyToVersion.size()).sum();
+    }
+
+    /**
+     * Remove all entries. The version is left as is so syncs never see it go backwards.
+     */
+    public synchronized void clear() {
+        logs.values().stream().forEach(KeyLog::clear);
+    }
+
+    /**
+     * The entries of a single cache map, indexed by key and by version
+     */
+    private static class KeyLog {
+
+        private final Map<String, Long> keyToVersion = new ConcurrentHashMap<>();
+
+        private final ConcurrentNavigableMap<Long, Set<String>> versionToKeys = new ConcurrentSkipListMap<>();
+
+        private void put(String key, long version) {
+            Long previous = keyToVersion.put(key, version);
+            if (previous != null) {
+                versionToKeys.computeIfPresent(previous, (v, keys) -> {
+                    keys.remove(key);
+                    return keys.isEmpty() ? null : keys;
+                });
+            }
+            versionToKeys.computeIfAbsent(version, v -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+
+        private void clear() {
+            keyToVersion.clear();
+            versionToKeys.clear();
+        }
+    }
+}
@@ -159,6 +159,21 @@ public class NifiFlowCacheImpl implements ServicesApplicationStartupListener, Ni
     private Map<String, NiFiFlowCacheConnectionData> connectionIdToConnectionMap = new ConcurrentHashMap<>();
     private Map<String, String> connectionIdCacheNameMap = new ConcurrentHashMap<>();
 
+    /**
+     * Versioned log of the keys written to the maps above.  Syncs use it to find what changed since the version they last received
+     */
+    private NiFiFlowCacheChangeLog changeLog = new NiFiFlowCacheChangeLog();
+
+    /**
+     * Snapshots rebuilt by {@link #getCache(String)}, keyed by the sync version.  They are discarded whenever the change log moves past {@link #syncedSnapshotsLogVersion}
+     */
+    private final Map<Long, NifiFlowCacheSnapshot> syncedSnapshots = new HashMap<>();
+
+    /**
+     * The change log version the {@link #syncedSnapshots} were built at
+     */
+    private long syncedSnapshotsLogVersion = -1;
+
     /**
      * Set of the category.feed names for those that are just streaming feeds
      */
@@ -289,7 +304,8 @@ public class NifiFlowCacheImpl implements ServicesApplicationStartupListener, Ni
     }
 
     /**
-     * Return the data in the cache for a given cache id
+     * Return the data in the cache for a given cache id.
+     * Syncs only keep the change log version they were last updated to, so the data is rebuilt from the entries whose latest write is at or before that version.
      *
      * @param syncId a cache id
      * @return the data in the cache for a given cache id
@@ -297,7 +313,13 @@ public class NifiFlowCacheImpl implements ServicesApplicationStartupListener, Ni
     @Override
     public NiFiFlowCacheSync getCache(String syncId) {
         NiFiFlowCacheSync sync = getSync(syncId);
-        return sync;
+        if (sync.isUnavailable() || sync.getVersion() == null) {
+            return sync;
+        }
+        NiFiFlowCacheSync cachedSync = new NiFiFlowCacheSync(sync.getSyncId(), getSyncedSnapshot(sync.getVersion()));
+        cachedSync.setVersion(sync.getVersion());
+        cachedSync.setLastSync(sync.getLastSync());
+        return cachedSync;
     }
 
     /**
@@ -345,6 +367,10 @@ public class NifiFlowCacheImpl implements ServicesApplicationStartupListener, Ni
         processorIdToFeedProcessGroupId.putAll(completionCallback.getProcessorIdToFeedProcessGroupId());
         processorIdToFeedNameMap.putAll(completionCallback.getProcessorIdToFeedNameMap());
         processorIdToProcessorName.putAll(completionCallback.getProcessorIdToProcessorName());
+        changeLog.record(NiFiFlowCacheChangeLog.Type.CONNECTION, completionCallback.getConnectionIdToConnectionMap().keySet());
+        changeLog.record(NiFiFlowCacheChangeLog.Type.PROCESSOR_PROCESS_GROUP, completionCallback.getProcessorIdToFeedProcessGroupId().keySet());
+        changeLog.record(NiFiFlowCacheChangeLog.Type.PROCESSOR_FEED_NAME, completionCallback.getProcessorIdToFeedNameMap().keySet());
+        changeLog.record(NiFiFlowCacheChangeLog.Type.PROCESSOR_NAME, completionCallback.getProcessorIdToProcessorName().keySet());
         reuseableTemplateProcessorIds.addAll(completionCallback.getReusableTemplateProcessorIds());
         reusableTemplateProcessGroupId = completionCallback.getReusableTemplateProcessGroupId();
         feedToInputProcessorIds.putAll(completionCallback.getFeedToInputProcessorIds());
@@ -547,52 +573,105 @@ public class NifiFlowCacheImpl implements ServicesApplicationStartupListener, Ni
             applyClusterUpdates();
         }
 
-        if (sync.needsUpdate(lastUpdated)) {
-            Map<String, String> processorIdToFeedNameMapCopy = ImmutableMap.copyOf(processorIdToFeedNameMap);
-            Map<String, String> processorIdToFeedProcessGroupIdCopy = ImmutableMap.copyOf(processorIdToFeedProcessGroupId);
-            Map<String, String> processorIdToProcessorNameCopy = ImmutableMap.copyOf(processorIdToProcessorName);
-            Map<String, NiFiFlowCacheConnectionData> connectionDataMapCopy = ImmutableMap.copyOf(connectionIdToConnectionMap);
-
-            //get feeds updated since last sync
-            NifiFlowCacheSnapshot latest = new NifiFlowCacheSnapshot.Builder()
-                .withProcessorIdToFeedNameMap(processorIdToFeedNameMapCopy)
-                .withProcessorIdToFeedProcessGroupId(processorIdToFeedProcessGroupIdCopy)
-                .withProcessorIdToProcessorName(processorIdToProcessorNameCopy)
-                .withConnections(connectionDataMapCopy)
+        //read the version before the keys so anything written while building the updates is picked up on the next sync
+        long version = changeLog.getVersion();
+        Long syncVersion = sync.getVersion();
+        if (syncVersion == null) {
+            //a new or reset sync gets the full cache
+            NifiFlowCacheSnapshot updated = new NifiFlowCacheSnapshot.Builder()
+                .withProcessorIdToFeedNameMap(ImmutableMap.copyOf(processorIdToFeedNameMap))
+                .withProcessorIdToFeedProcessGroupId(ImmutableMap.copyOf(processorIdToFeedProcessGroupId))
+                .withProcessorIdToProcessorName(ImmutableMap.copyOf(processorIdToProcessorName))
+                .withConnections(ImmutableMap.copyOf(connectionIdToConnectionMap))
+                .withReusableTemplateProcessorIds(reuseableTemplateProcessorIds)
                 .withSnapshotDate(lastUpdated).build();
-            return syncAndReturnUpdates(sync, latest, preview);
+            return syncAndReturnUpdates(sync, updated, version, preview);
+        } else if (syncVersion < version) {
+            NifiFlowCacheSnapshot updated = new NifiFlowCacheSnapshot.Builder()
+                .withProcessorIdToFeedNameMap(updatedSince(NiFiFlowCacheChangeLog.Type.PROCESSOR_FEED_NAME, processorIdToFeedNameMap, syncVersion, version))
+                .withProcessorIdToFeedProcessGroupId(updatedSince(NiFiFlowCacheChangeLog.Type.PROCESSOR_PROCESS_GROUP, processorIdToFeedProcessGroupId, syncVersion, version))
+                .withProcessorIdToProcessorName(updatedSince(NiFiFlowCacheChangeLog.Type.PROCESSOR_NAME, processorIdToProcessorName, syncVersion, version))
+                .withConnections(updatedSince(NiFiFlowCacheChangeLog.Type.CONNECTION, connectionIdToConnectionMap, syncVersion, version))
+                .withReusableTemplateProcessorIds(reuseableTemplateProcessorIds)
+                .withSnapshotDate(lastUpdated).build();
+            return syncAndReturnUpdates(sync, updated, version, preview);
         } else {
             return NiFiFlowCacheSync.EMPTY(sync.getSyncId());
         }
     }
 
+    /**
+     * Return the entries of the cache map that were written after the {@code sinceVersion}
+     *
+     * @param type         the cache map type in the change log
+     * @param map          the cache map
+     * @param sinceVersion the version the sync already has
+     * @param toVersion    the version the sync is updated to
+     * @return the entries written since the version
+     */
+    private <V> Map<String, V> updatedSince(NiFiFlowCacheChangeLog.Type type, Map<String, V> map, long sinceVersion, long toVersion) {
+        Map<String, V> updates = new HashMap<>();
+        changeLog.keysUpdated(type, sinceVersion, toVersion).stream().forEach(key -> {
+            V value = map.get(key);
+            if (value != null) {
+                updates.put(key, value);
+            }
+        });
+        return updates;
+    }
 
-    private NiFiFlowCacheSync syncAndReturnUpdates(NiFiFlowCacheSync sync, NifiFlowCacheSnapshot latest, boolean preview) {
-        if (latest != null && sync.needsUpdate(latest.getSnapshotDate())) {
+    /**
+     * Return the cache as seen by a sync at the given version.  Syncs are usually at the same few versions, so the snapshot is built once and shared until the cache changes.
+     *
+     * @param version the version the sync was updated to
+     * @return the entries the sync has received
+     */
+    private NifiFlowCacheSnapshot getSyncedSnapshot(long version) {
+        synchronized (syncedSnapshots) {
+            long logVersion = changeLog.getVersion();
+            if (logVersion != syncedSnapshotsLogVersion) {
+                syncedSnapshots.clear();
+                syncedSnapshotsLogVersion = logVersion;
+            }
+            return syncedSnapshots.computeIfAbsent(version, v -> new NifiFlowCacheSnapshot.Builder()
+                .withProcessorIdToFeedNameMap(syncedTo(NiFiFlowCacheChangeLog.Type.PROCESSOR_FEED_NAME, processorIdToFeedNameMap, v))
+                .withProcessorIdToFeedProcessGroupId(syncedTo(NiFiFlowCacheChangeLog.Type.PROCESSOR_PROCESS_GROUP, processorIdToFeedProcessGroupId, v))
+                .withProcessorIdToProcessorName(syncedTo(NiFiFlowCacheChangeLog.Type.PROCESSOR_NAME, processorIdToProcessorName, v))
+                .withConnections(syncedTo(NiFiFlowCacheChangeLog.Type.CONNECTION, connectionIdToConnectionMap, v))
+                .withReusableTemplateProcessorIds(reuseableTemplateProcessorIds)
+                .withSnapshotDate(lastUpdated).build());
+        }
+    }
 
-            NifiFlowCacheSnapshot updated = new NifiFlowCacheSnapshot.Builder()
-                .withProcessorIdToFeedNameMap(sync.getProcessorIdToFeedNameMapUpdatedSinceLastSync(latest.getProcessorIdToFeedNameMap()))
-                .withProcessorIdToFeedProcessGroupId(sync.getProcessorIdToProcessGroupIdUpdatedSinceLastSync(latest.getProcessorIdToFeedProcessGroupId()))
-                .withProcessorIdToProcessorName(sync.getProcessorIdToProcessorNameUpdatedSinceLastSync(latest.getProcessorIdToProcessorName()))
-                .withConnections(sync.getConnectionIdToConnectionUpdatedSinceLastSync(latest.getConnectionIdToConnectionName(), latest.getConnectionIdToConnection()))
-                .withReusableTemplateProcessorIds(latest.getReusableTemplateProcessorIds())
-                .build();
-            //reset the pointers on this sync to be the latest
-            if (!preview) {
-                sync.setSnapshot(latest);
-                sync.setLastSync(latest.getSnapshotDate());
+    /**
+     * Return the entries of the cache map whose latest write is at or before the {@code version}
+     *
+     * @param type    the cache map type in the change log
+     * @param map     the cache map
+     * @param version the version the sync was updated to
+     * @return the entries the sync has received
+     */
+    private <V> Map<String, V> syncedTo(NiFiFlowCacheChangeLog.Type type, Map<String, V> map, long version) {
+        return map.entrySet().stream()
+            .filter(entry -> changeLog.getVersion(type, entry.getKey()) <= version)
+            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
 
-            }
-            NiFiFlowCacheSync updatedSync = new NiFiFlowCacheSync(sync.getSyncId(), updated);
-            updatedSync.setUpdated(true);
-            if (!preview) {
-                updatedSync.setLastSync(latest.getSnapshotDate());
-            }
-            return updatedSync;
 
+    private NiFiFlowCacheSync syncAndReturnUpdates(NiFiFlowCacheSync sync, NifiFlowCacheSnapshot updated, long version, boolean preview) {
+        //reset the pointers on this sync to be the latest
+        if (!preview) {
+            //the change log version is the only state kept per sync, see getCache
+            sync.setVersion(version);
+            sync.setLastSync(updated.getSnapshotDate());
         }
-
-        return NiFiFlowCacheSync.EMPTY(sync.getSyncId());
+        NiFiFlowCacheSync updatedSync = new NiFiFlowCacheSync(sync.getSyncId(), updated);
+        updatedSync.setUpdated(true);
+        updatedSync.setVersion(version);
+        if (!preview) {
+            updatedSync.setLastSync(updated.getSnapshotDate());
+        }
+        return updatedSync;
     }
 
 
@@ -601,11 +680,16 @@ public class NifiFlowCacheImpl implements ServicesApplicationStartupListener, Ni
      ***/
     private void clearAll() {
         processorIdToFeedProcessGroupId.clear();
-        processorIdToFeedProcessGroupId.clear();
+        processorIdToFeedNameMap.clear();
         processorIdToProcessorName.clear();
         connectionIdToConnectionMap.clear();
         connectionIdCacheNameMap.clear();
         reuseableTemplateProcessorIds.clear();
+        changeLog.clear();
+        synchronized (syncedSnapshots) {
+            syncedSnapshots.clear();
+            syncedSnapshotsLogVersion = -1;
+        }
     }
 
 
@@ -659,6 +743,7 @@ public class NifiFlowCacheImpl implements ServicesApplicationStartupListener, Ni
         });
 
         this.processorIdToProcessorName.putAll(processorIdToProcessorName);
+        changeLog.record(NiFiFlowCacheChangeLog.Type.PROCESSOR_NAME, processorIdToProcessorName.keySet());
 
         if (notifyClusterMembers) {
             if (nifiFlowCacheClusterManager.isClustered()) {
@@ -695,6 +780,7 @@ public class NifiFlowCacheImpl implements ServicesApplicationStartupListener, Ni
             Map<String, String> connectionIdToNameMap = connections.stream().collect(Collectors.toMap(conn -> conn.getId(), conn -> conn.getName()));
             connectionIdCacheNameMap.putAll(connectionIdToNameMap);
         }
+        changeLog.record(NiFiFlowCacheChangeLog.Type.CONNECTION, connectionIdToConnectionMap.keySet());
 
         if (notifyClusterMembers) {
             if (nifiFlowCacheClusterManager.isClustered()) {
@@ -759,6 +845,9 @@ public class NifiFlowCacheImpl implements ServicesApplicationStartupListener, Ni
         this.processorIdToFeedProcessGroupId.putAll(processorIdToFeedProcessGroupId);
         this.processorIdToProcessorName.putAll(processorIdToProcessorName);
         processorIdToFeedNameMap.putAll(processorIdToFeedName);
+        changeLog.record(NiFiFlowCacheChangeLog.Type.PROCESSOR_PROCESS_GROUP, processorIdToFeedProcessGroupId.keySet());
+        changeLog.record(NiFiFlowCacheChangeLog.Type.PROCESSOR_NAME, processorIdToProcessorName.keySet());
+        changeLog.record(NiFiFlowCacheChangeLog.Type.PROCESSOR_FEED_NAME, processorIdToFeedName.keySet());
 
         updateConnectionMap(connections, false);
 
@@ -787,7 +876,9 @@ public class NifiFlowCacheImpl implements ServicesApplicationStartupListener, Ni
 
         updateProcessorIdMaps(feedProcessGroupId, processors);
 
-        connectionIdToConnectionMap.putAll(toConnectionIdMap(connections));
+        Map<String, NiFiFlowCacheConnectionData> connectionDataMap = toConnectionIdMap(connections);
+        connectionIdToConnectionMap.putAll(connectionDataMap);
+        changeLog.record(NiFiFlowCacheChangeLog.Type.CONNECTION, connectionDataMap.keySet());
         List<String> inputProcessorIds = null;
 
         if (connections != null) {
@@ -800,7 +891,9 @@ public class NifiFlowCacheImpl implements ServicesApplicationStartupListener, Ni
         }
 
         processorIdMap.putAll(toProcessorIdMap(processors));
-        processorIdToFeedNameMap.putAll(toProcessorIdFeedNameMap(processors, feedName));
+        Map<String, String> processorIdToFeedName = toProcessorIdFeedNameMap(processors, feedName);
+        processorIdToFeedNameMap.putAll(processorIdToFeedName);
+        changeLog.record(NiFiFlowCacheChangeLog.Type.PROCESSOR_FEED_NAME, processorIdToFeedName.keySet());
 
         //notify others of the cache update only if we are not doing a full refresh
         if (loaded && notifyClusterMembers) {
@@ -830,6 +923,8 @@ public class NifiFlowCacheImpl implements ServicesApplicationStartupListener, Ni
         });
         this.processorIdToFeedProcessGroupId.putAll(processorIdToProcessGroupId);
         this.processorIdToProcessorName.putAll(processorIdToProcessorName);
+        changeLog.record(NiFiFlowCacheChangeLog.Type.PROCESSOR_PROCESS_GROUP, processorIdToProcessGroupId.keySet());
+        changeLog.record(NiFiFlowCacheChangeLog.Type.PROCESSOR_NAME, processorIdToProcessorName.keySet());
 
     }
 
@@ -877,7 +972,11 @@ public class NifiFlowCacheImpl implements ServicesApplicationStartupListener, Ni
     }
 
     public CacheSummary cacheSummary() {
-        return CacheSummary.build(syncMap);
+        Map<String, Integer> feedProcessorCounts = syncMap.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, entry -> {
+            Long version = entry.getValue().getVersion();
+            return version != null ? changeLog.count(NiFiFlowCacheChangeLog.Type.PROCESSOR_FEED_NAME, version) : 0;
+        }));
+        return CacheSummary.build(feedProcessorCounts);
     }
 
     private void initExpireTimerThread() {
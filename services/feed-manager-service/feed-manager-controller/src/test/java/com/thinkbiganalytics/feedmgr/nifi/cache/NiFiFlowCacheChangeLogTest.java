@@ -0,0 +1,72 @@
+package com.thinkbiganalytics.feedmgr.nifi.cache;
+
+/*-
+ * #%L
+ * thinkbig-feed-manager-controller
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the versions and compaction of the {@link NiFiFlowCacheChangeLog}
+ */
+public class NiFiFlowCacheChangeLogTest {
+
+    @Test
+    public void testKeysUpdatedSinceVersion() {
+        NiFiFlowCacheChangeLog changeLog = new NiFiFlowCacheChangeLog();
+        long first = changeLog.record(NiFiFlowCacheChangeLog.Type.PROCESSOR_NAME, Lists.newArrayList("p1", "p2"));
+        long second = changeLog.record(NiFiFlowCacheChangeLog.Type.CONNECTION, Lists.newArrayList("c1"));
+        long third = changeLog.record(NiFiFlowCacheChangeLog.Type.PROCESSOR_NAME, Lists.newArrayList("p3"));
+
+        Assert.assertTrue(first < second && second < third);
+        Assert.assertEquals(third, changeLog.getVersion());
+        Assert.assertEquals(ImmutableSet.of("p1", "p2", "p3"), changeLog.keysUpdated(NiFiFlowCacheChangeLog.Type.PROCESSOR_NAME, 0, third));
+        Assert.assertEquals(ImmutableSet.of("p3"), changeLog.keysUpdated(NiFiFlowCacheChangeLog.Type.PROCESSOR_NAME, first, third));
+        Assert.assertEquals(ImmutableSet.of("c1"), changeLog.keysUpdated(NiFiFlowCacheChangeLog.Type.CONNECTION, first, third));
+        //keys written after the version being synced to are left for the next sync
+        Assert.assertTrue(changeLog.keysUpdated(NiFiFlowCacheChangeLog.Type.PROCESSOR_NAME, first, second).isEmpty());
+        Assert.assertTrue(changeLog.keysUpdated(NiFiFlowCacheChangeLog.Type.PROCESSOR_NAME, third, third).isEmpty());
+        //empty writes do not create a version
+        Assert.assertEquals(third, changeLog.record(NiFiFlowCacheChangeLog.Type.PROCESSOR_NAME, Lists.newArrayList()));
+    }
+
+    @Test
+    public void testCompaction() {
+        NiFiFlowCacheChangeLog changeLog = new NiFiFlowCacheChangeLog();
+        long first = changeLog.record(NiFiFlowCacheChangeLog.Type.PROCESSOR_FEED_NAME, Lists.newArrayList("p1", "p2"));
+        long second = changeLog.record(NiFiFlowCacheChangeLog.Type.PROCESSOR_FEED_NAME, Lists.newArrayList("p1"));
+
+        //p1 only has its latest entry
+        Assert.assertEquals(2, changeLog.size());
+        Assert.assertEquals(1, changeLog.count(NiFiFlowCacheChangeLog.Type.PROCESSOR_FEED_NAME, first));
+        Assert.assertEquals(2, changeLog.count(NiFiFlowCacheChangeLog.Type.PROCESSOR_FEED_NAME, second));
+        Assert.assertEquals(0, changeLog.count(NiFiFlowCacheChangeLog.Type.CONNECTION, second));
+        Assert.assertEquals(ImmutableSet.of("p2"), changeLog.keysUpdated(NiFiFlowCacheChangeLog.Type.PROCESSOR_FEED_NAME, 0, first));
+        Assert.assertEquals(ImmutableSet.of("p1"), changeLog.keysUpdated(NiFiFlowCacheChangeLog.Type.PROCESSOR_FEED_NAME, first, second));
+
+        changeLog.clear();
+        Assert.assertEquals(0, changeLog.size());
+        Assert.assertEquals(second, changeLog.getVersion());
+        Assert.assertTrue(changeLog.record(NiFiFlowCacheChangeLog.Type.PROCESSOR_FEED_NAME, Lists.newArrayList("p1")) > second);
+    }
+}
@@ -0,0 +1,152 @@
+package com.thinkbiganalytics.feedmgr.nifi.cache;
+
+/*-
+ * #%L
+ * thinkbig-feed-manager-controller
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.thinkbiganalytics.feedmgr.rest.model.FeedMetadata;
+import com.thinkbiganalytics.feedmgr.rest.model.RegisteredTemplate;
+import com.thinkbiganalytics.metadata.rest.model.nifi.NiFiFlowCacheSync;
+import com.thinkbiganalytics.metadata.rest.model.nifi.NifiFlowCacheSnapshot;
+
+import org.apache.nifi.web.api.dto.ConnectableDTO;
+import org.apache.nifi.web.api.dto.ConnectionDTO;
+import org.apache.nifi.web.api.dto.ProcessorDTO;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+
+/**
+ * Test that syncs of the {@link NifiFlowCacheImpl} only return the entries written since the previous sync
+ */
+public class NifiFlowCacheImplTest {
+
+    private static final String SYNC_ID = "sync";
+
+    private NifiFlowCacheImpl cache;
+
+    @Before
+    public void setUp() {
+        NifiFlowCacheClusterManager clusterManager = Mockito.mock(NifiFlowCacheClusterManager.class);
+        Mockito.when(clusterManager.isClustered()).thenReturn(false);
+
+        cache = new NifiFlowCacheImpl();
+        ReflectionTestUtils.setField(cache, "nifiFlowCacheClusterManager", clusterManager);
+        ReflectionTestUtils.setField(cache, "loaded", true);
+    }
+
+    @Test
+    public void testSyncReturnsOnlyUpdates() {
+        cache.updateFlowForFeed(feed("category.feed1"), "pg1", Lists.newArrayList(processor("p1", "GetFile"), processor("p2", "PutFile")),
+                                Lists.newArrayList(connection("c1", "p1", "p2")));
+
+        //a new sync gets a full copy
+        NiFiFlowCacheSync full = cache.syncAndReturnUpdates(SYNC_ID);
+        Assert.assertTrue(full.isUpdated());
+        Assert.assertEquals(ImmutableMap.of("p1", "category.feed1", "p2", "category.feed1"), full.getSnapshot().getProcessorIdToFeedNameMap());
+        Assert.assertEquals(ImmutableMap.of("p1", "pg1", "p2", "pg1"), full.getSnapshot().getProcessorIdToFeedProcessGroupId());
+        Assert.assertEquals(ImmutableSet.of("c1"), full.getSnapshot().getConnectionIdToConnection().keySet());
+
+        //nothing changed
+        NiFiFlowCacheSync empty = cache.syncAndReturnUpdates(SYNC_ID);
+        Assert.assertFalse(empty.isUpdated());
+
+        //a second feed and the rewritten connections come back as a delta
+        cache.updateFlowForFeed(feed("category.feed2"), "pg2", Lists.newArrayList(processor("p3", "LogAttribute")), Collections.emptyList());
+        cache.updateConnectionMap("template", Lists.newArrayList(connection("c1", "p1", "p2"), connection("c2", "p2", "p3")));
+
+        NiFiFlowCacheSync delta = cache.syncAndReturnUpdates(SYNC_ID);
+        Assert.assertTrue(delta.isUpdated());
+        Assert.assertTrue(delta.getVersion() > full.getVersion());
+        Assert.assertEquals(ImmutableMap.of("p3", "category.feed2"), delta.getSnapshot().getProcessorIdToFeedNameMap());
+        Assert.assertEquals(ImmutableMap.of("p3", "pg2"), delta.getSnapshot().getProcessorIdToFeedProcessGroupId());
+        Assert.assertEquals(ImmutableMap.of("p3", "LogAttribute"), delta.getSnapshot().getProcessorIdToProcessorName());
+        Assert.assertEquals(ImmutableSet.of("c1", "c2"), delta.getSnapshot().getConnectionIdToConnection().keySet());
+
+        //the cache of the sync has everything it received
+        NiFiFlowCacheSync synced = cache.getCache(SYNC_ID);
+        Assert.assertEquals(ImmutableSet.of("p1", "p2", "p3"), synced.getSnapshot().getProcessorIdToFeedNameMap().keySet());
+        Assert.assertEquals(3, cache.cacheSummary().getSummary().get(SYNC_ID).intValue());
+
+        //a reset sync gets a full copy again
+        NiFiFlowCacheSync reset = cache.refreshAll(SYNC_ID);
+        Assert.assertTrue(reset.isUpdated());
+        Assert.assertEquals(ImmutableSet.of("p1", "p2", "p3"), reset.getSnapshot().getProcessorIdToFeedNameMap().keySet());
+        Assert.assertEquals(ImmutableSet.of("c1", "c2"), reset.getSnapshot().getConnectionIdToConnection().keySet());
+        Assert.assertFalse(cache.syncAndReturnUpdates(SYNC_ID).isUpdated());
+    }
+
+    @Test
+    public void testCacheSummaryPerSync() {
+        cache.updateFlowForFeed(feed("category.feed1"), "pg1", Lists.newArrayList(processor("p1", "GetFile")), Collections.emptyList());
+        cache.syncAndReturnUpdates("first");
+
+        cache.updateFlowForFeed(feed("category.feed2"), "pg2", Lists.newArrayList(processor("p2", "GetFile")), Collections.emptyList());
+        cache.syncAndReturnUpdates("second");
+
+        //the first sync has not received the second feed
+        CacheSummary summary = cache.cacheSummary();
+        Assert.assertEquals(ImmutableMap.of("first", 1, "second", 2), summary.getSummary());
+        Assert.assertEquals(ImmutableSet.of("p1"), cache.getCache("first").getSnapshot().getProcessorIdToFeedNameMap().keySet());
+        Assert.assertEquals(ImmutableSet.of("p1", "p2"), cache.getCache("second").getSnapshot().getProcessorIdToFeedNameMap().keySet());
+
+        //the rebuilt cache is shared until the cache changes
+        Assert.assertSame(cache.getCache("first").getSnapshot(), cache.getCache("first").getSnapshot());
+        NifiFlowCacheSnapshot before = cache.getCache("second").getSnapshot();
+        cache.updateFlowForFeed(feed("category.feed3"), "pg3", Lists.newArrayList(processor("p3", "GetFile")), Collections.emptyList());
+        Assert.assertNotSame(before, cache.getCache("second").getSnapshot());
+        Assert.assertEquals(ImmutableSet.of("p1", "p2"), cache.getCache("second").getSnapshot().getProcessorIdToFeedNameMap().keySet());
+    }
+
+    private FeedMetadata feed(String categoryAndFeedName) {
+        FeedMetadata feed = Mockito.mock(FeedMetadata.class);
+        Mockito.when(feed.getCategoryAndFeedName()).thenReturn(categoryAndFeedName);
+        Mockito.when(feed.getRegisteredTemplate()).thenReturn(new RegisteredTemplate());
+        return feed;
+    }
+
+    private ProcessorDTO processor(String id, String name) {
+        ProcessorDTO processor = new ProcessorDTO();
+        processor.setId(id);
+        processor.setName(name);
+        return processor;
+    }
+
+    private ConnectionDTO connection(String id, String sourceId, String destinationId) {
+        ConnectionDTO connection = new ConnectionDTO();
+        connection.setId(id);
+        connection.setName(id);
+        connection.setSource(connectable(sourceId));
+        connection.setDestination(connectable(destinationId));
+        return connection;
+    }
+
+    private ConnectableDTO connectable(String id) {
+        ConnectableDTO connectable = new ConnectableDTO();
+        connectable.setId(id);
+        return connectable;
+    }
+}
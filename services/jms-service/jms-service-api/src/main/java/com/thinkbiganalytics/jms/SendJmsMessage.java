@@ -27,6 +27,7 @@ import org.springframework.jms.core.JmsMessagingTemplate;
 import org.springframework.stereotype.Component;
 
 import java.io.Serializable;
+import java.util.Map;
 
 @Component
 public class SendJmsMessage {
@@ -39,4 +40,11 @@ public class SendJmsMessage {
         jmsMessagingTemplate.convertAndSend(queueName, obj);
     }
 
+    /**
+     * Send the bytes as a BytesMessage, adding the headers as message properties
+     */
+    public void sendBytesToQueue(String queueName, final byte[] bytes, Map<String, Object> headers) throws JmsException {
+        jmsMessagingTemplate.convertAndSend(queueName, bytes, headers);
+    }
+
 }
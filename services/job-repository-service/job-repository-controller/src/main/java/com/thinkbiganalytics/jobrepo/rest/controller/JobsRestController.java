@@ -37,6 +37,7 @@ import com.thinkbiganalytics.metadata.api.jobrepo.job.BatchJobExecution;
 import com.thinkbiganalytics.metadata.api.jobrepo.job.BatchJobExecutionProvider;
 import com.thinkbiganalytics.metadata.api.jobrepo.nifi.NifiFeedStatisticsProvider;
 import com.thinkbiganalytics.metadata.api.jobrepo.step.BatchStepExecutionProvider;
+import com.thinkbiganalytics.metadata.cache.FeedHealthSummaryCache;
 import com.thinkbiganalytics.rest.model.RestResponseStatus;
 import com.thinkbiganalytics.rest.model.search.SearchResult;
 import com.thinkbiganalytics.security.AccessController;
@@ -97,6 +98,9 @@ public class JobsRestController {
     @Inject
     private NifiFeedStatisticsProvider nifiFeedStatisticsProvider;
 
+    @Inject
+    private FeedHealthSummaryCache feedHealthSummaryCache;
+
     @GET
     @Path("/{executionId}")
     @Produces(MediaType.APPLICATION_JSON)
@@ -231,6 +235,7 @@ public class JobsRestController {
         metadataAccess.commit(() -> {
             opsFeedManagerFeedProvider.abandonFeedJobs(feedName);
         });
+        feedHealthSummaryCache.markFeedStale(feedName);
 
         return Response.status(Response.Status.NO_CONTENT).build();
     }
@@ -28,6 +28,8 @@ import com.thinkbiganalytics.metadata.api.jobrepo.nifi.NifiFeedProcessorStats;
 import com.thinkbiganalytics.metadata.api.jobrepo.nifi.NifiFeedStatisticsProvider;
 import com.thinkbiganalytics.metadata.api.jobrepo.nifi.NifiFeedStats;
 import com.thinkbiganalytics.metadata.jobrepo.nifi.provenance.NifiStatsJmsReceiver;
+import com.thinkbiganalytics.metadata.jobrepo.nifi.provenance.ProvenanceEventPipeline;
+import com.thinkbiganalytics.metadata.jobrepo.nifi.provenance.ProvenanceEventReceiver;
 import com.thinkbiganalytics.metadata.rest.jobrepo.nifi.NiFiFeedProcessorErrorsContainer;
 import com.thinkbiganalytics.metadata.rest.jobrepo.nifi.NiFiFeedProcessorStatsContainer;
 import com.thinkbiganalytics.metadata.rest.jobrepo.nifi.NifiFeedProcessorStatsTransform;
@@ -37,6 +39,7 @@ import com.thinkbiganalytics.security.AccessController;
 import org.joda.time.DateTime;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -83,6 +86,9 @@ public class NifiFeedProcessorStatisticsRestControllerV2 {
     @Inject
     NifiStatsJmsReceiver nifiStatsJmsReceiver;
 
+    @Autowired(required = false)
+    private ProvenanceEventReceiver provenanceEventReceiver;
+
     @GET
     @Path("/all")
     @Produces(MediaType.APPLICATION_JSON)
@@ -170,7 +176,8 @@ public class NifiFeedProcessorStatisticsRestControllerV2 {
     @ApiResponses(
         @ApiResponse(code = 200, message = "Returns the feed statistics.", response = com.thinkbiganalytics.metadata.rest.jobrepo.nifi.NifiFeedProcessorStats.class, responseContainer = "List")
     )
-    public Response findFeedStats(@PathParam("feedName") String feedName, @QueryParam("from") Long fromMillis, @QueryParam("to") Long toMillis) {
+    public Response findFeedStats(@PathParam("feedName") String feedName, @QueryParam("from") Long fromMillis, @QueryParam("to") Long toMillis,
+                                  @QueryParam("dp") Integer dataPoints) {
         this.accessController.checkPermission(AccessController.SERVICES, OperationsAccessControl.ACCESS_OPS);
 
         final DateTime endTime = getToDateTime(toMillis);
@@ -180,7 +187,7 @@ public class NifiFeedProcessorStatisticsRestControllerV2 {
             NiFiFeedProcessorStatsContainer statsContainer = new NiFiFeedProcessorStatsContainer(startTime, endTime);
             NifiFeedStats feedStats = nifiFeedStatisticsProvider.findLatestStatsForFeed(feedName);
 
-            List<? extends NifiFeedProcessorStats> list = statsProvider.findForFeedStatisticsGroupedByTime(feedName, statsContainer.getStartTime(), statsContainer.getEndTime());
+            List<? extends NifiFeedProcessorStats> list = statsProvider.findForFeedStatisticsGroupedByTime(feedName, statsContainer.getStartTime(), statsContainer.getEndTime(), dataPoints);
             List<com.thinkbiganalytics.metadata.rest.jobrepo.nifi.NifiFeedProcessorStats> model = NifiFeedProcessorStatsTransform.toModel(list);
 
             statsContainer.setStats(model);
@@ -239,4 +246,17 @@ public class NifiFeedProcessorStatisticsRestControllerV2 {
             .collect(Collectors.toList());
         return Response.ok(vals).build();
     }
+
+    @GET
+    @Path("/event-pipeline/status")
+    @Produces(MediaType.APPLICATION_JSON)
+    @ApiOperation("Gets the queue depth and lag for each partition of the provenance event pipeline.")
+    @ApiResponses(
+        @ApiResponse(code = 200, message = "Returns the status of each partition.", response = ProvenanceEventPipeline.PartitionStatus.class, responseContainer = "List")
+    )
+    public Response getEventPipelineStatus() {
+        this.accessController.checkPermission(AccessController.SERVICES, OperationsAccessControl.ACCESS_OPS);
+        List<ProvenanceEventPipeline.PartitionStatus> status = provenanceEventReceiver != null ? provenanceEventReceiver.getPipelineStatus() : new ArrayList<>();
+        return Response.ok(status).build();
+    }
 }
@@ -43,6 +43,10 @@ public class NiFiFlowCacheSync {
     private String syncId;
     private NifiFlowCacheSnapshot snapshot;
     private DateTime lastSync;
+    /**
+     * the version of the Kylo flow cache this sync reflects, or {@code null} if it has not been synced
+     */
+    private Long version;
     private String message;
     private boolean updated = false;
 
@@ -160,9 +164,18 @@ public class NiFiFlowCacheSync {
         this.lastSync = lastSync;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public void reset() {
         this.snapshot = null;
         this.lastSync = null;
+        this.version = null;
     }
 
     public String getSyncId() {
@@ -20,16 +20,15 @@ package com.thinkbiganalytics.metadata.cache;
  */
 
 import com.google.common.base.Stopwatch;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import com.google.common.util.concurrent.AtomicLongMap;
-import com.thinkbiganalytics.DateTimeUtil;
 import com.thinkbiganalytics.jobrepo.query.model.FeedHealth;
 import com.thinkbiganalytics.jobrepo.query.model.FeedStatus;
 import com.thinkbiganalytics.jobrepo.query.model.transform.FeedModelTransform;
 import com.thinkbiganalytics.metadata.api.MetadataAccess;
+import com.thinkbiganalytics.metadata.api.event.MetadataEventListener;
 import com.thinkbiganalytics.metadata.api.event.MetadataEventService;
+import com.thinkbiganalytics.metadata.api.event.feed.FeedChangeEvent;
+import com.thinkbiganalytics.metadata.api.event.feed.FeedOperationStatusEvent;
 import com.thinkbiganalytics.metadata.api.feed.FeedSummary;
 import com.thinkbiganalytics.metadata.api.feed.OpsManagerFeed;
 import com.thinkbiganalytics.metadata.api.feed.OpsManagerFeedProvider;
@@ -44,21 +43,37 @@ import com.thinkbiganalytics.rest.model.search.SearchResultImpl;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.util.comparator.NullSafeComparator;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+import javax.annotation.Nonnull;
+import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 
 /**
+ * Holds the latest {@link FeedSummary} for every feed.
+ * The full list is loaded once and then kept current by reloading only the feeds named in job status and feed change events.
+ * The summaries are also kept sorted by each of the supported sort keys so a page of feeds can be read without sorting the list.
+ *
  * Created by sr186054 on 9/27/17.
  */
 public class FeedHealthSummaryCache implements TimeBasedCache<FeedSummary> {
@@ -78,6 +93,44 @@ public class FeedHealthSummaryCache implements TimeBasedCache<FeedSummary> {
     @Inject
     private FeedAclCache feedAclCache;
 
+    /**
+     * How often the full list is reloaded to pick up changes that did not arrive as an event on this node
+     */
+    @Value("${kylo.ops.mgr.dashboard.feed.summary.full.refresh.seconds:60}")
+    private long fullRefreshSeconds = 60;
+
+    private final FeedOperationStatusListener feedOperationStatusListener = new FeedOperationStatusListener();
+
+    private final FeedChangeListener feedChangeListener = new FeedChangeListener();
+
+    /**
+     * The latest summary by feed id
+     */
+    private final Map<String, FeedSummary> feedSummaries = new HashMap<>();
+
+    /**
+     * The summaries in {@link #feedSummaries} sorted by each of the sort comparators
+     */
+    private final Map<Comparator<FeedSummary>, NavigableSet<FeedSummary>> sortedFeedSummaries = new HashMap<>();
+
+    /**
+     * Guards {@link #feedSummaries} and {@link #sortedFeedSummaries}
+     */
+    private final ReadWriteLock feedSummaryLock = new ReentrantReadWriteLock();
+
+    /**
+     * Names of the feeds whose summary changed since it was loaded
+     */
+    private final Set<String> staleFeedNames = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean needsFullRefresh = new AtomicBoolean(true);
+
+    private final Object refreshLock = new Object();
+
+    private volatile Long lastRefreshTime = null;
+
+    private long lastFullRefreshMillis = 0L;
+
     private Comparator<FeedSummary> byRunningStatus = Comparator.comparing(FeedSummary::getRunStatus, Comparator.nullsLast(Comparator.naturalOrder()));
 
     private Comparator<FeedSummary> byStartTime = Comparator.comparing(FeedSummary::getStartTime, Comparator.nullsLast(Comparator.naturalOrder()));
@@ -119,14 +172,18 @@ public class FeedHealthSummaryCache implements TimeBasedCache<FeedSummary> {
         }
     }, true);
 
+    /**
+     * Orders by the time since the feed started running, or since it finished if it is not running.
+     * Every feed is measured from the same now so this orders by the negated start or end time, which keeps the order fixed as time passes.
+     */
     private Comparator<FeedSummary> bySinceTime = new NullSafeComparator<FeedSummary>(new Comparator<FeedSummary>() {
 
         private Long getTime(FeedSummary feedSummary) {
-            Long time1 = -1L;
+            Long time1 = Long.MIN_VALUE;
             if (feedSummary.getRunStatus() == FeedSummary.RunStatus.RUNNING && feedSummary.getStartTime() != null) {
-                time1 = DateTimeUtil.getNowUTCTime().getMillis() - feedSummary.getStartTime().getMillis();
+                time1 = -feedSummary.getStartTime().getMillis();
             } else if (feedSummary.getEndTime() != null) {
-                time1 = DateTimeUtil.getNowUTCTime().getMillis() - feedSummary.getEndTime().getMillis();
+                time1 = -feedSummary.getEndTime().getMillis();
             }
             return time1;
         }
@@ -159,6 +216,14 @@ public class FeedHealthSummaryCache implements TimeBasedCache<FeedSummary> {
         }
     }, true);
 
+    private final List<Comparator<FeedSummary>> sortComparators = Arrays.asList(byName, byHealth, byStatus, bySinceTime, byLastRunTime, byStream);
+
+    @PostConstruct
+    private void init() {
+        metadataEventService.addListener(feedOperationStatusListener);
+        metadataEventService.addListener(feedChangeListener);
+    }
+
     private Comparator<FeedSummary> getComparator(String sort) {
         Comparator c = byName;
         if (sort.toLowerCase().contains("feed")) {
@@ -175,20 +240,39 @@ public class FeedHealthSummaryCache implements TimeBasedCache<FeedSummary> {
             c = byStream;
         }
 
-        return sort.startsWith("-") ? c.reversed() : c;
+        return c;
     }
 
-
-    LoadingCache<Long, List<? extends FeedSummary>> feedSummaryCache = CacheBuilder.newBuilder().expireAfterWrite(15, TimeUnit.SECONDS).build(new CacheLoader<Long, List<? extends FeedSummary>>() {
-        @Override
-        public List<? extends FeedSummary> load(Long millis) throws Exception {
-            return fetchFeedSummary();
+    /**
+     * @return the summaries in the order of the sort, which is descending when it starts with a '-'
+     */
+    private NavigableSet<FeedSummary> getSortedFeedSummaries(String sort) {
+        if (sort == null) {
+            return sortedFeedSummaries.get(byName);
         }
-    });
+        NavigableSet<FeedSummary> sorted = sortedFeedSummaries.get(getComparator(sort));
+        return sort.startsWith("-") ? sorted.descendingSet() : sorted;
+    }
 
 
     public List<? extends FeedSummary> getFeedSummaryList(Long time) {
-        return feedSummaryCache.getUnchecked(time);
+        refreshFeedSummaries(time);
+        feedSummaryLock.readLock().lock();
+        try {
+            return new ArrayList<>(feedSummaries.values());
+        } finally {
+            feedSummaryLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Flag the summary for the feed to be reloaded, for changes to its jobs that are not announced with an event
+     *
+     * @param feedName the feed name
+     */
+    public void markFeedStale(String feedName) {
+        staleFeedNames.add(feedName);
+        lastRefreshTime = null;
     }
 
 
@@ -214,13 +298,19 @@ public class FeedHealthSummaryCache implements TimeBasedCache<FeedSummary> {
 
     public Map<String, Long> getUserFeedHealthCounts(Long time,  RoleSetExposingSecurityExpressionRoot userContext ) {
         AtomicLongMap<String> healthCounts = AtomicLongMap.create();
-        List<? extends FeedSummary> list = getFeedSummaryList(time);
-        list.stream()
-            .filter(filter(new FeedSummaryFilter(), userContext))
-            .forEach(f -> {
-                String key = f.getFailedCount() == null || f.getFailedCount() == 0 ? "HEALTHY" : "UNHEALTHY";
-                healthCounts.incrementAndGet(key);
-            });
+        refreshFeedSummaries(time);
+        Predicate<FeedSummary> filter = filter(new FeedSummaryFilter(), userContext);
+        feedSummaryLock.readLock().lock();
+        try {
+            feedSummaries.values().stream()
+                .filter(filter)
+                .forEach(f -> {
+                    String key = f.getFailedCount() == null || f.getFailedCount() == 0 ? "HEALTHY" : "UNHEALTHY";
+                    healthCounts.incrementAndGet(key);
+                });
+        } finally {
+            feedSummaryLock.readLock().unlock();
+        }
         return healthCounts.asMap();
     }
 
@@ -246,18 +336,29 @@ public class FeedHealthSummaryCache implements TimeBasedCache<FeedSummary> {
 
     public SearchResult getUserFeedHealth(Long time, FeedSummaryFilter feedSummaryFilter,  RoleSetExposingSecurityExpressionRoot userContext) {
         SearchResult<com.thinkbiganalytics.jobrepo.query.model.FeedSummary> searchResult = new SearchResultImpl();
-        List<FeedHealth> feedSummaryHealth = null;
-        //get the entire list back and filter it for user access
-        List<? extends FeedSummary> list = getFeedSummaryList(time).stream().filter(filter(feedSummaryFilter, userContext)).collect(Collectors.toList());
-        feedSummaryHealth = list.stream()
-            .sorted(feedSummaryFilter.getSort() != null ? getComparator(feedSummaryFilter.getSort()) : byName)
-            .skip(feedSummaryFilter.getStart())
-            .limit(feedSummaryFilter.getLimit() > 0 ? feedSummaryFilter.getLimit() : Integer.MAX_VALUE).map(f -> FeedModelTransform.feedHealth(f)).
-                collect(Collectors.toList());
+        List<FeedHealth> feedSummaryHealth = new ArrayList<>();
+        refreshFeedSummaries(time);
+        Predicate<FeedSummary> filter = filter(feedSummaryFilter, userContext);
+        long start = feedSummaryFilter.getStart();
+        long limit = feedSummaryFilter.getLimit() > 0 ? feedSummaryFilter.getLimit() : Integer.MAX_VALUE;
+        long total = 0L;
+        //walk the presorted summaries, transforming only the ones on the requested page and counting the rest
+        feedSummaryLock.readLock().lock();
+        try {
+            for (FeedSummary f : getSortedFeedSummaries(feedSummaryFilter.getSort())) {
+                if (filter.test(f)) {
+                    if (total >= start && feedSummaryHealth.size() < limit) {
+                        feedSummaryHealth.add(FeedModelTransform.feedHealth(f));
+                    }
+                    total++;
+                }
+            }
+        } finally {
+            feedSummaryLock.readLock().unlock();
+        }
 
         //Transform it to FeedSummary objects
         FeedStatus feedStatus = FeedModelTransform.feedStatus(feedSummaryHealth);
-        Long total = new Long(list.size());
         searchResult.setData(feedStatus.getFeedSummary());
         searchResult.setRecordsTotal(total);
         searchResult.setRecordsFiltered(total);
@@ -282,36 +383,120 @@ public class FeedHealthSummaryCache implements TimeBasedCache<FeedSummary> {
         return (List<FeedSummary>) getUserFeeds(time);
     }
 
+    /**
+     * Bring the summaries up to date.  This happens at most once for each time so the requests made for the same time share one refresh.
+     * The full list is reloaded when it has not been loaded for {@link #fullRefreshSeconds}, otherwise only the stale feeds are reloaded.
+     *
+     * @param time the time of the request
+     */
+    private void refreshFeedSummaries(Long time) {
+        Long lastRefresh = lastRefreshTime;
+        if (lastRefresh != null && time <= lastRefresh) {
+            return;
+        }
+        synchronized (refreshLock) {
+            lastRefresh = lastRefreshTime;
+            if (lastRefresh != null && time <= lastRefresh) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            if (needsFullRefresh.getAndSet(false) || now - lastFullRefreshMillis >= TimeUnit.SECONDS.toMillis(fullRefreshSeconds)) {
+                //changes made after this point are picked up by the next refresh
+                staleFeedNames.clear();
+                List<? extends FeedSummary> summaries;
+                try {
+                    summaries = fetchFeedSummary();
+                } catch (RuntimeException e) {
+                    needsFullRefresh.set(true);
+                    throw e;
+                }
+                feedSummaryLock.writeLock().lock();
+                try {
+                    feedSummaries.clear();
+                    sortedFeedSummaries.clear();
+                    for (Comparator<FeedSummary> comparator : sortComparators) {
+                        sortedFeedSummaries.put(comparator, new TreeSet<>(comparator.thenComparing(FeedSummary::getFeedIdAsString)));
+                    }
+                    summaries.forEach(this::putFeedSummary);
+                } finally {
+                    feedSummaryLock.writeLock().unlock();
+                }
+                lastFullRefreshMillis = now;
+            } else if (!staleFeedNames.isEmpty()) {
+                refreshStaleFeeds();
+            }
+            lastRefreshTime = time;
+        }
+    }
+
+    /**
+     * Reload the summaries of the stale feeds and move them to their new place in the sorted summaries
+     */
+    private void refreshStaleFeeds() {
+        List<String> feedNames = new ArrayList<>(staleFeedNames);
+        staleFeedNames.removeAll(feedNames);
+
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        Map<String, Optional<FeedSummary>> summaries = metadataAccess.read(() -> {
+            Map<String, Optional<FeedSummary>> latest = new HashMap<>();
+            for (String feedName : feedNames) {
+                OpsManagerFeed feed = opsManagerFeedProvider.findByNameWithoutAcl(feedName);
+                latest.put(feedName, Optional.ofNullable(feed != null ? fetchFeedSummary(feed) : null));
+            }
+            return latest;
+        }, MetadataAccess.SERVICE);
+
+        feedSummaryLock.writeLock().lock();
+        try {
+            summaries.forEach((feedName, summary) -> {
+                if (summary.isPresent()) {
+                    putFeedSummary(summary.get());
+                } else {
+                    //the feed was deleted
+                    feedSummaries.values().stream()
+                        .filter(f -> feedName.equals(f.getFeedName()))
+                        .map(FeedSummary::getFeedIdAsString)
+                        .collect(Collectors.toList())
+                        .forEach(this::removeFeedSummary);
+                }
+            });
+        } finally {
+            feedSummaryLock.writeLock().unlock();
+        }
+        stopwatch.stop();
+        log.debug("Time to refresh {} stale FeedSummary: {} ", feedNames.size(), stopwatch.elapsed(TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Add or replace the summary for a feed.  Must be called with the write lock held.
+     */
+    private void putFeedSummary(FeedSummary summary) {
+        removeFeedSummary(summary.getFeedIdAsString());
+        feedSummaries.put(summary.getFeedIdAsString(), summary);
+        sortedFeedSummaries.values().forEach(sorted -> sorted.add(summary));
+    }
+
+    /**
+     * Remove the summary for a feed.  Must be called with the write lock held.
+     */
+    private void removeFeedSummary(String feedId) {
+        FeedSummary existing = feedSummaries.remove(feedId);
+        if (existing != null) {
+            sortedFeedSummaries.values().forEach(sorted -> sorted.remove(existing));
+        }
+    }
+
     private List<? extends FeedSummary> fetchFeedSummary() {
         return metadataAccess.read(() -> {
             Stopwatch stopwatch = Stopwatch.createStarted();
             List<? extends FeedSummary> list = opsManagerFeedProvider.findFeedSummary();
 
-            Map<String, FeedSummary> latestFeeds = new HashMap<>();
-            //NOTE it could also populate the last job execution time since the above query gets a union of the running jobs along with the latest finished jobs by feed
-            list.stream()
-                .sorted(byRunningStatus.thenComparing(byStartTime)).forEach(f -> {
-                String feedId = f.getFeedId().toString();
-                if (!latestFeeds.containsKey(feedId)) {
-                    latestFeeds.put(feedId, f);
-                }
-            });
+            Map<String, FeedSummary> latestFeeds = latestFeedSummaries(list);
             //add in initial feeds
             List<? extends OpsManagerFeed> allFeeds = opsManagerFeedProvider.findAllWithoutAcl();
             allFeeds.stream().filter(f -> !latestFeeds.containsKey(f.getId().toString())).forEach(f -> {
-                                                                                        JpaFeedSummary s = new JpaFeedSummary();
-                                                                                        s.setStream(f.isStream());
-                                                                                        s.setFeedId(UUID.fromString(f.getId().toString()));
-                                                                                        s.setFeedName(f.getName());
-                                                                                        s.setFeedType(f.getFeedType());
-                                                                                        s.setRunningCount(0L);
-                                                                                        s.setAbandonedCount(0L);
-                                                                                        s.setFailedCount(0L);
-                                                                                        s.setAllCount(0L);
-                                                                                        s.setCompletedCount(0L);
-                                                                                        s.setRunStatus(FeedSummary.RunStatus.INITIAL);
-                                                                                        s.setStatus(BatchJobExecution.JobStatus.UNKNOWN);
-                                                                                       latestFeeds.put(s.getFeedId().toString(),s);
+                                                                                        FeedSummary s = initialFeedSummary(f);
+                                                                                        latestFeeds.put(s.getFeedId().toString(), s);
                                                                                     }
             );
 
@@ -321,6 +506,47 @@ public class FeedHealthSummaryCache implements TimeBasedCache<FeedSummary> {
         }, MetadataAccess.SERVICE);
     }
 
+    /**
+     * @return the latest summary for the feed, or an initial summary if it has no jobs
+     */
+    private FeedSummary fetchFeedSummary(OpsManagerFeed feed) {
+        Map<String, FeedSummary> latest = latestFeedSummaries(opsManagerFeedProvider.findFeedSummary(feed.getId()));
+        FeedSummary summary = latest.get(feed.getId().toString());
+        return summary != null ? summary : initialFeedSummary(feed);
+    }
+
+    /**
+     * Dedupe the summary rows to one per feed.
+     * NOTE it could also populate the last job execution time since the query gets a union of the running jobs along with the latest finished jobs by feed
+     */
+    private Map<String, FeedSummary> latestFeedSummaries(List<? extends FeedSummary> list) {
+        Map<String, FeedSummary> latestFeeds = new HashMap<>();
+        list.stream()
+            .sorted(byRunningStatus.thenComparing(byStartTime)).forEach(f -> {
+            String feedId = f.getFeedId().toString();
+            if (!latestFeeds.containsKey(feedId)) {
+                latestFeeds.put(feedId, f);
+            }
+        });
+        return latestFeeds;
+    }
+
+    private FeedSummary initialFeedSummary(OpsManagerFeed f) {
+        JpaFeedSummary s = new JpaFeedSummary();
+        s.setStream(f.isStream());
+        s.setFeedId(UUID.fromString(f.getId().toString()));
+        s.setFeedName(f.getName());
+        s.setFeedType(f.getFeedType());
+        s.setRunningCount(0L);
+        s.setAbandonedCount(0L);
+        s.setFailedCount(0L);
+        s.setAllCount(0L);
+        s.setCompletedCount(0L);
+        s.setRunStatus(FeedSummary.RunStatus.INITIAL);
+        s.setStatus(BatchJobExecution.JobStatus.UNKNOWN);
+        return s;
+    }
+
     @Override
     public boolean isAvailable() {
         return feedAclCache.isUserCacheAvailable();
@@ -478,4 +704,36 @@ public class FeedHealthSummaryCache implements TimeBasedCache<FeedSummary> {
         }
     }
 
+    /**
+     * Marks the feed stale when one of its jobs starts or finishes
+     */
+    private class FeedOperationStatusListener implements MetadataEventListener<FeedOperationStatusEvent> {
+
+        @Override
+        public void notify(@Nonnull final FeedOperationStatusEvent metadataEvent) {
+            String feedName = metadataEvent.getData().getFeedName();
+            if (feedName != null) {
+                staleFeedNames.add(feedName);
+            } else {
+                needsFullRefresh.set(true);
+            }
+        }
+    }
+
+    /**
+     * Marks the feed stale when it is created, changed or deleted
+     */
+    private class FeedChangeListener implements MetadataEventListener<FeedChangeEvent> {
+
+        @Override
+        public void notify(@Nonnull final FeedChangeEvent metadataEvent) {
+            Optional<String> feedName = metadataEvent.getData().getFeedName();
+            if (feedName.isPresent()) {
+                staleFeedNames.add(feedName.get());
+            } else {
+                needsFullRefresh.set(true);
+            }
+        }
+    }
+
 }
@@ -30,6 +30,7 @@ import com.thinkbiganalytics.metadata.cache.RunningJobsCache;
 import com.thinkbiganalytics.metadata.cache.ServiceStatusCache;
 import com.thinkbiganalytics.metadata.jobrepo.StreamingFeedService;
 import com.thinkbiganalytics.metadata.jobrepo.nifi.provenance.NifiBulletinExceptionExtractor;
+import com.thinkbiganalytics.metadata.jobrepo.nifi.provenance.NifiFeedProcessorStatsBuffer;
 import com.thinkbiganalytics.metadata.jobrepo.nifi.provenance.NifiStatsJmsReceiver;
 import com.thinkbiganalytics.metadata.jobrepo.nifi.provenance.ProvenanceEventFeedUtil;
 import com.thinkbiganalytics.metadata.jobrepo.nifi.provenance.ProvenanceEventReceiver;
@@ -93,6 +94,12 @@ public class OperationalMetadataServiceSpringConfiguration {
         return new NifiStatsJmsReceiver();
     }
 
+    @Bean
+    @Profile("!kyloUpgrade")
+    public NifiFeedProcessorStatsBuffer nifiFeedProcessorStatsBuffer() {
+        return new NifiFeedProcessorStatsBuffer();
+    }
+
     @Bean
     public NifiBulletinExceptionExtractor nifiBulletinExceptionExtractor(){
         return new NifiBulletinExceptionExtractor();
@@ -0,0 +1,337 @@
+package com.thinkbiganalytics.metadata.jobrepo.nifi.provenance;
+
+/*-
+ * #%L
+ * thinkbig-operational-metadata-integration-service
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.thinkbiganalytics.metadata.api.MetadataAccess;
+import com.thinkbiganalytics.metadata.api.jobrepo.nifi.NifiFeedProcessorStatisticsProvider;
+import com.thinkbiganalytics.metadata.api.jobrepo.nifi.NifiFeedProcessorStats;
+import com.thinkbiganalytics.metadata.jpa.jobrepo.nifi.JpaNifiFeedProcessorStats;
+
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+/**
+ * Write behind buffer for the NiFi feed processor stats.
+ * Stats sent from NiFi every few seconds are merged into a single row per feed, processor and minute and saved in bulk on the flush interval,
+ * rather than inserting a row into NIFI_FEED_PROCESSOR_STATS for every message.
+ * Incoming stats are written to a {@link NifiFeedProcessorStatsJournal} before they are merged so they can be recovered after a restart.
+ */
+public class NifiFeedProcessorStatsBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(NifiFeedProcessorStatsBuffer.class);
+
+    private static final long ROLLUP_WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    @Inject
+    private NifiFeedProcessorStatisticsProvider nifiEventStatisticsProvider;
+
+    @Inject
+    private MetadataAccess metadataAccess;
+
+    /**
+     * Buffering is opt in.  When disabled the stats are saved as they arrive and no journal is created
+     */
+    @Value("${kylo.ops.mgr.stats.buffer.enabled:false}")
+    private boolean enabled;
+
+    @Value("${kylo.ops.mgr.stats.buffer.flush.interval.seconds:60}")
+    private long flushIntervalSeconds = 60;
+
+    /**
+     * Defaults to the Kylo install directory, like the ModeShape index.  The temp directory is not used as it may be cleared on a restart, losing the stats the journal is there to recover
+     */
+    @Value("${kylo.ops.mgr.stats.buffer.journal.dir:/opt/kylo/stats-journal}")
+    private String journalDirectory;
+
+    private NifiFeedProcessorStatsJournal journal;
+
+    /**
+     * Adding stats takes the read lock so the JMS consumers can merge in parallel.  The flush takes the write lock to swap the buffer and rotate the journal
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile Map<String, JpaNifiFeedProcessorStats> buffer = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService executorService;
+
+    public NifiFeedProcessorStatsBuffer() {
+
+    }
+
+    public NifiFeedProcessorStatsBuffer(NifiFeedProcessorStatsJournal journal) {
+        this.journal = journal;
+    }
+
+    @PostConstruct
+    private void init() {
+        if (enabled) {
+            if (journal == null && journalDirectory != null) {
+                journal = new NifiFeedProcessorStatsJournal(new File(journalDirectory));
+            }
+            recover();
+            ThreadFactory threadFactory = new ThreadFactoryBuilder().setDaemon(true).setNameFormat("NifiFeedProcessorStatsBuffer-%d").build();
+            executorService = Executors.newSingleThreadScheduledExecutor(threadFactory);
+            executorService.scheduleWithFixedDelay(this::flush, flushIntervalSeconds, flushIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        if (executorService != null) {
+            executorService.shutdown();
+            flush();
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Merge the stats left in the journal from a previous run back into the buffer
+     */
+    public void recover() {
+        if (journal != null) {
+            try {
+                merge(journal.recover(this::isSaved));
+            } catch (IOException e) {
+                log.error("Unable to recover the NiFi feed processor stats from the journal ", e);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return the number of rows waiting to be flushed
+     */
+    public int size() {
+        return buffer.size();
+    }
+
+    /**
+     * Journal and merge the stats into the buffer
+     *
+     * @param stats the stats received from NiFi
+     */
+    public void add(Collection<? extends NifiFeedProcessorStats> stats) {
+        if (stats == null || stats.isEmpty()) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            if (journal != null) {
+                try {
+                    journal.append(stats);
+                } catch (IOException e) {
+                    log.error("Unable to write {} NiFi feed processor stats to the journal.  The stats will be lost if Kylo stops before they are flushed ", stats.size(), e);
+                }
+            }
+            merge(stats);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Save the buffered rows.  If the save fails the rows are added back to the buffer to be saved on the next flush
+     *
+     * @return the number of rows saved
+     */
+    public int flush() {
+        Map<String, JpaNifiFeedProcessorStats> flushing;
+        lock.writeLock().lock();
+        try {
+            if (buffer.isEmpty()) {
+                return 0;
+            }
+            flushing = buffer;
+            buffer = new ConcurrentHashMap<>();
+            if (journal != null) {
+                journal.rotate(this::isSaved);
+            }
+        } catch (IOException e) {
+            log.error("Unable to rotate the NiFi feed processor stats journal ", e);
+            return 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<JpaNifiFeedProcessorStats> rows = new ArrayList<>(flushing.values());
+        try {
+            metadataAccess.commit(() -> {
+                List<? extends NifiFeedProcessorStats> saved = nifiEventStatisticsProvider.create(rows);
+                if (journal != null) {
+                    //mark the rows as flushed before the commit, so a restart before completeFlush does not save them again
+                    journal.markFlushed(saved.stream().map(NifiFeedProcessorStats::getId).filter(Objects::nonNull).collect(Collectors.toList()));
+                }
+                return saved;
+            }, MetadataAccess.SERVICE);
+        } catch (Exception e) {
+            log.error("Error saving {} buffered NiFi feed processor stats.  They will be saved on the next flush ", rows.size(), e);
+            //the rows are still in the moved journal, which the next flush adds to.  only merge them back into memory
+            lock.readLock().lock();
+            try {
+                merge(rows);
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (journal != null) {
+                journal.abortFlush();
+            }
+            return 0;
+        }
+        if (journal != null) {
+            journal.completeFlush();
+        }
+        log.debug("Saved {} buffered NiFi feed processor stats ", rows.size());
+        return rows.size();
+    }
+
+    /**
+     * Check if the rows from a flush that did not complete were saved.
+     * The rows are saved in a single transaction so checking one of them is enough
+     */
+    private boolean isSaved(List<String> ids) {
+        if (nifiEventStatisticsProvider == null || metadataAccess == null) {
+            return false;
+        }
+        return metadataAccess.read(() -> nifiEventStatisticsProvider.exists(ids.get(0)), MetadataAccess.SERVICE);
+    }
+
+    private void merge(Collection<? extends NifiFeedProcessorStats> stats) {
+        for (NifiFeedProcessorStats stat : stats) {
+            buffer.compute(key(stat), (key, row) -> {
+                if (row == null) {
+                    row = new JpaNifiFeedProcessorStats(stat.getFeedName(), stat.getProcessorId());
+                    row.setTotalCount(0L);
+                    row.setCollectionIntervalSeconds(0L);
+                }
+                merge(row, stat);
+                return row;
+            });
+        }
+    }
+
+    /**
+     * Rows are keyed by the feed, processor and the minute of the first event
+     */
+    static String key(NifiFeedProcessorStats stats) {
+        long window = stats.getMinEventTime() != null ? stats.getMinEventTime().getMillis() / ROLLUP_WINDOW_MILLIS : 0L;
+        return stats.getFeedName() + "\u0000" + stats.getProcessorId() + "\u0000" + window;
+    }
+
+    /**
+     * Merge the stats into the row the same way the compact_feed_processor_stats procedure rolls up rows
+     */
+    static void merge(JpaNifiFeedProcessorStats row, NifiFeedProcessorStats stats) {
+        if (row.getProcessorName() == null) {
+            row.setProcessorName(stats.getProcessorName());
+        }
+        if (row.getFeedProcessGroupId() == null) {
+            row.setFeedProcessGroupId(stats.getFeedProcessGroupId());
+        }
+        //keep the collection id so the row can still be compacted
+        if (row.getCollectionId() == null) {
+            row.setCollectionId(stats.getCollectionId());
+        }
+        if (row.getClusterNodeId() == null) {
+            row.setClusterNodeId(stats.getClusterNodeId());
+            row.setClusterNodeAddress(stats.getClusterNodeAddress());
+        }
+        row.setCollectionIntervalSeconds(sum(row.getCollectionIntervalSeconds(), stats.getCollectionIntervalSeconds()));
+        row.setDuration(sum(row.getDuration(), stats.getDuration()));
+        row.setBytesIn(sum(row.getBytesIn(), stats.getBytesIn()));
+        row.setBytesOut(sum(row.getBytesOut(), stats.getBytesOut()));
+        row.setTotalCount(sum(row.getTotalCount(), stats.getTotalCount()));
+        row.setFailedCount(sum(row.getFailedCount(), stats.getFailedCount()));
+        row.setJobsStarted(sum(row.getJobsStarted(), stats.getJobsStarted()));
+        row.setJobsFinished(sum(row.getJobsFinished(), stats.getJobsFinished()));
+        row.setJobsFailed(sum(row.getJobsFailed(), stats.getJobsFailed()));
+        row.setJobDuration(sum(row.getJobDuration(), stats.getJobDuration()));
+        row.setSuccessfulJobDuration(sum(row.getSuccessfulJobDuration(), stats.getSuccessfulJobDuration()));
+        row.setProcessorsFailed(sum(row.getProcessorsFailed(), stats.getProcessorsFailed()));
+        row.setFlowFilesStarted(sum(row.getFlowFilesStarted(), stats.getFlowFilesStarted()));
+        row.setFlowFilesFinished(sum(row.getFlowFilesFinished(), stats.getFlowFilesFinished()));
+
+        if (stats.getMinEventTime() != null && (row.getMinEventTime() == null || stats.getMinEventTime().isBefore(row.getMinEventTime()))) {
+            row.setMinEventTime(stats.getMinEventTime());
+        }
+        row.setMaxEventTime(max(row.getMaxEventTime(), stats.getMaxEventTime()));
+        row.setCollectionTime(max(row.getCollectionTime(), stats.getCollectionTime()));
+        if (stats.getMaxEventId() != null && (row.getMaxEventId() == null || stats.getMaxEventId() >= row.getMaxEventId())) {
+            row.setMaxEventId(stats.getMaxEventId());
+            if (stats.getLatestFlowFileId() != null) {
+                row.setLatestFlowFileId(stats.getLatestFlowFileId());
+            }
+        } else if (row.getLatestFlowFileId() == null) {
+            row.setLatestFlowFileId(stats.getLatestFlowFileId());
+        }
+        //keep the most recent error
+        if (stats.getErrorMessages() != null
+            && (row.getErrorMessageTimestamp() == null || (stats.getErrorMessageTimestamp() != null && !stats.getErrorMessageTimestamp().isBefore(row.getErrorMessageTimestamp())))) {
+            row.setErrorMessages(stats.getErrorMessages());
+            row.setErrorMessageTimestamp(stats.getErrorMessageTimestamp());
+        }
+    }
+
+    private static Long sum(Long a, Long b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null ? a : a + b;
+    }
+
+    private static DateTime max(DateTime a, DateTime b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null || a.isAfter(b) ? a : b;
+    }
+}
@@ -0,0 +1,388 @@
+package com.thinkbiganalytics.metadata.jobrepo.nifi.provenance;
+
+/*-
+ * #%L
+ * thinkbig-operational-metadata-integration-service
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.metadata.api.jobrepo.nifi.NifiFeedProcessorStats;
+import com.thinkbiganalytics.metadata.jpa.jobrepo.nifi.JpaNifiFeedProcessorStats;
+
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+/**
+ * Local append only journal for the {@link NifiFeedProcessorStatsBuffer}.
+ * Every batch of stats added to the buffer is appended here before it is merged, so the buffered stats can be recovered if Kylo stops before they are flushed.
+ *
+ * Each batch is written as a record of [length][crc32][stats].  A partially written record at the end of the file is ignored on recovery.
+ * When the buffer is flushed the journal is moved aside and deleted once the stats are saved.
+ *
+ * The ids of the saved rows are written to a marker file inside the save transaction, before it commits.
+ * If Kylo stops after the commit but before the moved journal is deleted, the marker is used to check whether the rows were saved so they are not saved twice.
+ */
+public class NifiFeedProcessorStatsJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(NifiFeedProcessorStatsJournal.class);
+
+    static final String JOURNAL_FILE = "feed-processor-stats.journal";
+
+    static final String FLUSHING_FILE = "feed-processor-stats.flushing";
+
+    static final String FLUSHED_IDS_FILE = "feed-processor-stats.flushed";
+
+    private static final long NO_VALUE = Long.MIN_VALUE;
+
+    private final File directory;
+
+    private final File journalFile;
+
+    private final File flushingFile;
+
+    private final File flushedIdsFile;
+
+    private FileOutputStream journalStream;
+
+    public NifiFeedProcessorStatsJournal(File directory) {
+        this.directory = directory;
+        this.journalFile = new File(directory, JOURNAL_FILE);
+        this.flushingFile = new File(directory, FLUSHING_FILE);
+        this.flushedIdsFile = new File(directory, FLUSHED_IDS_FILE);
+    }
+
+    /**
+     * Read the stats left over from a previous run and compact them into a new journal
+     *
+     * @param saved checks if the rows with the given ids were saved by a flush that did not complete
+     * @return the stats that were not flushed
+     */
+    public synchronized List<JpaNifiFeedProcessorStats> recover(Predicate<List<String>> saved) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Unable to create the stats journal directory " + directory);
+        }
+        resolveFlushing(saved);
+        List<JpaNifiFeedProcessorStats> stats = new ArrayList<>();
+        stats.addAll(read(flushingFile));
+        stats.addAll(read(journalFile));
+
+        //write the recovered stats to a new journal before removing the old files
+        File recoveredFile = new File(directory, JOURNAL_FILE + ".recovered");
+        try (FileOutputStream out = new FileOutputStream(recoveredFile)) {
+            if (!stats.isEmpty()) {
+                out.write(toRecord(stats));
+            }
+            out.getFD().sync();
+        }
+        delete(flushingFile);
+        delete(journalFile);
+        if (!recoveredFile.renameTo(journalFile)) {
+            throw new IOException("Unable to move the recovered stats journal to " + journalFile);
+        }
+        journalStream = new FileOutputStream(journalFile, true);
+        if (!stats.isEmpty()) {
+            log.info("Recovered {} NiFi feed processor stats from the journal {} ", stats.size(), journalFile);
+        }
+        return stats;
+    }
+
+    /**
+     * Append a batch of stats to the journal
+     */
+    public synchronized void append(Collection<? extends NifiFeedProcessorStats> stats) throws IOException {
+        if (stats.isEmpty()) {
+            return;
+        }
+        if (journalStream == null) {
+            journalStream = new FileOutputStream(journalFile, true);
+        }
+        journalStream.write(toRecord(stats));
+        journalStream.flush();
+    }
+
+    /**
+     * Move the current journal aside before the buffered stats are flushed.  New stats are appended to a new journal
+     *
+     * @param saved checks if the rows with the given ids were saved by a flush that did not complete
+     */
+    public synchronized void rotate(Predicate<List<String>> saved) throws IOException {
+        close();
+        resolveFlushing(saved);
+        if (journalFile.exists()) {
+            if (flushingFile.exists()) {
+                //a previous flush did not complete.  keep both sets of stats in the flushing file
+                try (FileOutputStream out = new FileOutputStream(flushingFile, true)) {
+                    out.write(Files.readAllBytes(journalFile.toPath()));
+                }
+                delete(journalFile);
+            } else if (!journalFile.renameTo(flushingFile)) {
+                throw new IOException("Unable to rotate the stats journal " + journalFile);
+            }
+        }
+    }
+
+    /**
+     * Record the ids of the rows saved for the stats moved aside by {@link #rotate(Predicate)}.
+     * This should be called inside the save transaction, before it commits
+     *
+     * @param ids the ids of the saved rows
+     */
+    public synchronized void markFlushed(List<String> ids) throws IOException {
+        try (FileOutputStream file = new FileOutputStream(flushedIdsFile)) {
+            DataOutputStream out = new DataOutputStream(file);
+            out.writeInt(ids.size());
+            for (String id : ids) {
+                out.writeUTF(id);
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+    }
+
+    /**
+     * Remove the stats that were moved aside by {@link #rotate(Predicate)} once they have been saved
+     */
+    public synchronized void completeFlush() {
+        //the moved journal is removed first, so the marker is never missing while the saved stats are still on disk
+        delete(flushingFile);
+        delete(flushedIdsFile);
+    }
+
+    /**
+     * Keep the stats moved aside by {@link #rotate(Predicate)} after a save that failed, so they are flushed with the next batch
+     */
+    public synchronized void abortFlush() {
+        delete(flushedIdsFile);
+    }
+
+    public synchronized void close() {
+        if (journalStream != null) {
+            try {
+                journalStream.close();
+            } catch (IOException e) {
+                log.warn("Error closing the stats journal {} ", journalFile, e);
+            }
+            journalStream = null;
+        }
+    }
+
+    /**
+     * Drop the stats left from a flush that did not complete if its rows were saved
+     */
+    private void resolveFlushing(Predicate<List<String>> saved) throws IOException {
+        if (flushingFile.exists() && flushedIdsFile.exists()) {
+            List<String> ids = readIds();
+            if (!ids.isEmpty() && saved.test(ids)) {
+                log.info("The NiFi feed processor stats in {} were already saved.  They will not be saved again ", flushingFile);
+                delete(flushingFile);
+            }
+        }
+        delete(flushedIdsFile);
+    }
+
+    private List<String> readIds() {
+        List<String> ids = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(flushedIdsFile)))) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                ids.add(in.readUTF());
+            }
+        } catch (IOException e) {
+            //a partially written marker means the save did not commit
+            log.warn("Unable to read the flushed stats ids {} ", flushedIdsFile, e);
+            ids.clear();
+        }
+        return ids;
+    }
+
+    private void delete(File file) {
+        if (file.exists() && !file.delete()) {
+            log.warn("Unable to delete the stats journal file {} ", file);
+        }
+    }
+
+    private byte[] toRecord(Collection<? extends NifiFeedProcessorStats> stats) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(stats.size() * 256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(stats.size());
+        for (NifiFeedProcessorStats stat : stats) {
+            write(out, stat);
+        }
+        out.flush();
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteArrayOutputStream record = new ByteArrayOutputStream(payload.length + 12);
+        DataOutputStream recordOut = new DataOutputStream(record);
+        recordOut.writeInt(payload.length);
+        recordOut.writeLong(crc.getValue());
+        recordOut.write(payload);
+        recordOut.flush();
+        return record.toByteArray();
+    }
+
+    private List<JpaNifiFeedProcessorStats> read(File file) throws IOException {
+        List<JpaNifiFeedProcessorStats> stats = new ArrayList<>();
+        if (!file.exists()) {
+            return stats;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                byte[] payload;
+                long checksum;
+                try {
+                    int length = in.readInt();
+                    checksum = in.readLong();
+                    if (length < 0) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    break;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if (crc.getValue() != checksum) {
+                    log.warn("Ignoring a corrupt record at the end of the stats journal {} ", file);
+                    break;
+                }
+                DataInputStream recordIn = new DataInputStream(new ByteArrayInputStream(payload));
+                int count = recordIn.readInt();
+                for (int i = 0; i < count; i++) {
+                    stats.add(readStats(recordIn));
+                }
+            }
+        }
+        return stats;
+    }
+
+    private void write(DataOutputStream out, NifiFeedProcessorStats stats) throws IOException {
+        writeString(out, stats.getFeedName());
+        writeString(out, stats.getProcessorId());
+        writeString(out, stats.getProcessorName());
+        writeString(out, stats.getFeedProcessGroupId());
+        writeString(out, stats.getCollectionId());
+        writeString(out, stats.getLatestFlowFileId());
+        writeString(out, stats.getClusterNodeId());
+        writeString(out, stats.getClusterNodeAddress());
+        writeString(out, stats.getErrorMessages());
+        writeTime(out, stats.getErrorMessageTimestamp());
+        writeTime(out, stats.getCollectionTime());
+        writeTime(out, stats.getMinEventTime());
+        writeTime(out, stats.getMaxEventTime());
+        writeLong(out, stats.getCollectionIntervalSeconds());
+        writeLong(out, stats.getDuration());
+        writeLong(out, stats.getBytesIn());
+        writeLong(out, stats.getBytesOut());
+        writeLong(out, stats.getTotalCount());
+        writeLong(out, stats.getFailedCount());
+        writeLong(out, stats.getJobsStarted());
+        writeLong(out, stats.getJobsFinished());
+        writeLong(out, stats.getJobsFailed());
+        writeLong(out, stats.getJobDuration());
+        writeLong(out, stats.getSuccessfulJobDuration());
+        writeLong(out, stats.getProcessorsFailed());
+        writeLong(out, stats.getFlowFilesStarted());
+        writeLong(out, stats.getFlowFilesFinished());
+        writeLong(out, stats.getMaxEventId());
+    }
+
+    private JpaNifiFeedProcessorStats readStats(DataInputStream in) throws IOException {
+        JpaNifiFeedProcessorStats stats = new JpaNifiFeedProcessorStats();
+        stats.setFeedName(readString(in));
+        stats.setProcessorId(readString(in));
+        stats.setProcessorName(readString(in));
+        stats.setFeedProcessGroupId(readString(in));
+        stats.setCollectionId(readString(in));
+        stats.setLatestFlowFileId(readString(in));
+        stats.setClusterNodeId(readString(in));
+        stats.setClusterNodeAddress(readString(in));
+        stats.setErrorMessages(readString(in));
+        stats.setErrorMessageTimestamp(readTime(in));
+        stats.setCollectionTime(readTime(in));
+        DateTime minEventTime = readTime(in);
+        if (minEventTime != null) {
+            stats.setMinEventTime(minEventTime);
+        }
+        stats.setMaxEventTime(readTime(in));
+        stats.setCollectionIntervalSeconds(readLong(in));
+        stats.setDuration(readLong(in));
+        stats.setBytesIn(readLong(in));
+        stats.setBytesOut(readLong(in));
+        stats.setTotalCount(readLong(in));
+        stats.setFailedCount(readLong(in));
+        stats.setJobsStarted(readLong(in));
+        stats.setJobsFinished(readLong(in));
+        stats.setJobsFailed(readLong(in));
+        stats.setJobDuration(readLong(in));
+        stats.setSuccessfulJobDuration(readLong(in));
+        stats.setProcessorsFailed(readLong(in));
+        stats.setFlowFilesStarted(readLong(in));
+        stats.setFlowFilesFinished(readLong(in));
+        stats.setMaxEventId(readLong(in));
+        return stats;
+    }
+
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value.length() > 4000 ? value.substring(0, 4000) : value);
+        }
+    }
+
+    private String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeLong(value != null ? value : NO_VALUE);
+    }
+
+    private Long readLong(DataInputStream in) throws IOException {
+        long value = in.readLong();
+        return value != NO_VALUE ? value : null;
+    }
+
+    private void writeTime(DataOutputStream out, DateTime value) throws IOException {
+        out.writeLong(value != null ? value.getMillis() : NO_VALUE);
+    }
+
+    private DateTime readTime(DataInputStream in) throws IOException {
+        long value = in.readLong();
+        return value != NO_VALUE ? new DateTime(value) : null;
+    }
+}
@@ -77,6 +77,7 @@ import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
+import javax.jms.Message;
 
 /**
  */
@@ -99,6 +100,9 @@ public class NifiStatsJmsReceiver implements ClusterServiceMessageReceiver {
     @Inject
     private NifiBulletinExceptionExtractor nifiBulletinExceptionExtractor;
 
+    @Inject
+    private NifiFeedProcessorStatsBuffer statsBuffer;
+
     @Inject
     private BatchJobExecutionProvider batchJobExecutionProvider;
 
@@ -240,31 +244,41 @@ public class NifiStatsJmsReceiver implements ClusterServiceMessageReceiver {
                                                                                     && ((RetryAggregatedFeedProcessorStatisticsHolder) stats).shouldRetry());
     }
 
+    /**
+     * Receive the stats from NiFi, sent either as a serialized object or binary encoded
+     */
     @JmsListener(id = JMS_LISTENER_ID, destination = Queues.PROVENANCE_EVENT_STATS_QUEUE, containerFactory = JmsConstants.QUEUE_LISTENER_CONTAINER_FACTORY)
+    public void receiveMessage(Message message) {
+        receiveTopic(ProvenanceJmsMessageDecoder.decode(message, AggregatedFeedProcessorStatisticsHolder.class));
+    }
+
     public void receiveTopic(AggregatedFeedProcessorStatisticsHolder stats) {
         if (readyToProcess(stats)) {
 
             if (ensureValidRetryAttempt(stats)) {
                 final List<AggregatedFeedProcessorStatistics> unregisteredEvents = new ArrayList<>();
-                metadataAccess.commit(() -> {
-                    List<NifiFeedProcessorStats> summaryStats = createSummaryStats(stats, unregisteredEvents);
-
-                    List<JpaNifiFeedProcessorStats> failedStatsWithFlowFiles = new ArrayList<>();
-                    for (NifiFeedProcessorStats stat : summaryStats) {
-                        NifiFeedProcessorStats savedStats = nifiEventStatisticsProvider.create(stat);
-                        if (savedStats.getFailedCount() > 0L && savedStats.getLatestFlowFileId() != null) {
-                            //offload the query to nifi and merge back in
-                            failedStatsWithFlowFiles.add((JpaNifiFeedProcessorStats) savedStats);
+                if (statsBuffer != null && statsBuffer.isEnabled()) {
+                    bufferStats(stats, unregisteredEvents);
+                } else {
+                    metadataAccess.commit(() -> {
+                        List<NifiFeedProcessorStats> summaryStats = createSummaryStats(stats, unregisteredEvents);
+
+                        List<JpaNifiFeedProcessorStats> failedStatsWithFlowFiles = new ArrayList<>();
+                        for (NifiFeedProcessorStats savedStats : nifiEventStatisticsProvider.create(summaryStats)) {
+                            if (savedStats.getFailedCount() > 0L && savedStats.getLatestFlowFileId() != null) {
+                                //offload the query to nifi and merge back in
+                                failedStatsWithFlowFiles.add((JpaNifiFeedProcessorStats) savedStats);
+                            }
                         }
-                    }
-                    if (stats instanceof AggregatedFeedProcessorStatisticsHolderV2) {
-                        saveFeedStats((AggregatedFeedProcessorStatisticsHolderV2) stats, summaryStats);
-                    }
-                    if (!failedStatsWithFlowFiles.isEmpty()) {
-                        assignNiFiBulletinErrors(failedStatsWithFlowFiles);
-                    }
-                    return summaryStats;
-                }, MetadataAccess.SERVICE);
+                        if (stats instanceof AggregatedFeedProcessorStatisticsHolderV2) {
+                            saveFeedStats((AggregatedFeedProcessorStatisticsHolderV2) stats, summaryStats);
+                        }
+                        if (!failedStatsWithFlowFiles.isEmpty()) {
+                            assignNiFiBulletinErrors(failedStatsWithFlowFiles, true);
+                        }
+                        return summaryStats;
+                    }, MetadataAccess.SERVICE);
+                }
 
                 if (clusterService.isClustered() && !unregisteredEvents.isEmpty()) {
                     //reprocess with delay
@@ -285,7 +299,30 @@ public class NifiStatsJmsReceiver implements ClusterServiceMessageReceiver {
     }
 
 
-    private void assignNiFiBulletinErrors(List<JpaNifiFeedProcessorStats> stats) {
+    /**
+     * Merge the stats into the write behind buffer.  The feed stats are still saved right away as they track the latest activity and running flows for each feed.
+     * The stats are only buffered, and journaled, once the feed stats are committed so a failed transaction does not leave them in the journal
+     */
+    private void bufferStats(AggregatedFeedProcessorStatisticsHolder stats, List<AggregatedFeedProcessorStatistics> unregisteredEvents) {
+        List<NifiFeedProcessorStats> summaryStats = metadataAccess.commit(() -> {
+            List<NifiFeedProcessorStats> summary = createSummaryStats(stats, unregisteredEvents);
+            if (stats instanceof AggregatedFeedProcessorStatisticsHolderV2) {
+                saveFeedStats((AggregatedFeedProcessorStatisticsHolderV2) stats, summary);
+            }
+            return summary;
+        }, MetadataAccess.SERVICE);
+        List<JpaNifiFeedProcessorStats> failedStatsWithFlowFiles = summaryStats.stream()
+            .filter(stat -> stat.getFailedCount() > 0L && stat.getLatestFlowFileId() != null)
+            .map(stat -> (JpaNifiFeedProcessorStats) stat)
+            .collect(Collectors.toList());
+        if (!failedStatsWithFlowFiles.isEmpty()) {
+            //the errors are merged into the buffered rows so they dont need to be saved separately
+            assignNiFiBulletinErrors(failedStatsWithFlowFiles, false);
+        }
+        statsBuffer.add(summaryStats);
+    }
+
+    private void assignNiFiBulletinErrors(List<JpaNifiFeedProcessorStats> stats, boolean saveErrors) {
 
         //might need to query with the 'after' parameter
 
@@ -325,7 +362,7 @@ public class NifiStatsJmsReceiver implements ClusterServiceMessageReceiver {
 
             if (!statsToUpdate.isEmpty()) {
                 notifyClusterOfFeedProcessorErrors(statsToUpdate);
-                if (persistErrors) {
+                if (persistErrors && saveErrors) {
                     nifiEventStatisticsProvider.save(new ArrayList<>(statsToUpdate));
                 }
             }
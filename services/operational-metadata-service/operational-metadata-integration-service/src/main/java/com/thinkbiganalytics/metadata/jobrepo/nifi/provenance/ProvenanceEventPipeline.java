@@ -0,0 +1,300 @@
+package com.thinkbiganalytics.metadata.jobrepo.nifi.provenance;
+
+/*-
+ * #%L
+ * thinkbig-operational-metadata-integration-service
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Splits a batch of items into partitions by key and processes each partition on its own single threaded executor.
+ * Items with the same key always go to the same partition, so they are processed in the order they were submitted.
+ * Each partition has a bounded queue.  When it is full the submitting thread blocks until there is room, pushing back on the JMS listener.
+ *
+ * @param <T> the type of item processed
+ */
+public class ProvenanceEventPipeline<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(ProvenanceEventPipeline.class);
+
+    private final List<Partition> partitions;
+
+    private final Function<T, String> keyFunction;
+
+    private final Consumer<List<T>> processor;
+
+    /**
+     * @param name          the name used for the partition threads
+     * @param partitionSize the number of partitions
+     * @param queueSize     the number of batches each partition can hold before blocking the caller
+     * @param keyFunction   the key for each item.  Items with the same key are processed in order
+     * @param processor     processes the items for a partition
+     */
+    public ProvenanceEventPipeline(String name, int partitionSize, int queueSize, Function<T, String> keyFunction, Consumer<List<T>> processor) {
+        if (partitionSize < 1 || queueSize < 1) {
+            throw new IllegalArgumentException("The partition size and queue size must be greater than 0");
+        }
+        this.keyFunction = keyFunction;
+        this.processor = processor;
+        this.partitions = new ArrayList<>(partitionSize);
+        for (int i = 0; i < partitionSize; i++) {
+            partitions.add(new Partition(name, i, queueSize));
+        }
+    }
+
+    /**
+     * Split the items by partition and process them.
+     * Blocks until all the items have been processed so the caller (the JMS listener) only acknowledges the message once the events are saved.
+     *
+     * @param items the items to process
+     */
+    public void process(List<T> items) {
+        Map<Partition, List<T>> itemsByPartition = new LinkedHashMap<>();
+        for (T item : items) {
+            itemsByPartition.computeIfAbsent(partition(keyFunction.apply(item)), partition -> new ArrayList<>()).add(item);
+        }
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(itemsByPartition.size());
+        itemsByPartition.forEach((partition, partitionItems) -> futures.add(partition.submit(partitionItems)));
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()])).join();
+        } catch (Exception e) {
+            log.error("Error processing a batch of {} items in {} partitions ", items.size(), itemsByPartition.size(), e);
+        }
+    }
+
+    /**
+     * @return the current queue depth and lag for each partition
+     */
+    public List<PartitionStatus> getPartitionStatus() {
+        List<PartitionStatus> status = new ArrayList<>(partitions.size());
+        partitions.forEach(partition -> status.add(partition.status()));
+        return status;
+    }
+
+    /**
+     * Stop accepting new batches and wait for the queued batches to finish
+     *
+     * @param timeout the maximum time to wait
+     * @param unit    the unit of the timeout
+     */
+    public void shutdown(long timeout, TimeUnit unit) {
+        partitions.forEach(partition -> partition.executor.shutdown());
+        for (Partition partition : partitions) {
+            try {
+                if (!partition.executor.awaitTermination(timeout, unit)) {
+                    log.warn("Timed out waiting for {} queued batches in partition {} to finish", partition.executor.getQueue().size(), partition.index);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private Partition partition(String key) {
+        return partitions.get(Math.floorMod(key != null ? key.hashCode() : 0, partitions.size()));
+    }
+
+    /**
+     * A batch of items waiting in a partition queue
+     */
+    private class PartitionTask implements Runnable {
+
+        private final List<T> items;
+
+        private final long enqueuedTime = System.currentTimeMillis();
+
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private final Partition partition;
+
+        PartitionTask(Partition partition, List<T> items) {
+            this.partition = partition;
+            this.items = items;
+        }
+
+        @Override
+        public void run() {
+            partition.lastLagMillis = System.currentTimeMillis() - enqueuedTime;
+            Throwable error = null;
+            try {
+                processor.accept(items);
+            } catch (Throwable e) {
+                error = e;
+            }
+            //update the counts before releasing the caller so the status is current when process() returns
+            partition.processedBatches.incrementAndGet();
+            partition.processedItems.addAndGet(items.size());
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(null);
+            }
+        }
+    }
+
+    private class Partition {
+
+        private final int index;
+
+        private final ThreadPoolExecutor executor;
+
+        private final AtomicLong processedBatches = new AtomicLong();
+
+        private final AtomicLong processedItems = new AtomicLong();
+
+        private final AtomicLong blockedSubmits = new AtomicLong();
+
+        private volatile long lastLagMillis;
+
+        Partition(String name, int index, int queueSize) {
+            this.index = index;
+            this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(queueSize),
+                                                   new ThreadFactoryBuilder().setDaemon(true).setNameFormat(name + "-" + index).build(),
+                                                   (task, executor) -> {
+                                                       if (executor.isShutdown()) {
+                                                           throw new RejectedExecutionException("Partition " + index + " has been shut down");
+                                                       }
+                                                       //the queue is full.  block the caller until there is room
+                                                       blockedSubmits.incrementAndGet();
+                                                       try {
+                                                           executor.getQueue().put(task);
+                                                       } catch (InterruptedException e) {
+                                                           Thread.currentThread().interrupt();
+                                                           throw new RejectedExecutionException("Interrupted waiting for room in partition " + index, e);
+                                                       }
+                                                   });
+        }
+
+        CompletableFuture<Void> submit(List<T> items) {
+            PartitionTask task = new PartitionTask(this, items);
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.future.completeExceptionally(e);
+            }
+            return task.future;
+        }
+
+        @SuppressWarnings("unchecked")
+        PartitionStatus status() {
+            BlockingQueue<Runnable> queue = executor.getQueue();
+            PartitionTask oldest = (PartitionTask) queue.peek();
+            long lagMillis = oldest != null ? System.currentTimeMillis() - oldest.enqueuedTime : 0L;
+            return new PartitionStatus(index, queue.size(), executor.getActiveCount(), lagMillis, lastLagMillis, processedBatches.get(), processedItems.get(), blockedSubmits.get());
+        }
+    }
+
+    /**
+     * Queue depth and lag for a partition
+     */
+    public static class PartitionStatus {
+
+        private final int partition;
+        private final int queueDepth;
+        private final int activeCount;
+        private final long lagMillis;
+        private final long lastLagMillis;
+        private final long processedBatches;
+        private final long processedItems;
+        private final long blockedSubmits;
+
+        public PartitionStatus(int partition, int queueDepth, int activeCount, long lagMillis, long lastLagMillis, long processedBatches, long processedItems, long blockedSubmits) {
+            this.partition = partition;
+            this.queueDepth = queueDepth;
+            this.activeCount = activeCount;
+            this.lagMillis = lagMillis;
+            this.lastLagMillis = lastLagMillis;
+            this.processedBatches = processedBatches;
+            this.processedItems = processedItems;
+            this.blockedSubmits = blockedSubmits;
+        }
+
+        public int getPartition() {
+            return partition;
+        }
+
+        /**
+         * @return the number of batches waiting in the queue
+         */
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        /**
+         * @return 1 if the partition is processing a batch, 0 if it is idle
+         */
+        public int getActiveCount() {
+            return activeCount;
+        }
+
+        /**
+         * @return how long the oldest batch in the queue has been waiting
+         */
+        public long getLagMillis() {
+            return lagMillis;
+        }
+
+        /**
+         * @return how long the last batch processed waited in the queue
+         */
+        public long getLastLagMillis() {
+            return lastLagMillis;
+        }
+
+        public long getProcessedBatches() {
+            return processedBatches;
+        }
+
+        public long getProcessedItems() {
+            return processedItems;
+        }
+
+        /**
+         * @return the number of times the caller was blocked because the queue was full
+         */
+        public long getBlockedSubmits() {
+            return blockedSubmits;
+        }
+
+        @Override
+        public String toString() {
+            return "PartitionStatus{partition=" + partition + ", queueDepth=" + queueDepth + ", activeCount=" + activeCount + ", lagMillis=" + lagMillis + ", lastLagMillis=" + lastLagMillis
+                   + ", processedBatches=" + processedBatches + ", processedItems=" + processedItems + ", blockedSubmits=" + blockedSubmits + '}';
+        }
+    }
+}
@@ -48,12 +48,16 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jms.annotation.JmsListener;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
+import javax.jms.Message;
 
 /**
  * JMS Listener for NiFi Provenance Events.
@@ -122,6 +126,27 @@ public class ProvenanceEventReceiver implements FailedStepExecutionListener {
      */
     private int lockAcquisitionRetryAmount = 4;
 
+    /**
+     * Process the events for each batch in parallel, partitioned by job flow file.
+     * If disabled the events are processed in the JMS listener thread.
+     */
+    @Value("${kylo.ops.mgr.provenance.pipeline.enabled:true}")
+    private boolean pipelineEnabled = true;
+
+    /**
+     * The number of partitions (threads) events are split across
+     */
+    @Value("${kylo.ops.mgr.provenance.pipeline.partitions:4}")
+    private int pipelinePartitions = 4;
+
+    /**
+     * The number of batches each partition will queue before blocking the JMS listener
+     */
+    @Value("${kylo.ops.mgr.provenance.pipeline.queue.size:20}")
+    private int pipelineQueueSize = 20;
+
+    private ProvenanceEventPipeline<ProvenanceEventRecordDTO> pipeline;
+
     /**
      * default constructor
      */
@@ -134,7 +159,25 @@ public class ProvenanceEventReceiver implements FailedStepExecutionListener {
     private void init() {
         batchStepExecutionProvider.subscribeToFailedSteps(this);
         retryProvenanceEventWithDelay.setReceiver(this);
+        if (pipelineEnabled) {
+            pipeline = new ProvenanceEventPipeline<>("ProvenanceEventPipeline", pipelinePartitions, pipelineQueueSize,
+                                                     event -> event.getJobFlowFileId() != null ? event.getJobFlowFileId() : event.getFeedName(),
+                                                     this::processEvents);
+        }
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        if (pipeline != null) {
+            pipeline.shutdown(30, TimeUnit.SECONDS);
+        }
+    }
 
+    /**
+     * @return the queue depth and lag for each partition of the event pipeline, or an empty list if the pipeline is disabled
+     */
+    public List<ProvenanceEventPipeline.PartitionStatus> getPipelineStatus() {
+        return pipeline != null ? pipeline.getPartitionStatus() : new ArrayList<>();
     }
 
 
@@ -169,6 +212,16 @@ public class ProvenanceEventReceiver implements FailedStepExecutionListener {
         return !(events instanceof RetryProvenanceEventRecordHolder) || (events instanceof RetryProvenanceEventRecordHolder && ((RetryProvenanceEventRecordHolder) events).shouldRetry());
     }
 
+    /**
+     * Receive the Events from Nifi, sent either as a serialized object or binary encoded
+     *
+     * @param message The JMS message holding the events
+     */
+    @JmsListener(id = JMS_LISTENER_ID, destination = Queues.FEED_MANAGER_QUEUE, containerFactory = JmsConstants.QUEUE_LISTENER_CONTAINER_FACTORY, concurrency = "3-10")
+    public void receiveMessage(Message message) {
+        receiveEvents(ProvenanceJmsMessageDecoder.decode(message, ProvenanceEventRecordDTOHolder.class));
+    }
+
     /**
      * Process the Events from Nifi
      * If it is a batch job, write the records to Ops manager.
@@ -177,7 +230,6 @@ public class ProvenanceEventReceiver implements FailedStepExecutionListener {
      *
      * @param events The events obtained from JMS
      */
-    @JmsListener(id = JMS_LISTENER_ID, destination = Queues.FEED_MANAGER_QUEUE, containerFactory = JmsConstants.QUEUE_LISTENER_CONTAINER_FACTORY, concurrency = "3-10")
     public void receiveEvents(ProvenanceEventRecordDTOHolder events) {
         log.info("About to {} batch: {},  {} events from the {} queue ", (events instanceof RetryProvenanceEventRecordHolder) ? "RETRY" : "process", events.getBatchId(), events.getEvents().size(),
                  Queues.FEED_MANAGER_QUEUE);
@@ -185,15 +237,23 @@ public class ProvenanceEventReceiver implements FailedStepExecutionListener {
 
             if (ensureValidRetryAttempt(events)) {
                 List<ProvenanceEventRecordDTO> unregisteredEvents = new ArrayList<>();
+                List<ProvenanceEventRecordDTO> registeredEvents = new ArrayList<>();
 
                 events.getEvents().stream().map(event -> provenanceEventFeedUtil.enrichEventWithFeedInformation(event)).forEach(event -> {
 
                     if (provenanceEventFeedUtil.isRegisteredWithFeedManager(event)) {
-                        processEvent(event, 0);
+                        registeredEvents.add(event);
                     } else {
                         unregisteredEvents.add(event);
                     }
                 });
+                if (!registeredEvents.isEmpty()) {
+                    if (pipeline != null) {
+                        pipeline.process(registeredEvents);
+                    } else {
+                        processEvents(registeredEvents);
+                    }
+                }
 
                 if (clusterService.isClustered() && !unregisteredEvents.isEmpty()) {
                     //reprocess with delay
@@ -216,7 +276,71 @@ public class ProvenanceEventReceiver implements FailedStepExecutionListener {
     }
 
     /**
-     * process the event and persist it along with creating the Job and Step.  If there is a lock error it will retry until it hits the {@link #lockAcquisitionRetryAmount}
+     * Group the events by their job flow file and persist the Jobs and Steps for each job flow file in its own transaction.
+     * When the pipeline is enabled this is called from the partition thread with just the events for that partition.
+     *
+     * @param events the provenance events registered with Kylo
+     */
+    private void processEvents(List<ProvenanceEventRecordDTO> events) {
+        Map<String, List<ProvenanceEventRecordDTO>> eventsByJobFlowFile = events.stream()
+            .collect(Collectors.groupingBy(event -> event.getJobFlowFileId() != null ? event.getJobFlowFileId() : "", LinkedHashMap::new, Collectors.toList()));
+        log.debug("Process {} events for {} job flow files ", events.size(), eventsByJobFlowFile.size());
+        eventsByJobFlowFile.values().forEach(jobEvents -> processJobEvents(jobEvents, 0));
+    }
+
+    /**
+     * Persist the Jobs and Steps for the events of a job flow file in a single transaction, so an error only rolls back this job and not the rest of the batch.
+     * If there is a lock error the events are retried with a delay by the {@link RetryProvenanceEventWithDelay} until it hits the {@link #lockAcquisitionRetryAmount}, so the partition thread moves
+     * on to the next job.
+     * If the events still can't be saved each event of this job is processed on its own.
+     *
+     * @param jobEvents    the provenance events for a job flow file
+     * @param retryAttempt the retry number
+     */
+    private void processJobEvents(List<ProvenanceEventRecordDTO> jobEvents, int retryAttempt) {
+        List<BatchJobExecution> jobExecutions;
+        try {
+            jobExecutions = metadataAccess.commit(() -> batchJobExecutionProvider.save(jobEvents, event -> provenanceEventFeedUtil.getFeed(event)),
+                                                  MetadataAccess.SERVICE);
+        } catch (LockAcquisitionException lae) {
+            int nextRetryAttempt = retryAttempt + 1;
+            if (retryAttempt < lockAcquisitionRetryAmount && delayLockRetry(() -> processJobEvents(jobEvents, nextRetryAttempt))) {
+                log.error("LockAcquisitionException found trying to process {} events for job flow file {}.  Retry attempt # {} ", jobEvents.size(), jobEvents.get(0).getJobFlowFileId(),
+                          nextRetryAttempt, lae);
+            } else {
+                log.error("LockAcquisitionException found.  Unsuccessful after retrying {} times.  Processing the {} events for job flow file {} one at a time. ", retryAttempt, jobEvents.size(),
+                          jobEvents.get(0).getJobFlowFileId(), lae);
+                jobEvents.forEach(event -> processEvent(event, 0));
+            }
+            return;
+        } catch (Exception e) {
+            log.error("Error processing {} events for job flow file {}.  Processing the events one at a time. ", jobEvents.size(), jobEvents.get(0).getJobFlowFileId(), e);
+            jobEvents.forEach(event -> processEvent(event, 0));
+            return;
+        }
+
+        for (int i = 0; i < jobEvents.size(); i++) {
+            ProvenanceEventRecordDTO event = jobEvents.get(i);
+            BatchJobExecution jobExecution = jobExecutions.get(i);
+            if (jobExecution == null) {
+                continue;
+            }
+            try {
+                OpsManagerFeed feed = provenanceEventFeedUtil.getFeed(event);
+                if (feed != null) {
+                    batchJobExecutionProvider.updateFeedJobStartTime(jobExecution, feed);
+                }
+                if (event.isFinalJobEvent()) {
+                    notifyJobFinished(jobExecution, event);
+                }
+            } catch (Exception e) {
+                log.error("Error notifying the completion of Event {} ", event, e);
+            }
+        }
+    }
+
+    /**
+     * process the event and persist it along with creating the Job and Step.  If there is a lock error it will retry with a delay until it hits the {@link #lockAcquisitionRetryAmount}
      *
      * @param event        a provenance event
      * @param retryAttempt the retry number.  If there is a lock error it will retry until it hits the {@link #lockAcquisitionRetryAmount}
@@ -244,16 +368,10 @@ public class ProvenanceEventReceiver implements FailedStepExecutionListener {
         } catch (LockAcquisitionException lae) {
             //safeguard against LockAcquisitionException if MySQL has a problem locking the table during its processing of the Event.
 
-            if (retryAttempt < lockAcquisitionRetryAmount) {
-                retryAttempt++;
-                log.error("LockAcquisitionException found trying to process Event: {} .  Retry attempt # {} ", event, retryAttempt, lae);
-                //wait and re attempt
-                try {
-                    Thread.sleep(300L);
-                } catch (InterruptedException var10) {
-
-                }
-                processEvent(event, retryAttempt);
+            int nextRetryAttempt = retryAttempt + 1;
+            //wait and re attempt
+            if (retryAttempt < lockAcquisitionRetryAmount && delayLockRetry(() -> processEvent(event, nextRetryAttempt))) {
+                log.error("LockAcquisitionException found trying to process Event: {} .  Retry attempt # {} ", event, nextRetryAttempt, lae);
             } else {
                 log.error("LockAcquisitionException found.  Unsuccessful after retrying {} times.  This event {} will not be processed. ", retryAttempt, event, lae);
             }
@@ -264,6 +382,16 @@ public class ProvenanceEventReceiver implements FailedStepExecutionListener {
     }
 
 
+    /**
+     * Run the retry on the {@link RetryProvenanceEventWithDelay} thread after its wait time, so the partition thread is not blocked while the lock clears
+     *
+     * @param retry the retry to run
+     * @return true if the retry was scheduled, false if it can't be retried
+     */
+    private boolean delayLockRetry(Runnable retry) {
+        return retryProvenanceEventWithDelay != null && retryProvenanceEventWithDelay.delayLockRetry(retry);
+    }
+
     /**
      * Process this record and record the Job and steps
      *
@@ -0,0 +1,82 @@
+package com.thinkbiganalytics.metadata.jobrepo.nifi.provenance;
+
+/*-
+ * #%L
+ * thinkbig-operational-metadata-integration-service
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.nifi.provenance.model.codec.ProvenanceBinaryCodec;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.ObjectMessage;
+
+/**
+ * Reads the payload of the provenance JMS messages sent from NiFi.
+ * Older NiFi reporters send serialized object messages.  Newer ones may send binary messages encoded with the {@link ProvenanceBinaryCodec}, identified by the codec JMS headers.
+ */
+public class ProvenanceJmsMessageDecoder {
+
+    private static final ProvenanceBinaryCodec codec = new ProvenanceBinaryCodec();
+
+    private ProvenanceJmsMessageDecoder() {
+    }
+
+    /**
+     * Decode the message payload
+     *
+     * @param message the JMS message
+     * @param type    the expected payload type
+     * @return the payload
+     * @throws JmsProcessingException if the message cannot be decoded
+     */
+    public static <T> T decode(Message message, Class<T> type) {
+        Object payload;
+        try {
+            if (message instanceof ObjectMessage) {
+                payload = ((ObjectMessage) message).getObject();
+            } else if (message instanceof BytesMessage) {
+                payload = decodeBytes((BytesMessage) message);
+            } else {
+                throw new JmsProcessingException("Unsupported JMS message type " + (message != null ? message.getClass().getName() : null));
+            }
+        } catch (JMSException | IllegalArgumentException e) {
+            throw new JmsProcessingException("Unable to decode the JMS message", e);
+        }
+        if (!type.isInstance(payload)) {
+            throw new JmsProcessingException("Expected a " + type.getSimpleName() + " but received " + (payload != null ? payload.getClass().getName() : null));
+        }
+        return type.cast(payload);
+    }
+
+    private static Object decodeBytes(BytesMessage message) throws JMSException {
+        Object codecName = message.getObjectProperty(ProvenanceBinaryCodec.HEADER_CODEC);
+        Object version = message.getObjectProperty(ProvenanceBinaryCodec.HEADER_VERSION);
+        if (!ProvenanceBinaryCodec.isSupported(codecName, version)) {
+            throw new JmsProcessingException("Unsupported message codec " + codecName + " version " + version);
+        }
+        long length = message.getBodyLength();
+        if (length > Integer.MAX_VALUE) {
+            throw new JmsProcessingException("The JMS message of " + length + " bytes is too large");
+        }
+        byte[] bytes = new byte[(int) length];
+        message.readBytes(bytes);
+        return codec.decode(bytes);
+    }
+}
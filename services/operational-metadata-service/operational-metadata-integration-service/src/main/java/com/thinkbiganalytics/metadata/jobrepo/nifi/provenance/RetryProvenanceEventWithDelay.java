@@ -60,6 +60,7 @@ public class RetryProvenanceEventWithDelay {
 
     BlockingQueue<RetryProvenanceEventRecordHolder> queue = new LinkedBlockingQueue<>();
     BlockingQueue<RetryAggregatedFeedProcessorStatisticsHolder> statsQueue = new LinkedBlockingQueue<>();
+    BlockingQueue<Runnable> lockRetryQueue = new LinkedBlockingQueue<>();
 
     private ProvenanceEventReceiver receiver;
 
@@ -132,6 +133,17 @@ public class RetryProvenanceEventWithDelay {
         }
     }
 
+    /**
+     * Run a retry of events that could not be saved because of a database lock error after the wait time.
+     * This keeps the thread that received the events free to process the next batch instead of sleeping on the lock.
+     *
+     * @param retry the retry to run
+     * @return true if the retry was queued, false if retries are not running
+     */
+    public boolean delayLockRetry(Runnable retry) {
+        return executorService != null && !executorService.isShutdown() && lockRetryQueue.offer(retry);
+    }
+
     private void start() {
         ThreadFactory threadFactory = new ThreadFactoryBuilder().setDaemon(true)
             .setNameFormat("RetryProvenanceEvent-%d").build();
@@ -150,6 +162,7 @@ public class RetryProvenanceEventWithDelay {
     private void processQueues() {
         processEventQueue();
         processStatsQueue();
+        processLockRetryQueue();
     }
 
     private void processEventQueue() {
@@ -176,4 +189,16 @@ public class RetryProvenanceEventWithDelay {
         }
     }
 
+    private void processLockRetryQueue() {
+        List<Runnable> retries = new ArrayList<>();
+        lockRetryQueue.drainTo(retries);
+        for (Runnable retry : retries) {
+            try {
+                retry.run();
+            } catch (Exception e) {
+                log.error("Error Processing Retry of Locked Provenance Events", e);
+            }
+        }
+    }
+
 }
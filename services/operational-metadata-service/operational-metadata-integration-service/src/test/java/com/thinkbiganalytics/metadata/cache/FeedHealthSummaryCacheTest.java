@@ -0,0 +1,155 @@
+package com.thinkbiganalytics.metadata.cache;
+
+/*-
+ * #%L
+ * thinkbig-operational-metadata-integration-service
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.metadata.api.MetadataAccess;
+import com.thinkbiganalytics.metadata.api.MetadataCommand;
+import com.thinkbiganalytics.metadata.api.event.MetadataEventListener;
+import com.thinkbiganalytics.metadata.api.event.MetadataEventService;
+import com.thinkbiganalytics.metadata.api.event.feed.FeedOperationStatusEvent;
+import com.thinkbiganalytics.metadata.api.event.feed.OperationStatus;
+import com.thinkbiganalytics.metadata.api.feed.FeedSummary;
+import com.thinkbiganalytics.metadata.api.feed.OpsManagerFeed;
+import com.thinkbiganalytics.metadata.api.feed.OpsManagerFeedProvider;
+import com.thinkbiganalytics.metadata.api.jobrepo.job.BatchJobExecution;
+import com.thinkbiganalytics.metadata.api.op.FeedOperation;
+import com.thinkbiganalytics.metadata.jpa.feed.JpaFeedSummary;
+import com.thinkbiganalytics.metadata.jpa.feed.security.FeedAclCache;
+import com.thinkbiganalytics.rest.model.search.SearchResult;
+
+import org.joda.time.DateTime;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+public class FeedHealthSummaryCacheTest {
+
+    private static final DateTime NOW = new DateTime(2017, 10, 1, 12, 0, 0);
+
+    private FeedHealthSummaryCache cache;
+
+    private OpsManagerFeedProvider feedProvider;
+
+    private List<MetadataEventListener> listeners;
+
+    private List<FeedSummary> summaries;
+
+    @Before
+    public void setup() {
+        summaries = new ArrayList<>();
+        for (String name : new String[]{"cat.d", "cat.b", "cat.e", "cat.a", "cat.c"}) {
+            summaries.add(summary(UUID.randomUUID(), name, BatchJobExecution.JobStatus.COMPLETED, 0L));
+        }
+
+        feedProvider = Mockito.mock(OpsManagerFeedProvider.class);
+        Mockito.when(feedProvider.findFeedSummary()).thenAnswer(invocation -> new ArrayList<>(summaries));
+        Mockito.when(feedProvider.findAllWithoutAcl()).thenReturn(Collections.emptyList());
+
+        MetadataAccess metadataAccess = Mockito.mock(MetadataAccess.class);
+        Mockito.when(metadataAccess.read(Matchers.any(MetadataCommand.class), Matchers.<Principal>anyVararg()))
+            .thenAnswer(invocation -> ((MetadataCommand<?>) invocation.getArguments()[0]).execute());
+
+        FeedAclCache feedAclCache = Mockito.mock(FeedAclCache.class);
+        Mockito.when(feedAclCache.hasAccess(Matchers.any(), Matchers.anyString())).thenReturn(true);
+
+        MetadataEventService eventService = Mockito.mock(MetadataEventService.class);
+        ArgumentCaptor<MetadataEventListener> listenerCaptor = ArgumentCaptor.forClass(MetadataEventListener.class);
+
+        cache = new FeedHealthSummaryCache();
+        ReflectionTestUtils.setField(cache, "opsManagerFeedProvider", feedProvider);
+        ReflectionTestUtils.setField(cache, "metadataAccess", metadataAccess);
+        ReflectionTestUtils.setField(cache, "feedAclCache", feedAclCache);
+        ReflectionTestUtils.setField(cache, "metadataEventService", eventService);
+        ReflectionTestUtils.invokeMethod(cache, "init");
+        Mockito.verify(eventService, Mockito.times(2)).addListener(listenerCaptor.capture());
+        listeners = listenerCaptor.getAllValues();
+    }
+
+    private JpaFeedSummary summary(UUID feedId, String feedName, BatchJobExecution.JobStatus status, Long failedCount) {
+        JpaFeedSummary summary = new JpaFeedSummary();
+        summary.setFeedId(feedId);
+        summary.setFeedName(feedName);
+        summary.setStatus(status);
+        summary.setRunStatus(FeedSummary.RunStatus.FINISHED);
+        summary.setStartTime(NOW.minusMinutes(10));
+        summary.setEndTime(NOW.minusMinutes(5));
+        summary.setFailedCount(failedCount);
+        summary.setCompletedCount(1L);
+        summary.setAllCount(1L + failedCount);
+        summary.setRunningCount(0L);
+        return summary;
+    }
+
+    private List<String> page(long time, String sort, int start, int limit) {
+        FeedHealthSummaryCache.FeedSummaryFilter filter = new FeedHealthSummaryCache.FeedSummaryFilter(null, null, null, limit, start, sort);
+        SearchResult<com.thinkbiganalytics.jobrepo.query.model.FeedSummary> result = cache.getUserFeedHealth(time, filter, null);
+        Assert.assertEquals(Long.valueOf(summaries.size()), result.getRecordsTotal());
+        return result.getData().stream().map(com.thinkbiganalytics.jobrepo.query.model.FeedSummary::getFeed).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testPagingUsesSortedSummaries() {
+        Assert.assertEquals(java.util.Arrays.asList("cat.b", "cat.c"), page(1L, "feed", 1, 2));
+        Assert.assertEquals(java.util.Arrays.asList("cat.e", "cat.d"), page(1L, "-feed", 0, 2));
+        Assert.assertEquals(java.util.Arrays.asList("cat.e"), page(1L, null, 4, 10));
+        Mockito.verify(feedProvider, Mockito.times(1)).findFeedSummary();
+    }
+
+    @Test
+    public void testEventReloadsOnlyTheChangedFeed() {
+        Assert.assertEquals(Long.valueOf(5L), cache.getUserFeedHealthCounts(1L, null).get("HEALTHY"));
+
+        FeedSummary previous = summaries.get(4);
+        OpsManagerFeed feed = Mockito.mock(OpsManagerFeed.class);
+        OpsManagerFeed.ID feedId = Mockito.mock(OpsManagerFeed.ID.class);
+        Mockito.when(feedId.toString()).thenReturn(previous.getFeedIdAsString());
+        Mockito.when(feed.getId()).thenReturn(feedId);
+        Mockito.when(feed.getName()).thenReturn("cat.c");
+        Mockito.when(feedProvider.findByNameWithoutAcl("cat.c")).thenReturn(feed);
+        JpaFeedSummary failed = summary(previous.getFeedId(), "cat.c", BatchJobExecution.JobStatus.FAILED, 1L);
+        Mockito.when(feedProvider.findFeedSummary(feedId)).thenAnswer(invocation -> Collections.singletonList(failed));
+
+        FeedOperationStatusEvent event = new FeedOperationStatusEvent(new OperationStatus(null, "cat.c", FeedOperation.FeedType.FEED, null, FeedOperation.State.FAILURE, "failed"));
+        listeners.stream().filter(listener -> !listener.getClass().getSimpleName().contains("FeedChange")).forEach(listener -> listener.notify(event));
+
+        Map<String, Long> counts = cache.getUserFeedHealthCounts(2L, null);
+        Assert.assertEquals(Long.valueOf(4L), counts.get("HEALTHY"));
+        Assert.assertEquals(Long.valueOf(1L), counts.get("UNHEALTHY"));
+        //FAILED sorts after COMPLETED by health
+        Assert.assertEquals(java.util.Arrays.asList("cat.c"), page(2L, "-health", 0, 1));
+        Assert.assertEquals(5, cache.getFeedSummaryList(2L).size());
+
+        Mockito.verify(feedProvider, Mockito.times(1)).findFeedSummary();
+        Mockito.verify(feedProvider, Mockito.times(1)).findFeedSummary(feedId);
+    }
+}
@@ -0,0 +1,227 @@
+package com.thinkbiganalytics.metadata.jobrepo.nifi.provenance;
+
+/*-
+ * #%L
+ * thinkbig-operational-metadata-integration-service
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.metadata.api.MetadataAccess;
+import com.thinkbiganalytics.metadata.api.MetadataCommand;
+import com.thinkbiganalytics.metadata.api.jobrepo.nifi.NifiFeedProcessorStatisticsProvider;
+import com.thinkbiganalytics.metadata.api.jobrepo.nifi.NifiFeedProcessorStats;
+import com.thinkbiganalytics.metadata.jpa.jobrepo.nifi.JpaNifiFeedProcessorStats;
+
+import org.joda.time.DateTime;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+public class NifiFeedProcessorStatsBufferTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final DateTime MINUTE = new DateTime(2017, 6, 1, 10, 15, 0);
+
+    private NifiFeedProcessorStats stats(String processorId, DateTime minEventTime, long totalCount, long maxEventId) {
+        JpaNifiFeedProcessorStats stats = new JpaNifiFeedProcessorStats("category.feed", processorId);
+        stats.setProcessorName("Processor " + processorId);
+        stats.setCollectionId("collection-" + maxEventId);
+        stats.setMinEventTime(minEventTime);
+        stats.setMaxEventTime(minEventTime.plusSeconds(2));
+        stats.setCollectionTime(minEventTime.plusSeconds(3));
+        stats.setCollectionIntervalSeconds(3L);
+        stats.setTotalCount(totalCount);
+        stats.setBytesIn(100L);
+        stats.setJobsStarted(1L);
+        stats.setFailedCount(0L);
+        stats.setMaxEventId(maxEventId);
+        stats.setLatestFlowFileId("flowfile-" + maxEventId);
+        return stats;
+    }
+
+    private JpaNifiFeedProcessorStats find(List<JpaNifiFeedProcessorStats> rows, String processorId, DateTime minute) {
+        return rows.stream().filter(row -> row.getProcessorId().equals(processorId) && row.getMinEventTime().getMillis() / 60000 == minute.getMillis() / 60000).findFirst().orElse(null);
+    }
+
+    @Test
+    public void testMergeByFeedProcessorAndMinute() {
+        NifiFeedProcessorStatsBuffer buffer = new NifiFeedProcessorStatsBuffer(null);
+        buffer.add(Arrays.asList(stats("p1", MINUTE.plusSeconds(10), 5, 10), stats("p1", MINUTE, 3, 12), stats("p2", MINUTE, 1, 11)));
+        buffer.add(Arrays.asList(stats("p1", MINUTE.plusSeconds(50), 2, 9), stats("p1", MINUTE.plusMinutes(1), 4, 20)));
+        Assert.assertEquals(3, buffer.size());
+
+        List<JpaNifiFeedProcessorStats> rows = flush(buffer);
+        JpaNifiFeedProcessorStats row = find(rows, "p1", MINUTE);
+        Assert.assertEquals(Long.valueOf(10L), row.getTotalCount());
+        Assert.assertEquals(Long.valueOf(300L), row.getBytesIn());
+        Assert.assertEquals(Long.valueOf(3L), row.getJobsStarted());
+        Assert.assertEquals(Long.valueOf(9L), row.getCollectionIntervalSeconds());
+        Assert.assertEquals(MINUTE, row.getMinEventTime());
+        Assert.assertEquals(MINUTE.plusSeconds(52), row.getMaxEventTime());
+        Assert.assertEquals(Long.valueOf(12L), row.getMaxEventId());
+        Assert.assertEquals("flowfile-12", row.getLatestFlowFileId());
+        Assert.assertNotNull(row.getCollectionId());
+
+        Assert.assertEquals(Long.valueOf(4L), find(rows, "p1", MINUTE.plusMinutes(1)).getTotalCount());
+        Assert.assertEquals(Long.valueOf(1L), find(rows, "p2", MINUTE).getTotalCount());
+        Assert.assertEquals(0, buffer.size());
+    }
+
+    @Test
+    public void testRecoverFromJournal() throws Exception {
+        File directory = folder.newFolder("journal");
+        NifiFeedProcessorStatsBuffer buffer = new NifiFeedProcessorStatsBuffer(new NifiFeedProcessorStatsJournal(directory));
+        buffer.recover();
+        buffer.add(Arrays.asList(stats("p1", MINUTE, 5, 10), stats("p2", MINUTE, 1, 11)));
+        buffer.add(Arrays.asList(stats("p1", MINUTE.plusSeconds(5), 2, 12)));
+
+        //a new buffer, as if Kylo was restarted before the stats were flushed
+        NifiFeedProcessorStatsBuffer recovered = new NifiFeedProcessorStatsBuffer(new NifiFeedProcessorStatsJournal(directory));
+        recovered.recover();
+        Assert.assertEquals(2, recovered.size());
+        List<JpaNifiFeedProcessorStats> rows = flush(recovered);
+        Assert.assertEquals(Long.valueOf(7L), find(rows, "p1", MINUTE).getTotalCount());
+        Assert.assertEquals("flowfile-12", find(rows, "p1", MINUTE).getLatestFlowFileId());
+
+        //once flushed nothing is left to recover
+        NifiFeedProcessorStatsBuffer afterFlush = new NifiFeedProcessorStatsBuffer(new NifiFeedProcessorStatsJournal(directory));
+        afterFlush.recover();
+        Assert.assertEquals(0, afterFlush.size());
+    }
+
+    @Test
+    public void testFailedFlushIsRetried() throws Exception {
+        File directory = folder.newFolder("journal");
+        NifiFeedProcessorStatsBuffer buffer = new NifiFeedProcessorStatsBuffer(new NifiFeedProcessorStatsJournal(directory));
+        buffer.recover();
+        buffer.add(Arrays.asList(stats("p1", MINUTE, 5, 10)));
+
+        NifiFeedProcessorStatisticsProvider provider = Mockito.mock(NifiFeedProcessorStatisticsProvider.class);
+        Mockito.when(provider.create(Matchers.anyList())).thenThrow(new RuntimeException("database is down"));
+        ReflectionTestUtils.setField(buffer, "nifiEventStatisticsProvider", provider);
+        ReflectionTestUtils.setField(buffer, "metadataAccess", metadataAccess());
+        Assert.assertEquals(0, buffer.flush());
+        Assert.assertEquals(1, buffer.size());
+
+        //the stats are still journaled
+        NifiFeedProcessorStatsBuffer recovered = new NifiFeedProcessorStatsBuffer(new NifiFeedProcessorStatsJournal(directory));
+        recovered.recover();
+        Assert.assertEquals(Long.valueOf(5L), flush(recovered).get(0).getTotalCount());
+    }
+
+    @Test
+    public void testRecoverAfterSavedFlushIsNotSavedAgain() throws Exception {
+        File directory = folder.newFolder("journal");
+        //stop before the moved journal is deleted, as if Kylo stopped right after the save committed
+        NifiFeedProcessorStatsBuffer buffer = new NifiFeedProcessorStatsBuffer(new IncompleteFlushJournal(directory));
+        buffer.recover();
+        buffer.add(Arrays.asList(stats("p1", MINUTE, 5, 10), stats("p2", MINUTE, 1, 11)));
+        List<JpaNifiFeedProcessorStats> saved = flush(buffer);
+        Assert.assertEquals(2, saved.size());
+        buffer.add(Arrays.asList(stats("p1", MINUTE.plusMinutes(1), 3, 12)));
+
+        //the rows were saved so only the stats added after the flush are recovered
+        NifiFeedProcessorStatsBuffer recovered = new NifiFeedProcessorStatsBuffer(new NifiFeedProcessorStatsJournal(directory));
+        NifiFeedProcessorStatisticsProvider provider = Mockito.mock(NifiFeedProcessorStatisticsProvider.class);
+        Mockito.when(provider.exists(saved.get(0).getId())).thenReturn(true);
+        ReflectionTestUtils.setField(recovered, "nifiEventStatisticsProvider", provider);
+        ReflectionTestUtils.setField(recovered, "metadataAccess", metadataAccess());
+        recovered.recover();
+        Assert.assertEquals(1, recovered.size());
+        Assert.assertEquals(Long.valueOf(3L), flush(recovered).get(0).getTotalCount());
+    }
+
+    @Test
+    public void testRecoverAfterRolledBackFlush() throws Exception {
+        File directory = folder.newFolder("journal");
+        NifiFeedProcessorStatsBuffer buffer = new NifiFeedProcessorStatsBuffer(new IncompleteFlushJournal(directory));
+        buffer.recover();
+        buffer.add(Arrays.asList(stats("p1", MINUTE, 5, 10)));
+        flush(buffer);
+
+        //the ids were marked but the transaction did not commit, so the stats are recovered
+        NifiFeedProcessorStatsBuffer recovered = new NifiFeedProcessorStatsBuffer(new NifiFeedProcessorStatsJournal(directory));
+        NifiFeedProcessorStatisticsProvider provider = Mockito.mock(NifiFeedProcessorStatisticsProvider.class);
+        Mockito.when(provider.exists(Matchers.anyString())).thenReturn(false);
+        ReflectionTestUtils.setField(recovered, "nifiEventStatisticsProvider", provider);
+        ReflectionTestUtils.setField(recovered, "metadataAccess", metadataAccess());
+        recovered.recover();
+        Assert.assertEquals(1, recovered.size());
+        Assert.assertEquals(Long.valueOf(5L), flush(recovered).get(0).getTotalCount());
+    }
+
+    /**
+     * Flush the buffer, capturing the rows that would be saved
+     */
+    @SuppressWarnings("unchecked")
+    private List<JpaNifiFeedProcessorStats> flush(NifiFeedProcessorStatsBuffer buffer) {
+        List<JpaNifiFeedProcessorStats> saved = new ArrayList<>();
+        NifiFeedProcessorStatisticsProvider provider = Mockito.mock(NifiFeedProcessorStatisticsProvider.class);
+        Mockito.when(provider.create(Matchers.anyList())).thenAnswer(invocation -> {
+            List<JpaNifiFeedProcessorStats> rows = (List<JpaNifiFeedProcessorStats>) invocation.getArguments()[0];
+            //the buffered rows are always new.  assign ids the way the save would
+            rows.forEach(row -> {
+                Assert.assertNull(row.getId());
+                row.setId(UUID.randomUUID().toString());
+            });
+            saved.addAll(rows);
+            return saved;
+        });
+        ReflectionTestUtils.setField(buffer, "nifiEventStatisticsProvider", provider);
+        ReflectionTestUtils.setField(buffer, "metadataAccess", metadataAccess());
+        int count = buffer.flush();
+        Assert.assertEquals(saved.size(), count);
+        return saved;
+    }
+
+    private MetadataAccess metadataAccess() {
+        MetadataAccess metadataAccess = Mockito.mock(MetadataAccess.class);
+        Mockito.when(metadataAccess.commit(Matchers.any(MetadataCommand.class), Matchers.<Principal>anyVararg()))
+            .thenAnswer(invocation -> ((MetadataCommand<?>) invocation.getArguments()[0]).execute());
+        Mockito.when(metadataAccess.read(Matchers.any(MetadataCommand.class), Matchers.<Principal>anyVararg()))
+            .thenAnswer(invocation -> ((MetadataCommand<?>) invocation.getArguments()[0]).execute());
+        return metadataAccess;
+    }
+
+    /**
+     * A journal that never removes the moved journal after a flush
+     */
+    private static class IncompleteFlushJournal extends NifiFeedProcessorStatsJournal {
+
+        private IncompleteFlushJournal(File directory) {
+            super(directory);
+        }
+
+        @Override
+        public synchronized void completeFlush() {
+
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.thinkbiganalytics.metadata.jobrepo.nifi.provenance;
+
+/*-
+ * #%L
+ * thinkbig-operational-metadata-integration-service
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class ProvenanceEventPipelineTest {
+
+    private ProvenanceEventPipeline<String[]> pipeline;
+
+    @After
+    public void shutdown() {
+        if (pipeline != null) {
+            pipeline.shutdown(5, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * items are {key, sequence}
+     */
+    private List<String[]> items(int keys, int itemsPerKey) {
+        List<String[]> items = new ArrayList<>();
+        for (int i = 0; i < itemsPerKey; i++) {
+            for (int key = 0; key < keys; key++) {
+                items.add(new String[]{"job-" + key, Integer.toString(i)});
+            }
+        }
+        return items;
+    }
+
+    @Test
+    public void testOrderWithinKey() {
+        Map<String, List<Integer>> processed = new ConcurrentHashMap<>();
+        Map<String, String> threads = new ConcurrentHashMap<>();
+        pipeline = new ProvenanceEventPipeline<>("test", 4, 10, item -> item[0], batch -> batch.forEach(item -> {
+            processed.computeIfAbsent(item[0], key -> Collections.synchronizedList(new ArrayList<>())).add(Integer.parseInt(item[1]));
+            String thread = threads.putIfAbsent(item[0], Thread.currentThread().getName());
+            Assert.assertTrue(thread == null || thread.equals(Thread.currentThread().getName()));
+        }));
+
+        pipeline.process(items(20, 10));
+        pipeline.process(items(20, 5));
+
+        Assert.assertEquals(20, processed.size());
+        for (List<Integer> sequence : processed.values()) {
+            Assert.assertEquals(15, sequence.size());
+            for (int i = 1; i < 10; i++) {
+                Assert.assertTrue(sequence.get(i) > sequence.get(i - 1));
+            }
+        }
+        long processedItems = pipeline.getPartitionStatus().stream().mapToLong(ProvenanceEventPipeline.PartitionStatus::getProcessedItems).sum();
+        Assert.assertEquals(300L, processedItems);
+    }
+
+    @Test
+    public void testSlowPartitionDoesNotBlockOthers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> processed = Collections.synchronizedList(new ArrayList<>());
+        pipeline = new ProvenanceEventPipeline<>("test", 2, 10, item -> item[0], batch -> {
+            if ("slow".equals(batch.get(0)[1])) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            batch.forEach(item -> processed.add(item[1]));
+        });
+
+        //"a" and "b" hash to different partitions
+        Assert.assertNotEquals(Math.floorMod("a".hashCode(), 2), Math.floorMod("b".hashCode(), 2));
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> slow = caller.submit(() -> pipeline.process(Collections.singletonList(new String[]{"a", "slow"})));
+            pipeline.process(Collections.singletonList(new String[]{"b", "fast"}));
+            Assert.assertEquals(Collections.singletonList("fast"), processed);
+            Assert.assertFalse(slow.isDone());
+
+            release.countDown();
+            slow.get(5, TimeUnit.SECONDS);
+            Assert.assertEquals(2, processed.size());
+        } finally {
+            caller.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        pipeline = new ProvenanceEventPipeline<>("test", 1, 1, item -> item[0], batch -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        ExecutorService callers = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                String key = "job-" + i;
+                futures.add(callers.submit(() -> pipeline.process(Collections.singletonList(new String[]{key, "0"}))));
+            }
+            //one batch is running, one is queued and the third caller is blocked waiting for room
+            long deadline = System.currentTimeMillis() + 5000;
+            ProvenanceEventPipeline.PartitionStatus status = pipeline.getPartitionStatus().get(0);
+            while (status.getBlockedSubmits() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+                status = pipeline.getPartitionStatus().get(0);
+            }
+            Assert.assertEquals(1L, status.getBlockedSubmits());
+            Assert.assertEquals(1, status.getQueueDepth());
+            try {
+                futures.get(0).get(50, TimeUnit.MILLISECONDS);
+                Assert.fail("Expected the caller to wait for its batch");
+            } catch (TimeoutException e) {
+                //expected
+            }
+
+            release.countDown();
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+            status = pipeline.getPartitionStatus().get(0);
+            Assert.assertEquals(0, status.getQueueDepth());
+            Assert.assertEquals(3L, status.getProcessedBatches());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+}
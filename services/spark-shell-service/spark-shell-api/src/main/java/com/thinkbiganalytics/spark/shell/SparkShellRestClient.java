@@ -75,6 +75,34 @@ public interface SparkShellRestClient {
     @Nonnull
     Optional<TransformResponse> getQueryResult(@Nonnull SparkShellProcess process, @Nonnull String id);
 
+    /**
+     * Fetches a page of rows from the result of a query on the specified Spark Shell process.
+     *
+     * <p>The response entity is the JSON-encoded rows and has not been read so that it may be streamed to the caller.</p>
+     *
+     * @param process the Spark Shell process
+     * @param id      the query identifier
+     * @param start   the index of the first row
+     * @param limit   the maximum number of rows
+     * @return the rows, if the query exists
+     */
+    @Nonnull
+    Optional<Response> getQueryRows(@Nonnull SparkShellProcess process, @Nonnull String id, int start, int limit);
+
+    /**
+     * Fetches a page of rows from the result of a transformation on the specified Spark Shell process.
+     *
+     * <p>The response entity is the JSON-encoded rows and has not been read so that it may be streamed to the caller.</p>
+     *
+     * @param process the Spark Shell process
+     * @param table   the destination table name
+     * @param start   the index of the first row
+     * @param limit   the maximum number of rows
+     * @return the rows, if the table exists
+     */
+    @Nonnull
+    Optional<Response> getTransformRows(@Nonnull SparkShellProcess process, @Nonnull String table, int start, int limit);
+
     /**
      * Fetches the status of a transformation running on the specified Spark Shell process.
      *
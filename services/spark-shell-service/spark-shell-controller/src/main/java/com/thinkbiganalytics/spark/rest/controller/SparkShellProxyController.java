@@ -31,6 +31,7 @@ import com.thinkbiganalytics.spark.rest.model.JdbcDatasource;
 import com.thinkbiganalytics.spark.rest.model.RegistrationRequest;
 import com.thinkbiganalytics.spark.rest.model.SaveRequest;
 import com.thinkbiganalytics.spark.rest.model.SaveResponse;
+import com.thinkbiganalytics.spark.rest.model.TransformQueryResult;
 import com.thinkbiganalytics.spark.rest.model.TransformRequest;
 import com.thinkbiganalytics.spark.rest.model.TransformResponse;
 import com.thinkbiganalytics.spark.shell.SparkShellProcess;
@@ -60,11 +61,13 @@ import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.ws.rs.BadRequestException;
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
@@ -219,6 +222,30 @@ public class SparkShellProxyController {
         return getResultResponse(() -> restClient.getQueryResult(process, id));
     }
 
+    /**
+     * Requests a page of rows from the result of a query.
+     *
+     * @param id    the destination table name
+     * @param start the index of the first row
+     * @param limit the maximum number of rows
+     * @return the rows
+     */
+    @GET
+    @Path("/query/{table}/rows")
+    @Produces(MediaType.APPLICATION_JSON)
+    @ApiOperation("Fetches a page of rows from the result of a query.")
+    @ApiResponses({
+                      @ApiResponse(code = 200, message = "Returns the rows.", response = TransformQueryResult.class),
+                      @ApiResponse(code = 404, message = "The query does not exist or was not requested with a page size.", response = RestResponseStatus.class),
+                      @ApiResponse(code = 500, message = "There was a problem accessing the data.", response = RestResponseStatus.class)
+                  })
+    @Nonnull
+    public Response getQueryRows(@Nonnull @PathParam("table") final String id, @QueryParam("start") @DefaultValue("0") final int start,
+                                 @QueryParam("limit") @DefaultValue("1000") final int limit) {
+        final SparkShellProcess process = getSparkShellProcess();
+        return getRowsResponse(() -> restClient.getQueryRows(process, id, start, limit));
+    }
+
     /**
      * Requests the status of a save.
      *
@@ -263,6 +290,30 @@ public class SparkShellProxyController {
         return getResultResponse(() -> restClient.getTransformResult(process, id));
     }
 
+    /**
+     * Requests a page of rows from the result of a transformation.
+     *
+     * @param id    the destination table name
+     * @param start the index of the first row
+     * @param limit the maximum number of rows
+     * @return the rows
+     */
+    @GET
+    @Path("/transform/{table}/rows")
+    @Produces(MediaType.APPLICATION_JSON)
+    @ApiOperation("Fetches a page of rows from the result of a transformation.")
+    @ApiResponses({
+                      @ApiResponse(code = 200, message = "Returns the rows.", response = TransformQueryResult.class),
+                      @ApiResponse(code = 404, message = "The transformation does not exist or was not requested with a page size.", response = RestResponseStatus.class),
+                      @ApiResponse(code = 500, message = "There was a problem accessing the data.", response = RestResponseStatus.class)
+                  })
+    @Nonnull
+    public Response getTransformRows(@Nonnull @PathParam("table") final String id, @QueryParam("start") @DefaultValue("0") final int start,
+                                     @QueryParam("limit") @DefaultValue("1000") final int limit) {
+        final SparkShellProcess process = getSparkShellProcess();
+        return getRowsResponse(() -> restClient.getTransformRows(process, id, start, limit));
+    }
+
     /**
      * Requests the status of a save.
      *
@@ -611,6 +662,25 @@ public class SparkShellProxyController {
         }
     }
 
+    /**
+     * Gets the rows response from the specified supplier.
+     *
+     * <p>The response from the Spark Shell process is returned without being read so that the rows are streamed to the caller.</p>
+     */
+    @Nonnull
+    private Response getRowsResponse(@Nonnull final Supplier<Optional<Response>> supplier) {
+        // Get the rows
+        final Optional<Response> response;
+        try {
+            response = supplier.get();
+        } catch (final Exception e) {
+            throw transformError(Response.Status.INTERNAL_SERVER_ERROR, SparkShellProxyResources.TRANSFORM_ERROR, e);
+        }
+
+        // Return response
+        return response.orElseThrow(() -> transformError(Response.Status.NOT_FOUND, SparkShellProxyResources.ROWS_NOT_FOUND, null));
+    }
+
     /**
      * Gets the save response from the specified supplier.
      */
@@ -35,6 +35,11 @@ class SparkShellProxyResources {
      */
     static final String DOWNLOAD_NOT_FOUND = "download.notFound";
 
+    /**
+     * The requested rows could not be found.
+     */
+    static final String ROWS_NOT_FOUND = "getRows.notFound";
+
     /**
      * An error occurred while attempting to save the results.
      */
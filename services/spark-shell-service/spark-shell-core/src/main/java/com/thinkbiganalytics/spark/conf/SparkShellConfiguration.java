@@ -95,7 +95,7 @@ public class SparkShellConfiguration {
         } else if (!users.isPresent()) {
             throw new IllegalArgumentException("Invalid Spark configuration. Either set spark.shell.server.host and spark.shell.server.port in spark.properties or add the auth-spark Spring profile"
                                                + " to application.properties.");
-        } else if (sparkShellProperties.isProxyUser()) {
+        } else if (sparkShellProperties.isProxyUser() || sparkShellProperties.getPoolSize() > 0) {
             return new MultiUserProcessManager(sparkShellProperties, kerberosProperties, users.get());
         } else {
             return new DefaultProcessManager(sparkShellProperties, kerberosProperties, users.get());
@@ -62,6 +62,11 @@ public class SparkShellProperties {
      */
     private String master = "yarn";
 
+    /**
+     * Number of idle processes to keep started
+     */
+    private int poolSize = 0;
+
     /**
      * Maximum port number
      */
@@ -181,6 +186,14 @@ public class SparkShellProperties {
         this.master = master;
     }
 
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
     public int getPortMax() {
         return portMax;
     }
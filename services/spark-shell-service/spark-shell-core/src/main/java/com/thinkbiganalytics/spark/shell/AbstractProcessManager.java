@@ -66,7 +66,7 @@ public abstract class AbstractProcessManager implements ApplicationRunner, Spark
      * Thread pool for starting and managing processes
      */
     @Nonnull
-    private final ScheduledExecutorService executor;
+    protected final ScheduledExecutorService executor;
 
     /**
      * Kerberos configuration for Spark Shell client
@@ -90,7 +90,7 @@ public abstract class AbstractProcessManager implements ApplicationRunner, Spark
      * Username to password mapping
      */
     @Nonnull
-    private final Properties users;
+    protected final Properties users;
 
     /**
      * Constructs an {@code AbstractProcessManager} with the specified configuration.
@@ -190,9 +190,9 @@ public abstract class AbstractProcessManager implements ApplicationRunner, Spark
             launcherProcess.removeListener(this);
             users.remove(launcherProcess.getClientId());
 
-            if (launcherProcess.getUsername() == null) {
+            if (launcherProcess == systemProcess) {
                 systemProcess = null;
-            } else {
+            } else if (launcherProcess.getUsername() != null) {
                 setProcessForUser(launcherProcess.getUsername(), null);
             }
         }
@@ -224,16 +224,8 @@ public abstract class AbstractProcessManager implements ApplicationRunner, Spark
     @Override
     public void start(@Nonnull final String username) {
         if (!getProcessByUsername(username).isPresent()) {
-            final SparkLauncherSparkShellProcess process;
-            try {
-                process = createProcessBuilder(username).build();
-                process.addListener(this);
-                process.setUsername(username);
-                users.put(process.getClientId(), process.getClientSecret());
-            } catch (final IOException e) {
-                log.error("Failed to start Spark Shell process", e);
-                throw new IllegalStateException("Failed to start Spark Shell process", e);
-            }
+            final SparkLauncherSparkShellProcess process = launchProcess(username);
+            process.setUsername(username);
 
             setProcessForUser(username, process);
             listeners.forEach(listener -> listener.processStarted(process));
@@ -296,6 +288,29 @@ public abstract class AbstractProcessManager implements ApplicationRunner, Spark
         return builder;
     }
 
+    /**
+     * Launches a new Spark Shell client process for the specified user.
+     *
+     * <p>The process is not associated with the user until {@link SparkLauncherSparkShellProcess#setUsername(String)} is called.</p>
+     *
+     * @param username the name of the user, or {@code null} if the user is not yet known
+     * @return the Spark Shell process
+     * @throws IllegalStateException if the process cannot be started
+     */
+    @Nonnull
+    protected SparkLauncherSparkShellProcess launchProcess(@Nullable final String username) {
+        final SparkLauncherSparkShellProcess process;
+        try {
+            process = createProcessBuilder(username).build();
+            process.addListener(this);
+            users.put(process.getClientId(), process.getClientSecret());
+        } catch (final IOException e) {
+            log.error("Failed to start Spark Shell process", e);
+            throw new IllegalStateException("Failed to start Spark Shell process", e);
+        }
+        return process;
+    }
+
     /**
      * Gets the Spark Shell process with the specified client identifier.
      *
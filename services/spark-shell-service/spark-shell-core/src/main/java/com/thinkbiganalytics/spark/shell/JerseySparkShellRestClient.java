@@ -31,6 +31,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -101,6 +102,12 @@ public class JerseySparkShellRestClient implements SparkShellRestClient {
         return getResult(process, table, QUERY_PATH);
     }
 
+    @Nonnull
+    @Override
+    public Optional<Response> getQueryRows(@Nonnull final SparkShellProcess process, @Nonnull final String id, final int start, final int limit) {
+        return getRows(process, id, start, limit, QUERY_PATH);
+    }
+
     @Nonnull
     @Override
     public Optional<SaveResponse> getQuerySave(@Nonnull final SparkShellProcess process, @Nonnull final String queryId, @Nonnull final String saveId) {
@@ -113,6 +120,12 @@ public class JerseySparkShellRestClient implements SparkShellRestClient {
         return getResult(process, table, TRANSFORM_PATH);
     }
 
+    @Nonnull
+    @Override
+    public Optional<Response> getTransformRows(@Nonnull final SparkShellProcess process, @Nonnull final String table, final int start, final int limit) {
+        return getRows(process, table, start, limit, TRANSFORM_PATH);
+    }
+
     @Nonnull
     @Override
     public Optional<SaveResponse> getTransformSave(@Nonnull final SparkShellProcess process, @Nonnull final String transformId, @Nonnull final String saveId) {
@@ -238,6 +251,38 @@ public class JerseySparkShellRestClient implements SparkShellRestClient {
         }
     }
 
+    /**
+     * Gets a page of rows from the result of the specified transformation.
+     *
+     * @param process Spark Shell process
+     * @param table   table ID
+     * @param start   index of the first row
+     * @param limit   maximum number of rows
+     * @param path    Spark Shell REST API path
+     * @return the unread response, if the table exists
+     */
+    @Nonnull
+    private Optional<Response> getRows(@Nonnull final SparkShellProcess process, @Nonnull final String table, final int start, final int limit, @Nonnull final String path) {
+        // Validate arguments
+        if (!TABLE_PATTERN.matcher(table).matches()) {
+            return Optional.empty();
+        }
+
+        // Query Spark Shell process
+        final String fullPath = String.format("%s/%s/rows", path, table);
+        final Map<String, Object> params = new HashMap<>();
+        params.put("start", start);
+        params.put("limit", limit);
+
+        final Response response = getClient(process).getWithHeaders(fullPath, new MultivaluedHashMap<>(), params, Response.class);
+        if (response.getStatus() == Response.Status.NOT_FOUND.getStatusCode()) {
+            response.close();
+            return Optional.empty();
+        } else {
+            return Optional.of(response);
+        }
+    }
+
     /**
      * Gets the result of the specified save.
      *
@@ -23,6 +23,7 @@ package com.thinkbiganalytics.spark.shell;
 import com.google.common.collect.ImmutableList;
 import com.thinkbiganalytics.spark.conf.model.KerberosSparkProperties;
 import com.thinkbiganalytics.spark.conf.model.SparkShellProperties;
+import com.thinkbiganalytics.spark.rest.model.RegistrationRequest;
 
 import org.apache.commons.exec.CommandLine;
 import org.apache.commons.exec.DefaultExecutor;
@@ -34,20 +35,30 @@ import org.apache.commons.lang3.StringUtils;
 import org.joda.time.DateTimeUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 /**
  * Manages a separate Kylo Spark Shell process for each user.
+ *
+ * <p>When {@code spark.shell.poolSize} is set, a pool of idle processes is kept started and a process is taken from the pool when a user first needs one. Idle processes are
+ * stopped by the Spark Shell client after the idle timeout, the same as user processes, and replaced in the background. The pool cannot be used with user impersonation as
+ * the proxy user is fixed when the process is launched.</p>
  */
 public class MultiUserProcessManager extends AbstractProcessManager {
 
@@ -64,6 +75,53 @@ public class MultiUserProcessManager extends AbstractProcessManager {
      */
     private long kerberosNextInit;
 
+    /**
+     * Maps client identifiers to the time the process was launched, until the process registers
+     */
+    @Nonnull
+    private final Map<String, Long> launchTimes = new ConcurrentHashMap<>();
+
+    /**
+     * Idle Spark Shell processes not yet associated with a user
+     */
+    @Nonnull
+    private final Queue<SparkLauncherSparkShellProcess> pool = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Number of idle processes being launched but not yet added to the pool
+     */
+    @Nonnull
+    private final AtomicInteger poolLaunchCount = new AtomicInteger();
+
+    /**
+     * Number of user requests served by an idle process
+     */
+    @Nonnull
+    private final AtomicLong poolHitCount = new AtomicLong();
+
+    /**
+     * Number of user requests that required launching a new process
+     */
+    @Nonnull
+    private final AtomicLong poolMissCount = new AtomicLong();
+
+    /**
+     * Number of idle processes to keep started
+     */
+    private final int poolSize;
+
+    /**
+     * Number of processes that finished starting up
+     */
+    @Nonnull
+    private final AtomicLong startupCount = new AtomicLong();
+
+    /**
+     * Total time in milliseconds for processes to start up
+     */
+    @Nonnull
+    private final AtomicLong startupTime = new AtomicLong();
+
     /**
      * Maps usernames to a Spark Shell process
      */
@@ -86,6 +144,45 @@ public class MultiUserProcessManager extends AbstractProcessManager {
     public MultiUserProcessManager(@Nonnull final SparkShellProperties sparkShellProperties, @Nonnull final KerberosSparkProperties kerberosProperties, @Nonnull final Properties users) {
         super(sparkShellProperties, kerberosProperties, users);
         usernameSuffix = StringUtils.isNotEmpty(kerberosProperties.getRealm()) ? kerberosProperties.getRealm() : "";
+
+        if (sparkShellProperties.getPoolSize() > 0 && sparkShellProperties.isProxyUser()) {
+            log.warn("Ignoring spark.shell.poolSize as it is not supported with spark.shell.proxyUser.");
+            poolSize = 0;
+        } else {
+            poolSize = Math.max(sparkShellProperties.getPoolSize(), 0);
+        }
+    }
+
+    /**
+     * Gets the number of user requests that were served by an idle process.
+     */
+    public long getPoolHitCount() {
+        return poolHitCount.get();
+    }
+
+    /**
+     * Gets the number of user requests that required launching a new process.
+     */
+    public long getPoolMissCount() {
+        return poolMissCount.get();
+    }
+
+    /**
+     * Gets the number of idle processes that are not yet associated with a user.
+     */
+    public int getPoolSize() {
+        return pool.size();
+    }
+
+    /**
+     * Gets the average time for a process to start up and register with Kylo Services.
+     *
+     * @param unit the time unit for the result
+     * @return the average startup time, or 0 if no process has started
+     */
+    public long getStartupTime(@Nonnull final TimeUnit unit) {
+        final long count = startupCount.get();
+        return (count > 0) ? unit.convert(startupTime.get() / count, TimeUnit.MILLISECONDS) : 0;
     }
 
     @Nonnull
@@ -105,10 +202,76 @@ public class MultiUserProcessManager extends AbstractProcessManager {
         return builder;
     }
 
+    @Override
+    public void processReady(@Nonnull final SparkShellProcess process) {
+        // Idle processes are not announced until associated with a user
+        if (!pool.contains(process)) {
+            super.processReady(process);
+        }
+    }
+
+    @Override
+    public void processStopped(@Nonnull final SparkShellProcess process) {
+        launchTimes.remove(process.getClientId());
+
+        if (pool.remove(process)) {
+            final SparkLauncherSparkShellProcess idleProcess = (SparkLauncherSparkShellProcess) process;
+            idleProcess.removeListener(this);
+            users.remove(idleProcess.getClientId());
+            log.debug("Idle Spark Shell client [{}] stopped", idleProcess.getClientId());
+
+            // Delay replacing processes that failed to start
+            executor.schedule(this::fillPool, idleProcess.isReady() ? 0 : clientProperties.getClientTimeout(), TimeUnit.SECONDS);
+        } else {
+            super.processStopped(process);
+        }
+    }
+
+    @Override
+    public void register(@Nonnull final String clientId, @Nonnull final RegistrationRequest registration) {
+        final Long launchTime = launchTimes.remove(clientId);
+        if (launchTime != null) {
+            final long elapsed = DateTimeUtils.currentTimeMillis() - launchTime;
+            startupCount.incrementAndGet();
+            startupTime.addAndGet(elapsed);
+            log.info("Spark Shell client [{}] started in {} ms", clientId, elapsed);
+        }
+        super.register(clientId, registration);
+    }
+
+    @Override
+    public void run(final ApplicationArguments args) throws Exception {
+        super.run(args);
+        if (poolSize > 0) {
+            executor.execute(this::fillPool);
+        }
+    }
+
+    @Override
+    public synchronized void start(@Nonnull final String username) {
+        if (poolSize > 0 && !getProcessByUsername(username).isPresent()) {
+            final Optional<SparkLauncherSparkShellProcess> idleProcess = takeIdleProcess();
+            if (idleProcess.isPresent()) {
+                log.debug("Using idle Spark Shell client [{}] for user: {}", idleProcess.get().getClientId(), username);
+                poolHitCount.incrementAndGet();
+
+                final SparkLauncherSparkShellProcess process = idleProcess.get();
+                process.setUsername(username);
+                setProcessForUser(username, process);
+                processStarted(process);
+            } else {
+                poolMissCount.incrementAndGet();
+            }
+            executor.execute(this::fillPool);
+        }
+        super.start(username);
+    }
+
     @Nonnull
     @Override
     protected Optional<SparkLauncherSparkShellProcess> getProcessByClientId(@Nonnull final String clientId) {
-        return Optional.ofNullable(clientIdMap.get(clientId));
+        final Optional<SparkLauncherSparkShellProcess> process = Optional.ofNullable(clientIdMap.get(clientId));
+        return process.isPresent() ? process : pool.stream().filter(idleProcess -> clientId.equals(idleProcess.getClientId())).findFirst();
     }
 
     @Nonnull
@@ -117,6 +280,15 @@ public class MultiUserProcessManager extends AbstractProcessManager {
         return Optional.ofNullable(userMap.get(username));
     }
 
+    @Nonnull
+    @Override
+    protected SparkLauncherSparkShellProcess launchProcess(@Nullable final String username) {
+        final long launchTime = DateTimeUtils.currentTimeMillis();
+        final SparkLauncherSparkShellProcess process = super.launchProcess(username);
+        launchTimes.put(process.getClientId(), launchTime);
+        return process;
+    }
+
     @Override
     protected void setProcessForUser(@Nonnull final String username, @Nullable final SparkLauncherSparkShellProcess process) {
         if (process == null) {
@@ -131,6 +303,56 @@ public class MultiUserProcessManager extends AbstractProcessManager {
         }
     }
 
+    @Override
+    void shutdown() throws InterruptedException {
+        // Stop idle processes without replacing them
+        final List<SparkLauncherSparkShellProcess> idleProcesses = new ArrayList<>(pool);
+        pool.clear();
+        idleProcesses.forEach(SparkLauncherSparkShellProcess::destroy);
+
+        super.shutdown();
+    }
+
+    /**
+     * Launches new processes until the pool of idle processes is full.
+     *
+     * <p>A slot is reserved before each launch, so concurrent calls do not launch more processes than the pool can hold.</p>
+     */
+    void fillPool() {
+        while (true) {
+            if (pool.size() + poolLaunchCount.incrementAndGet() > poolSize) {
+                poolLaunchCount.decrementAndGet();
+                return;
+            }
+
+            try {
+                final SparkLauncherSparkShellProcess process = launchProcess(null);
+                pool.add(process);
+                log.debug("Started idle Spark Shell client [{}]", process.getClientId());
+            } catch (final IllegalStateException e) {
+                log.warn("Unable to fill the pool of idle Spark Shell processes: {}", e.toString());
+                return;
+            } finally {
+                poolLaunchCount.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Removes an idle process from the pool, preferring one that has finished starting up.
+     *
+     * @return the idle process, if available
+     */
+    @Nonnull
+    private Optional<SparkLauncherSparkShellProcess> takeIdleProcess() {
+        for (final SparkLauncherSparkShellProcess process : pool) {
+            if (process.isReady() && pool.remove(process)) {
+                return Optional.of(process);
+            }
+        }
+        return Optional.ofNullable(pool.poll());
+    }
+
     /**
      * Calls kinit to request a new Kerberos ticket if the previous one is about to expire.
      */
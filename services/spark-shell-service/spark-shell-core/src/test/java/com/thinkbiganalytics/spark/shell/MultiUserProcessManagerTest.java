@@ -0,0 +1,279 @@
+package com.thinkbiganalytics.spark.shell;
+
+/*-
+ * #%L
+ * Spark Shell Core
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.spark.conf.model.KerberosSparkProperties;
+import com.thinkbiganalytics.spark.conf.model.SparkShellProperties;
+import com.thinkbiganalytics.spark.rest.model.RegistrationRequest;
+
+import org.apache.spark.launcher.SparkAppHandle;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+public class MultiUserProcessManagerTest {
+
+    /**
+     * Username for testing
+     */
+    private static final String USERNAME = "myuser";
+
+    /**
+     * Spark Shell client properties for testing
+     */
+    private SparkShellProperties clientProperties;
+
+    /**
+     * Number of processes launched
+     */
+    private final AtomicInteger launchCount = new AtomicInteger();
+
+    /**
+     * Mock process manager
+     */
+    private MockProcessManager processManager;
+
+    /**
+     * Mock user to password mapping
+     */
+    private final Properties users = new Properties();
+
+    /**
+     * Set up test environment.
+     */
+    @Before
+    public void setUp() {
+        clientProperties = new SparkShellProperties();
+        clientProperties.setClientTimeout(5);
+        clientProperties.setPoolSize(1);
+    }
+
+    /**
+     * Clean up test environment.
+     */
+    @After
+    public void cleanUp() throws Exception {
+        if (processManager != null) {
+            processManager.shutdown();
+        }
+    }
+
+    /**
+     * Verify a user is given an idle process from the pool.
+     */
+    @Test
+    public void testPoolHit() throws Exception {
+        processManager = new MockProcessManager(clientProperties, users);
+        processManager.run(null);
+        awaitPoolSize(1);
+
+        // Register idle process
+        final SparkLauncherSparkShellProcess idleProcess = processManager.getProcessByClientId("CLIENT_1").orElseThrow(IllegalStateException::new);
+        processManager.register("CLIENT_1", registration());
+        Assert.assertTrue("Idle process should be ready", idleProcess.isReady());
+        Assert.assertTrue("Idle process should not be visible", processManager.getProcesses().isEmpty());
+
+        // Get user process
+        Assert.assertEquals(idleProcess, processManager.getProcessForUser(USERNAME));
+        Assert.assertEquals(USERNAME, idleProcess.getUsername());
+        Assert.assertEquals(1, processManager.getPoolHitCount());
+        Assert.assertEquals(0, processManager.getPoolMissCount());
+        Assert.assertEquals(1, processManager.getProcesses().size());
+
+        // Verify pool is refilled
+        awaitPoolSize(1);
+        Assert.assertEquals(2, launchCount.get());
+    }
+
+    /**
+     * Verify a new process is launched when the pool is empty.
+     */
+    @Test
+    public void testPoolMiss() throws Exception {
+        processManager = new MockProcessManager(clientProperties, users) {
+            @Override
+            public void start(@Nonnull final String username) {
+                super.start(username);
+                final String clientId = getProcessByUsername(username).orElseThrow(IllegalStateException::new).getClientId();
+                register(clientId, registration());
+            }
+        };
+
+        // Get user process before the pool is filled
+        final SparkShellProcess process = processManager.getProcessForUser(USERNAME);
+        Assert.assertEquals(0, processManager.getPoolHitCount());
+        Assert.assertEquals(1, processManager.getPoolMissCount());
+        Assert.assertEquals(USERNAME, ((SparkLauncherSparkShellProcess) process).getUsername());
+
+        awaitPoolSize(1);
+        Assert.assertEquals(2, launchCount.get());
+    }
+
+    /**
+     * Verify an idle process is replaced after it stops.
+     */
+    @Test
+    public void testPoolExpired() throws Exception {
+        processManager = new MockProcessManager(clientProperties, users);
+        processManager.run(null);
+        awaitPoolSize(1);
+
+        final SparkLauncherSparkShellProcess idleProcess = processManager.getProcessByClientId("CLIENT_1").orElseThrow(IllegalStateException::new);
+        processManager.register("CLIENT_1", registration());
+        idleProcess.stateChanged(null);
+        Assert.assertFalse("User should have been removed", users.containsKey("CLIENT_1"));
+
+        awaitPoolSize(1);
+        Assert.assertTrue(processManager.getProcessByClientId("CLIENT_2").isPresent());
+    }
+
+    /**
+     * Verify concurrent requests to fill the pool do not launch more processes than the pool holds.
+     */
+    @Test
+    public void testConcurrentFillPool() throws Exception {
+        clientProperties.setPoolSize(2);
+        processManager = new MockProcessManager(clientProperties, users) {
+            @Nonnull
+            @Override
+            protected SparkLauncherSparkShellProcess launchProcess(@Nullable final String username) {
+                // Keep launches in progress long enough to overlap
+                try {
+                    Thread.sleep(50);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.launchProcess(username);
+            }
+        };
+
+        final ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            final CountDownLatch ready = new CountDownLatch(1);
+            final List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < 4; ++i) {
+                results.add(threads.submit(() -> {
+                    ready.await();
+                    processManager.fillPool();
+                    return null;
+                }));
+            }
+            ready.countDown();
+            for (final Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            threads.shutdown();
+        }
+
+        Assert.assertEquals(2, processManager.getPoolSize());
+        Assert.assertEquals(2, launchCount.get());
+    }
+
+    /**
+     * Verify the pool is disabled with user impersonation.
+     */
+    @Test
+    public void testProxyUser() throws Exception {
+        clientProperties.setProxyUser(true);
+        processManager = new MockProcessManager(clientProperties, users);
+        processManager.run(null);
+
+        Thread.sleep(100);
+        Assert.assertEquals(0, processManager.getPoolSize());
+        Assert.assertEquals(0, launchCount.get());
+    }
+
+    /**
+     * Waits for the pool to contain the specified number of idle processes.
+     */
+    private void awaitPoolSize(final int size) throws InterruptedException {
+        for (int i = 0; i < 100 && processManager.getPoolSize() != size; ++i) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(size, processManager.getPoolSize());
+    }
+
+    /**
+     * Creates a registration request for testing.
+     */
+    @Nonnull
+    private RegistrationRequest registration() {
+        final RegistrationRequest registration = new RegistrationRequest();
+        registration.setHost("client.example.com");
+        registration.setPort(8455);
+        return registration;
+    }
+
+    /**
+     * A mock {@link MultiUserProcessManager} that creates mock {@link SparkLauncherSparkShellProcess} objects.
+     */
+    private class MockProcessManager extends MultiUserProcessManager {
+
+        /**
+         * Constructs a {@code MockProcessManager} with the specified configuration.
+         *
+         * @param properties the client configuration
+         * @param users      the username to password mapping
+         */
+        MockProcessManager(@Nonnull final SparkShellProperties properties, @Nonnull final Properties users) {
+            super(properties, new KerberosSparkProperties(), users);
+        }
+
+        @Nonnull
+        @Override
+        public synchronized SparkShellProcess getSystemProcess() {
+            return Mockito.mock(SparkShellProcess.class);
+        }
+
+        @Nonnull
+        @Override
+        protected SparkShellProcessBuilder createProcessBuilder(@Nullable final String username) {
+            final SparkShellProcessBuilder builder = Mockito.mock(SparkShellProcessBuilder.class);
+            try {
+                Mockito.when(builder.build()).thenAnswer(invocation -> {
+                    final SparkAppHandle handle = Mockito.mock(SparkAppHandle.class);
+                    Mockito.when(handle.getState()).thenReturn(SparkAppHandle.State.FINISHED);
+                    return new SparkLauncherSparkShellProcess(handle, "CLIENT_" + launchCount.incrementAndGet(), "SECRET", clientProperties.getClientTimeout(), TimeUnit.SECONDS);
+                });
+            } catch (IOException e) {
+                // ignored
+            }
+            return builder;
+        }
+    }
+}
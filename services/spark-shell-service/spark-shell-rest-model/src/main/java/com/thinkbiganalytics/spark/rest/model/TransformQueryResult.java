@@ -21,6 +21,7 @@ package com.thinkbiganalytics.spark.rest.model;
  */
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.thinkbiganalytics.discovery.model.DefaultQueryResultColumn;
@@ -40,6 +41,9 @@ public class TransformQueryResult {
 
     private List<List<Object>> rows;
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer totalRows;
+
     private List<List<TransformValidationResult>> validationResults;
 
     /**
@@ -68,6 +72,19 @@ public class TransformQueryResult {
         this.rows = rows;
     }
 
+    /**
+     * Gets the total number of rows in the result when only a page of rows is included.
+     *
+     * @return the total number of rows, or {@code null} if all rows are included
+     */
+    public Integer getTotalRows() {
+        return totalRows;
+    }
+
+    public void setTotalRows(Integer totalRows) {
+        this.totalRows = totalRows;
+    }
+
     /**
      * Gets the list of validation results for each row.
      */
@@ -41,6 +41,11 @@ public class TransformRequest {
      */
     private List<Datasource> datasources;
 
+    /**
+     * Maximum number of rows to include in the response
+     */
+    private Integer pageSize;
+
     /**
      * Previous transformation result
      */
@@ -56,6 +61,11 @@ public class TransformRequest {
      */
     private String script;
 
+    /**
+     * Integer column for reading a SQL query in parallel partitions
+     */
+    private String splitColumn;
+
     /**
      * Indicates the transformation should be cached for asynchronous requests
      */
@@ -85,6 +95,24 @@ public class TransformRequest {
         this.datasources = datasources;
     }
 
+    /**
+     * Gets the maximum number of rows to include in the response. The remaining rows may be fetched a page at a time.
+     *
+     * @return the page size, or {@code null} to include all rows
+     */
+    public Integer getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Sets the maximum number of rows to include in the response.
+     *
+     * @param pageSize the page size, or {@code null} to include all rows
+     */
+    public void setPageSize(final Integer pageSize) {
+        this.pageSize = pageSize;
+    }
+
     /**
      * Gets the previous transformation result.
      *
@@ -132,6 +160,24 @@ public class TransformRequest {
         this.script = script;
     }
 
+    /**
+     * Gets the integer column for reading a SQL query in parallel partitions. If not set, the primary key or another integer column is used.
+     *
+     * @return the column label, or {@code null} to find a column
+     */
+    public String getSplitColumn() {
+        return splitColumn;
+    }
+
+    /**
+     * Sets the integer column for reading a SQL query in parallel partitions.
+     *
+     * @param splitColumn the column label, or {@code null} to find a column
+     */
+    public void setSplitColumn(final String splitColumn) {
+        this.splitColumn = splitColumn;
+    }
+
     /**
      * Results of a previous transformation.
      */